@@ -0,0 +1,378 @@
+package org.opengis.cite.geomatics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.sis.geometry.GeneralEnvelope;
+import org.apache.sis.referencing.CommonCRS;
+
+import org.opengis.cite.geomatics.gml.CoordinateTextParser;
+import org.opengis.cite.geomatics.gml.GmlUtils;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.geometry.Envelope;
+import org.opengis.geometry.MismatchedDimensionException;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.util.FactoryException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Reads and writes common representations of bounding boxes:
+ * <ul>
+ * <li>ows:BoundingBox and ows:WGS84BoundingBox (OGC 06-121r9, 10.2);</li>
+ * <li>gml:Envelope;</li>
+ * <li>a BBOX query parameter value (KVP syntax, OGC 06-121r9, 10.2.3).</li>
+ * </ul>
+ * XML representations may be read from a DOM node or an XMLStreamReader. The corner
+ * positions are parsed into a reusable buffer, and CRS definitions are obtained from
+ * {@link GeodesyUtils#lookupCRS(String)}, so reading a sequence of bounding boxes only
+ * creates the resulting envelopes. If no CRS reference is given, WGS 84 with (lon,lat)
+ * axis order is assumed.
+ *
+ * <p>
+ * An instance can be reused but is not thread-safe.
+ * </p>
+ */
+public final class BoundingBoxCodec {
+
+	/** OWS 2.0 namespace. */
+	public static final String OWS_NS = "http://www.opengis.net/ows/2.0";
+
+	private static final String CRSREF_OWS = "crs";
+
+	private static final String CRSREF_GML = "srsName";
+
+	private static final EnvelopeWriter XML_WRITER = new EnvelopeWriter();
+
+	private final CoordinateTextParser parser = new CoordinateTextParser();
+
+	private double[] ordinates = new double[8];
+
+	private int count;
+
+	/**
+	 * Reads a bounding box represented in XML (ows:BoundingBox, ows:WGS84BoundingBox, or
+	 * gml:Envelope).
+	 * @param bboxNode A DOM Node (Document or Element) representing a bounding box.
+	 * @return An envelope defining a spatial extent in some coordinate reference system.
+	 * @throws FactoryException If an unrecognized CRS reference is encountered or a
+	 * corresponding CoordinateReferenceSystem cannot be constructed.
+	 */
+	public GeneralEnvelope read(Node bboxNode) throws FactoryException {
+		String[] text = readText(bboxNode);
+		return createEnvelope(text[0], text[1], text[2]);
+	}
+
+	/**
+	 * Reads a sequence of bounding boxes represented in XML.
+	 * @param bboxNodes A list of elements representing bounding boxes.
+	 * @return A list of envelopes (in the same order as the nodes).
+	 * @throws FactoryException If an unrecognized CRS reference is encountered or a
+	 * corresponding CoordinateReferenceSystem cannot be constructed.
+	 */
+	public List<GeneralEnvelope> readAll(NodeList bboxNodes) throws FactoryException {
+		List<GeneralEnvelope> envelopes = new ArrayList<GeneralEnvelope>(bboxNodes.getLength());
+		for (int i = 0; i < bboxNodes.getLength(); i++) {
+			envelopes.add(read(bboxNodes.item(i)));
+		}
+		return envelopes;
+	}
+
+	/**
+	 * Reads a bounding box from an XML stream. The reader must be positioned at the start
+	 * tag of the bounding box element; upon return it is positioned at the corresponding
+	 * end tag.
+	 * @param reader An XMLStreamReader.
+	 * @return An envelope defining a spatial extent in some coordinate reference system.
+	 * @throws XMLStreamException If the content is not well-formed.
+	 * @throws FactoryException If an unrecognized CRS reference is encountered or a
+	 * corresponding CoordinateReferenceSystem cannot be constructed.
+	 */
+	public GeneralEnvelope read(XMLStreamReader reader) throws XMLStreamException, FactoryException {
+		reader.require(XMLStreamConstants.START_ELEMENT, null, null);
+		String crsRef = reader.getAttributeValue(null, CRSREF_OWS);
+		if (null == crsRef) {
+			crsRef = reader.getAttributeValue(null, CRSREF_GML);
+		}
+		count = 0;
+		int lowerStart = -1;
+		int upperStart = -1;
+		int depth = 1;
+		while (depth > 0) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				if (depth == 1 && isLowerCorner(reader.getLocalName())) {
+					lowerStart = count;
+					append(reader.getElementText());
+				}
+				else if (depth == 1 && isUpperCorner(reader.getLocalName())) {
+					upperStart = count;
+					append(reader.getElementText());
+				}
+				else {
+					depth++;
+				}
+			}
+			else if (event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+		}
+		if (lowerStart < 0 || upperStart < 0) {
+			throw new IllegalArgumentException("Missing corner position in " + reader.getName());
+		}
+		int dim = Math.abs(upperStart - lowerStart);
+		if (count != 2 * dim) {
+			throw new MismatchedDimensionException("Corner positions have different dimensions.");
+		}
+		return newEnvelope((null != crsRef) ? crsRef : "", lowerStart, upperStart, dim);
+	}
+
+	/**
+	 * Reads all bounding boxes in an XML stream (ows:BoundingBox, ows:WGS84BoundingBox,
+	 * and gml:Envelope elements). The reader is advanced to the end of the stream.
+	 * @param reader An XMLStreamReader.
+	 * @return A list of envelopes (in document order).
+	 * @throws XMLStreamException If the content is not well-formed.
+	 * @throws FactoryException If an unrecognized CRS reference is encountered or a
+	 * corresponding CoordinateReferenceSystem cannot be constructed.
+	 */
+	public List<GeneralEnvelope> readAll(XMLStreamReader reader) throws XMLStreamException, FactoryException {
+		List<GeneralEnvelope> envelopes = new ArrayList<GeneralEnvelope>();
+		while (reader.hasNext()) {
+			if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+				continue;
+			}
+			String localName = reader.getLocalName();
+			if (localName.equals("BoundingBox") || localName.equals("WGS84BoundingBox")
+					|| (localName.equals("Envelope") && GmlUtils.GML_NS.equals(reader.getNamespaceURI()))) {
+				envelopes.add(read(reader));
+			}
+		}
+		return envelopes;
+	}
+
+	/**
+	 * Parses a BBOX query parameter value. The value consists of the coordinates of the
+	 * lower corner, the coordinates of the upper corner, and (optionally) a CRS
+	 * reference, separated by commas.
+	 * @param kvp A comma-separated list of values (e.g.
+	 * "49.25,-123.1,50.0,-122.5,urn:ogc:def:crs:EPSG::4326").
+	 * @return An envelope defining a spatial extent in some coordinate reference system.
+	 * @throws FactoryException If an unrecognized CRS reference is encountered or a
+	 * corresponding CoordinateReferenceSystem cannot be constructed.
+	 *
+	 * @see Extents#envelopeToString(Envelope)
+	 */
+	public GeneralEnvelope parseKVP(CharSequence kvp) throws FactoryException {
+		count = 0;
+		String crsRef = "";
+		int length = kvp.length();
+		int start = 0;
+		while (start <= length) {
+			int end = start;
+			while (end < length && kvp.charAt(end) != ',') {
+				end++;
+			}
+			int tokenStart = start;
+			int tokenEnd = end;
+			while (tokenStart < tokenEnd && Character.isWhitespace(kvp.charAt(tokenStart))) {
+				tokenStart++;
+			}
+			while (tokenEnd > tokenStart && Character.isWhitespace(kvp.charAt(tokenEnd - 1))) {
+				tokenEnd--;
+			}
+			if (end == length && isCRSReference(kvp, tokenStart, tokenEnd)) {
+				crsRef = kvp.subSequence(tokenStart, tokenEnd).toString();
+			}
+			else {
+				ensureCapacity(count + 1);
+				ordinates[count++] = CoordinateTextParser.parseDouble(kvp, tokenStart, tokenEnd);
+			}
+			start = end + 1;
+		}
+		if (count == 0 || count % 2 != 0) {
+			throw new IllegalArgumentException("Invalid bounding box: " + kvp);
+		}
+		int dim = count / 2;
+		return newEnvelope(crsRef, 0, dim, dim);
+	}
+
+	/**
+	 * Creates an envelope from the text content of the corner positions.
+	 * @param crsRef A CRS reference (an empty string denotes CRS84).
+	 * @param lowerCorner A sequence of coordinates separated by whitespace.
+	 * @param upperCorner A sequence of coordinates separated by whitespace.
+	 * @return An envelope defining a spatial extent in some coordinate reference system.
+	 * @throws FactoryException If an unrecognized CRS reference is encountered or a
+	 * corresponding CoordinateReferenceSystem cannot be constructed.
+	 */
+	public GeneralEnvelope createEnvelope(String crsRef, CharSequence lowerCorner, CharSequence upperCorner)
+			throws FactoryException {
+		count = 0;
+		int dim = append(lowerCorner);
+		if (append(upperCorner) != dim) {
+			throw new MismatchedDimensionException("Corner positions have different dimensions.");
+		}
+		return newEnvelope(crsRef, 0, dim, dim);
+	}
+
+	/**
+	 * Returns a BBOX query parameter value (KVP syntax) representing the given envelope.
+	 * The CRS reference is omitted if the envelope uses CRS84.
+	 * @param envelope An envelope specifying a geographic extent.
+	 * @return A comma-separated list of values.
+	 *
+	 * @see Extents#envelopeToString(Envelope)
+	 */
+	public static String toKVP(Envelope envelope) {
+		StringBuilder kvp = new StringBuilder();
+		appendKVP(envelope, kvp);
+		return kvp.toString();
+	}
+
+	/**
+	 * Appends a BBOX query parameter value (KVP syntax) representing the given envelope.
+	 * @param envelope An envelope specifying a geographic extent.
+	 * @param kvp The buffer to which the value is appended.
+	 */
+	public static void appendKVP(Envelope envelope, StringBuilder kvp) {
+		DirectPosition lowerCorner = envelope.getLowerCorner();
+		DirectPosition upperCorner = envelope.getUpperCorner();
+		int dim = envelope.getDimension();
+		for (int i = 0; i < dim; i++) {
+			kvp.append(lowerCorner.getOrdinate(i)).append(',');
+		}
+		for (int i = 0; i < dim; i++) {
+			if (i > 0) {
+				kvp.append(',');
+			}
+			kvp.append(upperCorner.getOrdinate(i));
+		}
+		CoordinateReferenceSystem crs = envelope.getCoordinateReferenceSystem();
+		if (!crs.equals(CommonCRS.defaultGeographic())) {
+			kvp.append(',').append(GeodesyUtils.getCRSIdentifier(crs));
+		}
+	}
+
+	/**
+	 * Writes an XML representation of the given envelope. If the namespace is the GML
+	 * namespace, a gml:Envelope element is written. Otherwise an ows:WGS84BoundingBox
+	 * element is written if the envelope uses CRS84, or an ows:BoundingBox element in
+	 * any other case.
+	 * @param envelope An envelope specifying a spatial extent.
+	 * @param writer An XMLStreamWriter.
+	 * @param namespaceURI The namespace of the bounding box element (GML or OWS).
+	 * @throws XMLStreamException If the content cannot be written.
+	 */
+	public static void write(Envelope envelope, XMLStreamWriter writer, String namespaceURI)
+			throws XMLStreamException {
+		XML_WRITER.write(envelope, writer, namespaceURI);
+	}
+
+	/**
+	 * Reads the CRS reference and the corner positions of a bounding box represented in
+	 * XML.
+	 * @param bboxNode A DOM Node (Document or Element) representing a bounding box.
+	 * @return An array containing the CRS reference (possibly empty), the lower corner,
+	 * and the upper corner.
+	 */
+	static String[] readText(Node bboxNode) {
+		Element bbox;
+		if (bboxNode.getNodeType() == Node.DOCUMENT_NODE) {
+			bbox = ((Document) bboxNode).getDocumentElement();
+		}
+		else {
+			bbox = (Element) bboxNode;
+		}
+		String crsRef = bbox.hasAttribute(CRSREF_OWS) ? bbox.getAttribute(CRSREF_OWS) : bbox.getAttribute(CRSREF_GML);
+		String lowerCorner = null;
+		String upperCorner = null;
+		for (Node child = bbox.getFirstChild(); null != child; child = child.getNextSibling()) {
+			if (child.getNodeType() != Node.ELEMENT_NODE) {
+				continue;
+			}
+			if (isLowerCorner(child.getLocalName())) {
+				lowerCorner = child.getTextContent();
+			}
+			else if (isUpperCorner(child.getLocalName())) {
+				upperCorner = child.getTextContent();
+			}
+		}
+		if (null == lowerCorner || null == upperCorner) {
+			throw new IllegalArgumentException("Missing corner position in " + bbox.getNodeName());
+		}
+		return new String[] { crsRef, lowerCorner, upperCorner };
+	}
+
+	/**
+	 * Returns the CRS identified by the given reference; an empty reference denotes WGS
+	 * 84 with (lon,lat) axis order.
+	 */
+	static CoordinateReferenceSystem resolveCRS(String crsRef) throws FactoryException {
+		if (crsRef.isEmpty()) {
+			return CommonCRS.defaultGeographic();
+		}
+		return GeodesyUtils.lookupCRS(crsRef);
+	}
+
+	private GeneralEnvelope newEnvelope(String crsRef, int lowerStart, int upperStart, int dim)
+			throws FactoryException {
+		CoordinateReferenceSystem crs = resolveCRS(crsRef);
+		int crsDim = crs.getCoordinateSystem().getDimension();
+		if (dim != crsDim) {
+			throw new MismatchedDimensionException(
+					String.format("Bounding box has dimension %d but CRS has dimension %d.", dim, crsDim));
+		}
+		GeneralEnvelope envelope = new GeneralEnvelope(crs);
+		for (int i = 0; i < dim; i++) {
+			envelope.setRange(i, ordinates[lowerStart + i], ordinates[upperStart + i]);
+		}
+		return envelope;
+	}
+
+	/**
+	 * Appends the coordinates in the given text to the buffer.
+	 * @return The number of coordinates read.
+	 */
+	private int append(CharSequence text) {
+		int start = count;
+		parser.reset(text);
+		while (parser.hasNext()) {
+			ensureCapacity(count + 1);
+			ordinates[count++] = parser.nextDouble();
+		}
+		return count - start;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > ordinates.length) {
+			ordinates = Arrays.copyOf(ordinates, Math.max(capacity, 2 * ordinates.length));
+		}
+	}
+
+	private static boolean isCRSReference(CharSequence kvp, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (kvp.charAt(i) == ':') {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isLowerCorner(String localName) {
+		return localName.equals("LowerCorner") || localName.equals("lowerCorner");
+	}
+
+	private static boolean isUpperCorner(String localName) {
+		return localName.equals("UpperCorner") || localName.equals("upperCorner");
+	}
+
+}
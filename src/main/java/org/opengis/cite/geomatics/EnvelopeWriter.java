@@ -0,0 +1,452 @@
+package org.opengis.cite.geomatics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.sis.referencing.CommonCRS;
+
+import org.opengis.cite.geomatics.gml.GmlUtils;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.geometry.Envelope;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+/**
+ * Writes XML representations of envelopes (gml:Envelope, ows:BoundingBox, or
+ * ows:WGS84BoundingBox) to an XMLStreamWriter or directly to an Appendable, without
+ * building a DOM tree. Envelopes in the OWS namespace that use CRS84 are written as
+ * ows:WGS84BoundingBox elements. Many envelopes can be written into one document
+ * (batch mode); the namespace declarations then appear only on the container element.
+ *
+ * <p>
+ * By default coordinates are written in full precision (the shortest representation
+ * that is converted back to the same double value). Otherwise they are rounded to the
+ * specified number of fraction digits using the given rounding mode, and trailing zeros
+ * are omitted (as with the DecimalFormat pattern "#.##"). Instances are immutable and
+ * thread-safe.
+ * </p>
+ */
+public final class EnvelopeWriter {
+
+	private static final String OWS_PREFIX = "ows";
+
+	private static final String GML_PREFIX = "gml";
+
+	private static final long[] POWERS_OF_TEN = { 1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L,
+			100000000L, 1000000000L, 10000000000L, 100000000000L, 1000000000000L, 10000000000000L,
+			100000000000000L, 1000000000000000L, 10000000000000000L, 100000000000000000L,
+			1000000000000000000L };
+
+	/** Magnitude from which Double.toString uses computerized scientific notation. */
+	private static final double MIN_SCIENTIFIC = 1e7;
+
+	/** Limit of the fast path for rounded values (beyond it BigDecimal is used). */
+	private static final double MAX_SCALED_VALUE = 1e15;
+
+	private final int fractionDigits;
+
+	private final RoundingMode roundingMode;
+
+	/**
+	 * Creates a writer that writes coordinates in full precision.
+	 */
+	public EnvelopeWriter() {
+		this.fractionDigits = -1;
+		this.roundingMode = RoundingMode.HALF_EVEN;
+	}
+
+	/**
+	 * Creates a writer that rounds coordinates to the given number of fraction digits.
+	 * @param fractionDigits The maximum number of digits after the decimal point (0-18).
+	 * @param roundingMode The rounding mode (e.g. {@link RoundingMode#DOWN} to truncate
+	 * values).
+	 */
+	public EnvelopeWriter(int fractionDigits, RoundingMode roundingMode) {
+		if (fractionDigits < 0 || fractionDigits >= POWERS_OF_TEN.length) {
+			throw new IllegalArgumentException("Invalid number of fraction digits: " + fractionDigits);
+		}
+		this.fractionDigits = fractionDigits;
+		this.roundingMode = roundingMode;
+	}
+
+	/**
+	 * Writes an envelope to an XML stream. The namespace is declared if the prefix is not
+	 * already bound to it.
+	 * @param envelope An envelope specifying a spatial extent.
+	 * @param writer An XMLStreamWriter.
+	 * @param namespaceURI The namespace of the bounding box element (GML or OWS).
+	 * @throws XMLStreamException If the content cannot be written.
+	 */
+	public void write(Envelope envelope, XMLStreamWriter writer, String namespaceURI) throws XMLStreamException {
+		boolean isGml = namespaceURI.equals(GmlUtils.GML_NS);
+		String prefix = isGml ? GML_PREFIX : OWS_PREFIX;
+		String localName = elementName(envelope, isGml);
+		writer.writeStartElement(prefix, localName, namespaceURI);
+		if (!namespaceURI.equals(writer.getNamespaceContext().getNamespaceURI(prefix))) {
+			writer.writeNamespace(prefix, namespaceURI);
+		}
+		if (!localName.equals("WGS84BoundingBox")) {
+			writer.writeAttribute(isGml ? "srsName" : "crs",
+					GeodesyUtils.getCRSIdentifier(envelope.getCoordinateReferenceSystem()));
+		}
+		StringBuilder coords = new StringBuilder();
+		writer.writeStartElement(prefix, isGml ? "lowerCorner" : "LowerCorner", namespaceURI);
+		appendPosition(envelope.getLowerCorner(), coords);
+		writer.writeCharacters(coords.toString());
+		writer.writeEndElement();
+		coords.setLength(0);
+		writer.writeStartElement(prefix, isGml ? "upperCorner" : "UpperCorner", namespaceURI);
+		appendPosition(envelope.getUpperCorner(), coords);
+		writer.writeCharacters(coords.toString());
+		writer.writeEndElement();
+		writer.writeEndElement();
+	}
+
+	/**
+	 * Writes a document containing a sequence of envelopes.
+	 * @param envelopes A sequence of envelopes.
+	 * @param writer An XMLStreamWriter.
+	 * @param container The name of the document element.
+	 * @param namespaceURI The namespace of the bounding box elements (GML or OWS).
+	 * @throws XMLStreamException If the content cannot be written.
+	 */
+	public void writeAll(Iterable<? extends Envelope> envelopes, XMLStreamWriter writer, QName container,
+			String namespaceURI) throws XMLStreamException {
+		String prefix = namespaceURI.equals(GmlUtils.GML_NS) ? GML_PREFIX : OWS_PREFIX;
+		writer.writeStartDocument();
+		writer.writeStartElement(container.getPrefix(), container.getLocalPart(), container.getNamespaceURI());
+		if (!container.getNamespaceURI().isEmpty()) {
+			writer.writeNamespace(container.getPrefix(), container.getNamespaceURI());
+			writer.setPrefix(container.getPrefix(), container.getNamespaceURI());
+		}
+		if (!namespaceURI.equals(container.getNamespaceURI()) || !prefix.equals(container.getPrefix())) {
+			writer.writeNamespace(prefix, namespaceURI);
+			writer.setPrefix(prefix, namespaceURI);
+		}
+		for (Envelope envelope : envelopes) {
+			write(envelope, writer, namespaceURI);
+		}
+		writer.writeEndElement();
+		writer.writeEndDocument();
+	}
+
+	/**
+	 * Appends the XML representation of an envelope (including the namespace
+	 * declaration).
+	 * @param envelope An envelope specifying a spatial extent.
+	 * @param out The destination of the XML content.
+	 * @param namespaceURI The namespace of the bounding box element (GML or OWS).
+	 * @throws IOException If an I/O error occurs.
+	 */
+	public void append(Envelope envelope, Appendable out, String namespaceURI) throws IOException {
+		append(envelope, out, namespaceURI, true);
+	}
+
+	/**
+	 * Appends an XML document containing a sequence of envelopes.
+	 * @param envelopes A sequence of envelopes.
+	 * @param out The destination of the XML content.
+	 * @param container The name of the document element.
+	 * @param namespaceURI The namespace of the bounding box elements (GML or OWS).
+	 * @throws IOException If an I/O error occurs.
+	 */
+	public void appendAll(Iterable<? extends Envelope> envelopes, Appendable out, QName container,
+			String namespaceURI) throws IOException {
+		String prefix = namespaceURI.equals(GmlUtils.GML_NS) ? GML_PREFIX : OWS_PREFIX;
+		String containerName = qualifiedName(container.getPrefix(), container.getLocalPart());
+		out.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		out.append('<').append(containerName);
+		if (!container.getNamespaceURI().isEmpty()) {
+			appendNamespace(container.getPrefix(), container.getNamespaceURI(), out);
+		}
+		if (!namespaceURI.equals(container.getNamespaceURI()) || !prefix.equals(container.getPrefix())) {
+			appendNamespace(prefix, namespaceURI, out);
+		}
+		out.append('>');
+		for (Envelope envelope : envelopes) {
+			append(envelope, out, namespaceURI, false);
+		}
+		out.append("</").append(containerName).append('>');
+	}
+
+	/**
+	 * Appends a BBOX query parameter value (KVP syntax) representing the given envelope.
+	 * The CRS reference is omitted if the envelope uses CRS84.
+	 * @param envelope An envelope specifying a spatial extent.
+	 * @param out The destination of the value.
+	 * @throws IOException If an I/O error occurs.
+	 *
+	 * @see BoundingBoxCodec#parseKVP(CharSequence)
+	 */
+	public void appendKVP(Envelope envelope, Appendable out) throws IOException {
+		DirectPosition lowerCorner = envelope.getLowerCorner();
+		DirectPosition upperCorner = envelope.getUpperCorner();
+		for (int i = 0; i < lowerCorner.getDimension(); i++) {
+			format(lowerCorner.getOrdinate(i), out);
+			out.append(',');
+		}
+		for (int i = 0; i < upperCorner.getDimension(); i++) {
+			if (i > 0) {
+				out.append(',');
+			}
+			format(upperCorner.getOrdinate(i), out);
+		}
+		CoordinateReferenceSystem crs = envelope.getCoordinateReferenceSystem();
+		if (!crs.equals(CommonCRS.defaultGeographic())) {
+			out.append(',').append(GeodesyUtils.getCRSIdentifier(crs));
+		}
+	}
+
+	/**
+	 * Appends the coordinates of a position, separated by spaces.
+	 * @param position A position.
+	 * @param out The buffer to which the coordinates are appended.
+	 */
+	public void appendPosition(DirectPosition position, StringBuilder out) {
+		for (int i = 0; i < position.getDimension(); i++) {
+			if (i > 0) {
+				out.append(' ');
+			}
+			format(position.getOrdinate(i), out);
+		}
+	}
+
+	/**
+	 * Formats a coordinate value.
+	 * @param value A coordinate value.
+	 * @return The formatted value.
+	 */
+	public String format(double value) {
+		StringBuilder str = new StringBuilder(24);
+		format(value, str);
+		return str.toString();
+	}
+
+	/**
+	 * Appends a formatted coordinate value to a buffer.
+	 * @param value A coordinate value.
+	 * @param out The buffer to which the value is appended.
+	 */
+	public void format(double value, StringBuilder out) {
+		try {
+			format(value, (Appendable) out);
+		}
+		catch (IOException e) {
+			// not thrown by StringBuilder
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Appends a formatted coordinate value. The special values are written as INF, -INF
+	 * and NaN (the xsd:double representations).
+	 * @param value A coordinate value.
+	 * @param out The destination of the value.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	public void format(double value, Appendable out) throws IOException {
+		if (Double.isNaN(value)) {
+			out.append("NaN");
+		}
+		else if (Double.isInfinite(value)) {
+			out.append((value > 0) ? "INF" : "-INF");
+		}
+		else if (fractionDigits < 0) {
+			formatShortest(value, out);
+		}
+		else {
+			formatRounded(value, out);
+		}
+	}
+
+	private void formatShortest(double value, Appendable out) throws IOException {
+		if (value == Math.rint(value) && Math.abs(value) < MIN_SCIENTIFIC) {
+			// same as Double.toString (e.g. "12.0")
+			if (value < 0 || (value == 0 && 1 / value < 0)) {
+				out.append('-');
+			}
+			appendDigits(Math.abs((long) value), 0, out);
+			out.append(".0");
+		}
+		else {
+			out.append(Double.toString(value));
+		}
+	}
+
+	private void formatRounded(double value, Appendable out) throws IOException {
+		double scaled = value * POWERS_OF_TEN[fractionDigits];
+		if (Math.abs(scaled) >= MAX_SCALED_VALUE) {
+			out.append(BigDecimal.valueOf(value).setScale(fractionDigits, roundingMode).stripTrailingZeros()
+					.toPlainString());
+			return;
+		}
+		double nearest = Math.rint(scaled);
+		long units;
+		if (nearest / POWERS_OF_TEN[fractionDigits] == value) {
+			// the shortest decimal representation has no more fraction digits
+			units = (long) nearest;
+		}
+		else {
+			// exact rounding error of the multiplication
+			double error = Math.fma(value, POWERS_OF_TEN[fractionDigits], -scaled);
+			units = (long) round(scaled, error);
+		}
+		if (units == 0) {
+			out.append('0');
+			return;
+		}
+		if (units < 0) {
+			out.append('-');
+			units = -units;
+		}
+		long scale = POWERS_OF_TEN[fractionDigits];
+		appendDigits(units / scale, 0, out);
+		long fraction = units % scale;
+		if (fraction != 0) {
+			int digits = fractionDigits;
+			while (fraction % 10 == 0) {
+				fraction /= 10;
+				digits--;
+			}
+			out.append('.');
+			appendDigits(fraction, digits, out);
+		}
+	}
+
+	/**
+	 * Rounds a scaled value to an integer according to the rounding mode. The exact
+	 * product is (scaled + error); since integers and midpoints are representable in this
+	 * range, the error only matters if the scaled value is an integer or a midpoint.
+	 */
+	private double round(double scaled, double error) {
+		double floor = Math.floor(scaled);
+		if (floor == scaled && error < 0) {
+			floor--;
+		}
+		double ceil = Math.ceil(scaled);
+		if (ceil == scaled && error > 0) {
+			ceil++;
+		}
+		double excess = scaled - Math.floor(scaled);
+		boolean tie = excess == 0.5 && error == 0;
+		if (excess == 0.5 && error != 0) {
+			// not a midpoint: the error tells on which side the exact product lies
+			excess = (error > 0) ? 1 : 0;
+		}
+		switch (roundingMode) {
+			case DOWN:
+				return (scaled < 0) ? ceil : floor;
+			case UP:
+				return (scaled < 0) ? floor : ceil;
+			case FLOOR:
+				return floor;
+			case CEILING:
+				return ceil;
+			case HALF_UP:
+				return tie ? ((scaled < 0) ? floor : ceil) : nearest(scaled, excess);
+			case HALF_DOWN:
+				return tie ? ((scaled < 0) ? ceil : floor) : nearest(scaled, excess);
+			case HALF_EVEN:
+				return tie ? Math.rint(scaled) : nearest(scaled, excess);
+			default:
+				throw new ArithmeticException("Rounding necessary: " + scaled / POWERS_OF_TEN[fractionDigits]);
+		}
+	}
+
+	private static double nearest(double scaled, double excess) {
+		return (excess < 0.5) ? Math.floor(scaled) : Math.floor(scaled) + 1;
+	}
+
+	/**
+	 * Appends the decimal digits of a non-negative integer, padded with leading zeros to
+	 * the given minimum width.
+	 */
+	private static void appendDigits(long value, int minWidth, Appendable out) throws IOException {
+		int width = 1;
+		while (width < POWERS_OF_TEN.length && POWERS_OF_TEN[width] <= value) {
+			width++;
+		}
+		for (int i = Math.max(width, minWidth) - 1; i >= 0; i--) {
+			out.append((char) ('0' + (value / POWERS_OF_TEN[i]) % 10));
+		}
+	}
+
+	private void append(Envelope envelope, Appendable out, String namespaceURI, boolean declareNamespace)
+			throws IOException {
+		boolean isGml = namespaceURI.equals(GmlUtils.GML_NS);
+		String prefix = isGml ? GML_PREFIX : OWS_PREFIX;
+		String localName = elementName(envelope, isGml);
+		out.append('<').append(prefix).append(':').append(localName);
+		if (declareNamespace) {
+			appendNamespace(prefix, namespaceURI, out);
+		}
+		if (!localName.equals("WGS84BoundingBox")) {
+			out.append(isGml ? " srsName=\"" : " crs=\"");
+			appendEscaped(GeodesyUtils.getCRSIdentifier(envelope.getCoordinateReferenceSystem()), out);
+			out.append('"');
+		}
+		out.append('>');
+		appendCorner(prefix, isGml ? "lowerCorner" : "LowerCorner", envelope.getLowerCorner(), out);
+		appendCorner(prefix, isGml ? "upperCorner" : "UpperCorner", envelope.getUpperCorner(), out);
+		out.append("</").append(prefix).append(':').append(localName).append('>');
+	}
+
+	private void appendCorner(String prefix, String localName, DirectPosition corner, Appendable out)
+			throws IOException {
+		out.append('<').append(prefix).append(':').append(localName).append('>');
+		for (int i = 0; i < corner.getDimension(); i++) {
+			if (i > 0) {
+				out.append(' ');
+			}
+			format(corner.getOrdinate(i), out);
+		}
+		out.append("</").append(prefix).append(':').append(localName).append('>');
+	}
+
+	private static void appendNamespace(String prefix, String namespaceURI, Appendable out) throws IOException {
+		out.append(" xmlns");
+		if (!prefix.isEmpty()) {
+			out.append(':').append(prefix);
+		}
+		out.append("=\"");
+		appendEscaped(namespaceURI, out);
+		out.append('"');
+	}
+
+	private static void appendEscaped(String value, Appendable out) throws IOException {
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '&':
+					out.append("&amp;");
+					break;
+				case '<':
+					out.append("&lt;");
+					break;
+				case '"':
+					out.append("&quot;");
+					break;
+				default:
+					out.append(c);
+			}
+		}
+	}
+
+	private static String qualifiedName(String prefix, String localName) {
+		return prefix.isEmpty() ? localName : prefix + ':' + localName;
+	}
+
+	private static String elementName(Envelope envelope, boolean isGml) {
+		if (isGml) {
+			return "Envelope";
+		}
+		return envelope.getCoordinateReferenceSystem().equals(CommonCRS.defaultGeographic()) ? "WGS84BoundingBox"
+				: "BoundingBox";
+	}
+
+}
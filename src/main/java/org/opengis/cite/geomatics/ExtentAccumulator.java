@@ -0,0 +1,257 @@
+package org.opengis.cite.geomatics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Unmarshaller;
+
+import org.apache.sis.geometry.Envelopes;
+import org.apache.sis.geometry.GeneralEnvelope;
+import org.apache.sis.xml.MarshallerPool;
+
+import org.geotoolkit.geometry.jts.JTSEnvelope2D;
+import org.geotoolkit.gml.xml.GMLMarshallerPool;
+
+import org.opengis.cite.geomatics.gml.EnvelopeExtractor;
+import org.opengis.cite.geomatics.gml.GeometryClassifier;
+import org.opengis.cite.geomatics.gml.GeometryDescriptor;
+import org.opengis.geometry.Envelope;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.CoordinateOperation;
+import org.opengis.referencing.operation.TransformException;
+import org.opengis.util.FactoryException;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import org.locationtech.jts.geom.Geometry;
+
+/**
+ * Accumulates the total spatial extent of geometries and bounding boxes that arrive
+ * incrementally, such as the pages of a paged (WFS) response. Only the union of the
+ * content in each CRS is retained, so the memory required does not depend on the amount
+ * of content; the DOM of a page can be discarded once it has been added.
+ *
+ * <p>
+ * The running extent is reported in the target CRS: the union for each other CRS is
+ * transformed using a cached coordinate operation (see
+ * {@link GeodesyUtils#findOperation}). If no target CRS is specified, the CRS of the
+ * first content added is used. An instance is thread-safe; content from different
+ * documents can be added concurrently.
+ * </p>
+ */
+public final class ExtentAccumulator {
+
+	/** The union of the content added in each CRS, in order of first appearance. */
+	private final Map<CoordinateReferenceSystem, GeneralEnvelope> unions = new LinkedHashMap<>();
+
+	private final Map<String, CoordinateReferenceSystem> crsMap = new ConcurrentHashMap<>();
+
+	private CoordinateReferenceSystem targetCRS;
+
+	/**
+	 * Creates an accumulator that reports the extent in the CRS of the first content
+	 * added.
+	 */
+	public ExtentAccumulator() {
+	}
+
+	/**
+	 * Creates an accumulator that reports the extent in the given CRS.
+	 * @param targetCRS The CRS of the total extent.
+	 */
+	public ExtentAccumulator(CoordinateReferenceSystem targetCRS) {
+		this.targetCRS = targetCRS;
+	}
+
+	/**
+	 * Adds an envelope.
+	 * @param envelope An envelope specifying a spatial extent; it must have a CRS.
+	 */
+	public void add(Envelope envelope) {
+		CoordinateReferenceSystem crs = envelope.getCoordinateReferenceSystem();
+		if (null == crs) {
+			throw new IllegalArgumentException("Envelope has no CRS.");
+		}
+		synchronized (unions) {
+			GeneralEnvelope union = unions.get(crs);
+			if (null == union) {
+				unions.put(crs, new GeneralEnvelope(envelope));
+				if (null == targetCRS) {
+					targetCRS = crs;
+				}
+			}
+			else {
+				union.add(envelope);
+			}
+		}
+	}
+
+	/**
+	 * Adds a JTS geometry. Empty geometries are ignored.
+	 * @param geom A JTS geometry.
+	 * @param crs The CRS used by the geometry.
+	 */
+	public void add(Geometry geom, CoordinateReferenceSystem crs) {
+		addBounds(geom.getEnvelopeInternal(), crs);
+	}
+
+	/**
+	 * Adds a GML geometry element. The coordinates are scanned directly if possible (see
+	 * {@link EnvelopeExtractor}); otherwise the element is unmarshalled.
+	 * @param geom An Element representing a GML geometry.
+	 * @throws JAXBException If the element cannot be unmarshalled to a geometry object.
+	 */
+	public void addGeometry(Element geom) throws JAXBException {
+		addGeometries(new SingleNodeList(geom));
+	}
+
+	/**
+	 * Adds a collection of GML geometry elements; they may refer to different CRSs. The
+	 * nodes are read on the calling thread.
+	 * @param geomNodes A NodeList containing GML geometry elements.
+	 * @throws JAXBException If a node cannot be unmarshalled to a geometry object.
+	 */
+	public void addGeometries(NodeList geomNodes) throws JAXBException {
+		Map<CoordinateReferenceSystem, org.locationtech.jts.geom.Envelope> bounds = new HashMap<>();
+		EnvelopeExtractor extractor = new EnvelopeExtractor();
+		MarshallerPool pool = GMLMarshallerPool.getInstance();
+		Unmarshaller unmarshaller = null;
+		try {
+			for (int i = 0; i < geomNodes.getLength(); i++) {
+				Element geom = (Element) geomNodes.item(i);
+				GeometryCache.Entry entry = GeometryCache.lookup(geom);
+				if (null == entry) {
+					GeometryDescriptor descriptor = GeometryClassifier.classify(geom);
+					CoordinateReferenceSystem crs = Extents.findCRS(descriptor, crsMap);
+					if (null != crs) {
+						org.locationtech.jts.geom.Envelope envelope = bounds.computeIfAbsent(crs,
+								key -> new org.locationtech.jts.geom.Envelope());
+						if (extractor.expandToInclude(descriptor, crs, envelope)) {
+							continue;
+						}
+					}
+					entry = GeometryCache.lookupStored(geom);
+					if (null == entry) {
+						if (null == unmarshaller) {
+							unmarshaller = pool.acquireUnmarshaller();
+						}
+						Extents.prepareGeometryNode(descriptor);
+						entry = Extents.createJTSGeometry(unmarshaller, geom);
+					}
+				}
+				bounds.computeIfAbsent(entry.getCRS(), key -> new org.locationtech.jts.geom.Envelope())
+					.expandToInclude(entry.getGeometry().getEnvelopeInternal());
+			}
+		}
+		finally {
+			if (null != unmarshaller) {
+				pool.recycle(unmarshaller);
+			}
+		}
+		for (Map.Entry<CoordinateReferenceSystem, org.locationtech.jts.geom.Envelope> entry : bounds.entrySet()) {
+			addBounds(entry.getValue(), entry.getKey());
+		}
+	}
+
+	/**
+	 * Adds a bounding box (ows:BoundingBox, ows:WGS84BoundingBox, or gml:Envelope).
+	 * @param bboxNode A DOM Node (Document or Element) representing a bounding box.
+	 * @throws FactoryException If an unrecognized CRS reference is encountered or a
+	 * corresponding CoordinateReferenceSystem cannot be constructed for some reason.
+	 */
+	public void addBoundingBox(Node bboxNode) throws FactoryException {
+		add(Extents.createEnvelope(bboxNode));
+	}
+
+	/**
+	 * Indicates whether any content has been added.
+	 * @return {@code true} if no content has been added; {@code false} otherwise.
+	 */
+	public boolean isEmpty() {
+		synchronized (unions) {
+			return unions.isEmpty();
+		}
+	}
+
+	/**
+	 * Returns the total extent of the content added so far.
+	 * @return An envelope in the target CRS, or {@code null} if no content has been
+	 * added.
+	 * @throws FactoryException If no coordinate operation to the target CRS can be found.
+	 * @throws TransformException If an envelope cannot be transformed to the target CRS.
+	 */
+	public GeneralEnvelope getExtent() throws FactoryException, TransformException {
+		List<GeneralEnvelope> snapshot;
+		CoordinateReferenceSystem crs;
+		synchronized (unions) {
+			if (unions.isEmpty()) {
+				return null;
+			}
+			snapshot = new ArrayList<>(unions.size());
+			for (GeneralEnvelope union : unions.values()) {
+				snapshot.add(union.clone());
+			}
+			crs = targetCRS;
+		}
+		GeneralEnvelope extent = null;
+		for (GeneralEnvelope union : snapshot) {
+			if (!crs.equals(union.getCoordinateReferenceSystem())) {
+				CoordinateOperation operation = GeodesyUtils.findOperation(union.getCoordinateReferenceSystem(), crs);
+				union = Envelopes.transform(operation, union);
+			}
+			if (null == extent) {
+				extent = union;
+			}
+			else {
+				extent.add(union);
+			}
+		}
+		return extent;
+	}
+
+	/**
+	 * Discards all content added so far. The target CRS is not changed.
+	 */
+	public void clear() {
+		synchronized (unions) {
+			unions.clear();
+		}
+	}
+
+	private void addBounds(org.locationtech.jts.geom.Envelope envelope, CoordinateReferenceSystem crs) {
+		if (!envelope.isNull()) {
+			add(new JTSEnvelope2D(envelope, crs));
+		}
+	}
+
+	/**
+	 * A NodeList containing a single node.
+	 */
+	private static final class SingleNodeList implements NodeList {
+
+		private final Node node;
+
+		SingleNodeList(Node node) {
+			this.node = node;
+		}
+
+		@Override
+		public Node item(int index) {
+			return (index == 0) ? node : null;
+		}
+
+		@Override
+		public int getLength() {
+			return 1;
+		}
+
+	}
+
+}
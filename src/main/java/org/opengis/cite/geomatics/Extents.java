@@ -1,12 +1,23 @@
 package org.opengis.cite.geomatics;
 
 import java.math.RoundingMode;
-import java.text.DecimalFormat;
-import java.text.NumberFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.Collectors;
 import java.util.stream.DoubleStream;
+import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import jakarta.xml.bind.JAXBElement;
@@ -16,19 +27,29 @@ import jakarta.xml.bind.Unmarshaller;
 import org.apache.sis.geometry.Envelopes;
 import org.apache.sis.geometry.GeneralEnvelope;
 import org.apache.sis.referencing.CRS;
-import org.apache.sis.referencing.CommonCRS;
 import org.apache.sis.xml.MarshallerPool;
 
 import org.geotoolkit.geometry.jts.JTS;
 import org.geotoolkit.geometry.jts.JTSEnvelope2D;
-import org.geotoolkit.gml.GeometrytoJTS;
 import org.geotoolkit.gml.xml.AbstractGeometry;
 import org.geotoolkit.gml.xml.GMLMarshallerPool;
 
+import org.opengis.cite.geomatics.gml.CrsReferenceIndex;
+import org.opengis.cite.geomatics.gml.EnvelopeExtractor;
+import org.opengis.cite.geomatics.gml.GeometryClassifier;
+import org.opengis.cite.geomatics.gml.GeometryDescriptor;
+import org.opengis.cite.geomatics.gml.GmlIdIndex;
 import org.opengis.cite.geomatics.gml.GmlUtils;
+import org.opengis.cite.geomatics.gml.JTSGeometryBuilder;
+import org.opengis.cite.geomatics.time.TemporalUtils;
 import org.opengis.geometry.DirectPosition;
 import org.opengis.geometry.Envelope;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.cs.AxisDirection;
+import org.opengis.referencing.cs.CoordinateSystem;
+import org.opengis.referencing.cs.CoordinateSystemAxis;
+import org.opengis.referencing.cs.RangeMeaning;
+import org.opengis.referencing.operation.CoordinateOperation;
 import org.opengis.referencing.operation.TransformException;
 import org.opengis.util.FactoryException;
 
@@ -50,73 +71,348 @@ import org.locationtech.jts.geom.Polygon;
  */
 public class Extents {
 
-	private static final String CRSREF_OWS = "crs";
-
-	private static final String CRSREF_GML = "srsName";
-
 	private static final String GML_NS = "http://www.opengis.net/gml/3.2";
 
 	private static final GeometryFactory JTS_GEOM_FACTORY = new GeometryFactory();
 
+	private static final ThreadLocal<BoundingBoxCodec> BBOX_CODEC = ThreadLocal.withInitial(BoundingBoxCodec::new);
+
+	/** Truncates coordinates to two fraction digits. */
+	private static final EnvelopeWriter GML_ENVELOPE_WRITER = new EnvelopeWriter(2, RoundingMode.DOWN);
+
+	private static final ThreadLocal<DocumentBuilder> DOC_BUILDER = ThreadLocal.withInitial(() -> {
+		try {
+			return DocumentBuilderFactory.newInstance().newDocumentBuilder();
+		}
+		catch (ParserConfigurationException e) {
+			throw new RuntimeException(e);
+		}
+	});
+
+	/**
+	 * GML geometry elements whose extent is determined as a whole: every concrete
+	 * geometric primitive, complex and aggregate in GML 3.2 (implicit geometries such as
+	 * grids have no coordinates to scan).
+	 */
+	private static final Set<String> GEOMETRY_TYPES = new HashSet<>(Arrays.asList("Point", "LineString", "Curve",
+			"OrientableCurve", "CompositeCurve", "Polygon", "Surface", "OrientableSurface", "CompositeSurface",
+			"PolyhedralSurface", "TriangulatedSurface", "Tin", "Solid", "CompositeSolid", "GeometricComplex",
+			"MultiPoint", "MultiCurve", "MultiSurface", "MultiSolid", "MultiGeometry"));
+
+	/** GML elements containing the temporal positions of instants and periods. */
+	private static final Set<String> TEMPORAL_POSITIONS = new HashSet<>(
+			Arrays.asList("timePosition", "beginPosition", "endPosition"));
+
 	private Extents() {
 	}
 
 	/**
 	 * Calculates the envelope that covers the given collection of GML geometry elements.
+	 * The coordinates of a geometry are scanned directly where possible, without
+	 * building geometry objects (see {@link EnvelopeExtractor}); circular arcs are then
+	 * bounded exactly rather than by interpolated points. Any other geometry is
+	 * unmarshalled and converted to a JTS geometry.
 	 * @param geomNodes A NodeList containing GML geometry elements; it is assumed these
 	 * all refer to the same CRS.
 	 * @return An Envelope object representing the overall spatial extent (MBR) of the
 	 * geometries.
 	 * @throws JAXBException If a node cannot be unmarshalled to a geometry object.
 	 */
-	@SuppressWarnings("unchecked")
 	public static Envelope calculateEnvelope(NodeList geomNodes) throws JAXBException {
+		org.locationtech.jts.geom.Envelope envelope = new org.locationtech.jts.geom.Envelope();
+		CoordinateReferenceSystem crs = null;
+		EnvelopeExtractor extractor = new EnvelopeExtractor();
+		Map<String, CoordinateReferenceSystem> crsMap = new HashMap<String, CoordinateReferenceSystem>();
+		MarshallerPool pool = GMLMarshallerPool.getInstance();
 		Unmarshaller unmarshaller = null;
 		try {
-			MarshallerPool pool = GMLMarshallerPool.getInstance();
-			unmarshaller = pool.acquireUnmarshaller();
+			for (int i = 0; i < geomNodes.getLength(); i++) {
+				Element geom = (Element) geomNodes.item(i);
+				GeometryCache.Entry entry = GeometryCache.lookup(geom);
+				if (null != entry) {
+					crs = entry.getCRS();
+					envelope.expandToInclude(entry.getGeometry().getEnvelopeInternal());
+					continue;
+				}
+				GeometryDescriptor descriptor = GeometryClassifier.classify(geom);
+				CoordinateReferenceSystem geomCRS = findCRS(descriptor, crsMap);
+				if (null != geomCRS && extractor.expandToInclude(descriptor, geomCRS, envelope)) {
+					crs = geomCRS;
+					continue;
+				}
+				entry = GeometryCache.lookupStored(geom);
+				if (null == entry) {
+					if (null == unmarshaller) {
+						unmarshaller = pool.acquireUnmarshaller();
+					}
+					prepareGeometryNode(descriptor);
+					entry = createJTSGeometry(unmarshaller, geom);
+					GeometryCache.store(geom, entry.getGeometry(), entry.getCRS());
+				}
+				crs = entry.getCRS();
+				envelope.expandToInclude(entry.getGeometry().getEnvelopeInternal());
+			}
 		}
-		catch (JAXBException e) {
-			throw new RuntimeException(e);
+		finally {
+			if (null != unmarshaller) {
+				pool.recycle(unmarshaller);
+			}
 		}
-		org.locationtech.jts.geom.Envelope envelope = new org.locationtech.jts.geom.Envelope();
-		CoordinateReferenceSystem crs = null;
-		for (int i = 0; i < geomNodes.getLength(); i++) {
-			Element geom = (Element) geomNodes.item(i);
-			if (geom.getAttribute("srsName").isEmpty()) {
-				// check ancestor nodes for CRS reference
-				GmlUtils.findCRSReference(geom);
+		return new JTSEnvelope2D(envelope, crs);
+	}
+
+	/**
+	 * Calculates the envelope that covers the given collection of GML geometry elements,
+	 * using the given pool of worker threads. The geometries are scanned or converted in
+	 * parallel, and the partial envelopes are then merged; the result is identical to
+	 * that of {@link #calculateEnvelope(NodeList)}.
+	 *
+	 * <p>
+	 * Since a DOM is not thread-safe (not even for reading, if nodes are created
+	 * lazily), the nodes are first prepared on the calling thread: CRS references are
+	 * added and each geometry subtree is fully expanded. Workers only read the DOM. The
+	 * document must not be modified while the calculation is in progress.
+	 * </p>
+	 * @param geomNodes A NodeList containing GML geometry elements; it is assumed these
+	 * all refer to the same CRS.
+	 * @param forkJoinPool The pool in which to run the calculation.
+	 * @return An Envelope object representing the overall spatial extent (MBR) of the
+	 * geometries.
+	 * @throws JAXBException If a node cannot be unmarshalled to a geometry object.
+	 */
+	public static Envelope calculateEnvelope(NodeList geomNodes, ForkJoinPool forkJoinPool) throws JAXBException {
+		int count = geomNodes.getLength();
+		Element[] geoms = new Element[count];
+		GeometryCache.Entry[] entries = new GeometryCache.Entry[count];
+		boolean[] cached = new boolean[count];
+		boolean indexed = false;
+		for (int i = 0; i < count; i++) {
+			geoms[i] = (Element) geomNodes.item(i);
+			entries[i] = GeometryCache.lookup(geoms[i]);
+			cached[i] = (null != entries[i]);
+			if (!cached[i]) {
+				if (!indexed) {
+					// built here for resolving same-document references, as the workers must
+					// not modify the DOM
+					GmlIdIndex.forDocument(geoms[i].getOwnerDocument());
+					indexed = true;
+				}
+				prepareGeometryNode(GeometryClassifier.classify(geoms[i]));
+				expandNode(geoms[i]);
+			}
+		}
+		if (count > 0 && null != geoms[0].getOwnerDocument()) {
+			// build the index (after adding CRS references) before the workers look them up
+			CrsReferenceIndex.forDocument(geoms[0].getOwnerDocument());
+		}
+		Map<String, CoordinateReferenceSystem> crsMap = new ConcurrentHashMap<String, CoordinateReferenceSystem>();
+		PartialEnvelope result;
+		try {
+			result = forkJoinPool.invoke(new EnvelopeTask(geoms, entries, crsMap, 0, count));
+		}
+		catch (RuntimeException e) {
+			for (Throwable cause = e; null != cause; cause = cause.getCause()) {
+				if (cause instanceof JAXBException) {
+					throw (JAXBException) cause;
+				}
 			}
-			if (geom.getLocalName().startsWith("Multi")) {
-				// explicitly set srsName on all members of geometry collection
-				GmlUtils.setSrsNameOnCollectionMembers(geom);
+			throw e;
+		}
+		for (int i = 0; i < count; i++) {
+			// geometries found in the persistent store are already cached
+			if (!cached[i] && null != entries[i] && null == GeometryCache.lookup(geoms[i])) {
+				GeometryCache.store(geoms[i], entries[i].getGeometry(), entries[i].getCRS());
 			}
+		}
+		return new JTSEnvelope2D(result.envelope, result.crs);
+	}
 
-			// Convert to MultiCurve or MultiSurface from Curve or Surface node resp.
-			// As geotoolkit(3.21) is not supporting Curve and Surface geometry type.
-			if (geom.getLocalName().equals("Curve") || geom.getLocalName().equals("Surface")) {
-				geom = GmlUtils.convertToMultiType(geomNodes.item(i));
+	/**
+	 * Calculates the spatial and temporal extent of a collection of features in a single
+	 * pass over their content. The envelope covers all GML geometry elements found in the
+	 * features; their coordinates are scanned directly where possible (see
+	 * {@link #calculateEnvelope(NodeList)}). The temporal extent runs from
+	 * the earliest to the latest temporal position in any gml:TimeInstant or
+	 * gml:TimePeriod element; indeterminate positions are ignored.
+	 * @param features A NodeList containing feature elements; it is assumed that all
+	 * geometries refer to the same CRS.
+	 * @return The spatiotemporal extent of the features.
+	 * @throws JAXBException If a geometry element cannot be unmarshalled.
+	 */
+	public static SpatiotemporalExtent calculateSpatiotemporalExtent(NodeList features) throws JAXBException {
+		ExtentScan scan = new ExtentScan(new HashMap<String, CoordinateReferenceSystem>());
+		for (int i = 0; i < features.getLength(); i++) {
+			scan.visit((Element) features.item(i));
+		}
+		if (!scan.unsupported.isEmpty()) {
+			MarshallerPool pool = GMLMarshallerPool.getInstance();
+			Unmarshaller unmarshaller = pool.acquireUnmarshaller();
+			try {
+				for (Element geom : scan.unsupported) {
+					prepareGeometryNode(GeometryClassifier.classify(geom));
+					GeometryCache.Entry entry = createJTSGeometry(unmarshaller, geom);
+					scan.crs = entry.getCRS();
+					scan.envelope.expandToInclude(entry.getGeometry().getEnvelopeInternal());
+				}
 			}
-			JAXBElement<AbstractGeometry> result = (JAXBElement<AbstractGeometry>) unmarshaller.unmarshal(geom);
-			AbstractGeometry gmlGeom = result.getValue();
-			String srsName = gmlGeom.getSrsName();
-			if (srsName.startsWith("http")) {
-				// not recognized in Geotk v3
-				gmlGeom.setSrsName(GeodesyUtils.convertSRSNameToURN(srsName));
+			finally {
+				pool.recycle(unmarshaller);
 			}
-			crs = gmlGeom.getCoordinateReferenceSystem(false);
-			Geometry jtsGeom;
+		}
+		return scan.toExtent();
+	}
+
+	/**
+	 * Calculates the spatial and temporal extent of a collection of features, using the
+	 * given pool of worker threads. The result is the same as that of
+	 * {@link #calculateSpatiotemporalExtent(NodeList)}. As in
+	 * {@link #calculateEnvelope(NodeList, ForkJoinPool)}, the nodes are fully expanded on
+	 * the calling thread beforehand, and geometry elements that must be unmarshalled are
+	 * prepared on the calling thread once the workers have finished reading the DOM.
+	 * @param features A NodeList containing feature elements; it is assumed that all
+	 * geometries refer to the same CRS.
+	 * @param forkJoinPool The pool in which to run the calculation.
+	 * @return The spatiotemporal extent of the features.
+	 * @throws JAXBException If a geometry element cannot be unmarshalled.
+	 */
+	public static SpatiotemporalExtent calculateSpatiotemporalExtent(NodeList features, ForkJoinPool forkJoinPool)
+			throws JAXBException {
+		int count = features.getLength();
+		if (count == 0) {
+			return new SpatiotemporalExtent(null, null, null);
+		}
+		Element[] elements = new Element[count];
+		for (int i = 0; i < count; i++) {
+			elements[i] = (Element) features.item(i);
+			expandNode(elements[i]);
+		}
+		if (null != elements[0].getOwnerDocument()) {
+			// build the index before the workers look up CRS references
+			CrsReferenceIndex.forDocument(elements[0].getOwnerDocument());
+		}
+		Map<String, CoordinateReferenceSystem> crsMap = new ConcurrentHashMap<String, CoordinateReferenceSystem>();
+		ExtentScan scan = forkJoinPool.invoke(new ExtentTask(elements, crsMap, 0, count));
+		if (!scan.unsupported.isEmpty()) {
+			Element[] geoms = scan.unsupported.toArray(new Element[0]);
+			// built here for resolving same-document references, as the workers must not
+			// modify the DOM
+			GmlIdIndex.forDocument(geoms[0].getOwnerDocument());
+			for (Element geom : geoms) {
+				prepareGeometryNode(GeometryClassifier.classify(geom));
+			}
+			PartialEnvelope partial;
+			try {
+				partial = forkJoinPool.invoke(new EnvelopeTask(geoms, new GeometryCache.Entry[geoms.length], null, 0,
+						geoms.length));
+			}
+			catch (RuntimeException e) {
+				for (Throwable cause = e; null != cause; cause = cause.getCause()) {
+					if (cause instanceof JAXBException) {
+						throw (JAXBException) cause;
+					}
+				}
+				throw e;
+			}
+			scan.envelope.expandToInclude(partial.envelope);
+			scan.crs = partial.crs;
+		}
+		return scan.toExtent();
+	}
+
+	/**
+	 * Looks up the CRS that applies to a geometry element.
+	 * @return The CRS, or {@code null} if there is no CRS reference or it is not
+	 * recognized.
+	 */
+	static CoordinateReferenceSystem findCRS(GeometryDescriptor descriptor,
+			Map<String, CoordinateReferenceSystem> crsMap) {
+		String srsName = descriptor.getSrsName();
+		if (srsName.isEmpty()) {
+			return null;
+		}
+		return crsMap.computeIfAbsent(srsName, name -> {
 			try {
-				jtsGeom = GeometrytoJTS.toJTS(gmlGeom);
+				return CRS.forCode(GeodesyUtils.convertSRSNameToURN(name));
 			}
 			catch (FactoryException e) {
-				throw new RuntimeException(
-						String.format("Failed to create JTS geometry from GML geometry: %s \nCause: %s",
-								gmlGeom.toString(), e.getMessage()));
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Adds implicit CRS references to a geometry element (and the members of an
+	 * aggregate) so that it can be unmarshalled on its own.
+	 * @param descriptor A descriptor of the geometry element.
+	 */
+	static void prepareGeometryNode(GeometryDescriptor descriptor) {
+		Element geom = descriptor.getElement();
+		if (geom.getAttribute("srsName").isEmpty() && !descriptor.getSrsName().isEmpty()) {
+			// add implicit CRS reference inherited from ancestor nodes
+			geom.setAttribute("srsName", descriptor.getSrsName());
+		}
+		if (descriptor.isAggregate()) {
+			// explicitly set srsName on all members of geometry collection
+			GmlUtils.setSrsNameOnCollectionMembers(geom);
+		}
+	}
+
+	/**
+	 * Unmarshals a geometry element and builds the corresponding JTS geometry.
+	 * Same-document references to curve members are resolved using the gml:id index of
+	 * the owner document.
+	 */
+	@SuppressWarnings("unchecked")
+	static GeometryCache.Entry createJTSGeometry(Unmarshaller unmarshaller, Element geom) throws JAXBException {
+		JAXBElement<AbstractGeometry> result = (JAXBElement<AbstractGeometry>) GmlIdIndex.unmarshal(unmarshaller,
+				geom);
+		AbstractGeometry gmlGeom = result.getValue();
+		String srsName = gmlGeom.getSrsName();
+		if (srsName.startsWith("http")) {
+			// not recognized in Geotk v3
+			gmlGeom.setSrsName(GeodesyUtils.convertSRSNameToURN(srsName));
+		}
+		CoordinateReferenceSystem crs = gmlGeom.getCoordinateReferenceSystem(false);
+		Geometry jtsGeom;
+		try {
+			// Curve and Surface geometries are not supported by Geotk
+			jtsGeom = JTSGeometryBuilder.toJTSGeometry(gmlGeom);
+		}
+		catch (FactoryException e) {
+			throw new RuntimeException(
+					String.format("Failed to create JTS geometry from GML geometry: %s \nCause: %s",
+							gmlGeom.toString(), e.getMessage()));
+		}
+		return new GeometryCache.Entry(jtsGeom, crs);
+	}
+
+	/**
+	 * Visits every node in the subtree rooted at the given element, and the attributes of
+	 * its ancestors (which may declare namespaces), so that any nodes that are created
+	 * lazily exist before the subtree is read concurrently.
+	 */
+	private static void expandNode(Element geom) {
+		for (Node node = geom.getParentNode(); null != node; node = node.getParentNode()) {
+			expandAttributes(node);
+		}
+		expandSubtree(geom);
+	}
+
+	private static void expandSubtree(Node node) {
+		expandAttributes(node);
+		node.getNodeValue();
+		for (Node child = node.getFirstChild(); null != child; child = child.getNextSibling()) {
+			expandSubtree(child);
+		}
+	}
+
+	private static void expandAttributes(Node node) {
+		NamedNodeMap attributes = node.getAttributes();
+		if (null != attributes) {
+			for (int i = 0; i < attributes.getLength(); i++) {
+				attributes.item(i).getNodeValue();
 			}
-			envelope.expandToInclude(jtsGeom.getEnvelopeInternal());
 		}
-		return new JTSEnvelope2D(envelope, crs);
 	}
 
 	/**
@@ -141,26 +437,9 @@ public class Extents {
 		CoordinateReferenceSystem crs = null;
 		for (int i = 0; i < 1; i++) {
 			Element geom = (Element) geomNodes.item(i);
-			if (geom.getAttribute("srsName").isEmpty()) {
-				// check ancestor nodes for CRS reference
-				GmlUtils.findCRSReference(geom);
-			}
-			if (geom.getLocalName().startsWith("Multi")) {
-				// explicitly set srsName on all members of geometry collection
-				GmlUtils.setSrsNameOnCollectionMembers(geom);
-			}
-
-			// Convert to MultiCurve or MultiSurface from Curve or Surface node resp.
-			// As geotoolkit(3.21) is not supporting Curve and Surface geometry type.
-			if (geom.getLocalName().equals("Curve") || geom.getLocalName().equals("Surface")) {
-				geom = GmlUtils.convertToMultiType(geomNodes.item(i));
-			}
-
-			Node geomNode = geomNodes.item(i);
-			if (GmlUtils.checkForAbstractSurfacePatchTypes(geomNode)) {
-				geom = GmlUtils.handleAbstractSurfacePatch(geomNode);
-			}
-			JAXBElement<AbstractGeometry> result = (JAXBElement<AbstractGeometry>) unmarshaller.unmarshal(geom);
+			prepareGeometryNode(GeometryClassifier.classify(geom));
+			JAXBElement<AbstractGeometry> result = (JAXBElement<AbstractGeometry>) GmlIdIndex
+				.unmarshal(unmarshaller, geom);
 			AbstractGeometry gmlGeom = result.getValue();
 			String srsName = gmlGeom.getSrsName();
 			if (srsName.startsWith("http")) {
@@ -170,7 +449,8 @@ public class Extents {
 			crs = gmlGeom.getCoordinateReferenceSystem(false);
 			Geometry jtsGeom;
 			try {
-				jtsGeom = GeometrytoJTS.toJTS(gmlGeom);
+				// Curve and Surface geometries are not supported by Geotk
+				jtsGeom = JTSGeometryBuilder.toJTSGeometry(gmlGeom);
 			}
 			catch (FactoryException e) {
 				throw new RuntimeException(
@@ -189,29 +469,19 @@ public class Extents {
 	 * @return A DOM Document with gml:Envelope as the document element.
 	 */
 	public static Document envelopeAsGML(Envelope envelope) {
-		Document doc;
-		try {
-			doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
-		}
-		catch (ParserConfigurationException e) {
-			throw new RuntimeException(e);
-		}
+		Document doc = DOC_BUILDER.get().newDocument();
 		Element gmlEnv = doc.createElementNS(GML_NS, "gml:Envelope");
 		doc.appendChild(gmlEnv);
 		gmlEnv.setAttribute("srsName", GeodesyUtils.getCRSIdentifier(envelope.getCoordinateReferenceSystem()));
-		NumberFormat numFormat = NumberFormat.getNumberInstance(Locale.ROOT);
-		DecimalFormat decFormat = DecimalFormat.class.cast(numFormat);
-		decFormat.applyPattern("#.##");
-		decFormat.setRoundingMode(RoundingMode.DOWN);
-		StringBuffer lowerCoord = new StringBuffer();
-		StringBuffer upperCoord = new StringBuffer();
+		StringBuilder lowerCoord = new StringBuilder();
+		StringBuilder upperCoord = new StringBuilder();
 		for (int i = 0; i < envelope.getDimension(); i++) {
-			lowerCoord.append(decFormat.format(envelope.getMinimum(i)));
-			upperCoord.append(decFormat.format(envelope.getMaximum(i)));
-			if (i < (envelope.getDimension() - 1)) {
+			if (i > 0) {
 				lowerCoord.append(' ');
 				upperCoord.append(' ');
 			}
+			GML_ENVELOPE_WRITER.format(envelope.getMinimum(i), lowerCoord);
+			GML_ENVELOPE_WRITER.format(envelope.getMaximum(i), upperCoord);
 		}
 		Element lowerCorner = doc.createElementNS(GML_NS, "gml:lowerCorner");
 		lowerCorner.setTextContent(lowerCoord.toString());
@@ -247,6 +517,12 @@ public class Extents {
 	 * of them. The resulting envelope will use the same CRS as the first bounding box in
 	 * the list; the remaining bounding boxes will be transformed to this CRS if
 	 * necessary.
+	 *
+	 * <p>
+	 * The bounding boxes are grouped by CRS and merged within each group (in parallel);
+	 * the union of each group is then transformed once. The result may therefore be
+	 * slightly larger than if each box were transformed individually.
+	 * </p>
 	 * @param bboxNodes A list of elements representing common bounding boxes
 	 * (ows:BoundingBox, ows:WGS84BoundingBox, or gml:Envelope).
 	 * @return An Envelope encompassing the total extent of the given bounding boxes.
@@ -256,19 +532,40 @@ public class Extents {
 	 * fails for some reason.
 	 */
 	public static Envelope coalesceBoundingBoxes(List<Node> bboxNodes) throws FactoryException, TransformException {
-		GeneralEnvelope totalExtent = null;
+		if (bboxNodes.isEmpty()) {
+			return null;
+		}
+		// the DOM is not thread-safe, so the content is read beforehand
+		List<String[]> bboxes = new ArrayList<String[]>(bboxNodes.size());
 		for (Node bboxNode : bboxNodes) {
-			Envelope nextEnv = createEnvelope(bboxNode);
-			if (null == totalExtent) { // first box
-				totalExtent = (GeneralEnvelope) nextEnv;
-			}
-			else {
-				CoordinateReferenceSystem crs = nextEnv.getCoordinateReferenceSystem();
-				if (!crs.equals(totalExtent.getCoordinateReferenceSystem())) {
-					nextEnv = Envelopes.transform(nextEnv, totalExtent.getCoordinateReferenceSystem());
+			bboxes.add(BoundingBoxCodec.readText(bboxNode));
+		}
+		Map<CoordinateReferenceSystem, GeneralEnvelope> unions;
+		try {
+			unions = bboxes.parallelStream().map(bbox -> {
+				try {
+					return BBOX_CODEC.get().createEnvelope(bbox[0], bbox[1], bbox[2]);
+				}
+				catch (FactoryException e) {
+					throw new RuntimeException(e);
 				}
-				totalExtent.add(nextEnv);
+			}).collect(Collectors.toMap(GeneralEnvelope::getCoordinateReferenceSystem, Function.identity(), (a, b) -> {
+				a.add(b);
+				return a;
+			}));
+		}
+		catch (RuntimeException e) {
+			if (e.getCause() instanceof FactoryException) {
+				throw (FactoryException) e.getCause();
 			}
+			throw e;
+		}
+		CoordinateReferenceSystem targetCRS = BoundingBoxCodec.resolveCRS(bboxes.get(0)[0]);
+		GeneralEnvelope totalExtent = unions.remove(targetCRS);
+		for (GeneralEnvelope union : unions.values()) {
+			CoordinateOperation operation = GeodesyUtils.findOperation(union.getCoordinateReferenceSystem(),
+					targetCRS);
+			totalExtent.add(Envelopes.transform(operation, union));
 		}
 		return totalExtent;
 	}
@@ -283,46 +580,7 @@ public class Extents {
 	 * corresponding CoordinateReferenceSystem cannot be constructed for some reason.
 	 */
 	public static Envelope createEnvelope(Node envelopeNode) throws FactoryException {
-		Element envElem;
-		if (Document.class.isInstance(envelopeNode)) {
-			envElem = Document.class.cast(envelopeNode).getDocumentElement();
-		}
-		else {
-			envElem = Element.class.cast(envelopeNode);
-		}
-		CoordinateReferenceSystem crs = null;
-		String crsRef = (envElem.hasAttribute(CRSREF_OWS)) ? envElem.getAttribute(CRSREF_OWS)
-				: envElem.getAttribute(CRSREF_GML);
-		if (crsRef.isEmpty() || crsRef.equals(GeodesyUtils.OGC_CRS84)) {
-			// lon,lat axis order
-			crs = CommonCRS.defaultGeographic();
-		}
-		else {
-			String id = GeodesyUtils.getAbbreviatedCRSIdentifier(crsRef);
-			crs = CRS.forCode(id);
-		}
-		GeneralEnvelope env = new GeneralEnvelope(crs);
-		String namespaceURI = envElem.getNamespaceURI();
-		String lowerCornerName = (namespaceURI.equals(GML_NS)) ? "lowerCorner" : "LowerCorner";
-		String[] lowerCoords = envElem.getElementsByTagNameNS(namespaceURI, lowerCornerName)
-			.item(0)
-			.getTextContent()
-			.trim()
-			.split("\\s");
-		String upperCornerName = (namespaceURI.equals(GML_NS)) ? "upperCorner" : "UpperCorner";
-		String[] upperCoords = envElem.getElementsByTagNameNS(namespaceURI, upperCornerName)
-			.item(0)
-			.getTextContent()
-			.trim()
-			.split("\\s");
-		int dim = lowerCoords.length;
-		double[] coords = new double[dim * 2];
-		for (int i = 0; i < dim; i++) {
-			coords[i] = Double.parseDouble(lowerCoords[i]);
-			coords[i + dim] = Double.parseDouble(upperCoords[i]);
-		}
-		env.setEnvelope(coords);
-		return env;
+		return BBOX_CODEC.get().read(envelopeNode);
 	}
 
 	/**
@@ -362,23 +620,7 @@ public class Extents {
 	 * 10.2.3</a>
 	 */
 	public static String envelopeToString(Envelope envelope) {
-		StringBuilder kvp = new StringBuilder();
-		double[] lowerCorner = envelope.getLowerCorner().getCoordinate();
-		for (int i = 0; i < lowerCorner.length; i++) {
-			kvp.append(lowerCorner[i]).append(',');
-		}
-		double[] upperCorner = envelope.getUpperCorner().getCoordinate();
-		for (int i = 0; i < upperCorner.length; i++) {
-			kvp.append(upperCorner[i]).append(',');
-		}
-		CoordinateReferenceSystem crs = envelope.getCoordinateReferenceSystem();
-		if (!crs.equals(CommonCRS.defaultGeographic())) {
-			kvp.append(GeodesyUtils.getCRSIdentifier(crs));
-		}
-		else {
-			kvp.deleteCharAt(kvp.lastIndexOf(","));
-		}
-		return kvp.toString();
+		return BoundingBoxCodec.toKVP(envelope);
 	}
 
 	/**
@@ -430,4 +672,479 @@ public class Extents {
 		return antipode;
 	}
 
+	/**
+	 * Splits an envelope into a grid of tiles having the same size. Columns run along
+	 * the east-west axis and rows along the north-south axis, whatever the axis order of
+	 * the CRS; the tiles are generated row by row, starting at the south-west corner. Any
+	 * other dimensions (e.g. height) are not split. If the envelope crosses the
+	 * antimeridian (the lower longitude is greater than the upper one), the tiles are
+	 * wrapped around it. The tiles are generated lazily, and the spliterator can be split
+	 * for parallel processing (see {@link java.util.stream.StreamSupport}).
+	 * @param envelope An envelope.
+	 * @param columns The number of columns.
+	 * @param rows The number of rows.
+	 * @return A spliterator over (columns x rows) tiles.
+	 *
+	 * @see TemporalUtils#splitInterval
+	 */
+	public static Spliterator<Envelope> gridTiles(Envelope envelope, int columns, int rows) {
+		if (columns < 1 || rows < 1) {
+			throw new IllegalArgumentException(String.format("Invalid grid size: %d x %d", columns, rows));
+		}
+		return new TileSpliterator(new TileGrid(envelope, columns, rows), 0, (long) columns * rows,
+				index -> ((index % columns) << 32) | (index / columns));
+	}
+
+	/**
+	 * Splits an envelope into the leaf tiles of a complete quadtree of the given depth
+	 * (2^depth x 2^depth tiles). The tiles are generated in depth-first order (Z-order),
+	 * so each quadrant at any level is a contiguous run of tiles. See
+	 * {@link #gridTiles(Envelope, int, int)} regarding axis order and antimeridian
+	 * crossings.
+	 * @param envelope An envelope.
+	 * @param depth The depth of the quadtree (0-30).
+	 * @return A spliterator over 4^depth tiles.
+	 */
+	public static Spliterator<Envelope> quadtreeTiles(Envelope envelope, int depth) {
+		int size = gridSize(depth);
+		return new TileSpliterator(new TileGrid(envelope, size, size), 0, (long) size * size,
+				index -> (compactBits(index) << 32) | compactBits(index >>> 1));
+	}
+
+	/**
+	 * Splits an envelope into 2^order x 2^order tiles ordered along a Hilbert curve, so
+	 * that consecutive tiles are always adjacent. See
+	 * {@link #gridTiles(Envelope, int, int)} regarding axis order and antimeridian
+	 * crossings.
+	 * @param envelope An envelope.
+	 * @param order The order of the Hilbert curve (0-30).
+	 * @return A spliterator over 4^order tiles.
+	 */
+	public static Spliterator<Envelope> hilbertTiles(Envelope envelope, int order) {
+		int size = gridSize(order);
+		return new TileSpliterator(new TileGrid(envelope, size, size), 0, (long) size * size,
+				index -> hilbertCell(size, index));
+	}
+
+	private static int gridSize(int depth) {
+		if (depth < 0 || depth > 30) {
+			throw new IllegalArgumentException("Invalid depth: " + depth);
+		}
+		return 1 << depth;
+	}
+
+	/**
+	 * Extracts the even bits of a Morton code.
+	 */
+	private static long compactBits(long code) {
+		long bits = code & 0x5555555555555555L;
+		bits = (bits | (bits >>> 1)) & 0x3333333333333333L;
+		bits = (bits | (bits >>> 2)) & 0x0f0f0f0f0f0f0f0fL;
+		bits = (bits | (bits >>> 4)) & 0x00ff00ff00ff00ffL;
+		bits = (bits | (bits >>> 8)) & 0x0000ffff0000ffffL;
+		return (bits | (bits >>> 16)) & 0x00000000ffffffffL;
+	}
+
+	/**
+	 * Finds the cell at the given distance along a Hilbert curve filling a square grid.
+	 * @return The column (high 32 bits) and row (low 32 bits) of the cell.
+	 */
+	private static long hilbertCell(int size, long distance) {
+		long x = 0;
+		long y = 0;
+		long t = distance;
+		for (long s = 1; s < size; s *= 2) {
+			long rx = 1 & (t / 2);
+			long ry = 1 & (t ^ rx);
+			if (ry == 0) {
+				if (rx == 1) {
+					x = s - 1 - x;
+					y = s - 1 - y;
+				}
+				long swap = x;
+				x = y;
+				y = swap;
+			}
+			x += s * rx;
+			y += s * ry;
+			t /= 4;
+		}
+		return (x << 32) | y;
+	}
+
+	/**
+	 * The envelope of a range of geometries, and the CRS of the last one.
+	 */
+	private static final class PartialEnvelope {
+
+		final org.locationtech.jts.geom.Envelope envelope = new org.locationtech.jts.geom.Envelope();
+
+		CoordinateReferenceSystem crs;
+
+		PartialEnvelope merge(PartialEnvelope next) {
+			envelope.expandToInclude(next.envelope);
+			crs = next.crs;
+			return this;
+		}
+
+	}
+
+	/**
+	 * Computes the envelope of a range of geometry elements by recursively splitting it.
+	 * If a map of CRS objects is given, the coordinates of each geometry are first scanned
+	 * directly. Each leaf task uses its own extractor and unmarshaller. Newly created JTS
+	 * geometries are placed in the shared array of entries (each slot is written by one
+	 * task only).
+	 */
+	private static final class EnvelopeTask extends RecursiveTask<PartialEnvelope> {
+
+		private static final long serialVersionUID = 1L;
+
+		/** Maximum number of geometries processed by a single task. */
+		private static final int THRESHOLD = 16;
+
+		private final Element[] geoms;
+
+		private final GeometryCache.Entry[] entries;
+
+		private final Map<String, CoordinateReferenceSystem> crsMap;
+
+		private final int start;
+
+		private final int end;
+
+		EnvelopeTask(Element[] geoms, GeometryCache.Entry[] entries, Map<String, CoordinateReferenceSystem> crsMap,
+				int start, int end) {
+			this.geoms = geoms;
+			this.entries = entries;
+			this.crsMap = crsMap;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected PartialEnvelope compute() {
+			if (end - start > THRESHOLD) {
+				int mid = (start + end) >>> 1;
+				EnvelopeTask right = new EnvelopeTask(geoms, entries, crsMap, mid, end);
+				right.fork();
+				PartialEnvelope left = new EnvelopeTask(geoms, entries, crsMap, start, mid).compute();
+				return left.merge(right.join());
+			}
+			PartialEnvelope partial = new PartialEnvelope();
+			EnvelopeExtractor extractor = (null != crsMap) ? new EnvelopeExtractor() : null;
+			MarshallerPool pool = GMLMarshallerPool.getInstance();
+			Unmarshaller unmarshaller = null;
+			try {
+				for (int i = start; i < end; i++) {
+					if (null == entries[i] && null != extractor) {
+						GeometryDescriptor descriptor = GeometryClassifier.classify(geoms[i]);
+						CoordinateReferenceSystem geomCRS = findCRS(descriptor, crsMap);
+						if (null != geomCRS && extractor.expandToInclude(descriptor, geomCRS, partial.envelope)) {
+							partial.crs = geomCRS;
+							continue;
+						}
+					}
+					if (null == entries[i]) {
+						entries[i] = GeometryCache.lookupStored(geoms[i]);
+					}
+					if (null == entries[i]) {
+						if (null == unmarshaller) {
+							unmarshaller = pool.acquireUnmarshaller();
+						}
+						entries[i] = createJTSGeometry(unmarshaller, geoms[i]);
+					}
+					partial.crs = entries[i].getCRS();
+					partial.envelope.expandToInclude(entries[i].getGeometry().getEnvelopeInternal());
+				}
+			}
+			catch (JAXBException e) {
+				throw new RuntimeException(e);
+			}
+			finally {
+				if (null != unmarshaller) {
+					pool.recycle(unmarshaller);
+				}
+			}
+			return partial;
+		}
+
+	}
+
+	/**
+	 * Collects the extent of the geometries and the range of temporal positions in the
+	 * subtrees that are visited. Geometry elements whose coordinates cannot be scanned
+	 * are recorded so that they can be unmarshalled afterwards.
+	 */
+	private static final class ExtentScan {
+
+		final org.locationtech.jts.geom.Envelope envelope = new org.locationtech.jts.geom.Envelope();
+
+		CoordinateReferenceSystem crs;
+
+		java.time.Instant beginning;
+
+		java.time.Instant ending;
+
+		final List<Element> unsupported = new ArrayList<Element>();
+
+		private final EnvelopeExtractor extractor = new EnvelopeExtractor();
+
+		private final Map<String, CoordinateReferenceSystem> crsMap;
+
+		ExtentScan(Map<String, CoordinateReferenceSystem> crsMap) {
+			this.crsMap = crsMap;
+		}
+
+		void visit(Element elem) {
+			if (GML_NS.equals(elem.getNamespaceURI())) {
+				if (GEOMETRY_TYPES.contains(elem.getLocalName())) {
+					addGeometry(elem);
+					return;
+				}
+				if (TEMPORAL_POSITIONS.contains(elem.getLocalName())) {
+					addTemporalPosition(elem.getTextContent());
+					return;
+				}
+			}
+			for (Node child = elem.getFirstChild(); null != child; child = child.getNextSibling()) {
+				if (child.getNodeType() == Node.ELEMENT_NODE) {
+					visit((Element) child);
+				}
+			}
+		}
+
+		private void addGeometry(Element geom) {
+			GeometryDescriptor descriptor = GeometryClassifier.classify(geom);
+			CoordinateReferenceSystem geomCRS = findCRS(descriptor, crsMap);
+			if (null != geomCRS && extractor.expandToInclude(descriptor, geomCRS, envelope)) {
+				crs = geomCRS;
+			}
+			else {
+				unsupported.add(geom);
+			}
+		}
+
+		private void addTemporalPosition(String value) {
+			if (value.trim().isEmpty()) {
+				// indeterminate position
+				return;
+			}
+			addTemporalPosition(TemporalUtils.parseTemporalPosition(value));
+		}
+
+		ExtentScan merge(ExtentScan next) {
+			envelope.expandToInclude(next.envelope);
+			if (null != next.crs) {
+				crs = next.crs;
+			}
+			if (null != next.beginning) {
+				addTemporalPosition(next.beginning);
+				addTemporalPosition(next.ending);
+			}
+			unsupported.addAll(next.unsupported);
+			return this;
+		}
+
+		private void addTemporalPosition(java.time.Instant instant) {
+			if (null == beginning || instant.isBefore(beginning)) {
+				beginning = instant;
+			}
+			if (null == ending || instant.isAfter(ending)) {
+				ending = instant;
+			}
+		}
+
+		SpatiotemporalExtent toExtent() {
+			Envelope spatialExtent = envelope.isNull() ? null : new JTSEnvelope2D(envelope, crs);
+			return new SpatiotemporalExtent(spatialExtent, beginning, ending);
+		}
+
+	}
+
+	/**
+	 * Scans a range of feature elements by recursively splitting it; each leaf task uses
+	 * its own {@link ExtentScan}.
+	 */
+	private static final class ExtentTask extends RecursiveTask<ExtentScan> {
+
+		private static final long serialVersionUID = 1L;
+
+		/** Maximum number of features processed by a single task. */
+		private static final int THRESHOLD = 16;
+
+		private final Element[] features;
+
+		private final Map<String, CoordinateReferenceSystem> crsMap;
+
+		private final int start;
+
+		private final int end;
+
+		ExtentTask(Element[] features, Map<String, CoordinateReferenceSystem> crsMap, int start, int end) {
+			this.features = features;
+			this.crsMap = crsMap;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected ExtentScan compute() {
+			if (end - start > THRESHOLD) {
+				int mid = (start + end) >>> 1;
+				ExtentTask right = new ExtentTask(features, crsMap, mid, end);
+				right.fork();
+				ExtentScan left = new ExtentTask(features, crsMap, start, mid).compute();
+				return left.merge(right.join());
+			}
+			ExtentScan scan = new ExtentScan(crsMap);
+			for (int i = start; i < end; i++) {
+				scan.visit(features[i]);
+			}
+			return scan;
+		}
+
+	}
+
+	/**
+	 * A grid of tiles covering an envelope. The east-west (column) and north-south (row)
+	 * dimensions are identified by the axis directions of the CRS.
+	 */
+	private static final class TileGrid {
+
+		private final GeneralEnvelope envelope;
+
+		private final int eastDim;
+
+		private final int northDim;
+
+		private final int columns;
+
+		private final int rows;
+
+		private final double west;
+
+		private final double east;
+
+		private final double eastSpan;
+
+		private final double south;
+
+		private final double north;
+
+		/** The range of a wraparound (longitude) axis, or zero. */
+		private final double period;
+
+		private final double maxLongitude;
+
+		TileGrid(Envelope envelope, int columns, int rows) {
+			this.envelope = new GeneralEnvelope(envelope);
+			this.columns = columns;
+			this.rows = rows;
+			int eastIndex = 0;
+			int northIndex = 1;
+			double range = 0;
+			double max = Double.POSITIVE_INFINITY;
+			CoordinateReferenceSystem crs = envelope.getCoordinateReferenceSystem();
+			if (null != crs) {
+				CoordinateSystem cs = crs.getCoordinateSystem();
+				for (int i = cs.getDimension() - 1; i >= 0; i--) {
+					AxisDirection direction = cs.getAxis(i).getDirection();
+					if (direction == AxisDirection.EAST || direction == AxisDirection.WEST) {
+						eastIndex = i;
+					}
+					else if (direction == AxisDirection.NORTH || direction == AxisDirection.SOUTH) {
+						northIndex = i;
+					}
+				}
+				CoordinateSystemAxis axis = cs.getAxis(eastIndex);
+				if (axis.getRangeMeaning() == RangeMeaning.WRAPAROUND) {
+					range = axis.getMaximumValue() - axis.getMinimumValue();
+					max = axis.getMaximumValue();
+				}
+			}
+			this.eastDim = eastIndex;
+			this.northDim = northIndex;
+			this.period = range;
+			this.maxLongitude = max;
+			this.west = envelope.getLowerCorner().getOrdinate(eastDim);
+			this.east = envelope.getUpperCorner().getOrdinate(eastDim);
+			this.eastSpan = (west > east && period > 0) ? east - west + period : east - west;
+			this.south = envelope.getLowerCorner().getOrdinate(northDim);
+			this.north = envelope.getUpperCorner().getOrdinate(northDim);
+		}
+
+		GeneralEnvelope tile(long column, long row) {
+			double lower = (column == 0) ? west : west + eastSpan * column / columns;
+			double upper = (column + 1 == columns) ? east : west + eastSpan * (column + 1) / columns;
+			if (lower >= maxLongitude) {
+				lower -= period;
+			}
+			if (upper > maxLongitude) {
+				upper -= period;
+			}
+			GeneralEnvelope tile = new GeneralEnvelope(envelope);
+			tile.setRange(eastDim, lower, upper);
+			tile.setRange(northDim, (row == 0) ? south : south + (north - south) * row / rows,
+					(row + 1 == rows) ? north : south + (north - south) * (row + 1) / rows);
+			return tile;
+		}
+
+	}
+
+	/**
+	 * Generates the tiles in a range of positions along some ordering of the cells of a
+	 * grid; the ordering function returns the column (high 32 bits) and row (low 32 bits)
+	 * of the cell at a given position.
+	 */
+	private static final class TileSpliterator implements Spliterator<Envelope> {
+
+		private final TileGrid grid;
+
+		private final LongUnaryOperator cellAt;
+
+		private long index;
+
+		private final long end;
+
+		TileSpliterator(TileGrid grid, long start, long end, LongUnaryOperator cellAt) {
+			this.grid = grid;
+			this.index = start;
+			this.end = end;
+			this.cellAt = cellAt;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super Envelope> action) {
+			if (index >= end) {
+				return false;
+			}
+			long cell = cellAt.applyAsLong(index++);
+			action.accept(grid.tile(cell >>> 32, cell & 0xffffffffL));
+			return true;
+		}
+
+		@Override
+		public Spliterator<Envelope> trySplit() {
+			long mid = (index + end) >>> 1;
+			if (mid <= index) {
+				return null;
+			}
+			TileSpliterator prefix = new TileSpliterator(grid, index, mid, cellAt);
+			index = mid;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return end - index;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | SIZED | SUBSIZED | IMMUTABLE | NONNULL;
+		}
+
+	}
+
 }
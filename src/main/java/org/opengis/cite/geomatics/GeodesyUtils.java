@@ -1,8 +1,11 @@
 package org.opengis.cite.geomatics;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 import org.apache.sis.geometry.ImmutableEnvelope;
@@ -21,6 +24,7 @@ import org.opengis.geometry.Envelope;
 import org.opengis.geometry.coordinate.Position;
 import org.opengis.metadata.Identifier;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.CoordinateOperation;
 import org.opengis.referencing.operation.MathTransform;
 import org.opengis.referencing.operation.TransformException;
 import org.opengis.util.FactoryException;
@@ -45,6 +49,12 @@ public class GeodesyUtils {
 	 */
 	public static final String OGC_CRS84 = "urn:ogc:def:crs:OGC:1.3:CRS84";
 
+	/** CRS definitions by reference; only a few distinct CRSs are expected. */
+	private static final Map<String, CoordinateReferenceSystem> CRS_CACHE = new ConcurrentHashMap<>();
+
+	/** Coordinate operations by (source CRS, target CRS) pair. */
+	private static final Map<List<?>, CoordinateOperation> OPERATION_CACHE = new ConcurrentHashMap<>();
+
 	/**
 	 * Returns an immutable envelope representing the valid geographic extent of the CRS
 	 * identified by the given URI reference.
@@ -54,17 +64,56 @@ public class GeodesyUtils {
 	 * definition.
 	 */
 	public static ImmutableEnvelope getDomainOfValidity(String crsRef) throws FactoryException {
-		CoordinateReferenceSystem crs = null;
-		if (crsRef.equals(OGC_CRS84)) {
-			crs = CommonCRS.defaultGeographic();
-		}
-		else {
-			crs = CRS.forCode(getAbbreviatedCRSIdentifier(crsRef));
-		}
+		CoordinateReferenceSystem crs = lookupCRS(crsRef);
 		Envelope areaOfUse = CRS.getDomainOfValidity(crs);
 		return new ImmutableEnvelope(areaOfUse);
 	}
 
+	/**
+	 * Returns the coordinate reference system identified by the given URI reference. The
+	 * CRS84 reference denotes WGS 84 with (lon,lat) axis order. Definitions are cached, so
+	 * repeated lookups of the same reference are inexpensive.
+	 * @param crsRef An absolute URI ('http' or 'urn' scheme) that identifies a CRS in
+	 * accord with OGC 09-048r3.
+	 * @return A CoordinateReferenceSystem object.
+	 * @throws FactoryException if the CRS reference cannot be resolved to a known
+	 * definition.
+	 */
+	public static CoordinateReferenceSystem lookupCRS(String crsRef) throws FactoryException {
+		CoordinateReferenceSystem crs = CRS_CACHE.get(crsRef);
+		if (null == crs) {
+			if (crsRef.equals(OGC_CRS84)) {
+				crs = CommonCRS.defaultGeographic();
+			}
+			else {
+				crs = CRS.forCode(getAbbreviatedCRSIdentifier(crsRef));
+			}
+			CRS_CACHE.putIfAbsent(crsRef, crs);
+		}
+		return crs;
+	}
+
+	/**
+	 * Finds a coordinate operation for transforming coordinates from one CRS to another.
+	 * Operations are cached, so repeated lookups for the same pair of CRSs are
+	 * inexpensive. Since no area of interest is given, the operation is the one that is
+	 * valid over the largest area.
+	 * @param sourceCRS The source coordinate reference system.
+	 * @param targetCRS The target coordinate reference system.
+	 * @return A CoordinateOperation object.
+	 * @throws FactoryException If no operation can be found.
+	 */
+	public static CoordinateOperation findOperation(CoordinateReferenceSystem sourceCRS,
+			CoordinateReferenceSystem targetCRS) throws FactoryException {
+		List<?> key = Arrays.asList(sourceCRS, targetCRS);
+		CoordinateOperation operation = OPERATION_CACHE.get(key);
+		if (null == operation) {
+			operation = CRS.findOperation(sourceCRS, targetCRS, null);
+			OPERATION_CACHE.putIfAbsent(key, operation);
+		}
+		return operation;
+	}
+
 	/**
 	 * Returns a well-known identifier (URI) for the given coordinate reference system
 	 * using the 'urn' scheme (e.g. "urn:ogc:def:crs:EPSG::4326").
@@ -0,0 +1,285 @@
+package org.opengis.cite.geomatics;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.sis.referencing.CRS;
+
+import org.geotoolkit.geometry.jts.JTS;
+
+import org.opengis.cite.geomatics.gml.GeometryStore;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.util.FactoryException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.UserDataHandler;
+import org.w3c.dom.events.Event;
+import org.w3c.dom.events.EventListener;
+import org.w3c.dom.events.EventTarget;
+import org.w3c.dom.events.MutationEvent;
+
+import org.locationtech.jts.geom.Geometry;
+
+/**
+ * Caches the JTS geometry (and its CRS) that was built from a GML geometry element, so
+ * that repeated assertions about the same node do not unmarshal and convert it again. An
+ * entry is attached to the DOM node itself as user data: it is keyed by node identity
+ * and is discarded along with the node.
+ *
+ * <p>
+ * An entry is invalidated when the node or any of its descendants is modified, or when
+ * an attribute that it may inherit (srsName, srsDimension, axisLabels, uomLabels) is
+ * changed on an ancestor. This is detected by means of DOM mutation events, so a
+ * geometry is only cached if the owner document supports them (as the JDK
+ * implementation does). Cached geometries are shared and must not be modified by
+ * callers.
+ * </p>
+ *
+ * <p>
+ * If a persistent {@link GeometryStore} is configured, newly built geometries are added
+ * to it, and {@link #lookupStored(Node)} looks up geometries that are not found in memory
+ * there (by a digest of the XML content). Computing the digest requires a pass over the
+ * entire element, so the store should only be consulted just before a geometry would
+ * otherwise be built. Geometries that contain references (xlink:href) are not stored.
+ * </p>
+ *
+ * @see <a href="https://www.w3.org/TR/DOM-Level-3-Core/core.html#Node3-setUserData">DOM
+ * Level 3 Core: Node.setUserData</a>
+ */
+public final class GeometryCache {
+
+	private static final Logger LOGR = Logger.getLogger(GeometryCache.class.getPackage().getName());
+
+	private static final String ENTRY_KEY = GeometryCache.class.getName();
+
+	private static final String LISTENER_KEY = GeometryCache.class.getName() + ".listener";
+
+	/** Mutation event dispatched to the closest ancestor of any change. */
+	private static final String SUBTREE_MODIFIED = "DOMSubtreeModified";
+
+	/** Mutation event dispatched to an element when one of its attributes changes. */
+	private static final String ATTR_MODIFIED = "DOMAttrModified";
+
+	/** Attributes whose values are inherited by descendant geometry elements. */
+	private static final Set<String> INHERITED_ATTRIBUTES = new HashSet<>(
+			Arrays.asList("srsName", "srsDimension", "axisLabels", "uomLabels"));
+
+	private static final UserDataHandler ENTRY_HANDLER = new UserDataHandler() {
+		@Override
+		public void handle(short operation, String key, Object data, Node src, Node dst) {
+			// entries are never copied to clones or imported nodes
+			if (null != src && (operation == NODE_RENAMED || operation == NODE_ADOPTED)) {
+				src.setUserData(ENTRY_KEY, null, null);
+			}
+		}
+	};
+
+	private static final EventListener INVALIDATOR = new EventListener() {
+		@Override
+		public void handleEvent(Event evt) {
+			if (evt.getTarget() instanceof Node) {
+				for (Node node = (Node) evt.getTarget(); null != node; node = node.getParentNode()) {
+					if (null != node.getUserData(ENTRY_KEY)) {
+						node.setUserData(ENTRY_KEY, null, null);
+					}
+				}
+			}
+		}
+	};
+
+	/**
+	 * Evicts the entries of all descendants of an element when an attribute that they
+	 * may inherit (such as srsName) is changed; the element and its ancestors are handled
+	 * by {@link #INVALIDATOR}.
+	 */
+	private static final EventListener INHERITANCE_INVALIDATOR = new EventListener() {
+		@Override
+		public void handleEvent(Event evt) {
+			if (evt instanceof MutationEvent && evt.getTarget() instanceof Node) {
+				String attrName = ((MutationEvent) evt).getAttrName();
+				if (null != attrName && INHERITED_ATTRIBUTES.contains(attrName)) {
+					invalidateDescendants((Node) evt.getTarget());
+				}
+			}
+		}
+	};
+
+	private GeometryCache() {
+	}
+
+	/**
+	 * Returns the cached geometry for the given node. Only geometries held in memory are
+	 * considered.
+	 * @param geomNode A DOM node representing a GML geometry.
+	 * @return The cached entry, or {@code null} if there is none (or it was
+	 * invalidated).
+	 */
+	public static Entry lookup(Node geomNode) {
+		Object entry;
+		synchronized (lock(geomNode)) {
+			entry = geomNode.getUserData(ENTRY_KEY);
+		}
+		return (entry instanceof Entry) ? (Entry) entry : null;
+	}
+
+	/**
+	 * Returns the cached geometry for the given node, looking it up in the persistent
+	 * store (if one is configured) when it is not held in memory. A geometry found in the
+	 * store is then cached in memory as well.
+	 * @param geomNode A DOM node representing a GML geometry.
+	 * @return The cached entry, or {@code null} if there is none.
+	 */
+	public static Entry lookupStored(Node geomNode) {
+		Entry entry = lookup(geomNode);
+		if (null != entry) {
+			return entry;
+		}
+		GeometryStore store = GeometryStore.getDefault();
+		return (null != store) ? loadFromStore(store, geomNode) : null;
+	}
+
+	/**
+	 * Adds a geometry to the cache. Nothing is cached if changes to the owner document
+	 * cannot be detected.
+	 * @param geomNode A DOM node representing a GML geometry.
+	 * @param geometry The JTS geometry built from the node.
+	 * @param crs The CRS used by the geometry (may be {@code null}).
+	 * @return An entry containing the given geometry and CRS.
+	 */
+	public static Entry store(Node geomNode, Geometry geometry, CoordinateReferenceSystem crs) {
+		Entry entry = cache(geomNode, geometry, crs);
+		GeometryStore store = GeometryStore.getDefault();
+		if (null != store && null != geometry) {
+			byte[] key = storeKey(geomNode);
+			if (null != key) {
+				String crsCode = (null != crs) ? GeodesyUtils.getCRSIdentifier(crs) : "";
+				store.put(key, geometry, crsCode);
+			}
+		}
+		return entry;
+	}
+
+	/**
+	 * Removes the cached geometry (if any) for the given node.
+	 * @param geomNode A DOM node representing a GML geometry.
+	 */
+	public static void invalidate(Node geomNode) {
+		synchronized (lock(geomNode)) {
+			geomNode.setUserData(ENTRY_KEY, null, null);
+		}
+	}
+
+	private static void invalidateDescendants(Node node) {
+		for (Node child = node.getFirstChild(); null != child; child = child.getNextSibling()) {
+			if (child.getNodeType() == Node.ELEMENT_NODE) {
+				if (null != child.getUserData(ENTRY_KEY)) {
+					child.setUserData(ENTRY_KEY, null, null);
+				}
+				invalidateDescendants(child);
+			}
+		}
+	}
+
+	private static Entry cache(Node geomNode, Geometry geometry, CoordinateReferenceSystem crs) {
+		Entry entry = new Entry(geometry, crs);
+		Document doc = geomNode.getOwnerDocument();
+		if (!(doc instanceof EventTarget)) {
+			return entry;
+		}
+		synchronized (doc) {
+			if (null == doc.getUserData(LISTENER_KEY)) {
+				((EventTarget) doc).addEventListener(SUBTREE_MODIFIED, INVALIDATOR, false);
+				((EventTarget) doc).addEventListener(ATTR_MODIFIED, INHERITANCE_INVALIDATOR, false);
+				doc.setUserData(LISTENER_KEY, Boolean.TRUE, null);
+			}
+			geomNode.setUserData(ENTRY_KEY, entry, ENTRY_HANDLER);
+		}
+		return entry;
+	}
+
+	/**
+	 * Looks up a geometry in the persistent store. The key does not change if an
+	 * inherited srsName is copied to the node (or its descendants), so it matches the one
+	 * computed when the geometry is stored.
+	 */
+	private static Entry loadFromStore(GeometryStore store, Node geomNode) {
+		byte[] key = storeKey(geomNode);
+		if (null == key) {
+			return null;
+		}
+		GeometryStore.StoredGeometry stored = store.get(key);
+		if (null == stored) {
+			return null;
+		}
+		Geometry geometry = stored.getGeometry();
+		CoordinateReferenceSystem crs = null;
+		if (!stored.getCrsCode().isEmpty()) {
+			try {
+				crs = CRS.forCode(stored.getCrsCode());
+				JTS.setCRS(geometry, crs);
+			}
+			catch (FactoryException e) {
+				LOGR.log(Level.FINE, "Unknown CRS in geometry store: " + stored.getCrsCode(), e);
+				return null;
+			}
+		}
+		return cache(geomNode, geometry, crs);
+	}
+
+	/**
+	 * Computes the digest of a geometry element together with the nearest srsName
+	 * attribute in scope. If there is none, or the element contains a reference, the
+	 * geometry is not stored.
+	 */
+	private static byte[] storeKey(Node geomNode) {
+		for (Node node = geomNode; node instanceof Element; node = node.getParentNode()) {
+			String srsName = ((Element) node).getAttribute("srsName");
+			if (!srsName.isEmpty()) {
+				return GeometryStore.computeKey(geomNode, srsName);
+			}
+		}
+		return null;
+	}
+
+	private static Object lock(Node node) {
+		Document doc = node.getOwnerDocument();
+		return (null != doc) ? doc : node;
+	}
+
+	/**
+	 * A cached JTS geometry and the CRS it uses.
+	 */
+	public static final class Entry {
+
+		private final Geometry geometry;
+
+		private final CoordinateReferenceSystem crs;
+
+		Entry(Geometry geometry, CoordinateReferenceSystem crs) {
+			this.geometry = geometry;
+			this.crs = crs;
+		}
+
+		/**
+		 * Returns the JTS geometry.
+		 * @return A (shared) Geometry object.
+		 */
+		public Geometry getGeometry() {
+			return geometry;
+		}
+
+		/**
+		 * Returns the CRS used by the geometry.
+		 * @return A CoordinateReferenceSystem, or {@code null} if it is not known.
+		 */
+		public CoordinateReferenceSystem getCRS() {
+			return crs;
+		}
+
+	}
+
+}
@@ -0,0 +1,347 @@
+package org.opengis.cite.geomatics;
+
+import java.io.IOException;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.apache.sis.geometry.Envelopes;
+import org.apache.sis.geometry.GeneralEnvelope;
+import org.opengis.cite.geomatics.gml.GmlUtils;
+import org.opengis.geometry.Envelope;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.cs.CoordinateSystem;
+import org.opengis.referencing.operation.TransformException;
+import org.opengis.util.FactoryException;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Polygon;
+
+/**
+ * Generates random query geometries (envelopes or polygons) that satisfy a spatial
+ * relationship with a given extent, for use in load tests. The supported operators are:
+ * <ul>
+ * <li>{@link SpatialOperator#BBOX} or {@link SpatialOperator#INTERSECTS}: the query
+ * geometry intersects the extent;</li>
+ * <li>{@link SpatialOperator#DISJOINT}: the query geometry is disjoint from the
+ * extent;</li>
+ * <li>{@link SpatialOperator#CONTAINS}: the query geometry contains the extent;</li>
+ * <li>{@link SpatialOperator#WITHIN}: the query geometry lies within the extent.</li>
+ * </ul>
+ *
+ * <p>
+ * The geometries are defined in the first two dimensions of the CRS (in axis order),
+ * and they never extend beyond the domain of validity of the CRS axes (e.g. latitude
+ * values are always in [-90, 90]). A polygon is the envelope of the same index with
+ * randomly truncated corners, so it satisfies the same relationship.
+ * </p>
+ *
+ * <p>
+ * Each geometry is determined by the seed and its index alone; no random number
+ * generator state is shared, so geometries can be produced in any order or in parallel,
+ * and the same sequence is always obtained for a given seed. An instance is immutable
+ * and thread-safe.
+ * </p>
+ */
+public final class QueryGeometryGenerator {
+
+	private static final GeometryFactory JTS_GEOM_FACTORY = new GeometryFactory();
+
+	private static final EnvelopeWriter COORD_WRITER = new EnvelopeWriter();
+
+	/** Number of random values reserved for each geometry. */
+	private static final int VALUES_PER_INDEX = 16;
+
+	private final GeneralEnvelope extent;
+
+	private final SpatialOperator operator;
+
+	private final long seed;
+
+	private final String srsName;
+
+	/** Extent bounds: minX, minY, maxX, maxY. */
+	private final double[] bounds = new double[4];
+
+	/** Space available beyond each side of the extent: minX, minY, maxX, maxY. */
+	private final double[] room = new double[4];
+
+	/** Domain of validity of the axes: minX, minY, maxX, maxY. */
+	private final double[] domain = new double[4];
+
+	/**
+	 * Creates a generator of query geometries in the CRS of the given extent.
+	 * @param extent An envelope; it must not cross the antimeridian.
+	 * @param operator The spatial relationship between the query geometries and the
+	 * extent.
+	 * @param seed The seed that determines the sequence of geometries.
+	 */
+	public QueryGeometryGenerator(Envelope extent, SpatialOperator operator, long seed) {
+		switch (operator) {
+			case BBOX:
+			case INTERSECTS:
+			case DISJOINT:
+			case CONTAINS:
+			case WITHIN:
+				break;
+			default:
+				throw new IllegalArgumentException("Unsupported operator: " + operator);
+		}
+		this.extent = new GeneralEnvelope(extent);
+		this.operator = operator;
+		this.seed = seed;
+		CoordinateReferenceSystem crs = extent.getCoordinateReferenceSystem();
+		this.srsName = (null != crs) ? GeodesyUtils.getCRSIdentifier(crs) : "";
+		CoordinateSystem cs = (null != crs) ? crs.getCoordinateSystem() : null;
+		for (int i = 0; i < 2; i++) {
+			bounds[i] = extent.getLowerCorner().getOrdinate(i);
+			bounds[i + 2] = extent.getUpperCorner().getOrdinate(i);
+			if (bounds[i] > bounds[i + 2]) {
+				throw new IllegalArgumentException("Extent crosses the antimeridian: " + extent);
+			}
+			domain[i] = (null != cs) ? cs.getAxis(i).getMinimumValue() : Double.NEGATIVE_INFINITY;
+			domain[i + 2] = (null != cs) ? cs.getAxis(i).getMaximumValue() : Double.POSITIVE_INFINITY;
+			double span = bounds[i + 2] - bounds[i];
+			room[i] = Math.min(bounds[i] - domain[i], span);
+			room[i + 2] = Math.min(domain[i + 2] - bounds[i + 2], span);
+		}
+		if (operator == SpatialOperator.DISJOINT && !(room[0] > 0 || room[1] > 0 || room[2] > 0 || room[3] > 0)) {
+			throw new IllegalArgumentException("No space for disjoint geometries outside " + extent);
+		}
+	}
+
+	/**
+	 * Creates a generator of query geometries in the given CRS. The extent is first
+	 * transformed to that CRS, and the relationship holds with respect to the
+	 * transformed extent.
+	 * @param extent An envelope.
+	 * @param targetCRS The CRS of the query geometries.
+	 * @param operator The spatial relationship between the query geometries and the
+	 * extent.
+	 * @param seed The seed that determines the sequence of geometries.
+	 * @throws FactoryException If no coordinate operation to the target CRS can be found.
+	 * @throws TransformException If the extent cannot be transformed to the target CRS.
+	 */
+	public QueryGeometryGenerator(Envelope extent, CoordinateReferenceSystem targetCRS, SpatialOperator operator,
+			long seed) throws FactoryException, TransformException {
+		this(targetCRS.equals(extent.getCoordinateReferenceSystem()) ? extent
+				: Envelopes.transform(GeodesyUtils.findOperation(extent.getCoordinateReferenceSystem(), targetCRS),
+						extent),
+				operator, seed);
+	}
+
+	/**
+	 * Returns the spatial relationship satisfied by the generated geometries.
+	 * @return A spatial operator.
+	 */
+	public SpatialOperator getOperator() {
+		return operator;
+	}
+
+	/**
+	 * Returns the extent to which the generated geometries are related.
+	 * @return An envelope in the CRS of the generated geometries.
+	 */
+	public Envelope getExtent() {
+		return new GeneralEnvelope(extent);
+	}
+
+	/**
+	 * Computes the bounds of the query envelope at the given index without creating any
+	 * objects.
+	 * @param index The index of the geometry (non-negative).
+	 * @param result An array into which the bounds are written (minX, minY, maxX, maxY in
+	 * axis order).
+	 */
+	public void bounds(long index, double[] result) {
+		switch (operator) {
+			case WITHIN:
+				for (int i = 0; i < 2; i++) {
+					double span = bounds[i + 2] - bounds[i];
+					double size = span * (0.05 + 0.9 * random(index, i));
+					result[i] = bounds[i] + (span - size) * random(index, i + 2);
+					result[i + 2] = result[i] + size;
+				}
+				break;
+			case CONTAINS:
+				for (int i = 0; i < 4; i++) {
+					double margin = room[i] * (0.01 + 0.49 * random(index, i));
+					result[i] = (i < 2) ? bounds[i] - margin : bounds[i] + margin;
+				}
+				break;
+			case DISJOINT:
+				disjointBounds(index, result);
+				break;
+			default:
+				// the center lies within the extent (and within the truncated polygon)
+				for (int i = 0; i < 2; i++) {
+					double span = bounds[i + 2] - bounds[i];
+					double center = bounds[i] + span * random(index, i);
+					double halfSize = span * (0.025 + 0.475 * random(index, i + 2));
+					halfSize = Math.min(halfSize, Math.min(center - domain[i], domain[i + 2] - center));
+					result[i] = center - halfSize;
+					result[i + 2] = center + halfSize;
+				}
+		}
+	}
+
+	/**
+	 * Places a box entirely beyond one side of the extent (chosen at random among those
+	 * where there is room), separated from it by a gap.
+	 */
+	private void disjointBounds(long index, double[] result) {
+		int side = (int) (4 * random(index, 0));
+		while (!(room[side] > 0)) {
+			side = (side + 1) % 4;
+		}
+		int axis = side % 2;
+		int other = 1 - axis;
+		double gap = room[side] * (0.01 + 0.29 * random(index, 1));
+		double size = (room[side] - gap) * (0.1 + 0.9 * random(index, 2));
+		if (side < 2) {
+			result[axis + 2] = bounds[axis] - gap;
+			result[axis] = result[axis + 2] - size;
+		}
+		else {
+			result[axis] = bounds[axis + 2] + gap;
+			result[axis + 2] = result[axis] + size;
+		}
+		double span = bounds[other + 2] - bounds[other];
+		double otherSize = span * (0.05 + 0.9 * random(index, 3));
+		result[other] = bounds[other] + (span - otherSize) * random(index, 4);
+		result[other + 2] = result[other] + otherSize;
+	}
+
+	/**
+	 * Returns the query envelope at the given index.
+	 * @param index The index of the geometry (non-negative).
+	 * @return A new envelope in the CRS of the extent.
+	 */
+	public GeneralEnvelope envelope(long index) {
+		double[] box = new double[4];
+		bounds(index, box);
+		GeneralEnvelope envelope = new GeneralEnvelope(extent);
+		envelope.setRange(0, box[0], box[2]);
+		envelope.setRange(1, box[1], box[3]);
+		return envelope;
+	}
+
+	/**
+	 * Returns the query polygon at the given index.
+	 * @param index The index of the geometry (non-negative).
+	 * @return A JTS Polygon with the CoordinateReferenceSystem set as a user data object.
+	 */
+	public Polygon polygon(long index) {
+		double[] ring = new double[18];
+		int count = ring(index, ring);
+		Coordinate[] coords = new Coordinate[count];
+		for (int i = 0; i < count; i++) {
+			coords[i] = new Coordinate(ring[2 * i], ring[2 * i + 1]);
+		}
+		Polygon polygon = JTS_GEOM_FACTORY.createPolygon(coords);
+		polygon.setUserData(extent.getCoordinateReferenceSystem());
+		return polygon;
+	}
+
+	/**
+	 * Appends a GML representation (gml:Polygon) of the query polygon at the given index.
+	 * @param index The index of the geometry (non-negative).
+	 * @param out The destination of the XML content.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	public void appendPolygon(long index, Appendable out) throws IOException {
+		double[] ring = new double[18];
+		int count = ring(index, ring);
+		out.append("<gml:Polygon xmlns:gml=\"").append(GmlUtils.GML_NS).append("\" gml:id=\"q-");
+		out.append(Long.toString(index)).append('"');
+		if (!srsName.isEmpty()) {
+			out.append(" srsName=\"").append(srsName).append('"');
+		}
+		out.append("><gml:exterior><gml:LinearRing><gml:posList>");
+		for (int i = 0; i < 2 * count; i++) {
+			if (i > 0) {
+				out.append(' ');
+			}
+			COORD_WRITER.format(ring[i], out);
+		}
+		out.append("</gml:posList></gml:LinearRing></gml:exterior></gml:Polygon>");
+	}
+
+	/**
+	 * Returns a stream of query envelopes. The stream may be processed in parallel.
+	 * @param count The number of envelopes.
+	 * @return A stream containing the envelopes with indexes 0 to (count - 1).
+	 */
+	public Stream<Envelope> envelopes(long count) {
+		return LongStream.range(0, count).mapToObj(this::envelope);
+	}
+
+	/**
+	 * Returns a stream of query polygons. The stream may be processed in parallel.
+	 * @param count The number of polygons.
+	 * @return A stream containing the polygons with indexes 0 to (count - 1).
+	 */
+	public Stream<Polygon> polygons(long count) {
+		return LongStream.range(0, count).mapToObj(this::polygon);
+	}
+
+	/**
+	 * Computes the closed exterior ring of a query polygon: the query envelope with
+	 * truncated corners. The corners are cut no further than the extent (CONTAINS) or
+	 * half the size of the envelope (so that it keeps its center).
+	 * @return The number of positions (at most 9).
+	 */
+	private int ring(long index, double[] ring) {
+		double[] box = new double[4];
+		bounds(index, box);
+		double halfWidth = (box[2] - box[0]) / 2;
+		double halfHeight = (box[3] - box[1]) / 2;
+		int count = 0;
+		// corners in counterclockwise order: SW, SE, NE, NW
+		for (int corner = 0; corner < 4; corner++) {
+			boolean east = corner == 1 || corner == 2;
+			boolean north = corner >= 2;
+			double x = east ? box[2] : box[0];
+			double y = north ? box[3] : box[1];
+			double limitX = halfWidth;
+			double limitY = halfHeight;
+			if (operator == SpatialOperator.CONTAINS) {
+				limitX = Math.min(limitX, east ? box[2] - bounds[2] : bounds[0] - box[0]);
+				limitY = Math.min(limitY, north ? box[3] - bounds[3] : bounds[1] - box[1]);
+			}
+			double cutX = limitX * random(index, 5 + 2 * corner);
+			double cutY = limitY * random(index, 6 + 2 * corner);
+			if (cutX > 0 && cutY > 0) {
+				// along the ring, a horizontal edge precedes SE and NW
+				boolean horizontalFirst = corner % 2 == 1;
+				double dx = east ? -cutX : cutX;
+				double dy = north ? -cutY : cutY;
+				count = addPosition(ring, count, horizontalFirst ? x + dx : x, horizontalFirst ? y : y + dy);
+				count = addPosition(ring, count, horizontalFirst ? x : x + dx, horizontalFirst ? y + dy : y);
+			}
+			else {
+				count = addPosition(ring, count, x, y);
+			}
+		}
+		return addPosition(ring, count, ring[0], ring[1]);
+	}
+
+	private static int addPosition(double[] ring, int count, double x, double y) {
+		ring[2 * count] = x;
+		ring[2 * count + 1] = y;
+		return count + 1;
+	}
+
+	/**
+	 * Returns a pseudo-random value in [0, 1) determined by the seed, the index of a
+	 * geometry, and the ordinal of the value (SplitMix64 output function).
+	 */
+	private double random(long index, int ordinal) {
+		long z = seed + (index * VALUES_PER_INDEX + ordinal + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		z ^= (z >>> 31);
+		return (z >>> 11) * 0x1.0p-53;
+	}
+
+}
@@ -1,7 +1,13 @@
 package org.opengis.cite.geomatics;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.apache.sis.geometry.Envelopes;
 import org.apache.sis.geometry.GeneralEnvelope;
@@ -9,6 +15,7 @@ import org.apache.sis.geometry.GeneralEnvelope;
 import org.opengis.geometry.Envelope;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.referencing.operation.TransformException;
+import org.opengis.util.FactoryException;
 
 /**
  * Provides specialized assertion methods that apply to representations of spatial
@@ -41,19 +48,21 @@ public class SpatialAssert {
 		Envelope env = env2;
 		if (!env2.getCoordinateReferenceSystem().equals(crs1)) {
 			try {
-				env = Envelopes.transform(env2, crs1);
+				env = Envelopes.transform(GeodesyUtils.findOperation(env2.getCoordinateReferenceSystem(), crs1), env2);
 			}
-			catch (TransformException te) {
+			catch (FactoryException | TransformException e) {
 				StringBuilder msg = new StringBuilder("Coordinate transformation failed.");
 				msg.append("\n crs1 is ").append(GeodesyUtils.getCRSIdentifier(crs1));
 				msg.append("\n crs2 is ").append(GeodesyUtils.getCRSIdentifier(env2.getCoordinateReferenceSystem()));
-				throw new AssertionError(msg.toString(), te);
+				throw new AssertionError(msg.toString(), e);
 			}
 		}
-		LOGR.log(Level.FINE,
-				String.format("env1: %s with CRS %s", env1.toString(), GeodesyUtils.getCRSIdentifier(crs1)));
-		LOGR.log(Level.FINE, String.format("env: %s with CRS %s", env.toString(),
-				GeodesyUtils.getCRSIdentifier(env.getCoordinateReferenceSystem())));
+		if (LOGR.isLoggable(Level.FINE)) {
+			LOGR.log(Level.FINE,
+					String.format("env1: %s with CRS %s", env1.toString(), GeodesyUtils.getCRSIdentifier(crs1)));
+			LOGR.log(Level.FINE, String.format("env: %s with CRS %s", env.toString(),
+					GeodesyUtils.getCRSIdentifier(env.getCoordinateReferenceSystem())));
+		}
 		GeneralEnvelope genEnv1 = new GeneralEnvelope(env1);
 		if (!genEnv1.intersects(env, false)) {
 			StringBuilder msg = new StringBuilder("The envelopes do not intersect.\n");
@@ -66,4 +75,80 @@ public class SpatialAssert {
 		}
 	}
 
+	/**
+	 * Asserts that every envelope in a collection intersects the reference envelope (see
+	 * {@link #assertIntersects(Envelope, Envelope)}). As in that method, an envelope that
+	 * uses some other CRS is transformed to the CRS of the reference envelope. The
+	 * envelopes are evaluated in parallel, and all of the envelopes that fail are
+	 * reported together.
+	 * @param reference An Envelope representing a spatial extent.
+	 * @param envelopes A collection of envelopes representing other spatial extents.
+	 */
+	public static void assertAllIntersect(Envelope reference, Collection<? extends Envelope> envelopes) {
+		assertAll(reference, envelopes, false);
+	}
+
+	/**
+	 * Asserts that every envelope in a collection lies within the reference envelope
+	 * (the boundaries may touch). An envelope that uses some other CRS is transformed to
+	 * the CRS of the reference envelope; note that a transformed envelope may be larger
+	 * than the region it bounds. The envelopes are evaluated in parallel, and all of the
+	 * envelopes that fail are reported together.
+	 * @param reference An Envelope representing a spatial extent.
+	 * @param envelopes A collection of envelopes representing other spatial extents.
+	 */
+	public static void assertAllWithin(Envelope reference, Collection<? extends Envelope> envelopes) {
+		assertAll(reference, envelopes, true);
+	}
+
+	private static void assertAll(Envelope reference, Collection<? extends Envelope> envelopes, boolean within) {
+		CoordinateReferenceSystem refCRS = reference.getCoordinateReferenceSystem();
+		GeneralEnvelope genReference = new GeneralEnvelope(reference);
+		List<Envelope> list = new ArrayList<>(envelopes);
+		List<String> failures = IntStream.range(0, list.size())
+			.parallel()
+			.mapToObj(i -> check(genReference, i, list.get(i), within))
+			.filter(Objects::nonNull)
+			.collect(Collectors.toList());
+		if (!failures.isEmpty()) {
+			StringBuilder msg = new StringBuilder();
+			msg.append(failures.size()).append(" of ").append(list.size()).append(" envelopes ");
+			msg.append(within ? "are not within" : "do not intersect").append(" the reference envelope ");
+			msg.append(reference.toString()).append(" with CRS ").append(GeodesyUtils.getCRSIdentifier(refCRS));
+			for (String failure : failures) {
+				msg.append('\n').append(failure);
+			}
+			throw new AssertionError(msg.toString());
+		}
+	}
+
+	/**
+	 * Checks one envelope against the reference envelope.
+	 * @return A failure message, or {@code null} if the envelope satisfies the
+	 * relationship.
+	 */
+	private static String check(GeneralEnvelope reference, int index, Envelope env, boolean within) {
+		CoordinateReferenceSystem refCRS = reference.getCoordinateReferenceSystem();
+		CoordinateReferenceSystem crs = env.getCoordinateReferenceSystem();
+		Envelope other = env;
+		if (null != crs && !crs.equals(refCRS)) {
+			try {
+				// the operation is looked up once for each pair of CRSs
+				other = Envelopes.transform(GeodesyUtils.findOperation(crs, refCRS), env);
+			}
+			catch (FactoryException | TransformException e) {
+				LOGR.log(Level.FINE, "Failed to transform envelope " + index, e);
+				return failureMessage(index, env, " (coordinate transformation failed)");
+			}
+		}
+		boolean satisfied = within ? reference.contains(other, true) : reference.intersects(other, false);
+		return satisfied ? null : failureMessage(index, env, "");
+	}
+
+	private static String failureMessage(int index, Envelope env, String reason) {
+		CoordinateReferenceSystem crs = env.getCoordinateReferenceSystem();
+		String crsId = (null != crs) ? GeodesyUtils.getCRSIdentifier(crs) : "none";
+		return String.format(" [%d] %s with CRS %s%s", index, env, crsId, reason);
+	}
+
 }
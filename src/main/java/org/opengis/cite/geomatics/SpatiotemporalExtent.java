@@ -0,0 +1,90 @@
+package org.opengis.cite.geomatics;
+
+import java.time.Instant;
+import java.util.Date;
+
+import org.geotoolkit.temporal.factory.DefaultTemporalFactory;
+import org.opengis.geometry.Envelope;
+import org.opengis.temporal.Period;
+import org.opengis.temporal.TemporalFactory;
+
+/**
+ * The spatial and temporal extent of a collection of features: the envelope (MBR) of
+ * their geometries, and the earliest and latest temporal positions that occur in their
+ * temporal properties (gml:TimeInstant, gml:TimePeriod).
+ *
+ * @see Extents#calculateSpatiotemporalExtent(org.w3c.dom.NodeList)
+ */
+public final class SpatiotemporalExtent {
+
+	private static final TemporalFactory TM_FACTORY = new DefaultTemporalFactory();
+
+	private final Envelope envelope;
+
+	private final Instant beginning;
+
+	private final Instant ending;
+
+	/**
+	 * Creates a spatiotemporal extent.
+	 * @param envelope The spatial extent (may be {@code null}).
+	 * @param beginning The earliest temporal position (may be {@code null}).
+	 * @param ending The latest temporal position (may be {@code null}).
+	 */
+	public SpatiotemporalExtent(Envelope envelope, Instant beginning, Instant ending) {
+		this.envelope = envelope;
+		this.beginning = beginning;
+		this.ending = ending;
+	}
+
+	/**
+	 * Returns the spatial extent.
+	 * @return An envelope, or {@code null} if no geometries were found.
+	 */
+	public Envelope getEnvelope() {
+		return envelope;
+	}
+
+	/**
+	 * Returns the earliest temporal position.
+	 * @return An instant, or {@code null} if no temporal positions were found.
+	 */
+	public Instant getBeginning() {
+		return beginning;
+	}
+
+	/**
+	 * Returns the latest temporal position.
+	 * @return An instant, or {@code null} if no temporal positions were found.
+	 */
+	public Instant getEnding() {
+		return ending;
+	}
+
+	/**
+	 * Returns the temporal extent as a period. Unlike
+	 * {@link org.opengis.cite.geomatics.time.TemporalUtils#temporalExtent}, the period is
+	 * not extended at either end.
+	 * @return A period, or {@code null} if no temporal positions were found.
+	 */
+	public Period getPeriod() {
+		if (null == beginning) {
+			return null;
+		}
+		return TM_FACTORY.createPeriod(TM_FACTORY.createInstant(Date.from(beginning)),
+				TM_FACTORY.createInstant(Date.from(ending)));
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder str = new StringBuilder("SpatiotemporalExtent[");
+		if (null != envelope) {
+			str.append(envelope);
+		}
+		if (null != beginning) {
+			str.append(", ").append(beginning).append('/').append(ending);
+		}
+		return str.append(']').toString();
+	}
+
+}
@@ -12,11 +12,10 @@ import org.apache.sis.measure.Units;
 import org.apache.sis.referencing.CRS;
 
 import org.geotoolkit.geometry.jts.JTS;
-import org.geotoolkit.gml.GeometrytoJTS;
 import org.geotoolkit.gml.xml.AbstractGeometry;
-import org.geotoolkit.gml.xml.Curve;
 
 import org.opengis.cite.geomatics.gml.GmlUtils;
+import org.opengis.cite.geomatics.gml.JTSGeometryBuilder;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.referencing.operation.MathTransform;
 import org.opengis.referencing.operation.TransformException;
@@ -55,8 +54,8 @@ public class TopologicalRelationships {
 	 * otherwise.
 	 */
 	public static boolean isSpatiallyRelated(SpatialOperator predicate, Node node1, Node node2) {
-		Geometry g1 = toJTSGeometry(unmarshal(node1));
-		Geometry g2 = toJTSGeometry(unmarshal(node2));
+		Geometry g1 = getJTSGeometry(node1);
+		Geometry g2 = getJTSGeometry(node2);
 		try {
 			g1 = setCRS(g1, JTS.findCoordinateReferenceSystem(g2));
 		}
@@ -147,8 +146,8 @@ public class TopologicalRelationships {
 	 */
 	@SuppressWarnings("unchecked")
 	public static boolean isWithinDistance(Node geom1, Node geom2, Element distanceWithUom) {
-		Geometry g1 = toJTSGeometry(unmarshal(geom1));
-		Geometry g2 = toJTSGeometry(unmarshal(geom2));
+		Geometry g1 = getJTSGeometry(geom1);
+		Geometry g2 = getJTSGeometry(geom2);
 		double orthodromicDist;
 		try {
 			g1 = setCRS(g1, JTS.findCoordinateReferenceSystem(g2));
@@ -204,21 +203,32 @@ public class TopologicalRelationships {
 	static Geometry toJTSGeometry(AbstractGeometry gmlGeom) {
 		Geometry jtsGeom = null;
 		try {
-			jtsGeom = GeometrytoJTS.toJTS(gmlGeom);
+			jtsGeom = JTSGeometryBuilder.toJTSGeometry(gmlGeom);
 		}
-		catch (FactoryException e1) {
-			throw new RuntimeException(e1);
-		}
-		catch (IllegalArgumentException e2) {
-			// Unsupported in Geotk v3
-			if (Curve.class.isInstance(gmlGeom)) {
-				jtsGeom = GmlUtils.buildLineString(Curve.class.cast(gmlGeom));
-			}
+		catch (FactoryException e) {
+			throw new RuntimeException(e);
 		}
 		LOGR.fine(String.format("Resulting JTS geometry:\n  %s", jtsGeom.toText()));
 		return jtsGeom;
 	}
 
+	/**
+	 * Builds a JTS geometry object from a DOM node representing a GML geometry. The
+	 * result is cached, so the node is only unmarshalled once unless it is modified.
+	 * @param geomNode A node representing a GML geometry instance.
+	 * @return A (shared) JTS geometry.
+	 * @see GeometryCache
+	 */
+	static Geometry getJTSGeometry(Node geomNode) {
+		GeometryCache.Entry entry = GeometryCache.lookupStored(geomNode);
+		if (null == entry) {
+			AbstractGeometry gmlGeom = unmarshal(geomNode);
+			Geometry jtsGeom = toJTSGeometry(gmlGeom);
+			entry = GeometryCache.store(geomNode, jtsGeom, gmlGeom.getCoordinateReferenceSystem(false));
+		}
+		return entry.getGeometry();
+	}
+
 	/**
 	 * Creates a GML geometry object from a DOM node.
 	 * @param geomNode A node representing a GML geometry instance.
@@ -0,0 +1,281 @@
+package org.opengis.cite.geomatics.gml;
+
+import java.util.List;
+import java.util.function.DoubleUnaryOperator;
+
+import javax.measure.quantity.Length;
+
+import org.apache.sis.geometry.GeneralDirectPosition;
+import org.apache.sis.measure.Units;
+import org.apache.sis.referencing.GeodeticCalculator;
+
+import org.geotoolkit.gml.xml.AbstractCurveSegment;
+import org.geotoolkit.gml.xml.v321.ArcByCenterPointType;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.cs.AxisDirection;
+import org.opengis.referencing.cs.CoordinateSystem;
+import org.opengis.referencing.cs.CoordinateSystemAxis;
+import org.opengis.referencing.cs.EllipsoidalCS;
+import org.opengis.referencing.cs.RangeMeaning;
+
+import org.locationtech.jts.geom.Envelope;
+
+/**
+ * Computes the envelope of an arc or circle defined by its center point and radius
+ * (gml:ArcByCenterPoint, gml:CircleByCenterPoint) without interpolating points on the
+ * curve. As in {@link GmlUtils#inferPointsOnArc GmlUtils.inferPointsOnArc}, the start
+ * and end angles are azimuths (measured clockwise from north, in degrees) and the arc is
+ * swept from the start angle to the end angle.
+ *
+ * <p>
+ * In an ellipsoidal (geographic) CRS the curve is the locus of points at the given
+ * geodesic distance from the center. The latitude extrema lie on the meridian through
+ * the center and the longitude extrema are located by a golden-section search. If the
+ * curve encloses a pole or crosses the antimeridian, the envelope spans the entire range
+ * of longitude. In any other CRS the curve is a circular arc in the coordinate plane;
+ * its envelope is then exact and is determined by the extreme points in the cardinal
+ * directions. The coordinates are ordered as specified by the CRS.
+ * </p>
+ */
+public final class ArcEnvelope {
+
+	/** The golden-section search stops when the azimuth is known to this precision. */
+	private static final double AZIMUTH_TOLERANCE = 1e-7;
+
+	private static final double INV_PHI = (Math.sqrt(5) - 1) / 2;
+
+	private ArcEnvelope() {
+	}
+
+	/**
+	 * Computes the envelope of a curve segment defined by a center point and radius.
+	 * @param segment A curve segment representing an arc (gml:ArcByCenterPoint or an
+	 * allowable substitution).
+	 * @param crs The CRS used by the curve to which this segment belongs.
+	 * @return The envelope of the arc.
+	 */
+	public static Envelope envelopeOf(AbstractCurveSegment segment, CoordinateReferenceSystem crs) {
+		ArcByCenterPointType arc = (ArcByCenterPointType) segment;
+		List<Double> centerCoords = (null != arc.getPos()) ? arc.getPos().getValue() : arc.getPosList().getValue();
+		double startAngle = 0;
+		double endAngle = 360;
+		if (null != arc.getStartAngle()) { // not a CircleByCenterPoint
+			startAngle = arc.getStartAngle().getValue();
+			endAngle = arc.getEndAngle().getValue();
+			if (endAngle == 0) {
+				endAngle = 360;
+			}
+		}
+		double[] center = { centerCoords.get(0), centerCoords.get(1) };
+		return envelopeOf(crs, center, GmlUtils.lengthInMeters(arc.getRadius()), startAngle, endAngle);
+	}
+
+	/**
+	 * Computes the envelope of an arc defined by a center point and radius.
+	 * @param crs The coordinate reference system.
+	 * @param center The coordinates of the center point (only the first two are used).
+	 * @param radius The radius of the arc, in meters.
+	 * @param startAngle The azimuth of the start point, in degrees.
+	 * @param endAngle The azimuth of the end point, in degrees. The arc is a full circle
+	 * if it differs from the start angle by 360 degrees or more.
+	 * @return The envelope of the arc.
+	 */
+	public static Envelope envelopeOf(CoordinateReferenceSystem crs, double[] center, double radius,
+			double startAngle, double endAngle) {
+		if (null == crs) {
+			throw new IllegalArgumentException("No CRS supplied for arc.");
+		}
+		double from = Math.min(startAngle, endAngle);
+		double to = Math.max(startAngle, endAngle);
+		if (to - from >= 360) {
+			from = 0;
+			to = 360;
+		}
+		CoordinateSystem cs = crs.getCoordinateSystem();
+		if (cs instanceof EllipsoidalCS) {
+			return geodesicEnvelope(crs, center, radius, from, to);
+		}
+		return planarEnvelope(cs, center, radius, from, to);
+	}
+
+	private static Envelope planarEnvelope(CoordinateSystem cs, double[] center, double radius, double from,
+			double to) {
+		// components of unit vectors pointing east and north (default: x east, y north)
+		double[] east = { 1, 0 };
+		double[] north = { 0, 1 };
+		AxisDirection dir0 = cs.getAxis(0).getDirection();
+		AxisDirection dir1 = cs.getAxis(1).getDirection();
+		if (isCardinal(dir0) && isCardinal(dir1)) {
+			for (int i = 0; i < 2; i++) {
+				AxisDirection dir = (i == 0) ? dir0 : dir1;
+				east[i] = (dir == AxisDirection.EAST) ? 1 : (dir == AxisDirection.WEST) ? -1 : 0;
+				north[i] = (dir == AxisDirection.NORTH) ? 1 : (dir == AxisDirection.SOUTH) ? -1 : 0;
+			}
+		}
+		double r = Units.METRE.getConverterTo(cs.getAxis(0).getUnit().asType(Length.class)).convert(radius);
+		Envelope envelope = new Envelope();
+		// extrema of each ordinate occur at multiples of 90 degrees
+		for (double azimuth : candidateAzimuths(from, to, 90)) {
+			double e = r * Math.sin(Math.toRadians(azimuth));
+			double n = r * Math.cos(Math.toRadians(azimuth));
+			envelope.expandToInclude(center[0] + east[0] * e + north[0] * n, center[1] + east[1] * e + north[1] * n);
+		}
+		return envelope;
+	}
+
+	private static Envelope geodesicEnvelope(CoordinateReferenceSystem crs, double[] center, double radius,
+			double from, double to) {
+		CoordinateSystem cs = crs.getCoordinateSystem();
+		int latIndex = -1;
+		int lonIndex = -1;
+		for (int i = 0; i < cs.getDimension(); i++) {
+			AxisDirection dir = cs.getAxis(i).getDirection();
+			if (dir == AxisDirection.NORTH || dir == AxisDirection.SOUTH) {
+				latIndex = i;
+			}
+			else if (dir == AxisDirection.EAST || dir == AxisDirection.WEST) {
+				lonIndex = i;
+			}
+		}
+		if (latIndex < 0 || lonIndex < 0 || latIndex > 1 || lonIndex > 1) {
+			throw new IllegalArgumentException("Unsupported ellipsoidal coordinate system: " + cs.getName());
+		}
+		GeodeticCalculator calculator = GeodeticCalculator.create(crs);
+		GeneralDirectPosition start = new GeneralDirectPosition(crs);
+		start.setOrdinate(0, center[0]);
+		start.setOrdinate(1, center[1]);
+		calculator.setStartPoint(start);
+		double lon0 = center[lonIndex];
+		CoordinateSystemAxis lonAxis = cs.getAxis(lonIndex);
+		double period = lonAxis.getMaximumValue() - lonAxis.getMinimumValue();
+		// offset from the central meridian
+		DoubleUnaryOperator deltaLon = azimuth -> {
+			double delta = destination(calculator, azimuth, radius).getOrdinate(lonIndex) - lon0;
+			return delta - period * Math.rint(delta / period);
+		};
+		double minLat = Double.POSITIVE_INFINITY;
+		double maxLat = Double.NEGATIVE_INFINITY;
+		double minDeltaLon = Double.POSITIVE_INFINITY;
+		double maxDeltaLon = Double.NEGATIVE_INFINITY;
+		// the curve is symmetric about the meridian through the center
+		for (double azimuth : candidateAzimuths(from, to, 180)) {
+			DirectPosition pos = destination(calculator, azimuth, radius);
+			minLat = Math.min(minLat, pos.getOrdinate(latIndex));
+			maxLat = Math.max(maxLat, pos.getOrdinate(latIndex));
+			double delta = deltaLon.applyAsDouble(azimuth);
+			minDeltaLon = Math.min(minDeltaLon, delta);
+			maxDeltaLon = Math.max(maxDeltaLon, delta);
+		}
+		boolean fullLonRange = enclosesPole(calculator, start, latIndex, radius);
+		if (!fullLonRange) {
+			// offset is positive (eastward) in (0, 180) and negative in (180, 360)
+			double sign = (lonAxis.getDirection() == AxisDirection.EAST) ? 1 : -1;
+			for (double k = 180 * Math.floor(from / 180); k < to; k += 180) {
+				double a = Math.max(k, from);
+				double b = Math.min(k + 180, to);
+				if (b <= a) {
+					continue;
+				}
+				double s = (Math.floorMod((long) Math.rint(k / 180), 2) == 0) ? sign : -sign;
+				double delta = deltaLon.applyAsDouble(maximize(az -> s * deltaLon.applyAsDouble(az), a, b));
+				minDeltaLon = Math.min(minDeltaLon, delta);
+				maxDeltaLon = Math.max(maxDeltaLon, delta);
+			}
+			fullLonRange = lonAxis.getRangeMeaning() == RangeMeaning.WRAPAROUND
+					&& (lon0 + minDeltaLon < lonAxis.getMinimumValue() || lon0 + maxDeltaLon > lonAxis.getMaximumValue());
+		}
+		double minLon = fullLonRange ? lonAxis.getMinimumValue() : lon0 + minDeltaLon;
+		double maxLon = fullLonRange ? lonAxis.getMaximumValue() : lon0 + maxDeltaLon;
+		if (latIndex == 0) {
+			return new Envelope(minLat, maxLat, minLon, maxLon);
+		}
+		return new Envelope(minLon, maxLon, minLat, maxLat);
+	}
+
+	/**
+	 * Determines whether a pole (or the center itself, if it is a pole) lies within the
+	 * given distance of the start point.
+	 */
+	private static boolean enclosesPole(GeodeticCalculator calculator, GeneralDirectPosition start, int latIndex,
+			double radius) {
+		CoordinateSystemAxis latAxis = start.getCoordinateReferenceSystem().getCoordinateSystem().getAxis(latIndex);
+		for (double poleLat : new double[] { latAxis.getMinimumValue(), latAxis.getMaximumValue() }) {
+			GeneralDirectPosition pole = start.clone();
+			pole.setOrdinate(latIndex, poleLat);
+			if (start.getOrdinate(latIndex) == poleLat) {
+				return true;
+			}
+			calculator.setEndPoint(pole);
+			if (calculator.getGeodesicDistance() <= radius) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static DirectPosition destination(GeodeticCalculator calculator, double azimuth, double distance) {
+		// calculator only accepts azimuth values in range +- 180
+		double a = azimuth % 360;
+		if (a > 180) {
+			a -= 360;
+		}
+		else if (a < -180) {
+			a += 360;
+		}
+		calculator.setStartingAzimuth(a);
+		calculator.setGeodesicDistance(distance);
+		return calculator.getEndPoint();
+	}
+
+	/**
+	 * Returns the end angles of the arc along with all multiples of the given angle that
+	 * lie between them.
+	 */
+	private static double[] candidateAzimuths(double from, double to, double step) {
+		double first = step * Math.ceil(from / step);
+		int count = (first > to) ? 0 : (int) Math.floor((to - first) / step) + 1;
+		double[] azimuths = new double[count + 2];
+		azimuths[0] = from;
+		azimuths[1] = to;
+		for (int i = 0; i < count; i++) {
+			azimuths[i + 2] = first + i * step;
+		}
+		return azimuths;
+	}
+
+	/**
+	 * Finds the maximum of a unimodal function in the interval [a, b] by golden-section
+	 * search.
+	 * @return The argument at which the maximum occurs.
+	 */
+	static double maximize(DoubleUnaryOperator f, double a, double b) {
+		double x1 = b - INV_PHI * (b - a);
+		double x2 = a + INV_PHI * (b - a);
+		double f1 = f.applyAsDouble(x1);
+		double f2 = f.applyAsDouble(x2);
+		while (b - a > AZIMUTH_TOLERANCE) {
+			if (f1 < f2) {
+				a = x1;
+				x1 = x2;
+				f1 = f2;
+				x2 = a + INV_PHI * (b - a);
+				f2 = f.applyAsDouble(x2);
+			}
+			else {
+				b = x2;
+				x2 = x1;
+				f2 = f1;
+				x1 = b - INV_PHI * (b - a);
+				f1 = f.applyAsDouble(x1);
+			}
+		}
+		return (a + b) / 2;
+	}
+
+	private static boolean isCardinal(AxisDirection dir) {
+		return dir == AxisDirection.NORTH || dir == AxisDirection.SOUTH || dir == AxisDirection.EAST
+				|| dir == AxisDirection.WEST;
+	}
+
+}
@@ -0,0 +1,316 @@
+package org.opengis.cite.geomatics.gml;
+
+import java.util.Arrays;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+
+/**
+ * Incrementally computes the convex hull of a stream of 2D points using Andrew's monotone
+ * chain algorithm. Points are collected in a bounded buffer of packed ordinates; whenever
+ * the buffer is full it is merged with the current hull vertices and reduced to a new
+ * hull. Memory use is therefore proportional to the chunk size plus the number of hull
+ * vertices, not to the total number of points supplied. Since an accumulator is a
+ * {@link CoordinateSink}, coordinate generators can feed it directly.
+ *
+ * <p>
+ * Partial hulls computed independently (e.g. for the members of a geometry aggregate) can
+ * be merged with {@link #combine(ConvexHullAccumulator)}, so an accumulator may be used
+ * as the result container of a parallel reduction:
+ * </p>
+ *
+ * <pre>
+ * buffers.parallelStream().collect(ConvexHullAccumulator::new, ConvexHullAccumulator::addAll,
+ * 		ConvexHullAccumulator::combine);
+ * </pre>
+ *
+ * <p>
+ * Instances are not thread-safe.
+ * </p>
+ */
+public final class ConvexHullAccumulator implements CoordinateSink {
+
+	/** Default number of points buffered before the hull is recomputed. */
+	public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+	private static final int INSERTION_SORT_THRESHOLD = 16;
+
+	private final int chunkSize;
+
+	/** Hull vertices (packed ordinates) followed by pending points. */
+	private double[] points;
+
+	private int hullSize;
+
+	private int size;
+
+	/**
+	 * Creates an accumulator with the default chunk size.
+	 */
+	public ConvexHullAccumulator() {
+		this(DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Creates an accumulator that recomputes the hull after the given number of points
+	 * has been buffered.
+	 * @param chunkSize The maximum number of pending points (at least 3).
+	 */
+	public ConvexHullAccumulator(int chunkSize) {
+		if (chunkSize < 3) {
+			throw new IllegalArgumentException("Chunk size must be at least 3: " + chunkSize);
+		}
+		this.chunkSize = chunkSize;
+		this.points = new double[Math.min(chunkSize, 64) * 2];
+	}
+
+	/**
+	 * Adds a point.
+	 * @param x The first ordinate.
+	 * @param y The second ordinate.
+	 */
+	@Override
+	public void add(double x, double y) {
+		if (Double.isNaN(x) || Double.isNaN(y)) {
+			return;
+		}
+		if (size - hullSize >= chunkSize) {
+			compress();
+		}
+		ensureCapacity(size + 1);
+		points[size * 2] = x;
+		points[size * 2 + 1] = y;
+		size++;
+	}
+
+	/**
+	 * Adds a sequence of points given as packed ordinates (x0, y0, x1, y1, ...).
+	 * @param ordinates An array of packed ordinates.
+	 * @param offset The index of the first tuple to add.
+	 * @param count The number of tuples to add.
+	 */
+	public void addAll(double[] ordinates, int offset, int count) {
+		for (int i = offset; i < offset + count; i++) {
+			add(ordinates[i * 2], ordinates[i * 2 + 1]);
+		}
+	}
+
+	/**
+	 * Adds all points in the given coordinate buffer.
+	 * @param buffer A buffer containing 2D coordinate tuples.
+	 */
+	public void addAll(CoordinateBuffer buffer) {
+		addAll(buffer.ordinates(), 0, buffer.size());
+	}
+
+	/**
+	 * Merges the points accumulated by another instance into this one. The other
+	 * accumulator is not modified.
+	 * @param other Another hull accumulator.
+	 * @return This accumulator.
+	 */
+	public ConvexHullAccumulator combine(ConvexHullAccumulator other) {
+		if (other != this) {
+			addAll(other.points, 0, other.size);
+		}
+		return this;
+	}
+
+	/**
+	 * Indicates whether or not any points have been added.
+	 * @return {@code true} if no points have been added; {@code false} otherwise.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns the vertices of the convex hull of all points added so far, in
+	 * counter-clockwise order starting with the lowest (then leftmost) point. The ring is
+	 * not closed.
+	 * @return A buffer containing the hull vertices.
+	 */
+	public CoordinateBuffer getHullVertices() {
+		compress();
+		CoordinateBuffer hull = new CoordinateBuffer(hullSize);
+		for (int i = 0; i < hullSize; i++) {
+			hull.add(points[i * 2], points[i * 2 + 1]);
+		}
+		return hull;
+	}
+
+	/**
+	 * Creates a JTS geometry representing the convex hull. As with the JTS
+	 * {@code ConvexHull} class, the result is an empty geometry collection, a Point, a
+	 * LineString, or a Polygon according to the number of distinct hull vertices.
+	 * @param geomFactory The factory used to create the geometry.
+	 * @return A JTS geometry representing the convex hull.
+	 */
+	public Geometry toGeometry(GeometryFactory geomFactory) {
+		compress();
+		if (hullSize == 0) {
+			return geomFactory.createGeometryCollection();
+		}
+		if (hullSize == 1) {
+			return geomFactory.createPoint(new Coordinate(points[0], points[1]));
+		}
+		if (hullSize == 2) {
+			return geomFactory.createLineString(new Coordinate[] { new Coordinate(points[0], points[1]),
+					new Coordinate(points[2], points[3]) });
+		}
+		Coordinate[] ring = new Coordinate[hullSize + 1];
+		for (int i = 0; i < hullSize; i++) {
+			ring[i] = new Coordinate(points[i * 2], points[i * 2 + 1]);
+		}
+		ring[hullSize] = new Coordinate(ring[0]);
+		return geomFactory.createPolygon(ring);
+	}
+
+	@Override
+	public String toString() {
+		return "ConvexHullAccumulator[hull=" + hullSize + ", pending=" + (size - hullSize) + "]";
+	}
+
+	/**
+	 * Replaces the hull vertices and pending points with the vertices of their convex
+	 * hull.
+	 */
+	private void compress() {
+		if (size == hullSize) {
+			return;
+		}
+		sort(points, 0, size - 1);
+		int n = removeDuplicates(points, size);
+		if (n < 3) {
+			hullSize = size = n;
+			return;
+		}
+		double[] hull = new double[n * 4];
+		int k = 0;
+		for (int i = 0; i < n; i++) { // lower chain
+			while (k >= 2 && cross(hull, k - 2, k - 1, points, i) <= 0) {
+				k--;
+			}
+			hull[k * 2] = points[i * 2];
+			hull[k * 2 + 1] = points[i * 2 + 1];
+			k++;
+		}
+		for (int i = n - 2, lower = k + 1; i >= 0; i--) { // upper chain
+			while (k >= lower && cross(hull, k - 2, k - 1, points, i) <= 0) {
+				k--;
+			}
+			hull[k * 2] = points[i * 2];
+			hull[k * 2 + 1] = points[i * 2 + 1];
+			k++;
+		}
+		// last vertex repeats the first one
+		hullSize = size = k - 1;
+		points = hull;
+	}
+
+	private void ensureCapacity(int tuples) {
+		if (tuples * 2 > points.length) {
+			int capacity = Math.max(tuples, Math.min(points.length, hullSize + chunkSize));
+			points = Arrays.copyOf(points, capacity * 2);
+		}
+	}
+
+	/**
+	 * Returns the cross product of the vectors OA and OB, where O and A are hull vertices
+	 * and B is a candidate point. A positive value indicates a counter-clockwise turn.
+	 */
+	private static double cross(double[] hull, int o, int a, double[] pts, int b) {
+		double ox = hull[o * 2];
+		double oy = hull[o * 2 + 1];
+		return (hull[a * 2] - ox) * (pts[b * 2 + 1] - oy) - (hull[a * 2 + 1] - oy) * (pts[b * 2] - ox);
+	}
+
+	private static int removeDuplicates(double[] pts, int n) {
+		if (n == 0) {
+			return 0;
+		}
+		int k = 1;
+		for (int i = 1; i < n; i++) {
+			if (pts[i * 2] != pts[(k - 1) * 2] || pts[i * 2 + 1] != pts[(k - 1) * 2 + 1]) {
+				pts[k * 2] = pts[i * 2];
+				pts[k * 2 + 1] = pts[i * 2 + 1];
+				k++;
+			}
+		}
+		return k;
+	}
+
+	/**
+	 * Sorts coordinate tuples in place (by x, then by y) using quicksort; the recursion
+	 * depth is bounded by always recursing into the smaller partition.
+	 */
+	private static void sort(double[] pts, int lo, int hi) {
+		while (hi - lo > INSERTION_SORT_THRESHOLD) {
+			int mid = (lo + hi) >>> 1;
+			if (compare(pts, mid, lo) < 0) {
+				swap(pts, mid, lo);
+			}
+			if (compare(pts, hi, lo) < 0) {
+				swap(pts, hi, lo);
+			}
+			if (compare(pts, hi, mid) < 0) {
+				swap(pts, hi, mid);
+			}
+			double px = pts[mid * 2];
+			double py = pts[mid * 2 + 1];
+			int i = lo;
+			int j = hi;
+			while (i <= j) {
+				while (compare(pts, i, px, py) < 0) {
+					i++;
+				}
+				while (compare(pts, j, px, py) > 0) {
+					j--;
+				}
+				if (i <= j) {
+					swap(pts, i++, j--);
+				}
+			}
+			if (j - lo < hi - i) {
+				sort(pts, lo, j);
+				lo = i;
+			}
+			else {
+				sort(pts, i, hi);
+				hi = j;
+			}
+		}
+		for (int i = lo + 1; i <= hi; i++) {
+			double x = pts[i * 2];
+			double y = pts[i * 2 + 1];
+			int j = i - 1;
+			while (j >= lo && compare(pts, j, x, y) > 0) {
+				pts[(j + 1) * 2] = pts[j * 2];
+				pts[(j + 1) * 2 + 1] = pts[j * 2 + 1];
+				j--;
+			}
+			pts[(j + 1) * 2] = x;
+			pts[(j + 1) * 2 + 1] = y;
+		}
+	}
+
+	private static int compare(double[] pts, int i, int j) {
+		return compare(pts, i, pts[j * 2], pts[j * 2 + 1]);
+	}
+
+	private static int compare(double[] pts, int i, double x, double y) {
+		int c = Double.compare(pts[i * 2], x);
+		return (c != 0) ? c : Double.compare(pts[i * 2 + 1], y);
+	}
+
+	private static void swap(double[] pts, int i, int j) {
+		double x = pts[i * 2];
+		double y = pts[i * 2 + 1];
+		pts[i * 2] = pts[j * 2];
+		pts[i * 2 + 1] = pts[j * 2 + 1];
+		pts[j * 2] = x;
+		pts[j * 2 + 1] = y;
+	}
+
+}
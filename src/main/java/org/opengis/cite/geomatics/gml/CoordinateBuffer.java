@@ -0,0 +1,198 @@
+package org.opengis.cite.geomatics.gml;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.locationtech.jts.geom.Coordinate;
+
+/**
+ * A growable sequence of 2D coordinate tuples that are packed into a primitive array
+ * (x0, y0, x1, y1, ...). It avoids allocating a {@code Coordinate} object for every
+ * position when processing large coordinate lists.
+ *
+ * <p>
+ * Instances are not thread-safe.
+ * </p>
+ */
+public final class CoordinateBuffer implements CoordinateSink {
+
+	private double[] ordinates;
+
+	private int size;
+
+	/**
+	 * Creates an empty buffer with a default initial capacity.
+	 */
+	public CoordinateBuffer() {
+		this(16);
+	}
+
+	/**
+	 * Creates an empty buffer.
+	 * @param initialCapacity The initial number of coordinate tuples the buffer can hold
+	 * before it must grow.
+	 */
+	public CoordinateBuffer(int initialCapacity) {
+		ordinates = new double[Math.max(2, initialCapacity * 2)];
+	}
+
+	/**
+	 * Appends a coordinate tuple.
+	 * @param x The first ordinate.
+	 * @param y The second ordinate.
+	 */
+	@Override
+	public void add(double x, double y) {
+		ensureCapacity(size + 1);
+		int i = size * 2;
+		ordinates[i] = x;
+		ordinates[i + 1] = y;
+		size++;
+	}
+
+	/**
+	 * Appends all coordinate tuples in the given buffer.
+	 * @param other Another coordinate buffer.
+	 */
+	public void addAll(CoordinateBuffer other) {
+		ensureCapacity(size + other.size);
+		System.arraycopy(other.ordinates, 0, ordinates, size * 2, other.size * 2);
+		size += other.size;
+	}
+
+	/**
+	 * Appends a sequence of coordinate tuples; only the first two ordinates of each tuple
+	 * are retained.
+	 * @param values A sequence of coordinate values (e.g. the content of gml:posList).
+	 * @param dimension The number of values in each tuple (the CRS dimension).
+	 */
+	@Override
+	public void addAll(List<Double> values, int dimension) {
+		if (null == values || values.isEmpty()) {
+			return;
+		}
+		ensureCapacity(size + values.size() / dimension);
+		for (int i = 0; i + 1 < values.size(); i = i + dimension) {
+			add(values.get(i), values.get(i + 1));
+		}
+	}
+
+	/**
+	 * Passes all coordinate tuples in this buffer to the given sink, in order.
+	 * @param sink A coordinate sink.
+	 */
+	public void copyTo(CoordinateSink sink) {
+		for (int i = 0; i < size; i++) {
+			sink.add(ordinates[i * 2], ordinates[i * 2 + 1]);
+		}
+	}
+
+	/**
+	 * Returns the number of coordinate tuples in the buffer.
+	 * @return The number of tuples.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Indicates whether or not the buffer is empty.
+	 * @return {@code true} if the buffer contains no coordinates; {@code false}
+	 * otherwise.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns the first ordinate of the tuple at the given index.
+	 * @param index The index of a coordinate tuple.
+	 * @return The x ordinate.
+	 */
+	public double getX(int index) {
+		return ordinates[checkIndex(index) * 2];
+	}
+
+	/**
+	 * Returns the second ordinate of the tuple at the given index.
+	 * @param index The index of a coordinate tuple.
+	 * @return The y ordinate.
+	 */
+	public double getY(int index) {
+		return ordinates[checkIndex(index) * 2 + 1];
+	}
+
+	/**
+	 * Returns the backing array. Only the first {@code 2 * size()} elements are
+	 * meaningful; the array is replaced when the buffer grows.
+	 * @return The packed ordinates (x0, y0, x1, y1, ...).
+	 */
+	public double[] ordinates() {
+		return ordinates;
+	}
+
+	/**
+	 * Reverses the order of the coordinate tuples in place.
+	 */
+	public void reverse() {
+		for (int i = 0, j = size - 1; i < j; i++, j--) {
+			double x = ordinates[i * 2];
+			double y = ordinates[i * 2 + 1];
+			ordinates[i * 2] = ordinates[j * 2];
+			ordinates[i * 2 + 1] = ordinates[j * 2 + 1];
+			ordinates[j * 2] = x;
+			ordinates[j * 2 + 1] = y;
+		}
+	}
+
+	/**
+	 * Removes all coordinate tuples; the capacity is retained.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Creates a list of JTS coordinates from the content of this buffer.
+	 * @return A new (modifiable) list of Coordinate objects.
+	 */
+	public List<Coordinate> toCoordinateList() {
+		List<Coordinate> coords = new ArrayList<Coordinate>(size);
+		for (int i = 0; i < size; i++) {
+			coords.add(new Coordinate(ordinates[i * 2], ordinates[i * 2 + 1]));
+		}
+		return coords;
+	}
+
+	/**
+	 * Creates an array of JTS coordinates from the content of this buffer.
+	 * @return A new Coordinate[] array.
+	 */
+	public Coordinate[] toCoordinateArray() {
+		Coordinate[] coords = new Coordinate[size];
+		for (int i = 0; i < size; i++) {
+			coords[i] = new Coordinate(ordinates[i * 2], ordinates[i * 2 + 1]);
+		}
+		return coords;
+	}
+
+	@Override
+	public String toString() {
+		return "CoordinateBuffer[size=" + size + "]";
+	}
+
+	private void ensureCapacity(int tuples) {
+		if (tuples * 2 > ordinates.length) {
+			ordinates = Arrays.copyOf(ordinates, Math.max(tuples * 2, ordinates.length * 2));
+		}
+	}
+
+	private int checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+		}
+		return index;
+	}
+
+}
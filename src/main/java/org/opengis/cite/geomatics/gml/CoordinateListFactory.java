@@ -21,4 +21,31 @@ public interface CoordinateListFactory {
 	 */
 	public List<Coordinate> createCoordinateList(AbstractGeometry gml);
 
+	/**
+	 * Passes the coordinates of a GML geometry representation to a coordinate sink.
+	 * @param gml A GML geometry object (constructed from its XML representation).
+	 * @param sink The sink to which the 2D coordinates are passed (e.g. a
+	 * {@link CoordinateBuffer}).
+	 */
+	default void appendCoordinates(AbstractGeometry gml, CoordinateSink sink) {
+		appendCoordinates(gml, null, sink);
+	}
+
+	/**
+	 * Passes the coordinates of a GML geometry representation to a coordinate sink. The
+	 * given CRS reference applies if the geometry does not have a srsName attribute (e.g.
+	 * the member of an aggregate); the geometry itself is not modified. The default
+	 * implementation ignores it and adds the result of
+	 * {@link #createCoordinateList(AbstractGeometry)}; implementations should generate
+	 * the coordinates incrementally where possible.
+	 * @param gml A GML geometry object (constructed from its XML representation).
+	 * @param srsName The CRS reference in scope (may be {@code null}).
+	 * @param sink The sink to which the 2D coordinates are passed.
+	 */
+	default void appendCoordinates(AbstractGeometry gml, String srsName, CoordinateSink sink) {
+		for (Coordinate coord : createCoordinateList(gml)) {
+			sink.add(coord.x, coord.y);
+		}
+	}
+
 }
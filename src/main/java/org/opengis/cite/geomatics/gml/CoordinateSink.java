@@ -0,0 +1,39 @@
+package org.opengis.cite.geomatics.gml;
+
+import java.util.List;
+
+/**
+ * Receives a stream of 2D coordinate tuples. Coordinate generators push tuples into a
+ * sink one at a time, so a consumer that does not need to retain every point (e.g. a
+ * {@link ConvexHullAccumulator}) can process a geometry without first collecting all of
+ * its coordinates.
+ *
+ * @see CoordinateBuffer
+ * @see ConvexHullAccumulator
+ */
+@FunctionalInterface
+public interface CoordinateSink {
+
+	/**
+	 * Adds a coordinate tuple.
+	 * @param x The first ordinate.
+	 * @param y The second ordinate.
+	 */
+	void add(double x, double y);
+
+	/**
+	 * Adds a sequence of coordinate tuples; only the first two ordinates of each tuple
+	 * are used.
+	 * @param values A sequence of coordinate values (e.g. the content of gml:posList).
+	 * @param dimension The number of values in each tuple (the CRS dimension).
+	 */
+	default void addAll(List<Double> values, int dimension) {
+		if (null == values) {
+			return;
+		}
+		for (int i = 0; i + 1 < values.size(); i = i + dimension) {
+			add(values.get(i), values.get(i + 1));
+		}
+	}
+
+}
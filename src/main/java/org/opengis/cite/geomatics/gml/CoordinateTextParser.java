@@ -0,0 +1,218 @@
+package org.opengis.cite.geomatics.gml;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Reads a sequence of numbers from the text content of a coordinate element (e.g.
+ * gml:posList, gml:pos, gml:coordinates) without allocating objects. Numbers are
+ * separated by whitespace or commas. Most decimal values are converted exactly by a fast
+ * path; values with more than 18 significant digits or large exponents are delegated to
+ * {@link Double#parseDouble(String)}. The special values INF, -INF and NaN (as defined
+ * for xsd:double) are also accepted.
+ *
+ * <p>
+ * An instance can be reused for any number of text values but it is not thread-safe.
+ * </p>
+ */
+public final class CoordinateTextParser {
+
+	/** Powers of ten that can be represented exactly as double values. */
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	/** Largest integer for which all smaller integers are exactly representable. */
+	private static final long MAX_EXACT_INTEGER = 1L << 53;
+
+	/** Number of significant digits that can be accumulated without overflowing a long. */
+	private static final int MAX_FAST_DIGITS = 18;
+
+	private CharSequence text = "";
+
+	private int position;
+
+	private int end;
+
+	/**
+	 * Sets the text to be parsed.
+	 * @param text A sequence of numbers.
+	 * @return This parser.
+	 */
+	public CoordinateTextParser reset(CharSequence text) {
+		return reset(text, 0, text.length());
+	}
+
+	/**
+	 * Sets the text to be parsed.
+	 * @param text A character sequence containing numbers.
+	 * @param start The index of the first character to read.
+	 * @param end The index after the last character to read.
+	 * @return This parser.
+	 */
+	public CoordinateTextParser reset(CharSequence text, int start, int end) {
+		this.text = text;
+		this.position = start;
+		this.end = end;
+		return this;
+	}
+
+	/**
+	 * Indicates whether or not another number remains to be read.
+	 * @return {@code true} if there is another number; {@code false} otherwise.
+	 */
+	public boolean hasNext() {
+		while (position < end && isSeparator(text.charAt(position))) {
+			position++;
+		}
+		return position < end;
+	}
+
+	/**
+	 * Reads the next number.
+	 * @return A double value.
+	 * @throws NoSuchElementException If there are no more numbers.
+	 * @throws NumberFormatException If the next token is not a valid number.
+	 */
+	public double nextDouble() {
+		if (!hasNext()) {
+			throw new NoSuchElementException("No more numbers in text.");
+		}
+		int start = position;
+		while (position < end && !isSeparator(text.charAt(position))) {
+			position++;
+		}
+		return parseDouble(text, start, position);
+	}
+
+	/**
+	 * Skips the given number of values.
+	 * @param count The number of values to skip.
+	 * @return The number of values actually skipped (less than requested if the end of
+	 * the text was reached).
+	 */
+	public int skip(int count) {
+		int skipped = 0;
+		while (skipped < count && hasNext()) {
+			while (position < end && !isSeparator(text.charAt(position))) {
+				position++;
+			}
+			skipped++;
+		}
+		return skipped;
+	}
+
+	/**
+	 * Converts a decimal number to a double value.
+	 * @param text A character sequence.
+	 * @param start The index of the first character of the number.
+	 * @param end The index after the last character of the number.
+	 * @return The value of the number.
+	 * @throws NumberFormatException If the characters do not represent a number.
+	 */
+	public static double parseDouble(CharSequence text, int start, int end) {
+		int i = start;
+		boolean negative = false;
+		if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+			negative = text.charAt(i) == '-';
+			i++;
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int exponent = 0;
+		boolean anyDigit = false;
+		for (; i < end; i++) {
+			char c = text.charAt(i);
+			if (c < '0' || c > '9') {
+				break;
+			}
+			anyDigit = true;
+			if (digits > 0 || c != '0') {
+				if (digits >= MAX_FAST_DIGITS) {
+					return slowParse(text, start, end);
+				}
+				mantissa = mantissa * 10 + (c - '0');
+				digits++;
+			}
+		}
+		if (i < end && text.charAt(i) == '.') {
+			for (i++; i < end; i++) {
+				char c = text.charAt(i);
+				if (c < '0' || c > '9') {
+					break;
+				}
+				anyDigit = true;
+				if (digits > 0 || c != '0') {
+					if (digits >= MAX_FAST_DIGITS) {
+						return slowParse(text, start, end);
+					}
+					mantissa = mantissa * 10 + (c - '0');
+					digits++;
+				}
+				exponent--;
+			}
+		}
+		if (!anyDigit) {
+			return slowParse(text, start, end);
+		}
+		if (i < end && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+			i++;
+			boolean negativeExp = false;
+			if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+				negativeExp = text.charAt(i) == '-';
+				i++;
+			}
+			int exp = 0;
+			int expDigits = 0;
+			for (; i < end; i++) {
+				char c = text.charAt(i);
+				if (c < '0' || c > '9' || expDigits > 6) {
+					break;
+				}
+				exp = exp * 10 + (c - '0');
+				expDigits++;
+			}
+			if (expDigits == 0) {
+				return slowParse(text, start, end);
+			}
+			exponent += negativeExp ? -exp : exp;
+		}
+		if (i != end) {
+			return slowParse(text, start, end);
+		}
+		double value;
+		if (mantissa == 0) {
+			value = 0.0;
+		}
+		else if (mantissa > 0 && mantissa <= MAX_EXACT_INTEGER && exponent >= -22 && exponent <= 22) {
+			// both operands are exact, so the result is correctly rounded
+			value = (exponent < 0) ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+		}
+		else {
+			return slowParse(text, start, end);
+		}
+		return negative ? -value : value;
+	}
+
+	private static double slowParse(CharSequence text, int start, int end) {
+		String token = text.subSequence(start, end).toString();
+		switch (token) {
+			case "INF":
+				return Double.POSITIVE_INFINITY;
+			case "-INF":
+				return Double.NEGATIVE_INFINITY;
+			case "NaN":
+				return Double.NaN;
+			default:
+				if (token.isEmpty() || !Character.isDigit(token.charAt(token.length() - 1))
+						&& token.charAt(token.length() - 1) != '.') {
+					// reject suffixes such as 'd' or 'f' accepted by Double.parseDouble
+					throw new NumberFormatException("Not a number: " + token);
+				}
+				return Double.parseDouble(token);
+		}
+	}
+
+	private static boolean isSeparator(char c) {
+		return c == ' ' || c == ',' || c == '\n' || c == '\t' || c == '\r';
+	}
+
+}
@@ -0,0 +1,363 @@
+package org.opengis.cite.geomatics.gml;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.events.Event;
+import org.w3c.dom.events.EventListener;
+import org.w3c.dom.events.EventTarget;
+import org.w3c.dom.events.MutationEvent;
+
+/**
+ * Records the effective CRS reference (srsName) of every GML object element in a
+ * document. The document is traversed once, top-down, and the inherited CRS reference is
+ * carried along; each lookup then takes constant time. The rules applied are those of
+ * {@link GmlUtils#findCRSReference(Element)}: the CRS reference is taken from
+ * <ol>
+ * <li>the element itself or its nearest ancestor that has the srsName attribute,</li>
+ * <li>the gml:boundedBy/gml:Envelope element of the nearest ancestor that has a
+ * gml:boundedBy property, or</li>
+ * <li>the first gml:posList or gml:pos child element.</li>
+ * </ol>
+ *
+ * <p>
+ * The same traversal records the coordinate layout of each GML object: the srsDimension
+ * value in scope, whether it contains surface patches, and the number of positions it
+ * contains. These are reported by {@link GeometryClassifier}.
+ * </p>
+ *
+ * <p>
+ * The index for a document is attached to it as user data. If the document supports
+ * mutation events, the index is discarded when the document is modified. Setting an
+ * srsName attribute to the effective value already recorded for an element (as
+ * {@link GmlUtils#findCRSReference(Element)} does) only updates the affected entries.
+ * The index of a document that does not support mutation events is cached as well, so
+ * the caller must not otherwise modify such a document while the index is in use.
+ * Instances are thread-safe.
+ * </p>
+ *
+ * @see "ISO 19136, cl. 9.10, 10.1.3.2"
+ */
+public final class CrsReferenceIndex {
+
+	private static final String INDEX_KEY = CrsReferenceIndex.class.getName();
+
+	private static final String SRS_NAME = "srsName";
+
+	private static final String SRS_DIMENSION = "srsDimension";
+
+	private static final String[] MUTATION_EVENTS = { "DOMNodeInserted", "DOMNodeRemoved", "DOMAttrModified",
+			"DOMCharacterDataModified" };
+
+	private static final EventListener INVALIDATOR = new EventListener() {
+		@Override
+		public void handleEvent(Event evt) {
+			Node target = (Node) evt.getTarget();
+			Document doc = (target.getNodeType() == Node.DOCUMENT_NODE) ? (Document) target
+					: target.getOwnerDocument();
+			if (null == doc) {
+				return;
+			}
+			Object index = doc.getUserData(INDEX_KEY);
+			if (!(index instanceof CrsReferenceIndex)) {
+				return;
+			}
+			if (evt instanceof MutationEvent && SRS_NAME.equals(((MutationEvent) evt).getAttrName())
+					&& target.getNodeType() == Node.ELEMENT_NODE
+					&& ((CrsReferenceIndex) index).makeExplicit((Element) target,
+							((MutationEvent) evt).getNewValue())) {
+				return;
+			}
+			doc.setUserData(INDEX_KEY, null, null);
+		}
+	};
+
+	private final Map<Element, Entry> entries = new IdentityHashMap<Element, Entry>();
+
+	/** Elements whose CRS reference is not given by an srsName attribute in scope. */
+	private final Set<Element> implicit = Collections.newSetFromMap(new IdentityHashMap<Element, Boolean>());
+
+	/** The number of positions visited so far (only used while the index is built). */
+	private int positionCount;
+
+	/** The number of patch properties visited so far (only used while the index is built). */
+	private int patchCount;
+
+	private CrsReferenceIndex(Document doc) {
+		if (null != doc.getDocumentElement()) {
+			addElement(doc.getDocumentElement(), "", "", 0);
+		}
+	}
+
+	private CrsReferenceIndex(Element root) {
+		addElement(root, "", "", 0);
+	}
+
+	/**
+	 * Returns the CRS reference index for the given document, building it if necessary.
+	 * If the document does not support mutation events, the index cannot be discarded
+	 * when it changes; the document must then not be modified (other than by setting an
+	 * srsName attribute to the value recorded in the index).
+	 * @param doc A DOM Document containing GML content.
+	 * @return The index for the document.
+	 */
+	public static CrsReferenceIndex forDocument(Document doc) {
+		synchronized (doc) {
+			Object index = doc.getUserData(INDEX_KEY);
+			if (index instanceof CrsReferenceIndex) {
+				return (CrsReferenceIndex) index;
+			}
+			CrsReferenceIndex newIndex = new CrsReferenceIndex(doc);
+			if (doc instanceof EventTarget) {
+				for (String eventType : MUTATION_EVENTS) {
+					// re-adding the same listener has no effect
+					((EventTarget) doc).addEventListener(eventType, INVALIDATOR, true);
+				}
+			}
+			doc.setUserData(INDEX_KEY, newIndex, null);
+			return newIndex;
+		}
+	}
+
+	/**
+	 * Builds an index of the given element and its descendants, which is not cached.
+	 * Ancestor elements are not taken into account.
+	 * @param root An element (for example, one that is not attached to a document).
+	 * @return A new index.
+	 */
+	static CrsReferenceIndex forElement(Element root) {
+		return new CrsReferenceIndex(root);
+	}
+
+	/**
+	 * Returns the effective CRS reference of a GML object element.
+	 * @param gmlObject An element in the GML namespace with an UpperCamelCase name (e.g.
+	 * gml:Point, gml:Envelope).
+	 * @return A CRS reference, an empty string if no reference is in scope, or
+	 * {@code null} if the element is not included in the index (for example, because it
+	 * is not attached to the document).
+	 */
+	public String getSrsName(Element gmlObject) {
+		synchronized (entries) {
+			Entry entry = entries.get(gmlObject);
+			return (null != entry) ? entry.srsName : null;
+		}
+	}
+
+	/**
+	 * Returns a descriptor of a GML object element, using the recorded CRS reference and
+	 * coordinate layout.
+	 * @param gmlObject An element in the GML namespace with an UpperCamelCase name.
+	 * @return A descriptor, or {@code null} if the element is not included in the index.
+	 */
+	GeometryDescriptor describe(Element gmlObject) {
+		synchronized (entries) {
+			Entry entry = entries.get(gmlObject);
+			if (null == entry) {
+				return null;
+			}
+			return new GeometryDescriptor(gmlObject, entry.srsName, entry.dimension, entry.uniformDimension,
+					entry.patches, entry.positions);
+		}
+	}
+
+	/**
+	 * Returns the number of GML object elements included in the index.
+	 * @return The number of entries.
+	 */
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	/**
+	 * Updates the index after an srsName attribute was set on an element. If the value
+	 * is the effective CRS reference recorded for the element, it now also applies to
+	 * any descendants that do not have an srsName attribute in scope.
+	 * @param elem The element on which the attribute was set.
+	 * @param srsName The new attribute value.
+	 * @return {@code true} if the index is still valid; {@code false} otherwise.
+	 */
+	private boolean makeExplicit(Element elem, String srsName) {
+		synchronized (entries) {
+			Entry entry = entries.get(elem);
+			if (null == entry || !srsName.equals(entry.srsName)) {
+				return false;
+			}
+			if (implicit.remove(elem)) {
+				propagate(elem, srsName);
+			}
+			return true;
+		}
+	}
+
+	private void propagate(Element elem, String srsName) {
+		for (Node child = elem.getFirstChild(); null != child; child = child.getNextSibling()) {
+			if (child.getNodeType() != Node.ELEMENT_NODE || ((Element) child).hasAttribute(SRS_NAME)) {
+				continue;
+			}
+			Entry entry = entries.get(child);
+			if (null != entry) {
+				entry.srsName = srsName;
+				implicit.remove(child);
+			}
+			propagate((Element) child, srsName);
+		}
+	}
+
+	/**
+	 * Processes the child elements of an element and then records its effective CRS
+	 * reference and coordinate layout (if it is a GML object).
+	 * @param elem The element to process.
+	 * @param inheritedSrsName The srsName value of the nearest ancestor that has one.
+	 * @param envelopeSrsName The srsName value given by the boundedBy property of the
+	 * nearest ancestor that has one.
+	 * @param inheritedDimension The srsDimension value of the nearest ancestor that has
+	 * one (0 if there is none).
+	 * @return {@code true} if the element or a descendant declares a srsDimension value
+	 * that differs from the one in scope where it occurs; {@code false} otherwise.
+	 */
+	private boolean addElement(Element elem, String inheritedSrsName, String envelopeSrsName,
+			int inheritedDimension) {
+		String srsName = elem.getAttribute(SRS_NAME);
+		if (srsName.isEmpty()) {
+			srsName = inheritedSrsName;
+		}
+		int dimension = parseDimension(elem.getAttribute(SRS_DIMENSION), inheritedDimension);
+		boolean hasBoundedBy = false;
+		String boundedBySrsName = "";
+		String posSrsName = null;
+		for (Node child = elem.getFirstChild(); null != child; child = child.getNextSibling()) {
+			if (child.getNodeType() != Node.ELEMENT_NODE || !GmlUtils.GML_NS.equals(child.getNamespaceURI())) {
+				continue;
+			}
+			String localName = child.getLocalName();
+			if (localName.equals("boundedBy")) {
+				if (!hasBoundedBy || boundedBySrsName.isEmpty()) {
+					boundedBySrsName = envelopeSrsName((Element) child);
+				}
+				hasBoundedBy = true;
+			}
+			else if (null == posSrsName && (localName.equals("posList") || localName.equals("pos"))) {
+				posSrsName = ((Element) child).getAttribute(SRS_NAME);
+			}
+		}
+		String effectiveSrsName = null;
+		if (isGmlObject(elem)) {
+			effectiveSrsName = srsName;
+			if (effectiveSrsName.isEmpty()) {
+				effectiveSrsName = envelopeSrsName;
+			}
+			if (effectiveSrsName.isEmpty() && null != posSrsName) {
+				effectiveSrsName = posSrsName;
+			}
+		}
+		else if (GmlUtils.GML_NS.equals(elem.getNamespaceURI())) {
+			countPositions(elem, dimension);
+		}
+		int positionsBefore = positionCount;
+		int patchesBefore = patchCount;
+		boolean mixedDimensions = false;
+		String childEnvelopeSrsName = hasBoundedBy ? boundedBySrsName : envelopeSrsName;
+		for (Node child = elem.getFirstChild(); null != child; child = child.getNextSibling()) {
+			if (child.getNodeType() == Node.ELEMENT_NODE) {
+				mixedDimensions |= addElement((Element) child, srsName, childEnvelopeSrsName, dimension);
+			}
+		}
+		if (null != effectiveSrsName) {
+			entries.put(elem, new Entry(effectiveSrsName, dimension, !mixedDimensions, patchCount > patchesBefore,
+					positionCount - positionsBefore));
+			if (srsName.isEmpty()) {
+				implicit.add(elem);
+			}
+		}
+		return mixedDimensions || dimension != inheritedDimension;
+	}
+
+	/**
+	 * Counts the positions given by a GML property element (gml:pos, gml:posList or
+	 * gml:coordinates), or a patch property.
+	 */
+	private void countPositions(Element elem, int dimension) {
+		String localName = elem.getLocalName();
+		if (localName.equals("pos")) {
+			positionCount++;
+		}
+		else if (localName.equals("posList")) {
+			int tokens = GeometryClassifier.countTokens(elem.getTextContent());
+			positionCount += tokens / ((dimension > 0) ? dimension : 2);
+		}
+		else if (localName.equals("coordinates")) {
+			// tuples are separated by whitespace (the default value of 'ts')
+			positionCount += GeometryClassifier.countTokens(elem.getTextContent());
+		}
+		else if (localName.contains("patch")) {
+			patchCount++;
+		}
+	}
+
+	private static int parseDimension(String value, int inheritedDimension) {
+		if (value.isEmpty()) {
+			return inheritedDimension;
+		}
+		try {
+			int dimension = Integer.parseInt(value.trim());
+			return (dimension > 0) ? dimension : inheritedDimension;
+		}
+		catch (NumberFormatException e) {
+			return inheritedDimension;
+		}
+	}
+
+	private static String envelopeSrsName(Element boundedBy) {
+		for (Node child = boundedBy.getFirstChild(); null != child; child = child.getNextSibling()) {
+			if (child.getNodeType() == Node.ELEMENT_NODE && GmlUtils.GML_NS.equals(child.getNamespaceURI())
+					&& child.getLocalName().equals("Envelope")) {
+				String srsName = ((Element) child).getAttribute(SRS_NAME);
+				if (!srsName.isEmpty()) {
+					return srsName;
+				}
+			}
+		}
+		return "";
+	}
+
+	private static boolean isGmlObject(Element elem) {
+		String localName = elem.getLocalName();
+		return GmlUtils.GML_NS.equals(elem.getNamespaceURI()) && null != localName && !localName.isEmpty()
+				&& Character.isUpperCase(localName.charAt(0));
+	}
+
+	/**
+	 * The properties recorded for a GML object element.
+	 */
+	private static final class Entry {
+
+		/** The effective CRS reference (guarded by the lock on the entries). */
+		String srsName;
+
+		final int dimension;
+
+		final boolean uniformDimension;
+
+		final boolean patches;
+
+		final int positions;
+
+		Entry(String srsName, int dimension, boolean uniformDimension, boolean patches, int positions) {
+			this.srsName = srsName;
+			this.dimension = dimension;
+			this.uniformDimension = uniformDimension;
+			this.patches = patches;
+			this.positions = positions;
+		}
+
+	}
+
+}
@@ -1,15 +1,12 @@
 package org.opengis.cite.geomatics.gml;
 
 import java.net.URI;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import jakarta.xml.bind.JAXBElement;
+import jakarta.xml.bind.JAXBException;
 import org.geotoolkit.gml.xml.AbstractCurveSegment;
 import org.geotoolkit.gml.xml.AbstractGeometry;
 import org.geotoolkit.gml.xml.Curve;
@@ -17,25 +14,22 @@ import org.geotoolkit.gml.xml.DirectPosition;
 import org.geotoolkit.gml.xml.LineString;
 import org.geotoolkit.gml.xml.v321.AbstractCurveType;
 import org.geotoolkit.gml.xml.v321.AbstractRingType;
-import org.geotoolkit.gml.xml.v321.ArcByCenterPointType;
-import org.geotoolkit.gml.xml.v321.ArcStringType;
-import org.geotoolkit.gml.xml.v321.ArcType;
-import org.geotoolkit.gml.xml.v321.CircleByCenterPointType;
-import org.geotoolkit.gml.xml.v321.CircleType;
 import org.geotoolkit.gml.xml.v321.CompositeCurveType;
 import org.geotoolkit.gml.xml.v321.CurvePropertyType;
 import org.geotoolkit.gml.xml.v321.DirectPositionType;
-import org.geotoolkit.gml.xml.v321.GeodesicStringType;
-import org.geotoolkit.gml.xml.v321.LineStringSegmentType;
 import org.geotoolkit.gml.xml.v321.LinearRingType;
 import org.geotoolkit.gml.xml.v321.OrientableCurveType;
 import org.geotoolkit.gml.xml.v321.RingType;
+import org.opengis.cite.geomatics.GeodesyUtils;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.util.FactoryException;
 
 import org.locationtech.jts.geom.Coordinate;
 
 /**
  * Creates a sequence containing the coordinates of a curve. The list will generally
- * include the constituent vertices or control points that lie on the curve.
+ * include the constituent vertices or control points that lie on the curve. The
+ * coordinates can also be streamed to a {@link CoordinateSink} without building a list.
  */
 public class CurveCoordinateListFactory implements CoordinateListFactory {
 
@@ -47,38 +41,43 @@ public class CurveCoordinateListFactory implements CoordinateListFactory {
 
 	private static final Logger LOGR = Logger.getLogger(CurveCoordinateListFactory.class.getPackage().getName());
 
-	public static Map<String, CurveSegmentType> segmentTypeMap = loadSegmentTypeMap();
-
-	private static Map<String, CurveSegmentType> loadSegmentTypeMap() {
-		segmentTypeMap = new HashMap<String, CurveSegmentType>();
-		segmentTypeMap.put(LineStringSegmentType.class.getName(), CurveSegmentType.LINE_STRING);
-		segmentTypeMap.put(GeodesicStringType.class.getName(), CurveSegmentType.GEODESIC_STRING);
-		segmentTypeMap.put(ArcByCenterPointType.class.getName(), CurveSegmentType.ARC_BY_CENTER);
-		segmentTypeMap.put(CircleByCenterPointType.class.getName(), CurveSegmentType.ARC_BY_CENTER);
-		segmentTypeMap.put(ArcStringType.class.getName(), CurveSegmentType.ARC_STRING);
-		segmentTypeMap.put(ArcType.class.getName(), CurveSegmentType.ARC_STRING);
-		segmentTypeMap.put(CircleType.class.getName(), CurveSegmentType.ARC_STRING);
-		return segmentTypeMap;
+	@Override
+	public List<Coordinate> createCoordinateList(AbstractGeometry gmlGeometry) {
+		CoordinateBuffer buffer = new CoordinateBuffer();
+		appendCoordinates(gmlGeometry, null, buffer);
+		return buffer.toCoordinateList();
 	}
 
+	/**
+	 * Passes the points on a curve to a coordinate sink as they are generated; the
+	 * coordinates of a member curve are only buffered if it must be traversed in reverse
+	 * order. The curve is not modified.
+	 * @param gmlGeometry A GML curve (including gml:Ring and gml:LinearRing).
+	 * @param srsName The CRS reference that applies if the curve does not have one (may
+	 * be {@code null}).
+	 * @param sink The sink to which the coordinates are passed.
+	 */
 	@Override
-	public List<Coordinate> createCoordinateList(AbstractGeometry gmlGeometry) {
-		List<Coordinate> coordList = null;
+	public void appendCoordinates(AbstractGeometry gmlGeometry, String srsName, CoordinateSink sink) {
+		String effectiveSrsName = (null != gmlGeometry.getSrsName()) ? gmlGeometry.getSrsName() : srsName;
 		if (Curve.class.isInstance(gmlGeometry)) {
-			coordList = getCoordinateList(Curve.class.cast(gmlGeometry));
+			appendCurveCoordinates(Curve.class.cast(gmlGeometry), effectiveSrsName, sink);
 		}
 		else if (LineString.class.isInstance(gmlGeometry)) {
-			coordList = getCoordinateList(LineString.class.cast(gmlGeometry));
+			appendLineStringCoordinates(LineString.class.cast(gmlGeometry), effectiveSrsName, sink);
 		}
 		else if (CompositeCurveType.class.isInstance(gmlGeometry)) {
-			coordList = getCoordinateList(CompositeCurveType.class.cast(gmlGeometry));
+			CompositeCurveType compCurve = CompositeCurveType.class.cast(gmlGeometry);
+			for (CurvePropertyType member : compCurve.getCurveMember()) {
+				appendMemberCoordinates(member, effectiveSrsName, sink);
+			}
 		}
 		else if (OrientableCurveType.class.isInstance(gmlGeometry)) {
-			coordList = getCoordinateList(OrientableCurveType.class.cast(gmlGeometry));
+			appendOrientableCurveCoordinates(OrientableCurveType.class.cast(gmlGeometry), effectiveSrsName, sink);
 		}
 		else if (AbstractRingType.class.isInstance(gmlGeometry)) {
 			try {
-				coordList = getCoordinateList(AbstractRingType.class.cast(gmlGeometry));
+				appendRingCoordinates(AbstractRingType.class.cast(gmlGeometry), effectiveSrsName, sink);
 			}
 			catch (Exception x) {
 				throw new RuntimeException("In GML ring: " + x.getMessage());
@@ -87,7 +86,6 @@ public class CurveCoordinateListFactory implements CoordinateListFactory {
 		else {
 			throw new RuntimeException("Unsupported curve type: " + gmlGeometry.getClass().getName());
 		}
-		return coordList;
 	}
 
 	/**
@@ -95,20 +93,29 @@ public class CurveCoordinateListFactory implements CoordinateListFactory {
 	 * @param curve A gml:Curve geometry instance.
 	 * @return A list of coordinates on the curve.
 	 */
-	@SuppressWarnings("unchecked")
 	List<Coordinate> getCoordinateList(Curve curve) {
-		List<Coordinate> coordList = new ArrayList<Coordinate>();
+		return createCoordinateList(curve);
+	}
+
+	/**
+	 * Passes the points on a curve consisting of one or more segments to a coordinate
+	 * sink.
+	 * @param curve A gml:Curve geometry instance.
+	 * @param srsName The CRS reference that applies to the curve.
+	 * @param sink The sink to which the coordinates are passed.
+	 */
+	@SuppressWarnings("unchecked")
+	private void appendCurveCoordinates(Curve curve, String srsName, CoordinateSink sink) {
 		List<AbstractCurveSegment> segments = (List<AbstractCurveSegment>) curve.getSegments()
 			.getAbstractCurveSegment();
+		CoordinateReferenceSystem crs = coordinateReferenceSystem(curve, srsName);
 		for (AbstractCurveSegment segment : segments) {
-			String className = segment.getClass().getName();
-			CurveSegmentType segmentType = segmentTypeMap.get(className);
-			if (null == segmentType) {
-				throw new RuntimeException("Unsupported curve segment type: " + className);
+			CurveSegmentHandler handler = GeometryHandlerRegistry.getCurveSegmentHandler(segment.getClass());
+			if (null == handler) {
+				throw new RuntimeException("Unsupported curve segment type: " + segment.getClass().getName());
 			}
-			coordList.addAll(segmentType.getCoordinateList(segment, curve.getCoordinateReferenceSystem(false)));
+			handler.appendCoordinates(segment, crs, sink);
 		}
-		return coordList;
 	}
 
 	/**
@@ -117,17 +124,18 @@ public class CurveCoordinateListFactory implements CoordinateListFactory {
 	 * @return The list of vertices.
 	 */
 	List<Coordinate> getCoordinateList(LineString lineString) {
-		List<Coordinate> coords = new ArrayList<Coordinate>();
+		return createCoordinateList(lineString);
+	}
+
+	private void appendLineStringCoordinates(LineString lineString, String srsName, CoordinateSink sink) {
 		if (null != lineString.getPosList()) {
-			GmlUtils.extractCoordinatesFromPosList(lineString.getPosList().getValue(),
-					lineString.getCoordinateDimension(), coords);
+			sink.addAll(lineString.getPosList().getValue(), coordinateDimension(lineString, srsName));
 		}
 		else { // sequence of two or more direct positions
 			for (DirectPosition pos : lineString.getPos()) {
-				coords.add(new Coordinate(pos.getOrdinate(0), pos.getOrdinate(1)));
+				sink.add(pos.getOrdinate(0), pos.getOrdinate(1));
 			}
 		}
-		return coords;
 	}
 
 	/**
@@ -138,16 +146,7 @@ public class CurveCoordinateListFactory implements CoordinateListFactory {
 	 * along its length.
 	 */
 	List<Coordinate> getCoordinateList(CompositeCurveType compCurve) {
-		List<Coordinate> coords = new ArrayList<Coordinate>();
-		for (CurvePropertyType member : compCurve.getCurveMember()) {
-			// WARNING: Assume in-line curve and ignore href
-			AbstractCurveType curveType = member.getAbstractCurve();
-			if (null == curveType.getSrsName()) {
-				curveType.setSrsName(compCurve.getSrsName());
-			}
-			coords.addAll(createCoordinateList(curveType));
-		}
-		return coords;
+		return createCoordinateList(compCurve);
 	}
 
 	/**
@@ -159,13 +158,20 @@ public class CurveCoordinateListFactory implements CoordinateListFactory {
 	 * with respect to the base curve.
 	 */
 	List<Coordinate> getCoordinateList(OrientableCurveType orientableCurve) {
+		return createCoordinateList(orientableCurve);
+	}
+
+	private void appendOrientableCurveCoordinates(OrientableCurveType orientableCurve, String srsName,
+			CoordinateSink sink) {
 		CurvePropertyType baseCurve = orientableCurve.getBaseCurve();
-		// WARNING: Assume base curve is in-line and ignore href
-		List<Coordinate> coords = createCoordinateList(baseCurve.getAbstractCurve());
-		if (orientableCurve.getOrientation().equals(ORIENT_NEG)) {
-			Collections.reverse(coords);
+		if (!orientableCurve.getOrientation().equals(ORIENT_NEG)) {
+			appendMemberCoordinates(baseCurve, srsName, sink);
+			return;
 		}
-		return coords;
+		CoordinateBuffer buffer = new CoordinateBuffer();
+		appendMemberCoordinates(baseCurve, srsName, buffer);
+		buffer.reverse();
+		buffer.copyTo(sink);
 	}
 
 	/**
@@ -173,48 +179,104 @@ public class CurveCoordinateListFactory implements CoordinateListFactory {
 	 * surface boundary. A ring is structurally similar to a composite curve.
 	 * @param ring A ring (gml:Ring or gml:LinearRing element).
 	 * @return A list of points on a ring (closed curve).
-	 * @throws Exception If a curve member could not be accessed or parsed.
 	 */
-	List<Coordinate> getCoordinateList(AbstractRingType ring) throws Exception {
-		List<Coordinate> coords = new ArrayList<Coordinate>();
+	List<Coordinate> getCoordinateList(AbstractRingType ring) {
+		return createCoordinateList(ring);
+	}
+
+	private void appendRingCoordinates(AbstractRingType ring, String srsName, CoordinateSink sink) {
 		if (LinearRingType.class.isInstance(ring)) {
 			LinearRingType linearRing = LinearRingType.class.cast(ring);
 			if (null != linearRing.getPosList()) {
-				GmlUtils.extractCoordinatesFromPosList(linearRing.getPosList().getValue(),
-						linearRing.getCoordinateDimension(), coords);
+				sink.addAll(linearRing.getPosList().getValue(), coordinateDimension(linearRing, srsName));
 			}
 			else { // sequence of 4 or more direct positions
 				List<JAXBElement<?>> points = linearRing.getPosOrPointPropertyOrPointRep();
 				for (JAXBElement<?> elem : points) {
 					DirectPositionType pos = (DirectPositionType) elem.getValue();
-					coords.add(new Coordinate(pos.getOrdinate(0), pos.getOrdinate(1)));
+					sink.add(pos.getOrdinate(0), pos.getOrdinate(1));
 				}
 			}
 		}
 		else { // gml:Ring
 			RingType gmlRing = RingType.class.cast(ring);
 			for (CurvePropertyType member : gmlRing.getCurveMember()) {
-				AbstractCurveType curveType = null;
-				if (null != member.getHref()) {
-					URI memberRef = URI.create(member.getHref());
-					AbstractGeometry geom = GmlUtils.unmarshalGMLGeometry(memberRef);
-					if (AbstractCurveType.class.isInstance(geom)) {
-						curveType = AbstractCurveType.class.cast(geom);
-					}
-				}
-				else { // in-line curve
-					curveType = member.getAbstractCurve();
-				}
 				if (LOGR.isLoggable(Level.FINE)) {
-					LOGR.fine("Processing ring member: " + curveType.getId());
+					LOGR.fine("Processing ring member: " + ((null != member.getAbstractCurve())
+							? member.getAbstractCurve().getId() : member.getHref()));
 				}
-				if (null == curveType.getSrsName()) {
-					curveType.setSrsName(ring.getSrsName());
-				}
-				coords.addAll(createCoordinateList(curveType));
+				appendMemberCoordinates(member, srsName, sink);
+			}
+		}
+	}
+
+	/**
+	 * Passes the points on a curve member to a coordinate sink. The member curve is
+	 * either in-line or referenced by xlink:href; a same-document reference ("#id") is
+	 * resolved using the gml:id index of the document the member was unmarshalled from
+	 * (see {@link GmlIdIndex#forReference}), while any other reference is resolved by
+	 * the default {@link CurveReferenceResolver}.
+	 * @param member A curve property (e.g. gml:curveMember, gml:baseCurve).
+	 * @param srsName The CRS reference that applies if the member curve does not have
+	 * one.
+	 * @param sink The sink to which the coordinates are passed.
+	 */
+	private void appendMemberCoordinates(CurvePropertyType member, String srsName, CoordinateSink sink) {
+		AbstractCurveType curveType = member.getAbstractCurve();
+		if (null != curveType) {
+			appendCoordinates(curveType, srsName, sink);
+			return;
+		}
+		String href = member.getHref();
+		if (null == href) {
+			throw new IllegalArgumentException("Curve property has neither a value nor a reference.");
+		}
+		if (href.startsWith("#")) {
+			GmlIdIndex idIndex = GmlIdIndex.forReference(member);
+			if (null == idIndex) {
+				throw new IllegalArgumentException("Cannot resolve same-document reference: " + href);
 			}
+			for (Coordinate coord : idIndex.getCoordinates(href, srsName, this::createCoordinateList)) {
+				sink.add(coord.x, coord.y);
+			}
+			return;
+		}
+		URI memberRef = URI.create(href);
+		AbstractGeometry geom;
+		try {
+			geom = CurveReferenceResolver.getDefault().resolve(memberRef);
+		}
+		catch (JAXBException e) {
+			throw new RuntimeException(e);
+		}
+		if (!AbstractCurveType.class.isInstance(geom)) {
+			throw new IllegalArgumentException("Curve member is not a curve: " + memberRef);
+		}
+		// the resolved curve may be shared by other rings, so it is never modified
+		appendCoordinates(geom, srsName, sink);
+	}
+
+	/**
+	 * Returns the CRS of a curve, which is identified by the given reference if the
+	 * curve does not have a srsName attribute.
+	 */
+	private static CoordinateReferenceSystem coordinateReferenceSystem(AbstractGeometry curve, String srsName) {
+		if (null != curve.getSrsName() || null == srsName) {
+			return curve.getCoordinateReferenceSystem(false);
+		}
+		try {
+			return GeodesyUtils.lookupCRS(srsName);
+		}
+		catch (FactoryException e) {
+			throw new RuntimeException("Unknown CRS: " + srsName, e);
+		}
+	}
+
+	private static int coordinateDimension(AbstractGeometry curve, String srsName) {
+		if (null != curve.getSrsName() || null == srsName) {
+			return curve.getCoordinateDimension();
 		}
-		return coords;
+		return coordinateReferenceSystem(curve, srsName).getCoordinateSystem().getDimension();
 	}
 
 }
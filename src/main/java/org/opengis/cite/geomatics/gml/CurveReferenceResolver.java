@@ -0,0 +1,278 @@
+package org.opengis.cite.geomatics.gml;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamSource;
+
+import jakarta.xml.bind.JAXBException;
+
+import org.geotoolkit.gml.xml.AbstractGeometry;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+
+/**
+ * Resolves references (xlink:href) to remote GML geometries, such as the curve members of
+ * a gml:Ring. Parsed geometries are kept in a bounded cache keyed by URI, and concurrent
+ * requests for the same URI share a single retrieval.
+ *
+ * <p>
+ * A local store may be configured so that references can be resolved offline. It is a
+ * directory (or a location in a JAR file) that mirrors remote resources: the resource
+ * {@code http://example.org/gml/curve.xml} is looked for at
+ * <code><em>store</em>/example.org/gml/curve.xml</code>. If a resource is not found in
+ * the local store, it is retrieved from its original location.
+ * </p>
+ *
+ * <p>
+ * The default resolver can be configured using the system properties
+ * {@value #LOCAL_STORE_PROPERTY} (a directory path or a URI) and
+ * {@value #MAX_ENTRIES_PROPERTY}. Geometries obtained from the resolver are shared and
+ * must not be modified.
+ * </p>
+ */
+public final class CurveReferenceResolver {
+
+	/** System property that specifies the location of the local store. */
+	public static final String LOCAL_STORE_PROPERTY = "org.opengis.cite.geomatics.gml.CurveReferenceResolver.localStore";
+
+	/** System property that specifies the maximum number of cached geometries. */
+	public static final String MAX_ENTRIES_PROPERTY = "org.opengis.cite.geomatics.gml.CurveReferenceResolver.maxEntries";
+
+	/** Default maximum number of cached geometries. */
+	public static final int DEFAULT_MAX_ENTRIES = 256;
+
+	private static final Logger LOGR = Logger.getLogger(CurveReferenceResolver.class.getPackage().getName());
+
+	private static final CurveReferenceResolver DEFAULT_RESOLVER = createDefault();
+
+	private final String localStore;
+
+	private final Map<URI, AbstractGeometry> cache;
+
+	private final ConcurrentHashMap<URI, CompletableFuture<AbstractGeometry>> pending = new ConcurrentHashMap<>();
+
+	private final Loader loader;
+
+	/**
+	 * Creates a resolver.
+	 * @param localStore The base location of a local store (a directory or a "jar:" URI
+	 * ending with '/'), or {@code null} if resources are always retrieved from their
+	 * original location.
+	 * @param maxEntries The maximum number of geometries to retain.
+	 */
+	public CurveReferenceResolver(URI localStore, int maxEntries) {
+		this(localStore, maxEntries, null);
+	}
+
+	/**
+	 * Creates a resolver that obtains geometries that are not in the cache from the given
+	 * loader.
+	 * @param localStore The base location of a local store, or {@code null}.
+	 * @param maxEntries The maximum number of geometries to retain.
+	 * @param loader The loader to use, or {@code null} to read the referenced resource.
+	 */
+	CurveReferenceResolver(URI localStore, int maxEntries, Loader loader) {
+		if (maxEntries < 1) {
+			throw new IllegalArgumentException("Cache size must be positive: " + maxEntries);
+		}
+		String base = (null != localStore) ? localStore.toString() : null;
+		this.localStore = (null == base || base.endsWith("/")) ? base : base + "/";
+		this.cache = new LinkedHashMap<URI, AbstractGeometry>(Math.min(maxEntries, 64), 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<URI, AbstractGeometry> eldest) {
+				return size() > maxEntries;
+			}
+		};
+		this.loader = (null != loader) ? loader : this::load;
+	}
+
+	/**
+	 * Returns the default resolver as configured by system properties.
+	 * @return A shared CurveReferenceResolver instance.
+	 */
+	public static CurveReferenceResolver getDefault() {
+		return DEFAULT_RESOLVER;
+	}
+
+	/**
+	 * Resolves a reference to a GML geometry. If the URI includes a fragment identifier,
+	 * it refers to the element having that gml:id value within the resource.
+	 * @param uriRef An absolute URI that refers to a GML geometry.
+	 * @return A (shared) GML geometry object.
+	 * @throws JAXBException If the resource does not contain a GML geometry or any other
+	 * error occurs while unmarshalling it.
+	 */
+	public AbstractGeometry resolve(URI uriRef) throws JAXBException {
+		if (!uriRef.isAbsolute()) {
+			throw new IllegalArgumentException("Not an absolute URI: " + uriRef);
+		}
+		synchronized (cache) {
+			AbstractGeometry geom = cache.get(uriRef);
+			if (null != geom) {
+				return geom;
+			}
+		}
+		CompletableFuture<AbstractGeometry> task = new CompletableFuture<AbstractGeometry>();
+		CompletableFuture<AbstractGeometry> inFlight = pending.putIfAbsent(uriRef, task);
+		if (null == inFlight) {
+			try {
+				AbstractGeometry geom;
+				synchronized (cache) {
+					// another thread may have finished loading it in the meantime
+					geom = cache.get(uriRef);
+				}
+				if (null == geom) {
+					geom = loader.load(uriRef);
+					synchronized (cache) {
+						cache.put(uriRef, geom);
+					}
+				}
+				task.complete(geom);
+			}
+			catch (JAXBException | RuntimeException e) {
+				task.completeExceptionally(e);
+			}
+			finally {
+				pending.remove(uriRef, task);
+			}
+			inFlight = task;
+		}
+		try {
+			return inFlight.join();
+		}
+		catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof JAXBException) {
+				throw (JAXBException) cause;
+			}
+			throw (cause instanceof RuntimeException) ? (RuntimeException) cause : new RuntimeException(cause);
+		}
+	}
+
+	/**
+	 * Removes all cached geometries.
+	 */
+	public void clear() {
+		synchronized (cache) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Returns the number of cached geometries.
+	 * @return The number of cache entries.
+	 */
+	public int size() {
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+
+	private AbstractGeometry load(URI uriRef) throws JAXBException {
+		URI resource;
+		try {
+			resource = new URI(uriRef.getScheme(), uriRef.getSchemeSpecificPart(), null);
+		}
+		catch (URISyntaxException e) {
+			throw new IllegalArgumentException(e);
+		}
+		try (InputStream input = openStream(resource)) {
+			String fragment = uriRef.getFragment();
+			if (null == fragment) {
+				return GmlUtils.unmarshalGMLGeometry(new StreamSource(input, resource.toString()));
+			}
+			DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+			dbf.setNamespaceAware(true);
+			Document doc = dbf.newDocumentBuilder().parse(input, resource.toString());
+			Element target = findElementById(doc.getDocumentElement(), fragment);
+			if (null == target) {
+				throw new JAXBException(String.format("No element with gml:id='%s' in %s", fragment, resource));
+			}
+			return GmlUtils.unmarshalGMLGeometry(new DOMSource(target, resource.toString()));
+		}
+		catch (IOException | SAXException | ParserConfigurationException e) {
+			throw new JAXBException("Failed to read " + resource, e);
+		}
+	}
+
+	/**
+	 * Opens a stream to read a resource, preferring a copy in the local store if
+	 * available.
+	 */
+	private InputStream openStream(URI resource) throws IOException {
+		if (null != localStore && null != resource.getRawPath()) {
+			String path = resource.getRawPath().startsWith("/") ? resource.getRawPath().substring(1)
+					: resource.getRawPath();
+			String localPath = (null != resource.getHost()) ? resource.getHost() + "/" + path : path;
+			try {
+				InputStream input = new URL(localStore + localPath).openStream();
+				if (LOGR.isLoggable(Level.FINE)) {
+					LOGR.fine("Resolved " + resource + " from local store.");
+				}
+				return input;
+			}
+			catch (FileNotFoundException | NoSuchFileException e) {
+				// fall back to original location
+			}
+		}
+		return resource.toURL().openStream();
+	}
+
+	static Element findElementById(Element elem, String id) {
+		if (id.equals(elem.getAttributeNS(GmlUtils.GML_NS, "id"))) {
+			return elem;
+		}
+		for (Node child = elem.getFirstChild(); null != child; child = child.getNextSibling()) {
+			if (child.getNodeType() == Node.ELEMENT_NODE) {
+				Element match = findElementById((Element) child, id);
+				if (null != match) {
+					return match;
+				}
+			}
+		}
+		return null;
+	}
+
+	private static CurveReferenceResolver createDefault() {
+		URI localStore = null;
+		String location = System.getProperty(LOCAL_STORE_PROPERTY);
+		if (null != location && !location.isEmpty()) {
+			// a URI (e.g. "jar:file:/data/gml.jar!/store/") or a directory path
+			localStore = location.matches("[a-zA-Z][a-zA-Z0-9+.-]+:.+/") ? URI.create(location)
+					: Paths.get(location).toUri();
+		}
+		return new CurveReferenceResolver(localStore, Integer.getInteger(MAX_ENTRIES_PROPERTY, DEFAULT_MAX_ENTRIES));
+	}
+
+	/**
+	 * Retrieves a geometry that is not in the cache.
+	 */
+	@FunctionalInterface
+	interface Loader {
+
+		AbstractGeometry load(URI uriRef) throws JAXBException;
+
+	}
+
+}
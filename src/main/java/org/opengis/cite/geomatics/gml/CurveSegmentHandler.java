@@ -0,0 +1,57 @@
+package org.opengis.cite.geomatics.gml;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.geotoolkit.gml.xml.AbstractCurveSegment;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+import org.locationtech.jts.geom.Coordinate;
+
+/**
+ * Generates a sequence of points on a curve segment of some kind. A curve is composed of
+ * one or more contiguous curve segments, each of which may be defined using a different
+ * interpolation method.
+ *
+ * <p>
+ * Additional handlers can be made available by listing the names of implementing classes
+ * in a provider-configuration file named
+ * {@code META-INF/services/org.opengis.cite.geomatics.gml.CurveSegmentHandler} (see
+ * {@link java.util.ServiceLoader}). Implementations must be stateless.
+ * </p>
+ *
+ * @see GeometryHandlerRegistry
+ */
+public interface CurveSegmentHandler {
+
+	/**
+	 * Returns the curve segment classes supported by this handler. A handler also applies
+	 * to subclasses of these types unless a more specific handler is registered.
+	 * @return A collection of classes that represent GML curve segments (subtypes of
+	 * {@link AbstractCurveSegment}).
+	 */
+	Collection<Class<?>> getSegmentTypes();
+
+	/**
+	 * Passes the points on a curve segment to the given sink. Some points may be computed
+	 * if not given explicitly (e.g. ArcByCenterPoint).
+	 * @param segment A GML curve segment.
+	 * @param crs The coordinate reference system associated with the curve.
+	 * @param sink The sink to which the coordinates are passed (ordered from start to
+	 * end); it may be a {@link CoordinateBuffer}.
+	 */
+	void appendCoordinates(AbstractCurveSegment segment, CoordinateReferenceSystem crs, CoordinateSink sink);
+
+	/**
+	 * Returns a list of points on a curve segment.
+	 * @param segment A GML curve segment.
+	 * @param crs The coordinate reference system associated with the curve.
+	 * @return A list of JTS Coordinate objects (ordered from start to end).
+	 */
+	default List<Coordinate> getCoordinateList(AbstractCurveSegment segment, CoordinateReferenceSystem crs) {
+		CoordinateBuffer buffer = new CoordinateBuffer();
+		appendCoordinates(segment, crs, buffer);
+		return buffer.toCoordinateList();
+	}
+
+}
@@ -1,6 +1,9 @@
 package org.opengis.cite.geomatics.gml;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import jakarta.xml.bind.JAXBElement;
@@ -8,99 +11,199 @@ import jakarta.xml.bind.JAXBElement;
 import org.geotoolkit.gml.xml.AbstractCurveSegment;
 import org.geotoolkit.gml.xml.DirectPosition;
 import org.geotoolkit.gml.xml.LineStringSegment;
+import org.geotoolkit.gml.xml.v321.ArcByCenterPointType;
 import org.geotoolkit.gml.xml.v321.ArcStringType;
+import org.geotoolkit.gml.xml.v321.ArcType;
+import org.geotoolkit.gml.xml.v321.BSplineType;
+import org.geotoolkit.gml.xml.v321.BezierType;
+import org.geotoolkit.gml.xml.v321.CircleByCenterPointType;
+import org.geotoolkit.gml.xml.v321.CircleType;
+import org.geotoolkit.gml.xml.v321.CubicSplineType;
+import org.geotoolkit.gml.xml.v321.DirectPositionListType;
 import org.geotoolkit.gml.xml.v321.DirectPositionType;
 import org.geotoolkit.gml.xml.v321.GeodesicStringType;
+import org.geotoolkit.gml.xml.v321.KnotPropertyType;
+import org.geotoolkit.gml.xml.v321.KnotType;
+import org.geotoolkit.gml.xml.v321.LineStringSegmentType;
+import org.geotoolkit.gml.xml.v321.PointPropertyType;
+import org.geotoolkit.gml.xml.v321.PointType;
+import org.geotoolkit.gml.xml.v321.VectorType;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 
 import org.locationtech.jts.geom.Coordinate;
 
 /**
  * Curve segment type. A curve is composed of one or more contiguous curve segments, each
- * of which may be defined using a different interpolation method.
+ * of which may be defined using a different interpolation method. Each constant is the
+ * built-in {@link CurveSegmentHandler} for the GML segment types it lists.
  *
  */
-public enum CurveSegmentType {
+public enum CurveSegmentType implements CurveSegmentHandler {
 
 	/** gml:LineStringSegment */
-	LINE_STRING {
+	LINE_STRING(LineStringSegmentType.class) {
 		@Override
-		public List<Coordinate> getCoordinateList(AbstractCurveSegment segment, CoordinateReferenceSystem crs) {
-			if (null == crs) {
-				throw new IllegalArgumentException("No CRS supplied for curve segment.");
-			}
+		public void appendCoordinates(AbstractCurveSegment segment, CoordinateReferenceSystem crs,
+				CoordinateSink sink) {
+			int dim = crsDimension(crs);
 			LineStringSegment lineSegment = LineStringSegment.class.cast(segment);
-			List<Double> posList = new ArrayList<Double>();
 			if (null == lineSegment.getPosList()) {
 				for (DirectPosition pos : lineSegment.getPos()) {
-					posList.addAll(pos.getValue());
+					sink.addAll(pos.getValue(), dim);
 				}
 			}
 			else {
-				posList.addAll(lineSegment.getPosList().getValue());
+				sink.addAll(lineSegment.getPosList().getValue(), dim);
 			}
-			List<Coordinate> coords = new ArrayList<Coordinate>();
-			GmlUtils.extractCoordinatesFromPosList(posList, crs.getCoordinateSystem().getDimension(), coords);
-			return coords;
 		}
 	},
 	/** gml:GeodesicString, gml:Geodesic */
-	GEODESIC_STRING {
+	GEODESIC_STRING(GeodesicStringType.class) {
 		@Override
-		public List<Coordinate> getCoordinateList(AbstractCurveSegment segment, CoordinateReferenceSystem crs) {
-			if (null == crs) {
-				throw new IllegalArgumentException("No CRS supplied for curve segment.");
-			}
+		public void appendCoordinates(AbstractCurveSegment segment, CoordinateReferenceSystem crs,
+				CoordinateSink sink) {
+			int dim = crsDimension(crs);
 			GeodesicStringType geodesic = GeodesicStringType.class.cast(segment);
-			List<Coordinate> coords = new ArrayList<Coordinate>();
-			GmlUtils.extractCoordinatesFromPosList(geodesic.getPosList().getValue(),
-					crs.getCoordinateSystem().getDimension(), coords);
-			return coords;
+			sink.addAll(geodesic.getPosList().getValue(), dim);
 		}
 	},
 	/** gml:ArcByCenterPoint, gml:CircleByCenterPoint */
-	ARC_BY_CENTER {
+	ARC_BY_CENTER(ArcByCenterPointType.class, CircleByCenterPointType.class) {
 		@Override
-		public List<Coordinate> getCoordinateList(AbstractCurveSegment segment, CoordinateReferenceSystem crs) {
-			if (null == crs) {
-				throw new IllegalArgumentException("No CRS supplied for curve segment.");
-			}
-			List<Coordinate> coords = new ArrayList<Coordinate>();
+		public void appendCoordinates(AbstractCurveSegment segment, CoordinateReferenceSystem crs,
+				CoordinateSink sink) {
+			crsDimension(crs);
+			List<Coordinate> coords = new ArrayList<Coordinate>(GmlUtils.TOTAL_ARC_POINTS);
 			GmlUtils.inferPointsOnArc(segment, crs, coords);
-			return coords;
+			for (Coordinate coord : coords) {
+				sink.add(coord.x, coord.y);
+			}
 		}
 	},
 	/** gml:ArcString, gml:Arc, gml:Circle */
-	ARC_STRING {
+	ARC_STRING(ArcStringType.class, ArcType.class, CircleType.class) {
 		@Override
-		public List<Coordinate> getCoordinateList(AbstractCurveSegment segment, CoordinateReferenceSystem crs) {
-			if (null == crs) {
-				throw new IllegalArgumentException("No CRS supplied for curve segment.");
-			}
-			List<Coordinate> coords = new ArrayList<Coordinate>();
+		public void appendCoordinates(AbstractCurveSegment segment, CoordinateReferenceSystem crs,
+				CoordinateSink sink) {
+			int dim = crsDimension(crs);
 			ArcStringType arcType = ArcStringType.class.cast(segment);
-			if (null != arcType.getPosList()) {
-				GmlUtils.extractCoordinatesFromPosList(arcType.getPosList().getValue(),
-						crs.getCoordinateSystem().getDimension(), coords);
-			}
-			else { // at least 3 gml:pos elements
-				List<JAXBElement<?>> points = arcType.getPosOrPointPropertyOrPointRep();
-				for (JAXBElement<?> elem : points) {
-					DirectPositionType pos = (DirectPositionType) elem.getValue();
-					coords.add(new Coordinate(pos.getOrdinate(0), pos.getOrdinate(1)));
-				}
+			appendControlPoints(arcType.getPosList(), arcType.getPosOrPointPropertyOrPointRep(), dim, sink);
+		}
+	},
+	/** gml:Bezier */
+	BEZIER(BezierType.class) {
+		@Override
+		public void appendCoordinates(AbstractCurveSegment segment, CoordinateReferenceSystem crs,
+				CoordinateSink sink) {
+			int dim = crsDimension(crs);
+			BezierType bezier = BezierType.class.cast(segment);
+			CoordinateBuffer ctrl = new CoordinateBuffer();
+			appendControlPoints(bezier.getPosList(), bezier.getPosOrPointPropertyOrPointRep(), dim, ctrl);
+			SplineInterpolator.bezier(ctrl.ordinates(), ctrl.size(), sink);
+		}
+	},
+	/** gml:BSpline */
+	BSPLINE(BSplineType.class) {
+		@Override
+		public void appendCoordinates(AbstractCurveSegment segment, CoordinateReferenceSystem crs,
+				CoordinateSink sink) {
+			int dim = crsDimension(crs);
+			BSplineType spline = BSplineType.class.cast(segment);
+			CoordinateBuffer ctrl = new CoordinateBuffer();
+			appendControlPoints(spline.getPosList(), spline.getPosOrPointPropertyOrPointRep(), dim, ctrl);
+			Number degreeValue = spline.getDegree();
+			int degree = (null != degreeValue) ? degreeValue.intValue() : Math.min(3, ctrl.size() - 1);
+			List<KnotPropertyType> knotList = spline.getKnot();
+			double[] values = new double[knotList.size()];
+			int[] multiplicities = new int[knotList.size()];
+			for (int i = 0; i < values.length; i++) {
+				KnotType knot = knotList.get(i).getKnot();
+				values[i] = knot.getValue();
+				Number multiplicity = knot.getMultiplicity();
+				multiplicities[i] = (null != multiplicity) ? multiplicity.intValue() : 1;
 			}
-			return coords;
+			double[] knots = SplineInterpolator.expandKnots(values, multiplicities, ctrl.size(), degree);
+			SplineInterpolator.bspline(ctrl.ordinates(), ctrl.size(), degree, knots, sink);
+		}
+	},
+	/** gml:CubicSpline */
+	CUBIC_SPLINE(CubicSplineType.class) {
+		@Override
+		public void appendCoordinates(AbstractCurveSegment segment, CoordinateReferenceSystem crs,
+				CoordinateSink sink) {
+			int dim = crsDimension(crs);
+			CubicSplineType spline = CubicSplineType.class.cast(segment);
+			CoordinateBuffer pts = new CoordinateBuffer();
+			appendControlPoints(spline.getPosList(), spline.getPosOrPointPropertyOrPointRep(), dim, pts);
+			SplineInterpolator.cubicSpline(pts.ordinates(), pts.size(), tangent(spline.getVectorAtStart()),
+					tangent(spline.getVectorAtEnd()), sink);
 		}
 	};
 
+	private final List<Class<?>> segmentTypes;
+
+	CurveSegmentType(Class<?>... segmentTypes) {
+		this.segmentTypes = Collections.unmodifiableList(Arrays.asList(segmentTypes));
+	}
+
+	@Override
+	public Collection<Class<?>> getSegmentTypes() {
+		return segmentTypes;
+	}
+
+	private static int crsDimension(CoordinateReferenceSystem crs) {
+		if (null == crs) {
+			throw new IllegalArgumentException("No CRS supplied for curve segment.");
+		}
+		return crs.getCoordinateSystem().getDimension();
+	}
+
+	/**
+	 * Adds the control points given by either a gml:posList element or a sequence of
+	 * gml:pos elements.
+	 */
+	private static void appendControlPoints(DirectPositionListType posList, List<JAXBElement<?>> points, int dim,
+			CoordinateSink sink) {
+		if (null != posList) {
+			sink.addAll(posList.getValue(), dim);
+		}
+		else {
+			for (JAXBElement<?> elem : points) {
+				DirectPositionType pos = controlPoint(elem.getValue());
+				sink.add(pos.getOrdinate(0), pos.getOrdinate(1));
+			}
+		}
+	}
+
 	/**
-	 * Returns a list of points on a curve segment. Some points may be computed if not
-	 * given explicitly (e.g. ArcByCenterPoint).
-	 * @param segment A GML curve segment.
-	 * @param crs The coordinate reference system associated with the curve.
-	 * @return A list of JTS Coordinate objects (ordered from start to end).
+	 * Gets the position of a control point given by a gml:pos element or by a point
+	 * property (gml:pointProperty, gml:pointRep) containing an in-line gml:Point.
+	 * @param value The content of a control point element.
+	 * @return The position of the control point.
+	 * @throws IllegalArgumentException If the point is given by reference or lacks a
+	 * gml:pos element.
 	 */
-	public abstract List<Coordinate> getCoordinateList(AbstractCurveSegment segment, CoordinateReferenceSystem crs);
+	private static DirectPositionType controlPoint(Object value) {
+		if (value instanceof DirectPositionType) {
+			return (DirectPositionType) value;
+		}
+		if (value instanceof PointPropertyType) {
+			PointType point = ((PointPropertyType) value).getPoint();
+			if (null == point || null == point.getPos()) {
+				throw new IllegalArgumentException(
+						"Control point property must contain an in-line gml:Point with a gml:pos element.");
+			}
+			return point.getPos();
+		}
+		throw new IllegalArgumentException("Unsupported control point: " + value.getClass().getName());
+	}
+
+	private static double[] tangent(VectorType vector) {
+		if (null == vector || null == vector.getValue() || vector.getValue().size() < 2) {
+			return null;
+		}
+		List<Double> values = vector.getValue();
+		return new double[] { values.get(0), values.get(1) };
+	}
 
 }
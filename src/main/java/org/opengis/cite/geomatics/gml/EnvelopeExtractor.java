@@ -0,0 +1,462 @@
+package org.opengis.cite.geomatics.gml;
+
+import java.util.Arrays;
+
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import org.locationtech.jts.geom.Envelope;
+
+/**
+ * Determines the 2D envelope of a GML geometry element by scanning its coordinates
+ * (gml:pos, gml:posList, gml:coordinates) directly in the DOM, without creating geometry
+ * objects. The bounds of circular arcs defined by three points (gml:Arc, gml:ArcString,
+ * gml:Circle) are computed analytically, so they include the extreme points of each arc
+ * and not only its control points. If the CRS and the unit of the radius are known, the
+ * bounds of arcs defined by a center point and radius (gml:ArcByCenterPoint,
+ * gml:CircleByCenterPoint) are computed by {@link ArcEnvelope}.
+ *
+ * <p>
+ * Geometries containing other curve segments whose shape cannot be determined from their
+ * control points (e.g. gml:Bezier, gml:ArcByBulge) or members given by reference are not
+ * supported; in this case no bounds are reported and the geometry must be
+ * processed by other means. An instance can be reused but is not thread-safe.
+ * </p>
+ */
+public final class EnvelopeExtractor {
+
+	private static final String SRS_DIMENSION = "srsDimension";
+
+	private static final String XLINK_NS = "http://www.w3.org/1999/xlink";
+
+	private final CoordinateTextParser parser = new CoordinateTextParser();
+
+	/** Control points of the arc segment being processed (x0, y0, x1, y1, ...). */
+	private double[] arcPoints = new double[12];
+
+	private int arcPointCount;
+
+	private boolean inArc;
+
+	private final Envelope bounds = new Envelope();
+
+	private CoordinateReferenceSystem crs;
+
+	/** Indicates whether srsDimension attributes must be read while scanning. */
+	private boolean readDimensions = true;
+
+	/**
+	 * Expands an envelope to include the given geometry.
+	 * @param geom An Element representing a GML geometry.
+	 * @param dimension The coordinate dimension of the CRS used by the geometry; it only
+	 * applies if the srsDimension attribute is not specified.
+	 * @param envelope The envelope to expand; it is not modified unless the geometry is
+	 * supported.
+	 * @return {@code true} if the envelope was expanded; {@code false} if the geometry
+	 * contains unsupported content or no coordinates.
+	 */
+	public boolean expandToInclude(Element geom, int dimension, Envelope envelope) {
+		this.crs = null;
+		return expand(geom, dimension, envelope);
+	}
+
+	/**
+	 * Expands an envelope to include the given geometry, which may also contain arcs
+	 * defined by a center point and radius.
+	 * @param geom An Element representing a GML geometry.
+	 * @param crs The CRS used by the geometry.
+	 * @param envelope The envelope to expand; it is not modified unless the geometry is
+	 * supported.
+	 * @return {@code true} if the envelope was expanded; {@code false} if the geometry
+	 * contains unsupported content or no coordinates.
+	 */
+	public boolean expandToInclude(Element geom, CoordinateReferenceSystem crs, Envelope envelope) {
+		this.crs = crs;
+		try {
+			return expand(geom, crs.getCoordinateSystem().getDimension(), envelope);
+		}
+		finally {
+			this.crs = null;
+		}
+	}
+
+	/**
+	 * Expands an envelope to include a classified geometry, which may also contain arcs
+	 * defined by a center point and radius. The coordinate dimension recorded in the
+	 * descriptor is used (or that of the CRS if none is declared); srsDimension attributes
+	 * are only read again if some coordinates declare a different dimension.
+	 * @param descriptor A descriptor of a GML geometry element.
+	 * @param crs The CRS used by the geometry.
+	 * @param envelope The envelope to expand; it is not modified unless the geometry is
+	 * supported.
+	 * @return {@code true} if the envelope was expanded; {@code false} if the geometry
+	 * contains unsupported content or no coordinates.
+	 */
+	public boolean expandToInclude(GeometryDescriptor descriptor, CoordinateReferenceSystem crs, Envelope envelope) {
+		if (descriptor.getVertexCount() == 0) {
+			// e.g. only members given by reference
+			return false;
+		}
+		int dimension = descriptor.getCoordinateDimension();
+		if (dimension == 0) {
+			dimension = crs.getCoordinateSystem().getDimension();
+		}
+		this.crs = crs;
+		this.readDimensions = !descriptor.isDimensionUniform();
+		try {
+			return expand(descriptor.getElement(), dimension, envelope);
+		}
+		finally {
+			this.crs = null;
+			this.readDimensions = true;
+		}
+	}
+
+	private boolean expand(Element geom, int dimension, Envelope envelope) {
+		bounds.setToNull();
+		inArc = false;
+		if (!scan(geom, dimensionOf(geom, dimension)) || bounds.isNull()) {
+			return false;
+		}
+		envelope.expandToInclude(bounds);
+		return true;
+	}
+
+	private boolean scan(Element elem, int dimension) {
+		for (Node child = elem.getFirstChild(); null != child; child = child.getNextSibling()) {
+			if (child.getNodeType() != Node.ELEMENT_NODE) {
+				continue;
+			}
+			Element childElem = (Element) child;
+			int childDimension = dimensionOf(childElem, dimension);
+			if (!GmlUtils.GML_NS.equals(childElem.getNamespaceURI())) {
+				if (!scan(childElem, childDimension)) {
+					return false;
+				}
+				continue;
+			}
+			switch (childElem.getLocalName()) {
+				case "pos":
+					addPositions(childElem, childDimension, 1);
+					break;
+				case "posList":
+					addPositions(childElem, childDimension, Integer.MAX_VALUE);
+					break;
+				case "coordinates":
+					if (!addCoordinates(childElem)) {
+						return false;
+					}
+					break;
+				case "Arc":
+				case "ArcString":
+				case "Circle":
+					if (!scanArc(childElem, childDimension)) {
+						return false;
+					}
+					break;
+				case "ArcByCenterPoint":
+				case "CircleByCenterPoint":
+					if (null == crs || inArc || !addArcByCenterPoint(childElem)) {
+						return false;
+					}
+					break;
+				case "ArcByBulge":
+				case "ArcStringByBulge":
+				case "Bezier":
+				case "BSpline":
+				case "CubicSpline":
+				case "Clothoid":
+				case "OffsetCurve":
+					return false;
+				default:
+					if (!childElem.hasChildNodes() && childElem.hasAttributeNS(XLINK_NS, "href")) {
+						// remote or local reference
+						return false;
+					}
+					if (!scan(childElem, childDimension)) {
+						return false;
+					}
+			}
+		}
+		return true;
+	}
+
+	private boolean scanArc(Element arc, int dimension) {
+		if (inArc) {
+			return false;
+		}
+		inArc = true;
+		arcPointCount = 0;
+		boolean supported = scan(arc, dimension);
+		inArc = false;
+		if (!supported || arcPointCount < 3) {
+			return false;
+		}
+		double[] p = arcPoints;
+		if (arc.getLocalName().equals("Circle")) {
+			expandByCircle(p[0], p[1], p[2], p[3], p[4], p[5], bounds);
+		}
+		else {
+			// an arc string consists of arcs that share end points
+			for (int i = 0; i + 2 < arcPointCount; i += 2) {
+				int k = 2 * i;
+				expandByArc(p[k], p[k + 1], p[k + 2], p[k + 3], p[k + 4], p[k + 5], bounds);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Adds the bounds of an arc given by its center point, radius and (unless it is a
+	 * full circle) start and end angles in degrees. The arc is not supported if the unit
+	 * of the radius is missing or not recognized.
+	 */
+	private boolean addArcByCenterPoint(Element arc) {
+		double[] center = null;
+		double radius = Double.NaN;
+		double startAngle = 0;
+		double endAngle = 360;
+		for (Node child = arc.getFirstChild(); null != child; child = child.getNextSibling()) {
+			if (child.getNodeType() != Node.ELEMENT_NODE || !GmlUtils.GML_NS.equals(child.getNamespaceURI())) {
+				continue;
+			}
+			Element childElem = (Element) child;
+			switch (childElem.getLocalName()) {
+				case "pos":
+				case "posList":
+					parser.reset(textOf(childElem));
+					if (null == center && parser.hasNext()) {
+						double x = parser.nextDouble();
+						if (parser.hasNext()) {
+							center = new double[] { x, parser.nextDouble() };
+						}
+					}
+					break;
+				case "radius":
+					String uom = childElem.getAttribute("uom");
+					if (uom.isEmpty()) {
+						return false;
+					}
+					try {
+						radius = GmlUtils.lengthInMeters(parseValue(childElem), uom);
+					}
+					catch (RuntimeException e) {
+						// unrecognized unit; reported when the geometry is built
+						return false;
+					}
+					break;
+				case "startAngle":
+					startAngle = parseValue(childElem);
+					break;
+				case "endAngle":
+					endAngle = parseValue(childElem);
+					if (endAngle == 0) {
+						endAngle = 360;
+					}
+					break;
+				default:
+					// e.g. gml:pointProperty
+					return false;
+			}
+		}
+		if (null == center || Double.isNaN(radius)) {
+			return false;
+		}
+		bounds.expandToInclude(ArcEnvelope.envelopeOf(crs, center, radius, startAngle, endAngle));
+		return true;
+	}
+
+	private double parseValue(Element elem) {
+		parser.reset(textOf(elem));
+		return parser.nextDouble();
+	}
+
+	private void addPositions(Element elem, int dimension, int maxPositions) {
+		int dim = Math.max(dimension, 2);
+		parser.reset(textOf(elem));
+		for (int n = 0; n < maxPositions && parser.hasNext(); n++) {
+			double x = parser.nextDouble();
+			if (!parser.hasNext()) {
+				break;
+			}
+			double y = parser.nextDouble();
+			addPoint(x, y);
+			parser.skip(dim - 2);
+		}
+	}
+
+	/**
+	 * Adds the tuples in a gml:coordinates element, which uses the default separators
+	 * (tuples separated by whitespace, coordinates by commas).
+	 */
+	private boolean addCoordinates(Element elem) {
+		String decimal = elem.getAttribute("decimal");
+		String cs = elem.getAttribute("cs");
+		String ts = elem.getAttribute("ts");
+		if (!(decimal.isEmpty() || decimal.equals(".")) || !(cs.isEmpty() || cs.equals(","))
+				|| !(ts.isEmpty() || ts.equals(" "))) {
+			return false;
+		}
+		String text = textOf(elem);
+		int i = 0;
+		int length = text.length();
+		while (i < length) {
+			while (i < length && Character.isWhitespace(text.charAt(i))) {
+				i++;
+			}
+			int start = i;
+			while (i < length && !Character.isWhitespace(text.charAt(i))) {
+				i++;
+			}
+			if (i > start) {
+				parser.reset(text, start, i);
+				double x = parser.nextDouble();
+				if (parser.hasNext()) {
+					addPoint(x, parser.nextDouble());
+				}
+			}
+		}
+		return true;
+	}
+
+	private void addPoint(double x, double y) {
+		if (inArc) {
+			if (2 * arcPointCount + 2 > arcPoints.length) {
+				arcPoints = Arrays.copyOf(arcPoints, arcPoints.length * 2);
+			}
+			arcPoints[2 * arcPointCount] = x;
+			arcPoints[2 * arcPointCount + 1] = y;
+			arcPointCount++;
+		}
+		bounds.expandToInclude(x, y);
+	}
+
+	/**
+	 * Expands an envelope to include a circular arc that starts at the first point,
+	 * passes through the second one, and ends at the third one. If the points are
+	 * collinear the arc degenerates to a straight line.
+	 * @param x1 The x-ordinate of the start point.
+	 * @param y1 The y-ordinate of the start point.
+	 * @param x2 The x-ordinate of an intermediate point.
+	 * @param y2 The y-ordinate of an intermediate point.
+	 * @param x3 The x-ordinate of the end point.
+	 * @param y3 The y-ordinate of the end point.
+	 * @param envelope The envelope to expand.
+	 */
+	static void expandByArc(double x1, double y1, double x2, double y2, double x3, double y3, Envelope envelope) {
+		envelope.expandToInclude(x1, y1);
+		envelope.expandToInclude(x2, y2);
+		envelope.expandToInclude(x3, y3);
+		// center of the circle relative to the first point (reduces rounding errors)
+		double bx = x2 - x1;
+		double by = y2 - y1;
+		double qx = x3 - x1;
+		double qy = y3 - y1;
+		double d = 2 * (bx * qy - by * qx);
+		if (isCollinear(d, bx, by, qx, qy)) {
+			return;
+		}
+		double ux = (qy * (bx * bx + by * by) - by * (qx * qx + qy * qy)) / d;
+		double uy = (bx * (qx * qx + qy * qy) - qx * (bx * bx + by * by)) / d;
+		double cx = x1 + ux;
+		double cy = y1 + uy;
+		double r = Math.hypot(ux, uy);
+		double a1 = Math.atan2(y1 - cy, x1 - cx);
+		double a2 = Math.atan2(y2 - cy, x2 - cx);
+		double a3 = Math.atan2(y3 - cy, x3 - cx);
+		double start = a1;
+		double sweep = normalize(a3 - a1);
+		if (normalize(a2 - a1) > sweep) {
+			// clockwise: the same arc traversed counterclockwise from the end point
+			start = a3;
+			sweep = 2 * Math.PI - sweep;
+		}
+		// quadrant points: east, north, west, south
+		if (normalize(0 - start) <= sweep) {
+			envelope.expandToInclude(cx + r, cy);
+		}
+		if (normalize(Math.PI / 2 - start) <= sweep) {
+			envelope.expandToInclude(cx, cy + r);
+		}
+		if (normalize(Math.PI - start) <= sweep) {
+			envelope.expandToInclude(cx - r, cy);
+		}
+		if (normalize(3 * Math.PI / 2 - start) <= sweep) {
+			envelope.expandToInclude(cx, cy - r);
+		}
+	}
+
+	/**
+	 * Expands an envelope to include the circle that passes through three points.
+	 * @param x1 The x-ordinate of the first point.
+	 * @param y1 The y-ordinate of the first point.
+	 * @param x2 The x-ordinate of the second point.
+	 * @param y2 The y-ordinate of the second point.
+	 * @param x3 The x-ordinate of the third point.
+	 * @param y3 The y-ordinate of the third point.
+	 * @param envelope The envelope to expand.
+	 */
+	static void expandByCircle(double x1, double y1, double x2, double y2, double x3, double y3, Envelope envelope) {
+		envelope.expandToInclude(x1, y1);
+		envelope.expandToInclude(x2, y2);
+		envelope.expandToInclude(x3, y3);
+		double bx = x2 - x1;
+		double by = y2 - y1;
+		double qx = x3 - x1;
+		double qy = y3 - y1;
+		double d = 2 * (bx * qy - by * qx);
+		if (isCollinear(d, bx, by, qx, qy)) {
+			return;
+		}
+		double ux = (qy * (bx * bx + by * by) - by * (qx * qx + qy * qy)) / d;
+		double uy = (bx * (qx * qx + qy * qy) - qx * (bx * bx + by * by)) / d;
+		double r = Math.hypot(ux, uy);
+		envelope.expandToInclude(x1 + ux - r, y1 + uy - r);
+		envelope.expandToInclude(x1 + ux + r, y1 + uy + r);
+	}
+
+	/**
+	 * Checks whether three points are (nearly) collinear, given the offsets of the second
+	 * and third points from the first one and twice their cross product.
+	 */
+	private static boolean isCollinear(double d, double bx, double by, double qx, double qy) {
+		double scale = Math.max(Math.abs(bx), Math.abs(by)) * Math.max(Math.abs(qx), Math.abs(qy));
+		return d == 0 || Math.abs(d) <= 1e-12 * scale;
+	}
+
+	/** Normalizes an angle to the range [0, 2&pi;). */
+	private static double normalize(double angle) {
+		double a = angle % (2 * Math.PI);
+		return (a < 0) ? a + 2 * Math.PI : a;
+	}
+
+	private int dimensionOf(Element elem, int inherited) {
+		if (!readDimensions) {
+			return inherited;
+		}
+		String value = elem.getAttribute(SRS_DIMENSION);
+		if (!value.isEmpty()) {
+			try {
+				return Integer.parseInt(value.trim());
+			}
+			catch (NumberFormatException e) {
+				// ignore invalid value
+			}
+		}
+		return inherited;
+	}
+
+	/**
+	 * Returns the text content of an element, avoiding a copy if it consists of a single
+	 * text node.
+	 */
+	private static String textOf(Element elem) {
+		Node first = elem.getFirstChild();
+		if (null != first && null == first.getNextSibling() && first.getNodeType() == Node.TEXT_NODE) {
+			return first.getNodeValue();
+		}
+		return elem.getTextContent();
+	}
+
+}
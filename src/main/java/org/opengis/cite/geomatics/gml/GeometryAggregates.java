@@ -0,0 +1,114 @@
+package org.opengis.cite.geomatics.gml;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import jakarta.xml.bind.JAXBElement;
+
+import org.geotoolkit.gml.xml.AbstractGeometry;
+import org.geotoolkit.gml.xml.v321.CurvePropertyType;
+import org.geotoolkit.gml.xml.v321.GeometryPropertyType;
+import org.geotoolkit.gml.xml.v321.MultiCurveType;
+import org.geotoolkit.gml.xml.v321.MultiGeometryType;
+import org.geotoolkit.gml.xml.v321.MultiPointType;
+import org.geotoolkit.gml.xml.v321.MultiSurfaceType;
+import org.geotoolkit.gml.xml.v321.PointPropertyType;
+import org.geotoolkit.gml.xml.v321.SurfacePropertyType;
+
+/**
+ * Provides access to the members of GML geometry aggregates (gml:MultiPoint,
+ * gml:MultiCurve, gml:MultiSurface, gml:MultiGeometry).
+ *
+ * @see "ISO 19136, cl. 10.6: Geometric aggregates"
+ */
+final class GeometryAggregates {
+
+	private GeometryAggregates() {
+	}
+
+	/**
+	 * Indicates whether or not the given geometry is an aggregate.
+	 * @param gmlGeom A GML geometry instance.
+	 * @return {@code true} if it is a geometric aggregate; {@code false} otherwise.
+	 */
+	static boolean isAggregate(AbstractGeometry gmlGeom) {
+		return MultiPointType.class.isInstance(gmlGeom) || MultiCurveType.class.isInstance(gmlGeom)
+				|| MultiSurfaceType.class.isInstance(gmlGeom) || MultiGeometryType.class.isInstance(gmlGeom);
+	}
+
+	/**
+	 * Returns the in-line members of a geometry aggregate in document order. Both kinds
+	 * of member properties (e.g. gml:surfaceMember and gml:surfaceMembers) are taken into
+	 * account. The members are not modified: if a member does not have a srsName
+	 * attribute, the one that applies to the aggregate must be passed on by the caller.
+	 * @param aggregate A GML geometry aggregate.
+	 * @return A list of geometry members; it may be empty.
+	 */
+	static List<AbstractGeometry> getMembers(AbstractGeometry aggregate) {
+		List<AbstractGeometry> members = new ArrayList<AbstractGeometry>();
+		if (MultiPointType.class.isInstance(aggregate)) {
+			MultiPointType multiPoint = MultiPointType.class.cast(aggregate);
+			for (PointPropertyType member : multiPoint.getPointMember()) {
+				addMember(member.getPoint(), members);
+			}
+			if (null != multiPoint.getPointMembers()) {
+				addMembers(multiPoint.getPointMembers().getPoint(), members);
+			}
+		}
+		else if (MultiCurveType.class.isInstance(aggregate)) {
+			MultiCurveType multiCurve = MultiCurveType.class.cast(aggregate);
+			for (CurvePropertyType member : multiCurve.getCurveMember()) {
+				addMember(member.getAbstractCurve(), members);
+			}
+			if (null != multiCurve.getCurveMembers()) {
+				addMembers(multiCurve.getCurveMembers().getAbstractCurve(), members);
+			}
+		}
+		else if (MultiSurfaceType.class.isInstance(aggregate)) {
+			MultiSurfaceType multiSurface = MultiSurfaceType.class.cast(aggregate);
+			for (SurfacePropertyType member : multiSurface.getSurfaceMember()) {
+				addMember(member.getAbstractSurface(), members);
+			}
+			if (null != multiSurface.getSurfaceMembers()) {
+				addMembers(multiSurface.getSurfaceMembers().getAbstractSurface(), members);
+			}
+		}
+		else if (MultiGeometryType.class.isInstance(aggregate)) {
+			MultiGeometryType multiGeom = MultiGeometryType.class.cast(aggregate);
+			for (GeometryPropertyType member : multiGeom.getGeometryMember()) {
+				addMember(member.getAbstractGeometry(), members);
+			}
+			if (null != multiGeom.getGeometryMembers()) {
+				addMembers(multiGeom.getGeometryMembers().getAbstractGeometry(), members);
+			}
+		}
+		else {
+			throw new IllegalArgumentException("Not a geometric aggregate: " + aggregate.getClass().getName());
+		}
+		return members;
+	}
+
+	private static void addMembers(Collection<?> values, List<AbstractGeometry> members) {
+		if (null == values) {
+			return;
+		}
+		for (Object value : values) {
+			addMember(value, members);
+		}
+	}
+
+	/**
+	 * Adds a member geometry; it may be wrapped in a JAXBElement. A property that refers
+	 * to a remote geometry (by xlink:href) has no value and is skipped.
+	 */
+	private static void addMember(Object value, List<AbstractGeometry> members) {
+		if (value instanceof JAXBElement) {
+			value = ((JAXBElement<?>) value).getValue();
+		}
+		if (value instanceof AbstractGeometry) {
+			members.add((AbstractGeometry) value);
+		}
+	}
+
+}
@@ -0,0 +1,79 @@
+package org.opengis.cite.geomatics.gml;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * Classifies GML geometry elements. All the properties reported in a
+ * {@link GeometryDescriptor} are recorded by the {@link CrsReferenceIndex} of the owner
+ * document while it traverses the document once, so neither the ancestors nor the
+ * descendants of an element are visited again when it is classified. The DOM is not
+ * modified.
+ */
+public final class GeometryClassifier {
+
+	private GeometryClassifier() {
+	}
+
+	/**
+	 * Classifies a GML geometry element.
+	 * @param geom An Element representing a GML geometry.
+	 * @return A descriptor for the geometry.
+	 */
+	public static GeometryDescriptor classify(Element geom) {
+		Document doc = geom.getOwnerDocument();
+		return classify(geom, (null != doc) ? CrsReferenceIndex.forDocument(doc) : null);
+	}
+
+	/**
+	 * Classifies a collection of GML geometry elements that belong to the same document.
+	 * @param geomNodes A NodeList containing GML geometry elements.
+	 * @return A list of descriptors in the same order as the nodes.
+	 */
+	public static List<GeometryDescriptor> classify(NodeList geomNodes) {
+		List<GeometryDescriptor> descriptors = new ArrayList<GeometryDescriptor>(geomNodes.getLength());
+		CrsReferenceIndex crsIndex = null;
+		for (int i = 0; i < geomNodes.getLength(); i++) {
+			Element geom = (Element) geomNodes.item(i);
+			if (null == crsIndex && null != geom.getOwnerDocument()) {
+				crsIndex = CrsReferenceIndex.forDocument(geom.getOwnerDocument());
+			}
+			descriptors.add(classify(geom, crsIndex));
+		}
+		return descriptors;
+	}
+
+	private static GeometryDescriptor classify(Element geom, CrsReferenceIndex crsIndex) {
+		GeometryDescriptor descriptor = (null != crsIndex) ? crsIndex.describe(geom) : null;
+		if (null == descriptor) {
+			// not attached to the document
+			descriptor = CrsReferenceIndex.forElement(geom).describe(geom);
+		}
+		if (null == descriptor) {
+			// not a GML object; the coordinates are not examined
+			descriptor = new GeometryDescriptor(geom, geom.getAttribute("srsName"), 0, false, false, 0);
+		}
+		return descriptor;
+	}
+
+	/**
+	 * Counts the whitespace-separated tokens in a text value without creating substrings.
+	 */
+	static int countTokens(CharSequence text) {
+		int count = 0;
+		boolean inToken = false;
+		for (int i = 0; i < text.length(); i++) {
+			boolean space = Character.isWhitespace(text.charAt(i));
+			if (!space && !inToken) {
+				count++;
+			}
+			inToken = !space;
+		}
+		return count;
+	}
+
+}
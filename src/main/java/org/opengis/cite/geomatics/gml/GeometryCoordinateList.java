@@ -18,11 +18,64 @@ public class GeometryCoordinateList {
 
 	/**
 	 * Creates an array of 2D coordinates from the given GML geometry instance. The
-	 * collection may contain duplicates (arising from curve segments and rings).
-	 * @param gmlGeometry A GML geometry element.
+	 * collection may contain duplicates (arising from curve segments and rings). The
+	 * coordinates of the members of a geometric aggregate are concatenated in document
+	 * order.
+	 * @param gmlGeometry A GML geometry element (a geometric primitive or aggregate).
 	 * @return A JTS Coordinate[] array containing a sequence of 2D coordinate tuples.
 	 */
 	public Coordinate[] getCoordinateList(AbstractGeometry gmlGeometry) {
+		if (GeometryAggregates.isAggregate(gmlGeometry)) {
+			CoordinateBuffer buffer = new CoordinateBuffer();
+			appendCoordinates(gmlGeometry, buffer);
+			return buffer.toCoordinateArray();
+		}
+		List<Coordinate> coordSet = geometryType(gmlGeometry).getCoordinateSetFactory()
+			.createCoordinateList(gmlGeometry);
+		return coordSet.toArray(new Coordinate[0]);
+	}
+
+	/**
+	 * Passes the 2D coordinates of the given GML geometry instance to a coordinate sink.
+	 * The coordinates of a primitive are passed as they are generated. The members of a
+	 * geometric aggregate are processed in parallel; their coordinates are passed in
+	 * document order.
+	 * @param gmlGeometry A GML geometry element (a geometric primitive or aggregate).
+	 * @param sink The sink to which the coordinates are passed (e.g. a
+	 * {@link CoordinateBuffer}).
+	 */
+	public void appendCoordinates(AbstractGeometry gmlGeometry, CoordinateSink sink) {
+		appendCoordinates(gmlGeometry, null, sink);
+	}
+
+	/**
+	 * Passes the 2D coordinates of the given GML geometry instance to a coordinate sink.
+	 * The given CRS reference applies if the geometry does not have a srsName attribute;
+	 * the members of an aggregate inherit its CRS in the same way, without being
+	 * modified.
+	 * @param gmlGeometry A GML geometry element (a geometric primitive or aggregate).
+	 * @param srsName The CRS reference in scope (may be {@code null}).
+	 * @param sink The sink to which the coordinates are passed.
+	 */
+	void appendCoordinates(AbstractGeometry gmlGeometry, String srsName, CoordinateSink sink) {
+		String effectiveSrsName = (null != gmlGeometry.getSrsName()) ? gmlGeometry.getSrsName() : srsName;
+		if (GeometryAggregates.isAggregate(gmlGeometry)) {
+			CoordinateBuffer members = GeometryAggregates.getMembers(gmlGeometry)
+				.parallelStream()
+				.map(member -> {
+					CoordinateBuffer memberCoords = new CoordinateBuffer();
+					appendCoordinates(member, effectiveSrsName, memberCoords);
+					return memberCoords;
+				})
+				.collect(CoordinateBuffer::new, CoordinateBuffer::addAll, CoordinateBuffer::addAll);
+			members.copyTo(sink);
+			return;
+		}
+		geometryType(gmlGeometry).getCoordinateSetFactory()
+			.appendCoordinates(gmlGeometry, effectiveSrsName, sink);
+	}
+
+	private static GeometryType geometryType(AbstractGeometry gmlGeometry) {
 		GeometryType geomType;
 		if (AbstractCurveType.class.isInstance(gmlGeometry)) {
 			geomType = GeometryType.CURVE;
@@ -36,9 +89,7 @@ public class GeometryCoordinateList {
 		else {
 			throw new RuntimeException("Unsupported geometry type: " + gmlGeometry.getClass().getName());
 		}
-		CoordinateListFactory factory = geomType.getCoordinateSetFactory();
-		List<Coordinate> coordSet = factory.createCoordinateList(gmlGeometry);
-		return coordSet.toArray(new Coordinate[0]);
+		return geomType;
 	}
 
 }
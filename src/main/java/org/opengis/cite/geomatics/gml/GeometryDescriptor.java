@@ -0,0 +1,120 @@
+package org.opengis.cite.geomatics.gml;
+
+import org.w3c.dom.Element;
+
+/**
+ * Summarizes the properties of a GML geometry element that are relevant when processing
+ * it: its type, whether it is an aggregate or contains surface patches, its coordinate
+ * dimension and CRS reference, and the number of coordinate tuples it contains.
+ * Descriptors are created by {@link GeometryClassifier} and are immutable.
+ */
+public final class GeometryDescriptor {
+
+	private final Element element;
+
+	private final boolean aggregate;
+
+	private final boolean surfacePatches;
+
+	private final int dimension;
+
+	private final boolean uniformDimension;
+
+	private final String srsName;
+
+	private final int vertexCount;
+
+	GeometryDescriptor(Element element, String srsName, int dimension, boolean uniformDimension,
+			boolean surfacePatches, int vertexCount) {
+		this.element = element;
+		this.aggregate = element.getLocalName().startsWith("Multi");
+		this.surfacePatches = surfacePatches;
+		this.dimension = dimension;
+		this.uniformDimension = uniformDimension;
+		this.srsName = srsName;
+		this.vertexCount = vertexCount;
+	}
+
+	/**
+	 * Returns the geometry element that was classified.
+	 * @return A DOM Element representing a GML geometry.
+	 */
+	public Element getElement() {
+		return element;
+	}
+
+	/**
+	 * Returns the geometry type.
+	 * @return The local name of the geometry element (e.g. "Curve", "MultiSurface").
+	 */
+	public String getType() {
+		return element.getLocalName();
+	}
+
+	/**
+	 * Indicates whether or not the geometry is an aggregate (e.g. gml:MultiCurve).
+	 * @return {@code true} if the geometry is a geometric aggregate; {@code false}
+	 * otherwise.
+	 */
+	public boolean isAggregate() {
+		return aggregate;
+	}
+
+	/**
+	 * Indicates whether or not the geometry contains surface patches (gml:patches).
+	 * @return {@code true} if any descendant element is a patch property; {@code false}
+	 * otherwise.
+	 */
+	public boolean hasSurfacePatches() {
+		return surfacePatches;
+	}
+
+	/**
+	 * Returns the coordinate dimension, as given by the srsDimension attribute of the
+	 * geometry or its nearest ancestor that has one.
+	 * @return The number of ordinates per coordinate tuple, or 0 if it is not declared.
+	 */
+	public int getCoordinateDimension() {
+		return dimension;
+	}
+
+	/**
+	 * Indicates whether the coordinate dimension applies to all coordinates of the
+	 * geometry, that is, no descendant element declares a different srsDimension.
+	 * @return {@code true} if the dimension is uniform; {@code false} otherwise.
+	 */
+	boolean isDimensionUniform() {
+		return uniformDimension;
+	}
+
+	/**
+	 * Returns the effective CRS reference of the geometry.
+	 * @return A CRS reference (srsName), or an empty string if none is in scope.
+	 */
+	public String getSrsName() {
+		return srsName;
+	}
+
+	/**
+	 * Returns the number of coordinate tuples (direct positions) in the geometry.
+	 * Positions are counted as they occur, so shared end points are counted more than
+	 * once.
+	 * @return The number of coordinate tuples.
+	 */
+	public int getVertexCount() {
+		return vertexCount;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder str = new StringBuilder("GeometryDescriptor{");
+		str.append("type=").append(getType());
+		str.append(", aggregate=").append(aggregate);
+		str.append(", surfacePatches=").append(surfacePatches);
+		str.append(", dimension=").append(dimension);
+		str.append(", srsName=").append(srsName);
+		str.append(", vertexCount=").append(vertexCount);
+		return str.append('}').toString();
+	}
+
+}
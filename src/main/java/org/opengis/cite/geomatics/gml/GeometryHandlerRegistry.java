@@ -0,0 +1,138 @@
+package org.opengis.cite.geomatics.gml;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Looks up the handlers that process GML curve segments and surface patches. The built-in
+ * handlers ({@link CurveSegmentType}, {@link SurfacePatchType}) are registered first;
+ * handlers made available as service providers are then registered and take precedence
+ * over a built-in handler for the same class.
+ *
+ * <p>
+ * Lookups are keyed by the runtime class of a segment or patch and the result is cached
+ * for each class, so dispatch does not involve any string comparisons. If no handler is
+ * registered for a class, the handler for its nearest registered superclass is used.
+ * </p>
+ */
+public final class GeometryHandlerRegistry {
+
+	private static final Logger LOGR = Logger.getLogger(GeometryHandlerRegistry.class.getPackage().getName());
+
+	private static final Map<Class<?>, CurveSegmentHandler> SEGMENT_HANDLERS = loadSegmentHandlers();
+
+	private static final Map<Class<?>, SurfacePatchHandler> PATCH_HANDLERS = loadPatchHandlers();
+
+	private static final ClassValue<Optional<CurveSegmentHandler>> SEGMENT_DISPATCH = new ClassValue<>() {
+		@Override
+		protected Optional<CurveSegmentHandler> computeValue(Class<?> type) {
+			return Optional.ofNullable(findHandler(SEGMENT_HANDLERS, type));
+		}
+	};
+
+	private static final ClassValue<Optional<SurfacePatchHandler>> PATCH_DISPATCH = new ClassValue<>() {
+		@Override
+		protected Optional<SurfacePatchHandler> computeValue(Class<?> type) {
+			return Optional.ofNullable(findHandler(PATCH_HANDLERS, type));
+		}
+	};
+
+	private GeometryHandlerRegistry() {
+	}
+
+	/**
+	 * Returns the handler for the given kind of curve segment.
+	 * @param segmentType The class of a GML curve segment.
+	 * @return The registered handler, or {@code null} if the segment type is not
+	 * supported.
+	 */
+	public static CurveSegmentHandler getCurveSegmentHandler(Class<?> segmentType) {
+		return SEGMENT_DISPATCH.get(segmentType).orElse(null);
+	}
+
+	/**
+	 * Returns the handler for the given kind of surface patch.
+	 * @param patchType The class of a GML surface patch.
+	 * @return The registered handler, or {@code null} if the patch type is not supported.
+	 */
+	public static SurfacePatchHandler getSurfacePatchHandler(Class<?> patchType) {
+		return PATCH_DISPATCH.get(patchType).orElse(null);
+	}
+
+	/**
+	 * Returns the curve segment classes for which a handler is explicitly registered.
+	 * @return An unmodifiable map of curve segment handlers, keyed by class.
+	 */
+	public static Map<Class<?>, CurveSegmentHandler> getCurveSegmentHandlers() {
+		return SEGMENT_HANDLERS;
+	}
+
+	/**
+	 * Returns the surface patch classes for which a handler is explicitly registered.
+	 * @return An unmodifiable map of surface patch handlers, keyed by class.
+	 */
+	public static Map<Class<?>, SurfacePatchHandler> getSurfacePatchHandlers() {
+		return PATCH_HANDLERS;
+	}
+
+	private static <T> T findHandler(Map<Class<?>, T> handlers, Class<?> type) {
+		for (Class<?> c = type; null != c; c = c.getSuperclass()) {
+			T handler = handlers.get(c);
+			if (null != handler) {
+				return handler;
+			}
+		}
+		return null;
+	}
+
+	private static Map<Class<?>, CurveSegmentHandler> loadSegmentHandlers() {
+		return loadHandlers(CurveSegmentHandler.class, CurveSegmentType.values(), CurveSegmentHandler::getSegmentTypes);
+	}
+
+	private static Map<Class<?>, SurfacePatchHandler> loadPatchHandlers() {
+		return loadHandlers(SurfacePatchHandler.class, SurfacePatchType.values(), SurfacePatchHandler::getPatchTypes);
+	}
+
+	/**
+	 * Registers the built-in handlers followed by any handlers supplied by service
+	 * providers. A provider that cannot be loaded is skipped.
+	 */
+	private static <T> Map<Class<?>, T> loadHandlers(Class<T> service, T[] builtInHandlers,
+			Function<T, Collection<Class<?>>> supportedTypes) {
+		Map<Class<?>, T> handlers = new HashMap<Class<?>, T>();
+		for (T handler : builtInHandlers) {
+			for (Class<?> c : supportedTypes.apply(handler)) {
+				handlers.put(c, handler);
+			}
+		}
+		Iterator<T> providers = ServiceLoader.load(service).iterator();
+		while (true) {
+			T handler;
+			try {
+				if (!providers.hasNext()) {
+					break;
+				}
+				handler = providers.next();
+			}
+			catch (ServiceConfigurationError sce) {
+				LOGR.log(Level.WARNING, "Failed to load " + service.getSimpleName(), sce);
+				continue;
+			}
+			for (Class<?> c : supportedTypes.apply(handler)) {
+				handlers.put(c, handler);
+			}
+			LOGR.config(String.format("Registered %s: %s", service.getSimpleName(), handler.getClass().getName()));
+		}
+		return Collections.unmodifiableMap(handlers);
+	}
+
+}
@@ -0,0 +1,633 @@
+package org.opengis.cite.geomatics.gml;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKBReader;
+import org.locationtech.jts.io.WKBWriter;
+
+/**
+ * A persistent cache of JTS geometries in WKB form, keyed by a SHA-256 digest of the
+ * canonicalized XML representation of a GML geometry. It allows later test runs to skip
+ * unmarshalling and conversion of geometries that have been seen before. A geometry that
+ * refers to other content (by xlink:href) has no key, since the referenced content may
+ * differ from one run to the next.
+ *
+ * <p>
+ * Records are appended to a single file that is read through a memory-mapped buffer.
+ * Each record carries a CRC-32 checksum: a damaged or truncated record found when the
+ * file is opened is discarded along with everything after it, and a record that fails
+ * verification when read is dropped from the index. When the file would exceed its size
+ * limit it is compacted, retaining the most recently used records.
+ * </p>
+ *
+ * <p>
+ * Writers are excluded by a lock on a separate file (the data file name with the suffix
+ * ".lock"), which is held for as long as the store is open; the data file can thus be
+ * replaced during compaction without releasing it.
+ * </p>
+ *
+ * <p>
+ * A default store is only created if the system property {@value #STORE_FILE_PROPERTY}
+ * gives the location of the data file; its maximum size (in bytes) may be set using the
+ * {@value #MAX_SIZE_PROPERTY} property. If another process holds the lock, the store is
+ * opened for reading only. Instances are thread-safe.
+ * </p>
+ */
+public final class GeometryStore implements Closeable {
+
+	/** System property that specifies the location of the default store. */
+	public static final String STORE_FILE_PROPERTY = "org.opengis.cite.geomatics.gml.GeometryStore.file";
+
+	/** System property that specifies the maximum size of the default store. */
+	public static final String MAX_SIZE_PROPERTY = "org.opengis.cite.geomatics.gml.GeometryStore.maxSize";
+
+	/** Default maximum size of the data file (64 MiB). */
+	public static final long DEFAULT_MAX_SIZE = 64L * 1024 * 1024;
+
+	private static final Logger LOGR = Logger.getLogger(GeometryStore.class.getPackage().getName());
+
+	private static final int FILE_MAGIC = 0x47574B42; // "GWKB"
+
+	private static final int FILE_VERSION = 1;
+
+	private static final int HEADER_SIZE = 8;
+
+	private static final String XLINK_NS = "http://www.w3.org/1999/xlink";
+
+	private static final String SRS_NAME = "srsName";
+
+	private static final int RECORD_MAGIC = 0x52454331; // "REC1"
+
+	private static final int KEY_SIZE = 32;
+
+	/** magic + key + CRS length + WKB length + CRC */
+	private static final int RECORD_OVERHEAD = 4 + KEY_SIZE + 2 + 4 + 4;
+
+	private final Path file;
+
+	private final long maxSize;
+
+	private final boolean readOnly;
+
+	private FileChannel channel;
+
+	private final FileChannel lockChannel;
+
+	private final FileLock lock;
+
+	private MappedByteBuffer mapped;
+
+	private long size;
+
+	/** Record locations (offset, length) in order of use, least recent first. */
+	private final LinkedHashMap<ByteBuffer, long[]> index = new LinkedHashMap<ByteBuffer, long[]>(256, 0.75f,
+			true);
+
+	/**
+	 * Opens (or creates) a geometry store.
+	 * @param file The location of the data file.
+	 * @param maxSize The maximum size of the data file in bytes.
+	 * @throws IOException If the file cannot be opened or created.
+	 */
+	public GeometryStore(Path file, long maxSize) throws IOException {
+		if (maxSize < HEADER_SIZE + 1024) {
+			throw new IllegalArgumentException("Maximum size is too small: " + maxSize);
+		}
+		this.file = file;
+		this.maxSize = maxSize;
+		if (null != file.getParent()) {
+			Files.createDirectories(file.getParent());
+		}
+		this.lockChannel = FileChannel.open(file.resolveSibling(file.getFileName() + ".lock"),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		FileLock fileLock;
+		try {
+			fileLock = lockChannel.tryLock();
+		}
+		catch (OverlappingFileLockException e) {
+			fileLock = null;
+		}
+		this.lock = fileLock;
+		this.readOnly = (null == lock);
+		if (readOnly) {
+			LOGR.warning("Geometry store is in use by another process; opened read-only: " + file);
+		}
+		try {
+			this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+			load();
+		}
+		catch (IOException | RuntimeException e) {
+			lockChannel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns the default store as configured by system properties.
+	 * @return The default GeometryStore, or {@code null} if none is configured or it
+	 * could not be opened.
+	 */
+	public static GeometryStore getDefault() {
+		return DefaultStore.INSTANCE;
+	}
+
+	/**
+	 * Computes the key for a GML geometry element. The digest covers a canonical form of
+	 * the element: namespace prefixes, namespace declarations, comments, attribute order,
+	 * and insignificant white space do not affect it. Since the effective CRS reference
+	 * is included, a srsName attribute that merely repeats the one in scope does not
+	 * affect it either.
+	 * @param geomNode An element representing a GML geometry.
+	 * @param srsName The effective CRS reference, if it is inherited from an ancestor
+	 * element (may be {@code null}).
+	 * @return A SHA-256 digest (32 bytes), or {@code null} if the element or one of its
+	 * descendants has an xlink:href attribute.
+	 */
+	public static byte[] computeKey(Node geomNode, String srsName) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+		String scope = (null != srsName) ? srsName : "";
+		update(digest, scope);
+		return digestNode(geomNode, scope, digest) ? digest.digest() : null;
+	}
+
+	/**
+	 * Retrieves a stored geometry.
+	 * @param key A key obtained from {@link #computeKey(Node, String)}.
+	 * @return The stored geometry, or {@code null} if the key is unknown or the record is
+	 * damaged.
+	 */
+	public synchronized StoredGeometry get(byte[] key) {
+		if (null == channel) {
+			return null;
+		}
+		ByteBuffer indexKey = ByteBuffer.wrap(key.clone());
+		long[] location = index.get(indexKey);
+		if (null == location) {
+			return null;
+		}
+		try {
+			ByteBuffer record = readRecord(location[0], location[1]);
+			if (null == record) {
+				LOGR.warning("Discarding damaged record in geometry store at offset " + location[0]);
+				index.remove(indexKey);
+				return null;
+			}
+			record.position(4 + KEY_SIZE);
+			byte[] crs = new byte[record.getShort() & 0xFFFF];
+			record.get(crs);
+			byte[] wkb = new byte[record.getInt()];
+			record.get(wkb);
+			Geometry geom = new WKBReader().read(wkb);
+			return new StoredGeometry(geom, new String(crs, StandardCharsets.UTF_8));
+		}
+		catch (IOException | ParseException e) {
+			LOGR.log(Level.WARNING, "Failed to read record from geometry store.", e);
+			index.remove(indexKey);
+			return null;
+		}
+	}
+
+	/**
+	 * Adds a geometry to the store. Nothing is written if the store is read-only, the key
+	 * is already present, or the record would take up more than half of the maximum size.
+	 * @param key A key obtained from {@link #computeKey(Node, String)}.
+	 * @param geometry A JTS geometry.
+	 * @param crsCode A CRS identifier that can be resolved by
+	 * {@code org.apache.sis.referencing.CRS.forCode} (may be empty).
+	 * @return {@code true} if the geometry was stored; {@code false} otherwise.
+	 */
+	public synchronized boolean put(byte[] key, Geometry geometry, String crsCode) {
+		if (readOnly || null == channel || key.length != KEY_SIZE) {
+			return false;
+		}
+		ByteBuffer indexKey = ByteBuffer.wrap(key.clone());
+		if (index.containsKey(indexKey)) {
+			return false;
+		}
+		byte[] crs = ((null != crsCode) ? crsCode : "").getBytes(StandardCharsets.UTF_8);
+		byte[] wkb = new WKBWriter(2).write(geometry);
+		long length = RECORD_OVERHEAD + crs.length + wkb.length;
+		if (crs.length > 0xFFFF || length > maxSize / 2) {
+			return false;
+		}
+		ByteBuffer record = ByteBuffer.allocate((int) length);
+		record.putInt(RECORD_MAGIC).put(key).putShort((short) crs.length).put(crs).putInt(wkb.length).put(wkb);
+		CRC32 crc = new CRC32();
+		crc.update(record.array(), 4, record.position() - 4);
+		record.putInt((int) crc.getValue());
+		record.flip();
+		try {
+			if (size + length > maxSize) {
+				compact(maxSize * 3 / 4 - length);
+			}
+			long offset = size;
+			while (record.hasRemaining()) {
+				channel.write(record, offset + record.position());
+			}
+			size += length;
+			index.put(indexKey, new long[] { offset, length });
+		}
+		catch (IOException e) {
+			LOGR.log(Level.WARNING, "Failed to write record to geometry store.", e);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Indicates whether or not geometries can be added to this store. A store is
+	 * read-only if another process holds the lock on it.
+	 * @return {@code true} if the store is read-only; {@code false} otherwise.
+	 */
+	public synchronized boolean isReadOnly() {
+		return readOnly;
+	}
+
+	/**
+	 * Returns the number of stored geometries.
+	 * @return The number of records.
+	 */
+	public synchronized int size() {
+		return index.size();
+	}
+
+	/**
+	 * Returns the current size of the data file.
+	 * @return The size in bytes.
+	 */
+	public synchronized long fileSize() {
+		return size;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (null == channel) {
+			return;
+		}
+		try {
+			channel.close();
+		}
+		finally {
+			// closing the channel also releases the lock
+			lockChannel.close();
+		}
+		channel = null;
+		mapped = null;
+		index.clear();
+	}
+
+	@Override
+	public String toString() {
+		return "GeometryStore[" + file + "]";
+	}
+
+	/**
+	 * Reads the data file and rebuilds the index. A file with an unknown header is
+	 * reinitialized; the file is truncated at the first damaged record.
+	 */
+	private void load() throws IOException {
+		size = channel.size();
+		boolean validHeader = false;
+		if (size >= HEADER_SIZE) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			channel.read(header, 0);
+			header.flip();
+			validHeader = header.getInt() == FILE_MAGIC && header.getInt() == FILE_VERSION;
+		}
+		if (!validHeader) {
+			if (readOnly) {
+				channel.close();
+				channel = null;
+				return;
+			}
+			channel.truncate(0);
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(FILE_MAGIC).putInt(FILE_VERSION);
+			header.flip();
+			channel.write(header, 0);
+			size = HEADER_SIZE;
+			return;
+		}
+		long offset = HEADER_SIZE;
+		while (offset < size) {
+			long length = recordLength(offset);
+			ByteBuffer record = (length > 0) ? readRecord(offset, length) : null;
+			if (null == record) {
+				break;
+			}
+			byte[] key = new byte[KEY_SIZE];
+			record.position(4);
+			record.get(key);
+			index.put(ByteBuffer.wrap(key), new long[] { offset, length });
+			offset += length;
+		}
+		if (offset < size) {
+			LOGR.warning(String.format("Geometry store is damaged at offset %d; discarding %d bytes.", offset,
+					size - offset));
+			if (!readOnly) {
+				channel.truncate(offset);
+			}
+			size = offset;
+		}
+	}
+
+	/**
+	 * Returns the length of the record at the given offset, or -1 if the record header
+	 * is invalid.
+	 */
+	private long recordLength(long offset) throws IOException {
+		if (offset + RECORD_OVERHEAD > size) {
+			return -1;
+		}
+		ByteBuffer buffer = map();
+		int pos = (int) offset;
+		if (buffer.getInt(pos) != RECORD_MAGIC) {
+			return -1;
+		}
+		int crsLength = buffer.getShort(pos + 4 + KEY_SIZE) & 0xFFFF;
+		long wkbPos = offset + 4 + KEY_SIZE + 2 + crsLength;
+		if (wkbPos + 4 > size) {
+			return -1;
+		}
+		int wkbLength = buffer.getInt((int) wkbPos);
+		long length = RECORD_OVERHEAD + crsLength + (long) wkbLength;
+		return (wkbLength < 0 || offset + length > size) ? -1 : length;
+	}
+
+	/**
+	 * Returns a read-only view of a record if its checksum is valid.
+	 */
+	private ByteBuffer readRecord(long offset, long length) throws IOException {
+		ByteBuffer buffer = map();
+		if (offset + length > buffer.capacity()) {
+			return null;
+		}
+		ByteBuffer record = buffer.duplicate();
+		record.position((int) offset).limit((int) (offset + length));
+		record = record.slice();
+		CRC32 crc = new CRC32();
+		ByteBuffer content = record.duplicate();
+		content.position(4).limit((int) length - 4);
+		crc.update(content);
+		return (record.getInt((int) length - 4) == (int) crc.getValue()) ? record : null;
+	}
+
+	/**
+	 * Returns a mapping of the entire data file, creating a new one if the file has
+	 * grown.
+	 */
+	private MappedByteBuffer map() throws IOException {
+		if (size > Integer.MAX_VALUE) {
+			throw new IOException("Geometry store is too large: " + size);
+		}
+		if (null == mapped || mapped.capacity() < size) {
+			mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		}
+		return mapped;
+	}
+
+	/**
+	 * Rewrites the data file so that it only contains the most recently used records
+	 * whose total size does not exceed the given limit. The new file is written next to
+	 * the data file and then moved over it; the lock is held throughout, so no other
+	 * writer can open the store in the meantime.
+	 */
+	private void compact(long limit) throws IOException {
+		List<Map.Entry<ByteBuffer, long[]>> retained = new ArrayList<Map.Entry<ByteBuffer, long[]>>();
+		long total = HEADER_SIZE;
+		List<Map.Entry<ByteBuffer, long[]>> entries = new ArrayList<Map.Entry<ByteBuffer, long[]>>(index.entrySet());
+		for (int i = entries.size() - 1; i >= 0; i--) {
+			Map.Entry<ByteBuffer, long[]> entry = entries.get(i);
+			if (total + entry.getValue()[1] > limit) {
+				break;
+			}
+			total += entry.getValue()[1];
+			retained.add(entry);
+		}
+		// least recently used first, so that the access order is preserved
+		Collections.reverse(retained);
+		Path tmpFile = file.resolveSibling(file.getFileName() + ".tmp");
+		ByteBuffer source = map();
+		Map<ByteBuffer, long[]> newIndex = new LinkedHashMap<ByteBuffer, long[]>();
+		try (FileChannel out = FileChannel.open(tmpFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(FILE_MAGIC).putInt(FILE_VERSION);
+			header.flip();
+			out.write(header);
+			long offset = HEADER_SIZE;
+			for (Map.Entry<ByteBuffer, long[]> entry : retained) {
+				long[] location = entry.getValue();
+				ByteBuffer record = source.duplicate();
+				record.position((int) location[0]).limit((int) (location[0] + location[1]));
+				while (record.hasRemaining()) {
+					out.write(record);
+				}
+				newIndex.put(entry.getKey(), new long[] { offset, location[1] });
+				offset += location[1];
+			}
+			out.force(true);
+		}
+		channel.close();
+		mapped = null;
+		Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		size = channel.size();
+		index.clear();
+		index.putAll(newIndex);
+		if (LOGR.isLoggable(Level.FINE)) {
+			LOGR.fine(String.format("Compacted geometry store: %d records, %d bytes.", index.size(), size));
+		}
+	}
+
+	/**
+	 * Adds a node to the digest. A srsName attribute is only included where it differs
+	 * from the CRS reference in scope.
+	 * @return {@code false} if the subtree contains a reference (xlink:href), in which
+	 * case the digest is incomplete.
+	 */
+	private static boolean digestNode(Node node, String srsName, MessageDigest digest) {
+		switch (node.getNodeType()) {
+			case Node.ELEMENT_NODE:
+				Element elem = (Element) node;
+				if (elem.hasAttributeNS(XLINK_NS, "href")) {
+					return false;
+				}
+				digest.update((byte) 1);
+				update(digest, String.valueOf(elem.getNamespaceURI()));
+				update(digest, (null != elem.getLocalName()) ? elem.getLocalName() : elem.getNodeName());
+				String scope = elem.getAttribute(SRS_NAME).trim();
+				if (scope.isEmpty() || scope.equals(srsName)) {
+					scope = srsName;
+				}
+				else {
+					digest.update((byte) 5);
+					update(digest, scope);
+				}
+				digestAttributes(elem.getAttributes(), digest);
+				for (Node child = node.getFirstChild(); null != child; child = child.getNextSibling()) {
+					if (!digestNode(child, scope, digest)) {
+						return false;
+					}
+				}
+				digest.update((byte) 2);
+				break;
+			case Node.TEXT_NODE:
+			case Node.CDATA_SECTION_NODE:
+				String text = node.getNodeValue().trim();
+				if (!text.isEmpty()) {
+					digest.update((byte) 3);
+					update(digest, collapseWhitespace(text));
+				}
+				break;
+			default: // comments and processing instructions are ignored
+				break;
+		}
+		return true;
+	}
+
+	/**
+	 * Replaces each run of white space characters (as matched by the regular expression
+	 * {@code \s+}) with a single space.
+	 */
+	private static String collapseWhitespace(String text) {
+		StringBuilder normalized = new StringBuilder(text.length());
+		boolean space = false;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r') {
+				space = true;
+				continue;
+			}
+			if (space) {
+				normalized.append(' ');
+				space = false;
+			}
+			normalized.append(c);
+		}
+		return normalized.toString();
+	}
+
+	private static void digestAttributes(NamedNodeMap attributes, MessageDigest digest) {
+		List<String[]> attrList = new ArrayList<String[]>(attributes.getLength());
+		for (int i = 0; i < attributes.getLength(); i++) {
+			Attr attr = (Attr) attributes.item(i);
+			String nsName = attr.getNamespaceURI();
+			if ("http://www.w3.org/2000/xmlns/".equals(nsName) || attr.getName().startsWith("xmlns")) {
+				continue;
+			}
+			String localName = (null != attr.getLocalName()) ? attr.getLocalName() : attr.getName();
+			if (null == nsName && SRS_NAME.equals(localName)) {
+				continue; // digested separately
+			}
+			attrList.add(new String[] { String.valueOf(nsName), localName, attr.getValue().trim() });
+		}
+		attrList.sort(Comparator.<String[], String>comparing(a -> a[0]).thenComparing(a -> a[1]));
+		for (String[] attr : attrList) {
+			digest.update((byte) 4);
+			for (String value : attr) {
+				update(digest, value);
+			}
+		}
+	}
+
+	private static void update(MessageDigest digest, String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+		digest.update(bytes);
+	}
+
+	/**
+	 * A geometry retrieved from the store, along with the identifier of its CRS.
+	 */
+	public static final class StoredGeometry {
+
+		private final Geometry geometry;
+
+		private final String crsCode;
+
+		StoredGeometry(Geometry geometry, String crsCode) {
+			this.geometry = geometry;
+			this.crsCode = crsCode;
+		}
+
+		/**
+		 * Returns the stored geometry.
+		 * @return A JTS Geometry object (without a CRS).
+		 */
+		public Geometry getGeometry() {
+			return geometry;
+		}
+
+		/**
+		 * Returns the identifier of the CRS used by the geometry.
+		 * @return A CRS identifier; it is empty if the CRS is not known.
+		 */
+		public String getCrsCode() {
+			return crsCode;
+		}
+
+	}
+
+	/**
+	 * Lazily opens the default store.
+	 */
+	private static final class DefaultStore {
+
+		static final GeometryStore INSTANCE = open();
+
+		private static GeometryStore open() {
+			String location = System.getProperty(STORE_FILE_PROPERTY);
+			if (null == location || location.isEmpty()) {
+				return null;
+			}
+			long maxSize = Long.getLong(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE);
+			try {
+				GeometryStore store = new GeometryStore(Paths.get(location), maxSize);
+				LOGR.config(String.format("Opened geometry store %s (%d records)", location, store.size()));
+				return store;
+			}
+			catch (IOException | RuntimeException e) {
+				LOGR.log(Level.WARNING, "Failed to open geometry store: " + location, e);
+				return null;
+			}
+		}
+
+	}
+
+}
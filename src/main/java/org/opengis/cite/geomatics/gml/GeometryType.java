@@ -8,27 +8,25 @@ package org.opengis.cite.geomatics.gml;
 public enum GeometryType {
 
 	/** GM_POINT (gml:Point) */
-	POINT {
-		@Override
-		public CoordinateListFactory getCoordinateSetFactory() {
-			return new PointCoordinateListFactory();
-		}
-	},
+	POINT(new PointCoordinateListFactory()),
 	/** GM_CURVE (gml:Curve) */
-	CURVE {
-		@Override
-		public CoordinateListFactory getCoordinateSetFactory() {
-			return new CurveCoordinateListFactory();
-		}
-	},
+	CURVE(new CurveCoordinateListFactory()),
 	/** GM_SURFACE (gml:Suface) */
-	SURFACE {
-		@Override
-		public CoordinateListFactory getCoordinateSetFactory() {
-			return new SurfaceCoordinateListFactory();
-		}
-	};
+	SURFACE(new SurfaceCoordinateListFactory());
 
-	public abstract CoordinateListFactory getCoordinateSetFactory();
+	private final CoordinateListFactory coordSetFactory;
+
+	GeometryType(CoordinateListFactory coordSetFactory) {
+		this.coordSetFactory = coordSetFactory;
+	}
+
+	/**
+	 * Returns the factory that creates coordinate lists for this type of geometry. The
+	 * factory is stateless and is shared by all callers.
+	 * @return A CoordinateListFactory instance.
+	 */
+	public CoordinateListFactory getCoordinateSetFactory() {
+		return coordSetFactory;
+	}
 
 }
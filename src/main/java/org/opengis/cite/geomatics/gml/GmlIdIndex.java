@@ -0,0 +1,342 @@
+package org.opengis.cite.geomatics.gml;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import javax.xml.transform.dom.DOMSource;
+
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Unmarshaller;
+
+import org.geotoolkit.gml.xml.AbstractGeometry;
+import org.geotoolkit.gml.xml.v321.CurvePropertyType;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.events.Event;
+import org.w3c.dom.events.EventListener;
+import org.w3c.dom.events.EventTarget;
+import org.w3c.dom.events.MutationEvent;
+
+import org.locationtech.jts.geom.Coordinate;
+
+/**
+ * An index of the elements in a document that have a gml:id attribute. It is used to
+ * resolve same-document references (xlink:href="#id") in constant time. The geometries
+ * and coordinate lists obtained from referenced elements are memoized, so that shared
+ * members (e.g. common boundaries in AIXM data) are only converted once. A chain of
+ * references that refers back to itself is reported as an error.
+ *
+ * <p>
+ * The index for a document is built once and attached to it as user data; if the
+ * document supports mutation events, the index is discarded when the document structure
+ * or content changes. Setting a srsName attribute only discards the memoized results for
+ * the identified elements that contain it. Instances are thread-safe.
+ * </p>
+ *
+ * <p>
+ * Curve properties with a same-document reference that are unmarshalled from a DOM node
+ * by {@link #unmarshal(Unmarshaller, Node)} remember the document they came from, so
+ * that the reference can be resolved later on with {@link #forReference}.
+ * </p>
+ */
+public final class GmlIdIndex {
+
+	private static final String INDEX_KEY = GmlIdIndex.class.getName();
+
+	private static final String SRS_NAME = "srsName";
+
+	private static final String[] MUTATION_EVENTS = { "DOMNodeInserted", "DOMNodeRemoved",
+			"DOMCharacterDataModified", "DOMAttrModified" };
+
+	private static final EventListener INVALIDATOR = new EventListener() {
+		@Override
+		public void handleEvent(Event evt) {
+			Node target = (Node) evt.getTarget();
+			Document doc = (target.getNodeType() == Node.DOCUMENT_NODE) ? (Document) target
+					: target.getOwnerDocument();
+			if (null == doc) {
+				return;
+			}
+			if (evt instanceof MutationEvent && SRS_NAME.equals(((MutationEvent) evt).getAttrName())) {
+				Object index = doc.getUserData(INDEX_KEY);
+				if (index instanceof GmlIdIndex) {
+					((GmlIdIndex) index).evictContaining(target);
+				}
+				return;
+			}
+			doc.setUserData(INDEX_KEY, null, null);
+		}
+	};
+
+	/** The documents containing the unmarshalled curve properties that refer to "#id". */
+	private static final Map<SourceKey, WeakReference<Document>> REFERENCE_SOURCES = new HashMap<>();
+
+	private static final ReferenceQueue<Object> EXPIRED_SOURCES = new ReferenceQueue<Object>();
+
+	/** References currently being resolved by each thread. */
+	private static final ThreadLocal<Deque<String>> RESOLVING = ThreadLocal.withInitial(ArrayDeque::new);
+
+	private final Map<String, Element> elements;
+
+	private final Map<String, AbstractGeometry> geometries = new ConcurrentHashMap<String, AbstractGeometry>();
+
+	private final Map<String, List<Coordinate>> coordinates = new ConcurrentHashMap<String, List<Coordinate>>();
+
+	private GmlIdIndex(Document doc) {
+		Map<String, Element> index = new HashMap<String, Element>();
+		if (null != doc.getDocumentElement()) {
+			addElements(doc.getDocumentElement(), index);
+		}
+		this.elements = index;
+	}
+
+	/**
+	 * Returns the gml:id index for the given document, building it if necessary.
+	 * @param doc A DOM Document containing GML content.
+	 * @return The index for the document.
+	 */
+	public static GmlIdIndex forDocument(Document doc) {
+		synchronized (doc) {
+			Object index = doc.getUserData(INDEX_KEY);
+			if (index instanceof GmlIdIndex) {
+				return (GmlIdIndex) index;
+			}
+			GmlIdIndex newIndex = new GmlIdIndex(doc);
+			if (doc instanceof EventTarget) {
+				for (String eventType : MUTATION_EVENTS) {
+					// re-adding the same listener has no effect
+					((EventTarget) doc).addEventListener(eventType, INVALIDATOR, true);
+				}
+				doc.setUserData(INDEX_KEY, newIndex, null);
+			}
+			return newIndex;
+		}
+	}
+
+	/**
+	 * Returns the gml:id index for the document that a curve property was unmarshalled
+	 * from.
+	 * @param member A curve property with a same-document reference (xlink:href="#id").
+	 * @return The index for the source document, or {@code null} if the property was not
+	 * unmarshalled from a DOM node by {@link #unmarshal(Unmarshaller, Node)}.
+	 */
+	public static GmlIdIndex forReference(CurvePropertyType member) {
+		WeakReference<Document> source;
+		synchronized (REFERENCE_SOURCES) {
+			source = REFERENCE_SOURCES.get(new SourceKey(member, null));
+		}
+		Document doc = (null != source) ? source.get() : null;
+		return (null != doc) ? forDocument(doc) : null;
+	}
+
+	/**
+	 * Unmarshals a DOM node, recording the source document of every curve property that
+	 * contains a same-document reference so that it can be resolved later on.
+	 * @param unmarshaller The unmarshaller to use; its listener is restored afterwards.
+	 * @param node A DOM node (Document or Element).
+	 * @return The unmarshalled object.
+	 * @throws JAXBException If any unexpected errors occur while unmarshalling.
+	 */
+	public static Object unmarshal(Unmarshaller unmarshaller, Node node) throws JAXBException {
+		final Document doc = (node.getNodeType() == Node.DOCUMENT_NODE) ? (Document) node : node.getOwnerDocument();
+		Unmarshaller.Listener listener = unmarshaller.getListener();
+		unmarshaller.setListener(new Unmarshaller.Listener() {
+			@Override
+			public void afterUnmarshal(Object target, Object parent) {
+				if (target instanceof CurvePropertyType) {
+					String href = ((CurvePropertyType) target).getHref();
+					if (null != href && href.startsWith("#")) {
+						addReferenceSource(target, doc);
+					}
+				}
+			}
+		});
+		try {
+			return unmarshaller.unmarshal(node);
+		}
+		finally {
+			unmarshaller.setListener(listener);
+		}
+	}
+
+	/**
+	 * Returns the element with the given identifier.
+	 * @param ref A gml:id value or a same-document reference ("#id").
+	 * @return The matching element, or {@code null} if there is none.
+	 */
+	public Element getElement(String ref) {
+		return elements.get(toId(ref));
+	}
+
+	/**
+	 * Returns the number of identified elements.
+	 * @return The number of entries in the index.
+	 */
+	public int size() {
+		return elements.size();
+	}
+
+	/**
+	 * Returns the GML geometry represented by the element with the given identifier. The
+	 * result is shared and must not be modified.
+	 * @param ref A gml:id value or a same-document reference ("#id").
+	 * @return A GML geometry object.
+	 * @throws IllegalArgumentException If there is no such element or it is not a GML
+	 * geometry.
+	 */
+	public AbstractGeometry getGeometry(String ref) {
+		String id = toId(ref);
+		AbstractGeometry geom = geometries.get(id);
+		if (null != geom) {
+			return geom;
+		}
+		geom = unmarshal(id);
+		AbstractGeometry existing = geometries.putIfAbsent(id, geom);
+		return (null != existing) ? existing : geom;
+	}
+
+	/**
+	 * Returns the coordinates of a referenced geometry, converting it only the first time
+	 * it is requested for a given CRS. If the geometry does not specify a CRS, the one
+	 * given is applied to it.
+	 * @param ref A gml:id value or a same-document reference ("#id").
+	 * @param srsName The CRS in scope where the reference occurs (may be {@code null}).
+	 * @param converter A function that produces the coordinates of a GML geometry.
+	 * @return An unmodifiable list of coordinates.
+	 * @throws IllegalArgumentException If the reference cannot be resolved or it
+	 * (indirectly) refers to itself.
+	 */
+	public List<Coordinate> getCoordinates(String ref, String srsName,
+			Function<AbstractGeometry, List<Coordinate>> converter) {
+		String id = toId(ref);
+		AbstractGeometry geom = getGeometry(id);
+		String effectiveSrsName = (null != geom.getSrsName()) ? geom.getSrsName() : srsName;
+		String key = id + ' ' + effectiveSrsName;
+		List<Coordinate> coordList = coordinates.get(key);
+		if (null != coordList) {
+			return coordList;
+		}
+		Deque<String> resolving = RESOLVING.get();
+		if (resolving.contains(id)) {
+			throw new IllegalArgumentException("Circular reference to gml:id=" + id + " via " + resolving);
+		}
+		resolving.push(id);
+		try {
+			if (null == geom.getSrsName() && null != srsName) {
+				// the shared geometry is not modified; a private copy inherits the CRS
+				geom = unmarshal(id);
+				geom.setSrsName(srsName);
+			}
+			coordList = Collections.unmodifiableList(converter.apply(geom));
+		}
+		finally {
+			resolving.pop();
+		}
+		List<Coordinate> existing = coordinates.putIfAbsent(key, coordList);
+		return (null != existing) ? existing : coordList;
+	}
+
+	/**
+	 * Discards the memoized geometries and coordinates of the identified elements that
+	 * contain (or are) the given node, since their CRS may have changed.
+	 */
+	private void evictContaining(Node node) {
+		for (Node elem = node; null != elem && elem.getNodeType() == Node.ELEMENT_NODE; elem = elem.getParentNode()) {
+			String id = ((Element) elem).getAttributeNS(GmlUtils.GML_NS, "id");
+			if (!id.isEmpty()) {
+				geometries.remove(id);
+				String keyPrefix = id + ' ';
+				coordinates.keySet().removeIf(key -> key.startsWith(keyPrefix));
+			}
+		}
+	}
+
+	private static void addReferenceSource(Object member, Document doc) {
+		synchronized (REFERENCE_SOURCES) {
+			for (Object key = EXPIRED_SOURCES.poll(); null != key; key = EXPIRED_SOURCES.poll()) {
+				REFERENCE_SOURCES.remove(key);
+			}
+			REFERENCE_SOURCES.put(new SourceKey(member, EXPIRED_SOURCES), new WeakReference<Document>(doc));
+		}
+	}
+
+	private AbstractGeometry unmarshal(String id) {
+		Element elem = elements.get(id);
+		if (null == elem) {
+			throw new IllegalArgumentException("No element with gml:id=" + id);
+		}
+		try {
+			return GmlUtils.unmarshalGMLGeometry(new DOMSource(elem));
+		}
+		catch (JAXBException | ClassCastException e) {
+			throw new IllegalArgumentException("Not a GML geometry: #" + id, e);
+		}
+	}
+
+	private static String toId(String ref) {
+		return ref.startsWith("#") ? ref.substring(1) : ref;
+	}
+
+	/**
+	 * Adds the identified elements in a subtree to the index. Every node is visited (and
+	 * its value read), so that nodes created lazily by the DOM implementation exist before
+	 * referenced elements are read by concurrent callers.
+	 */
+	private static void addElements(Element elem, Map<String, Element> index) {
+		String id = elem.getAttributeNS(GmlUtils.GML_NS, "id");
+		if (!id.isEmpty()) {
+			index.putIfAbsent(id, elem);
+		}
+		NamedNodeMap attributes = elem.getAttributes();
+		for (int i = 0; i < attributes.getLength(); i++) {
+			attributes.item(i).getNodeValue();
+		}
+		for (Node child = elem.getFirstChild(); null != child; child = child.getNextSibling()) {
+			if (child.getNodeType() == Node.ELEMENT_NODE) {
+				addElements((Element) child, index);
+			}
+			else {
+				child.getNodeValue();
+			}
+		}
+	}
+
+	/**
+	 * A weak reference to an unmarshalled object that is compared by identity.
+	 */
+	private static final class SourceKey extends WeakReference<Object> {
+
+		private final int hash;
+
+		SourceKey(Object referent, ReferenceQueue<Object> queue) {
+			super(referent, queue);
+			this.hash = System.identityHashCode(referent);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			Object referent = get();
+			return (obj instanceof SourceKey) && null != referent && referent == ((SourceKey) obj).get();
+		}
+
+	}
+
+}
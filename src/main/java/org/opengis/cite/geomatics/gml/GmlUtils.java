@@ -1,8 +1,6 @@
 package org.opengis.cite.geomatics.gml;
 
 import java.net.URI;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Date;
@@ -15,6 +13,7 @@ import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.Source;
+import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamSource;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
@@ -39,6 +38,7 @@ import org.geotoolkit.gml.xml.v321.LengthType;
 import org.geotoolkit.gml.xml.GMLMarshallerPool;
 import org.geotoolkit.temporal.factory.DefaultTemporalFactory;
 import org.opengis.cite.geomatics.GeodesyUtils;
+import org.opengis.cite.geomatics.time.TemporalPositionCodec;
 import org.opengis.geometry.DirectPosition;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.temporal.Instant;
@@ -51,7 +51,6 @@ import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
-import org.locationtech.jts.algorithm.ConvexHull;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.GeometryFactory;
@@ -70,20 +69,6 @@ public class GmlUtils {
 	/** Total number of arc points to be computed (including end points). */
 	static final int TOTAL_ARC_POINTS = 5;
 
-	private static final Unmarshaller GML_UNMARSHALLER = initGmlUnmarshaller();
-
-	private static Unmarshaller initGmlUnmarshaller() {
-		Unmarshaller unmarshaller = null;
-		try {
-			MarshallerPool pool = GMLMarshallerPool.getInstance();
-			unmarshaller = pool.acquireUnmarshaller();
-		}
-		catch (JAXBException je) {
-			throw new RuntimeException(je);
-		}
-		return unmarshaller;
-	}
-
 	/**
 	 * Computes the positions of at least three points on a curve segment representing an
 	 * arc: the two end points and one or more intermediate points. The total number of
@@ -129,17 +114,44 @@ public class GmlUtils {
 
 	/**
 	 * Calculates the planar convex hull of the given GML geometry element. The convex
-	 * hull is the smallest convex geometry that contains the input geometry.
-	 * @param gmlGeom A GML geometry element.
+	 * hull is the smallest convex geometry that contains the input geometry. The members
+	 * of a geometric aggregate (e.g. gml:MultiSurface) are processed in parallel and
+	 * their partial hulls are then merged.
+	 * @param gmlGeom A GML geometry element (a geometric primitive or aggregate).
 	 * @return A JTS Geometry object. This will be a {@code Polygon} if the hull contains
 	 * 3 or more points; fewer points will produce a {@code LineString} or a
 	 * {@code Point}.
 	 */
 	public static Geometry computeConvexHull(AbstractGeometry gmlGeom) {
-		GeometryCoordinateList coordSet = new GeometryCoordinateList();
-		Coordinate[] pointSet = coordSet.getCoordinateList(gmlGeom);
-		ConvexHull hull = new ConvexHull(pointSet, new GeometryFactory());
-		return hull.getConvexHull();
+		ConvexHullAccumulator hull = new ConvexHullAccumulator();
+		accumulateConvexHull(gmlGeom, null, new GeometryCoordinateList(), hull);
+		return hull.toGeometry(new GeometryFactory());
+	}
+
+	/**
+	 * Adds a GML geometry to a convex hull. The coordinates of a primitive are passed to
+	 * the accumulator as they are generated, and it reduces them to hull vertices chunk
+	 * by chunk, so they are never all held at once. The members of an aggregate are
+	 * accumulated in parallel; each one inherits the CRS of the aggregate if it does not
+	 * have its own.
+	 * @param gmlGeom A GML geometry element.
+	 * @param srsName The CRS reference in scope (may be {@code null}).
+	 * @param coordList The object that generates the coordinates of a primitive.
+	 * @param hull The accumulator to which the geometry is added.
+	 */
+	static void accumulateConvexHull(AbstractGeometry gmlGeom, String srsName, GeometryCoordinateList coordList,
+			ConvexHullAccumulator hull) {
+		String effectiveSrsName = (null != gmlGeom.getSrsName()) ? gmlGeom.getSrsName() : srsName;
+		if (GeometryAggregates.isAggregate(gmlGeom)) {
+			hull.combine(GeometryAggregates.getMembers(gmlGeom)
+				.parallelStream()
+				.collect(ConvexHullAccumulator::new,
+						(memberHull, member) -> accumulateConvexHull(member, effectiveSrsName, coordList,
+								memberHull),
+						ConvexHullAccumulator::combine));
+			return;
+		}
+		coordList.appendCoordinates(gmlGeom, effectiveSrsName, hull);
 	}
 
 	/**
@@ -160,20 +172,19 @@ public class GmlUtils {
 			}
 			String memberType = geomType.substring(5).toLowerCase();
 			// both kinds of properties may appear in the same collection
-			String expr = String.format("gml:%sMember/* | gml:%<sMembers/*", memberType);
-			XPath xpath = XPathFactory.newInstance().newXPath();
-			xpath.setNamespaceContext(new GmlNamespaceContext());
-			NodeList members;
-			try {
-				members = (NodeList) xpath.evaluate(expr, geom, XPathConstants.NODESET);
-			}
-			catch (XPathExpressionException xpe) {
-				throw new RuntimeException(xpe);
-			}
-			for (int i = 0; i < members.getLength(); i++) {
-				Element member = (Element) members.item(i);
-				if (member.getAttribute(SRS_NAME).isEmpty()) {
-					member.setAttribute(SRS_NAME, srsName);
+			String memberProperty = memberType + "Member";
+			String membersProperty = memberType + "Members";
+			for (Node prop = geom.getFirstChild(); null != prop; prop = prop.getNextSibling()) {
+				if (prop.getNodeType() != Node.ELEMENT_NODE || !GML_NS.equals(prop.getNamespaceURI())
+						|| !(prop.getLocalName().equals(memberProperty)
+								|| prop.getLocalName().equals(membersProperty))) {
+					continue;
+				}
+				for (Node member = prop.getFirstChild(); null != member; member = member.getNextSibling()) {
+					if (member.getNodeType() == Node.ELEMENT_NODE
+							&& ((Element) member).getAttribute(SRS_NAME).isEmpty()) {
+						((Element) member).setAttribute(SRS_NAME, srsName);
+					}
 				}
 			}
 		}
@@ -218,20 +229,30 @@ public class GmlUtils {
 	 *
 	 */
 	public static double lengthInMeters(LengthType length) {
-		String uom = length.getUomStr();
+		return lengthInMeters(length.getValue(), length.getUomStr());
+	}
+
+	/**
+	 * Converts a length value to meters.
+	 * @param value The length value.
+	 * @param uom The unit of measurement (symbol or URI reference).
+	 * @return The length in meters.
+	 * @see #lengthInMeters(LengthType)
+	 */
+	static double lengthInMeters(double value, String uom) {
 		String symbol = uom.indexOf('#') >= 0 ? uom.substring(uom.indexOf('#') + 1) : uom;
 		double lengthInMeters;
 		if (symbol.equals("m")) {
-			lengthInMeters = length.getValue();
+			lengthInMeters = value;
 		}
 		else if (symbol.equals("km")) {
-			lengthInMeters = length.getValue() * 1000;
+			lengthInMeters = value * 1000;
 		}
 		else if (symbol.equals("M") | symbol.equals("NM") | symbol.equals("[nmi_i]")) {
-			lengthInMeters = length.getValue() * 1852.0;
+			lengthInMeters = value * 1852.0;
 		}
 		else if (symbol.equals("mi")) {
-			lengthInMeters = length.getValue() * 1609.34;
+			lengthInMeters = value * 1609.34;
 		}
 		else {
 			throw new RuntimeException("Unrecognized unit of length: " + uom);
@@ -297,6 +318,28 @@ public class GmlUtils {
 	 * string if no reference was found.
 	 */
 	public static String findCRSReference(Element geom) {
+		String srsName = null;
+		Document doc = geom.getOwnerDocument();
+		if (null != doc) {
+			srsName = CrsReferenceIndex.forDocument(doc).getSrsName(geom);
+		}
+		if (null == srsName) {
+			// not attached to the document
+			srsName = evaluateCRSReference(geom);
+		}
+		if (!srsName.isEmpty()) {
+			geom.setAttribute("srsName", srsName);
+		}
+		return srsName;
+	}
+
+	/**
+	 * Evaluates a sequence of XPath expressions to find the CRS reference that applies to
+	 * the given geometry element.
+	 * @param geom An Element representing a GML geometry object.
+	 * @return A CRS reference, or an empty string if no reference was found.
+	 */
+	private static String evaluateCRSReference(Element geom) {
 		String expr = "./ancestor-or-self::*[@srsName][1]/@srsName";
 		XPath xpath = XPathFactory.newInstance().newXPath();
 		String srsName;
@@ -319,10 +362,6 @@ public class GmlUtils {
 		catch (XPathExpressionException xpe) {
 			throw new RuntimeException(xpe);
 		}
-
-		if (!srsName.isEmpty()) {
-			geom.setAttribute("srsName", srsName);
-		}
 		return srsName;
 	}
 
@@ -421,6 +460,8 @@ public class GmlUtils {
 
 	/**
 	 * Deserializes an XML source into a GML geometry representation.
+	 * A DOMSource is unmarshalled by {@link GmlIdIndex#unmarshal(Unmarshaller, Node)}, so
+	 * that same-document references to curve members can be resolved.
 	 * @param source The source to read from (providers are only required to support
 	 * SAXSource, DOMSource, and StreamSource).
 	 * @return A GML geometry object.
@@ -428,8 +469,19 @@ public class GmlUtils {
 	 */
 	@SuppressWarnings("unchecked")
 	public static AbstractGeometry unmarshalGMLGeometry(Source source) throws JAXBException {
-		JAXBElement<AbstractGeometry> gmlGeom = (JAXBElement<AbstractGeometry>) GML_UNMARSHALLER.unmarshal(source);
-		return gmlGeom.getValue();
+		// an Unmarshaller is not thread-safe, so one is taken from the pool for each call
+		MarshallerPool pool = GMLMarshallerPool.getInstance();
+		Unmarshaller unmarshaller = pool.acquireUnmarshaller();
+		try {
+			Object result = (source instanceof DOMSource)
+					? GmlIdIndex.unmarshal(unmarshaller, ((DOMSource) source).getNode())
+					: unmarshaller.unmarshal(source);
+			JAXBElement<AbstractGeometry> gmlGeom = (JAXBElement<AbstractGeometry>) result;
+			return gmlGeom.getValue();
+		}
+		finally {
+			pool.recycle(unmarshaller);
+		}
 	}
 
 	/**
@@ -459,12 +511,13 @@ public class GmlUtils {
 
 	/**
 	 * Creates a TemporalGeometricPrimitive instance from a GML temporal value
-	 * representation.
+	 * representation. A temporal position may be an xsd:dateTime, xsd:date,
+	 * xsd:gYearMonth, or xsd:gYear value (see {@link TemporalPositionCodec}).
 	 * @param gmlTime A gml:TimeInstant or gml:TimePeriod element.
 	 * @return A TemporalGeometricPrimitive object (instant or period).
 	 */
 	public static TemporalGeometricPrimitive gmlToTemporalGeometricPrimitive(Element gmlTime) {
-		List<ZonedDateTime> instants = new ArrayList<>();
+		List<Date> instants = new ArrayList<>();
 		String frame = gmlTime.getAttribute("frame");
 		if (gmlTime.getLocalName().equals("TimeInstant")) {
 			Element timePosition = (Element) gmlTime.getElementsByTagNameNS(GML_NS, "timePosition").item(0);
@@ -473,12 +526,9 @@ public class GmlUtils {
 			}
 			if (frame.isEmpty() || frame.contains("8601")) {
 				try {
-					ZonedDateTime zdt = ZonedDateTime.parse(timePosition.getTextContent(),
-							DateTimeFormatter.ISO_DATE_TIME);
-					instants.add(zdt);
+					instants.add(new Date(TemporalPositionCodec.parseEpochMilli(timePosition.getTextContent())));
 				}
 				catch (DateTimeParseException dtpe) {
-					// TODO: use starting instant of date, gYearMonth, gYear
 					throw new RuntimeException("Not an ISO instant: " + timePosition.getTextContent());
 				}
 			}
@@ -488,18 +538,18 @@ public class GmlUtils {
 		}
 		else { // gml:TimePeriod
 			Element beginPosition = (Element) gmlTime.getElementsByTagNameNS(GML_NS, "beginPosition").item(0);
-			instants.add(ZonedDateTime.parse(beginPosition.getTextContent(), DateTimeFormatter.ISO_DATE_TIME));
+			instants.add(new Date(TemporalPositionCodec.parseEpochMilli(beginPosition.getTextContent())));
 			Element endPosition = (Element) gmlTime.getElementsByTagNameNS(GML_NS, "endPosition").item(0);
-			instants.add(ZonedDateTime.parse(endPosition.getTextContent(), DateTimeFormatter.ISO_DATE_TIME));
+			instants.add(new Date(TemporalPositionCodec.parseEpochMilli(endPosition.getTextContent())));
 		}
 		TemporalFactory tmFactory = new DefaultTemporalFactory();
 		TemporalGeometricPrimitive timePrimitive = null;
 		if (instants.size() == 1) {
-			timePrimitive = tmFactory.createInstant(Date.from(instants.get(0).toInstant()));
+			timePrimitive = tmFactory.createInstant(instants.get(0));
 		}
 		else {
-			Instant beginInstant = tmFactory.createInstant(Date.from(instants.get(0).toInstant()));
-			Instant endInstant = tmFactory.createInstant(Date.from(instants.get(1).toInstant()));
+			Instant beginInstant = tmFactory.createInstant(instants.get(0));
+			Instant endInstant = tmFactory.createInstant(instants.get(1));
 			timePrimitive = tmFactory.createPeriod(beginInstant, endInstant);
 		}
 		return timePrimitive;
@@ -509,7 +559,11 @@ public class GmlUtils {
 	 * Convert Surface or Curve geometry to MultiSurface or MultiCurve.
 	 * @param geomNode Element with Surface/Curve details.
 	 * @return {@link Element} Returns converted element to Multi geometry type.
+	 * @deprecated Only the first posList (or exterior boundary) is retained. Use
+	 * {@link JTSGeometryBuilder#toJTSGeometry(AbstractGeometry)} to convert the unmodified
+	 * geometry instead.
 	 */
+	@Deprecated
 	public static Element convertToMultiType(Node geomNode) {
 		String typeName = "Multi" + geomNode.getLocalName();
 		return convertGeomNode(typeName, geomNode);
@@ -520,7 +574,11 @@ public class GmlUtils {
 	 * https://github.com/opengeospatial/ets-wfs20/issues/260
 	 * @param geomNode a geometry Node containing AbstractSurfacePatch elements.
 	 * @return The rewritten geometry Node.
+	 * @deprecated Only the first exterior boundary is retained. Use
+	 * {@link JTSGeometryBuilder#toJTSGeometry(AbstractGeometry)} to convert the unmodified
+	 * geometry instead.
 	 */
+	@Deprecated
 	public static Element handleAbstractSurfacePatch(Node geomNode) {
 		String typeName = geomNode.getLocalName();
 		return convertGeomNode(typeName, geomNode);
@@ -533,15 +591,14 @@ public class GmlUtils {
 	 * <code>AbstractSurfacePatchTypes</code>, otherwise false
 	 */
 	public static boolean checkForAbstractSurfacePatchTypes(Node node) {
-		boolean result = false;
 		if (node.getLocalName().contains("Multi")) {
-			NodeList childNodes = node.getChildNodes();
-			for (int i = 0; i < childNodes.getLength(); i++) {
-				Node childNode = childNodes.item(i);
-				result = result || checkForAbstractSurfacePatchTypesRecursively(childNode);
+			for (Node child = node.getFirstChild(); null != child; child = child.getNextSibling()) {
+				if (checkForAbstractSurfacePatchTypesRecursively(child)) {
+					return true;
+				}
 			}
 		}
-		return result;
+		return false;
 	}
 
 	private static Element convertGeomNode(String typeName, Node geomNode) {
@@ -610,22 +667,18 @@ public class GmlUtils {
 	}
 
 	private static boolean checkForAbstractSurfacePatchTypesRecursively(Node node) {
-		boolean result = false;
-		if (node.getNodeType() == Node.TEXT_NODE) {
+		if (node.getNodeType() != Node.ELEMENT_NODE) {
 			return false;
 		}
 		if (node.getLocalName().contains("patch")) {
 			return true;
 		}
-		if (!node.hasChildNodes()) {
-			return false;
-		}
-		NodeList childNodes = node.getChildNodes();
-		for (int i = 0; i < childNodes.getLength(); i++) {
-			Node childNode = childNodes.item(i);
-			result = result || checkForAbstractSurfacePatchTypesRecursively(childNode);
+		for (Node child = node.getFirstChild(); null != child; child = child.getNextSibling()) {
+			if (checkForAbstractSurfacePatchTypesRecursively(child)) {
+				return true;
+			}
 		}
-		return result;
+		return false;
 	}
 
 }
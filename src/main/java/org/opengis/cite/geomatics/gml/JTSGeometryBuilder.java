@@ -0,0 +1,161 @@
+package org.opengis.cite.geomatics.gml;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.geotoolkit.geometry.jts.JTS;
+import org.geotoolkit.gml.GeometrytoJTS;
+import org.geotoolkit.gml.xml.AbstractGeometry;
+import org.geotoolkit.gml.xml.v321.AbstractCurveType;
+import org.geotoolkit.gml.xml.v321.AbstractRingType;
+import org.geotoolkit.gml.xml.v321.AbstractSurfacePatchType;
+import org.geotoolkit.gml.xml.v321.LineStringType;
+import org.geotoolkit.gml.xml.v321.SurfaceType;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.util.FactoryException;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.MultiPolygon;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygon;
+
+/**
+ * Builds JTS geometries from GML geometry objects, including those that Geotk does not
+ * support: curves (gml:Curve, gml:CompositeCurve, gml:OrientableCurve) are built from
+ * all of their segments by a {@link CurveCoordinateListFactory}, and gml:Surface
+ * elements are built from all of their patches (with interior boundaries) using the
+ * registered {@link SurfacePatchHandler} implementations. The members of geometric
+ * aggregates are built individually. Any other geometry is converted by Geotk.
+ *
+ * <p>
+ * The CRS of the GML geometry (if known) is attached to the resulting JTS geometry.
+ * </p>
+ */
+public final class JTSGeometryBuilder {
+
+	private static final GeometryFactory JTS_GEOM_FACTORY = new GeometryFactory();
+
+	private static final CurveCoordinateListFactory CURVE_COORD_FACTORY = new CurveCoordinateListFactory();
+
+	private JTSGeometryBuilder() {
+	}
+
+	/**
+	 * Builds a JTS geometry from a GML geometry object.
+	 * @param gmlGeom A GML geometry (a geometric primitive or aggregate).
+	 * @return A JTS geometry that uses the CRS of the GML geometry.
+	 * @throws FactoryException If the CRS of a geometry cannot be identified.
+	 */
+	public static Geometry toJTSGeometry(AbstractGeometry gmlGeom) throws FactoryException {
+		Geometry jtsGeom = build(gmlGeom, null);
+		if (null != gmlGeom.getSrsName()) {
+			CoordinateReferenceSystem crs = gmlGeom.getCoordinateReferenceSystem(false);
+			if (null != crs) {
+				JTS.setCRS(jtsGeom, crs);
+			}
+		}
+		return jtsGeom;
+	}
+
+	/**
+	 * Builds a JTS geometry; the given CRS reference applies if the GML geometry (e.g. the
+	 * member of an aggregate) does not have a srsName attribute.
+	 */
+	private static Geometry build(AbstractGeometry gmlGeom, String srsName) throws FactoryException {
+		String effectiveSrsName = (null != gmlGeom.getSrsName()) ? gmlGeom.getSrsName() : srsName;
+		if (GeometryAggregates.isAggregate(gmlGeom)) {
+			return buildAggregate(GeometryAggregates.getMembers(gmlGeom), effectiveSrsName);
+		}
+		if (AbstractCurveType.class.isInstance(gmlGeom) && !LineStringType.class.isInstance(gmlGeom)) {
+			CoordinateBuffer coords = new CoordinateBuffer();
+			CURVE_COORD_FACTORY.appendCoordinates(gmlGeom, effectiveSrsName, coords);
+			return JTS_GEOM_FACTORY.createLineString(coords.toCoordinateArray());
+		}
+		if (SurfaceType.class.isInstance(gmlGeom)) {
+			return buildSurface(SurfaceType.class.cast(gmlGeom), effectiveSrsName);
+		}
+		if (null != gmlGeom.getSrsName() || null == srsName) {
+			return GeometrytoJTS.toJTS(gmlGeom);
+		}
+		// Geotk reads the CRS from the geometry itself; it is restored afterwards
+		synchronized (gmlGeom) {
+			gmlGeom.setSrsName(effectiveSrsName);
+			try {
+				return GeometrytoJTS.toJTS(gmlGeom);
+			}
+			finally {
+				gmlGeom.setSrsName(null);
+			}
+		}
+	}
+
+	/**
+	 * Builds a (multi)polygon from the patches of a gml:Surface. Each patch becomes a
+	 * distinct polygon; the patches are not merged.
+	 */
+	private static Geometry buildSurface(SurfaceType surface, String srsName) {
+		List<Polygon> polygons = new ArrayList<Polygon>();
+		for (AbstractSurfacePatchType patch : surface.getPatches().getAbstractSurfacePatch()) {
+			SurfacePatchHandler patchHandler = GeometryHandlerRegistry.getSurfacePatchHandler(patch.getClass());
+			if (null == patchHandler) {
+				throw new RuntimeException("Unsupported surface patch type: " + patch.getClass().getName());
+			}
+			LinearRing shell = buildRing(patchHandler.getExteriorBoundary(patch), srsName);
+			List<LinearRing> holes = new ArrayList<LinearRing>();
+			for (AbstractRingType interior : patchHandler.getInteriorBoundaries(patch)) {
+				holes.add(buildRing(interior, srsName));
+			}
+			polygons.add(JTS_GEOM_FACTORY.createPolygon(shell, holes.toArray(new LinearRing[0])));
+		}
+		if (polygons.size() == 1) {
+			return polygons.get(0);
+		}
+		return JTS_GEOM_FACTORY.createMultiPolygon(polygons.toArray(new Polygon[0]));
+	}
+
+	private static LinearRing buildRing(AbstractRingType ring, String srsName) {
+		// a ring is not a geometry type in GML but it is in ISO 19107
+		CoordinateBuffer buffer = new CoordinateBuffer();
+		CURVE_COORD_FACTORY.appendCoordinates(ring, srsName, buffer);
+		List<Coordinate> coords = buffer.toCoordinateList();
+		if (!coords.isEmpty() && !coords.get(0).equals2D(coords.get(coords.size() - 1))) {
+			// interpolated arcs may not end exactly where they began
+			coords.add(new Coordinate(coords.get(0)));
+		}
+		return JTS_GEOM_FACTORY.createLinearRing(coords.toArray(new Coordinate[0]));
+	}
+
+	/**
+	 * Builds a homogeneous collection (e.g. MultiLineString) if possible; otherwise a
+	 * GeometryCollection.
+	 */
+	private static Geometry buildAggregate(List<AbstractGeometry> members, String srsName) throws FactoryException {
+		List<Geometry> parts = new ArrayList<Geometry>();
+		for (AbstractGeometry member : members) {
+			Geometry part = build(member, srsName);
+			if (part instanceof MultiPolygon) {
+				for (int i = 0; i < part.getNumGeometries(); i++) {
+					parts.add(part.getGeometryN(i));
+				}
+			}
+			else {
+				parts.add(part);
+			}
+		}
+		if (parts.stream().allMatch(Point.class::isInstance)) {
+			return JTS_GEOM_FACTORY.createMultiPoint(parts.toArray(new Point[0]));
+		}
+		if (parts.stream().allMatch(LineString.class::isInstance)) {
+			return JTS_GEOM_FACTORY.createMultiLineString(parts.toArray(new LineString[0]));
+		}
+		if (parts.stream().allMatch(Polygon.class::isInstance)) {
+			return JTS_GEOM_FACTORY.createMultiPolygon(parts.toArray(new Polygon[0]));
+		}
+		return JTS_GEOM_FACTORY.createGeometryCollection(parts.toArray(new Geometry[0]));
+	}
+
+}
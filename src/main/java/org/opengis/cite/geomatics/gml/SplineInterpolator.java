@@ -0,0 +1,247 @@
+package org.opengis.cite.geomatics.gml;
+
+/**
+ * Evaluates polynomial spline curves defined by a sequence of 2D control points. The
+ * control points are supplied as packed ordinates (x0, y0, x1, y1, ...) and the computed
+ * points are passed to a {@link CoordinateSink}.
+ */
+final class SplineInterpolator {
+
+	/** Number of points computed for each span of a spline curve. */
+	static final int POINTS_PER_SPAN = 8;
+
+	private SplineInterpolator() {
+	}
+
+	/**
+	 * Computes points on a Bezier curve using de Casteljau's algorithm. The degree of the
+	 * curve is one less than the number of control points; the first and last points
+	 * coincide with the end control points.
+	 * @param ctrl The control points (packed ordinates).
+	 * @param numPoints The number of control points (at least 2).
+	 * @param sink The sink to which the points on the curve are passed.
+	 */
+	static void bezier(double[] ctrl, int numPoints, CoordinateSink sink) {
+		if (numPoints < 2) {
+			throw new IllegalArgumentException("A Bezier curve requires at least 2 control points.");
+		}
+		int samples = POINTS_PER_SPAN * (numPoints - 1);
+		double[] work = new double[numPoints * 2];
+		for (int i = 0; i <= samples; i++) {
+			double t = (double) i / samples;
+			System.arraycopy(ctrl, 0, work, 0, numPoints * 2);
+			for (int r = 1; r < numPoints; r++) {
+				for (int j = 0; j < numPoints - r; j++) {
+					work[j * 2] = (1 - t) * work[j * 2] + t * work[(j + 1) * 2];
+					work[j * 2 + 1] = (1 - t) * work[j * 2 + 1] + t * work[(j + 1) * 2 + 1];
+				}
+			}
+			sink.add(work[0], work[1]);
+		}
+	}
+
+	/**
+	 * Computes points on a B-spline curve using de Boor's algorithm. The knot vector must
+	 * contain {@code numPoints + degree + 1} non-decreasing values; the curve is
+	 * evaluated over the domain [knots[degree], knots[numPoints]].
+	 * @param ctrl The control points (packed ordinates).
+	 * @param numPoints The number of control points (greater than the degree).
+	 * @param degree The polynomial degree.
+	 * @param knots The (expanded) knot vector.
+	 * @param sink The sink to which the points on the curve are passed.
+	 */
+	static void bspline(double[] ctrl, int numPoints, int degree, double[] knots, CoordinateSink sink) {
+		if (degree < 1 || numPoints <= degree) {
+			throw new IllegalArgumentException(
+					String.format("Invalid B-spline: degree = %d, control points = %d", degree, numPoints));
+		}
+		if (knots.length != numPoints + degree + 1) {
+			throw new IllegalArgumentException(String.format("Expected %d knot values but found %d.",
+					numPoints + degree + 1, knots.length));
+		}
+		double[] work = new double[(degree + 1) * 2];
+		boolean first = true;
+		for (int span = degree; span < numPoints; span++) {
+			double u0 = knots[span];
+			double u1 = knots[span + 1];
+			if (u1 <= u0) {
+				continue; // empty span
+			}
+			for (int i = first ? 0 : 1; i <= POINTS_PER_SPAN; i++) {
+				double u = u0 + (u1 - u0) * i / POINTS_PER_SPAN;
+				deBoor(ctrl, degree, knots, span, u, work);
+				sink.add(work[0], work[1]);
+			}
+			first = false;
+		}
+	}
+
+	/**
+	 * Computes points on a cubic spline that passes through all of the given points. The
+	 * curve is parameterized by chord length and the first derivatives at the end points
+	 * are given by the supplied tangent vectors (a natural spline results if they are
+	 * {@code null}).
+	 * @param pts The points to interpolate (packed ordinates).
+	 * @param numPoints The number of points (at least 2).
+	 * @param startTangent The unit tangent at the start point, or {@code null}.
+	 * @param endTangent The unit tangent at the end point, or {@code null}.
+	 * @param sink The sink to which the points on the curve are passed.
+	 */
+	static void cubicSpline(double[] pts, int numPoints, double[] startTangent, double[] endTangent,
+			CoordinateSink sink) {
+		if (numPoints < 2) {
+			throw new IllegalArgumentException("A cubic spline requires at least 2 points.");
+		}
+		double[] h = new double[numPoints - 1];
+		for (int i = 0; i < h.length; i++) {
+			h[i] = Math.hypot(pts[(i + 1) * 2] - pts[i * 2], pts[(i + 1) * 2 + 1] - pts[i * 2 + 1]);
+			if (h[i] == 0) {
+				h[i] = Double.MIN_NORMAL; // coincident points
+			}
+		}
+		double[] mx = secondDerivatives(pts, 0, h, (null != startTangent) ? startTangent[0] : Double.NaN,
+				(null != endTangent) ? endTangent[0] : Double.NaN);
+		double[] my = secondDerivatives(pts, 1, h, (null != startTangent) ? startTangent[1] : Double.NaN,
+				(null != endTangent) ? endTangent[1] : Double.NaN);
+		sink.add(pts[0], pts[1]);
+		for (int k = 0; k < h.length; k++) {
+			for (int i = 1; i <= POINTS_PER_SPAN; i++) {
+				double t = h[k] * i / POINTS_PER_SPAN;
+				sink.add(evalCubic(pts, 0, mx, h, k, t), evalCubic(pts, 1, my, h, k, t));
+			}
+		}
+	}
+
+	/**
+	 * Expands a sequence of distinct knot values (with multiplicities) into a full knot
+	 * vector. If the result does not have the required length, a clamped uniform knot
+	 * vector is returned instead.
+	 * @param values The distinct knot values.
+	 * @param multiplicities The multiplicity of each knot value.
+	 * @param numPoints The number of control points.
+	 * @param degree The polynomial degree.
+	 * @return A knot vector of length {@code numPoints + degree + 1}.
+	 */
+	static double[] expandKnots(double[] values, int[] multiplicities, int numPoints, int degree) {
+		int length = numPoints + degree + 1;
+		int total = 0;
+		for (int m : multiplicities) {
+			total += m;
+		}
+		if (total != length) {
+			return clampedUniformKnots(numPoints, degree);
+		}
+		double[] knots = new double[length];
+		int k = 0;
+		for (int i = 0; i < values.length; i++) {
+			for (int j = 0; j < multiplicities[i]; j++) {
+				knots[k++] = values[i];
+			}
+		}
+		return knots;
+	}
+
+	/**
+	 * Creates a clamped (open) uniform knot vector so that the curve starts and ends at
+	 * the first and last control points.
+	 * @param numPoints The number of control points.
+	 * @param degree The polynomial degree.
+	 * @return A knot vector of length {@code numPoints + degree + 1}.
+	 */
+	static double[] clampedUniformKnots(int numPoints, int degree) {
+		double[] knots = new double[numPoints + degree + 1];
+		int interior = numPoints - degree;
+		for (int i = 0; i < knots.length; i++) {
+			if (i <= degree) {
+				knots[i] = 0;
+			}
+			else if (i >= numPoints) {
+				knots[i] = 1;
+			}
+			else {
+				knots[i] = (double) (i - degree) / interior;
+			}
+		}
+		return knots;
+	}
+
+	private static void deBoor(double[] ctrl, int degree, double[] knots, int span, double u, double[] work) {
+		for (int j = 0; j <= degree; j++) {
+			int i = span - degree + j;
+			work[j * 2] = ctrl[i * 2];
+			work[j * 2 + 1] = ctrl[i * 2 + 1];
+		}
+		for (int r = 1; r <= degree; r++) {
+			for (int j = degree; j >= r; j--) {
+				int i = span - degree + j;
+				double denom = knots[i + degree - r + 1] - knots[i];
+				double alpha = (denom == 0) ? 0 : (u - knots[i]) / denom;
+				work[j * 2] = (1 - alpha) * work[(j - 1) * 2] + alpha * work[j * 2];
+				work[j * 2 + 1] = (1 - alpha) * work[(j - 1) * 2 + 1] + alpha * work[j * 2 + 1];
+			}
+		}
+		work[0] = work[degree * 2];
+		work[1] = work[degree * 2 + 1];
+	}
+
+	/**
+	 * Solves the tridiagonal system for the second derivatives of one coordinate
+	 * function. A NaN end slope yields a natural boundary condition.
+	 */
+	private static double[] secondDerivatives(double[] pts, int axis, double[] h, double startSlope,
+			double endSlope) {
+		int n = h.length + 1;
+		double[] sub = new double[n];
+		double[] diag = new double[n];
+		double[] sup = new double[n];
+		double[] rhs = new double[n];
+		double firstDelta = (pts[2 + axis] - pts[axis]) / h[0];
+		double lastDelta = (pts[(n - 1) * 2 + axis] - pts[(n - 2) * 2 + axis]) / h[n - 2];
+		if (Double.isNaN(startSlope)) {
+			diag[0] = 1;
+		}
+		else {
+			diag[0] = 2 * h[0];
+			sup[0] = h[0];
+			rhs[0] = 6 * (firstDelta - startSlope);
+		}
+		for (int i = 1; i < n - 1; i++) {
+			sub[i] = h[i - 1];
+			diag[i] = 2 * (h[i - 1] + h[i]);
+			sup[i] = h[i];
+			double d0 = (pts[i * 2 + axis] - pts[(i - 1) * 2 + axis]) / h[i - 1];
+			double d1 = (pts[(i + 1) * 2 + axis] - pts[i * 2 + axis]) / h[i];
+			rhs[i] = 6 * (d1 - d0);
+		}
+		if (Double.isNaN(endSlope)) {
+			diag[n - 1] = 1;
+		}
+		else {
+			sub[n - 1] = h[n - 2];
+			diag[n - 1] = 2 * h[n - 2];
+			rhs[n - 1] = 6 * (endSlope - lastDelta);
+		}
+		// Thomas algorithm
+		for (int i = 1; i < n; i++) {
+			double w = sub[i] / diag[i - 1];
+			diag[i] -= w * sup[i - 1];
+			rhs[i] -= w * rhs[i - 1];
+		}
+		double[] m = new double[n];
+		m[n - 1] = rhs[n - 1] / diag[n - 1];
+		for (int i = n - 2; i >= 0; i--) {
+			m[i] = (rhs[i] - sup[i] * m[i + 1]) / diag[i];
+		}
+		return m;
+	}
+
+	private static double evalCubic(double[] pts, int axis, double[] m, double[] h, int k, double t) {
+		double y0 = pts[k * 2 + axis];
+		double y1 = pts[(k + 1) * 2 + axis];
+		double hk = h[k];
+		double s = hk - t;
+		return (m[k] * s * s * s + m[k + 1] * t * t * t) / (6 * hk) + (y0 / hk - m[k] * hk / 6) * s
+				+ (y1 / hk - m[k + 1] * hk / 6) * t;
+	}
+
+}
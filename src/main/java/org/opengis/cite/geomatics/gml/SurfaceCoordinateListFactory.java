@@ -2,11 +2,9 @@ package org.opengis.cite.geomatics.gml;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import jakarta.xml.bind.JAXBElement;
@@ -20,12 +18,9 @@ import org.geotoolkit.gml.xml.AbstractRing;
 import org.geotoolkit.gml.xml.AbstractRingProperty;
 import org.geotoolkit.gml.xml.v321.AbstractRingType;
 import org.geotoolkit.gml.xml.v321.AbstractSurfacePatchType;
-import org.geotoolkit.gml.xml.v321.PolygonPatchType;
 import org.geotoolkit.gml.xml.v321.PolygonType;
-import org.geotoolkit.gml.xml.v321.RectangleType;
 import org.geotoolkit.gml.xml.v321.SurfacePatchArrayPropertyType;
 import org.geotoolkit.gml.xml.v321.SurfaceType;
-import org.geotoolkit.gml.xml.v321.TriangleType;
 import org.geotoolkit.gml.xml.GMLMarshallerPool;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -41,31 +36,7 @@ import org.locationtech.jts.geom.Polygon;
  */
 public class SurfaceCoordinateListFactory implements CoordinateListFactory {
 
-	private static final Unmarshaller GML_UNMARSHALLER = initGmlUnmarshaller();
-
-	private static Unmarshaller initGmlUnmarshaller() {
-		Unmarshaller unmarshaller = null;
-		try {
-			MarshallerPool pool = GMLMarshallerPool.getInstance();
-			unmarshaller = pool.acquireUnmarshaller();
-		}
-		catch (JAXBException je) {
-			throw new RuntimeException(je);
-		}
-		return unmarshaller;
-	}
-
-	private static CurveCoordinateListFactory curveCoordFactory = new CurveCoordinateListFactory();
-
-	private static Map<String, SurfacePatchType> patchTypeMap = loadPatchTypeMap();
-
-	private static Map<String, SurfacePatchType> loadPatchTypeMap() {
-		patchTypeMap = new HashMap<String, SurfacePatchType>();
-		patchTypeMap.put(PolygonPatchType.class.getName(), SurfacePatchType.POLYGON);
-		patchTypeMap.put(RectangleType.class.getName(), SurfacePatchType.RECTANGLE);
-		patchTypeMap.put(TriangleType.class.getName(), SurfacePatchType.TRIANGLE);
-		return patchTypeMap;
-	}
+	private final CurveCoordinateListFactory curveCoordFactory = new CurveCoordinateListFactory();
 
 	@Override
 	public List<Coordinate> createCoordinateList(AbstractGeometry gmlGeom) {
@@ -83,6 +54,36 @@ public class SurfaceCoordinateListFactory implements CoordinateListFactory {
 		return coordList;
 	}
 
+	/**
+	 * Passes the coordinates on the exterior boundary of each surface patch to a
+	 * coordinate sink as they are generated. Unlike
+	 * {@link #createCoordinateList(AbstractGeometry)}, the patches are not merged, so
+	 * points on the boundaries shared by adjacent patches are included; the convex hull
+	 * of the points is the same. The surface is not modified.
+	 * @param gmlGeom A gml:Surface or gml:Polygon geometry.
+	 * @param srsName The CRS reference that applies if the surface does not have one
+	 * (may be {@code null}).
+	 * @param sink The sink to which the coordinates are passed.
+	 */
+	@Override
+	public void appendCoordinates(AbstractGeometry gmlGeom, String srsName, CoordinateSink sink) {
+		String effectiveSrsName = (null != gmlGeom.getSrsName()) ? gmlGeom.getSrsName() : srsName;
+		if (SurfaceType.class.isInstance(gmlGeom)) {
+			SurfaceType surface = SurfaceType.class.cast(gmlGeom);
+			for (AbstractSurfacePatchType patch : surface.getPatches().getAbstractSurfacePatch()) {
+				AbstractRingType exterior = patchHandler(patch).getExteriorBoundary(patch);
+				curveCoordFactory.appendCoordinates(exterior, effectiveSrsName, sink);
+			}
+		}
+		else if (PolygonType.class.isInstance(gmlGeom)) {
+			AbstractRing exterior = PolygonType.class.cast(gmlGeom).getExterior().getAbstractRing();
+			curveCoordFactory.appendCoordinates(exterior, effectiveSrsName, sink);
+		}
+		else {
+			throw new RuntimeException("Unsupported surface type: " + gmlGeom.getClass().getName());
+		}
+	}
+
 	/**
 	 * Creates a list of coordinates on the exterior boundary of a GML surface geometry.
 	 * @param gmlSurface A gml:Surface or gml:Polygon element (including extension
@@ -96,11 +97,11 @@ public class SurfaceCoordinateListFactory implements CoordinateListFactory {
 			if (GmlUtils.hasChildElement(gmlSurface, GmlUtils.GML_NS, "patches")) {
 				Node patchesNode = gmlSurface.getElementsByTagNameNS(GmlUtils.GML_NS, "patches").item(0);
 				JAXBElement<SurfacePatchArrayPropertyType> patchArray;
-				patchArray = (JAXBElement<SurfacePatchArrayPropertyType>) GML_UNMARSHALLER.unmarshal(patchesNode);
+				patchArray = (JAXBElement<SurfacePatchArrayPropertyType>) unmarshal(patchesNode);
 				coordList = exteriorBoundaryOfSurface(patchArray.getValue(), gmlSurface.getAttribute("srsName"));
 			}
 			else if (GmlUtils.hasChildElement(gmlSurface, GmlUtils.GML_NS, "exterior")) {
-				JAXBElement<PolygonType> polygon = (JAXBElement<PolygonType>) GML_UNMARSHALLER.unmarshal(gmlSurface);
+				JAXBElement<PolygonType> polygon = (JAXBElement<PolygonType>) unmarshal(gmlSurface);
 				coordList = exteriorBoundaryOfPolygon(polygon.getValue());
 			}
 			else {
@@ -149,11 +150,11 @@ public class SurfaceCoordinateListFactory implements CoordinateListFactory {
 			if (GmlUtils.hasChildElement(gmlSurface, GmlUtils.GML_NS, "patches")) {
 				Node patchesNode = gmlSurface.getElementsByTagNameNS(GmlUtils.GML_NS, "patches").item(0);
 				JAXBElement<SurfacePatchArrayPropertyType> patchArray;
-				patchArray = (JAXBElement<SurfacePatchArrayPropertyType>) GML_UNMARSHALLER.unmarshal(patchesNode);
+				patchArray = (JAXBElement<SurfacePatchArrayPropertyType>) unmarshal(patchesNode);
 				set = interiorBoundariesOfSurface(patchArray.getValue(), gmlSurface.getAttribute("srsName"));
 			}
 			else if (GmlUtils.hasChildElement(gmlSurface, GmlUtils.GML_NS, "interior")) {
-				JAXBElement<PolygonType> polygon = (JAXBElement<PolygonType>) GML_UNMARSHALLER.unmarshal(gmlSurface);
+				JAXBElement<PolygonType> polygon = (JAXBElement<PolygonType>) unmarshal(gmlSurface);
 				set = interiorBoundariesOfPolygon(polygon.getValue());
 			}
 			else {
@@ -181,15 +182,8 @@ public class SurfaceCoordinateListFactory implements CoordinateListFactory {
 		Set<Geometry> geomSet = new HashSet<Geometry>();
 		while (patchItr.hasNext()) {
 			AbstractSurfacePatchType patch = patchItr.next();
-			String className = patch.getClass().getName();
-			SurfacePatchType patchType = patchTypeMap.get(className);
-			if (null == patchType) {
-				throw new RuntimeException("Unsupported surface patch type: " + className);
-			}
-			AbstractRingType exterior = patchType.getExteriorBoundary(patch);
-			// a ring is not a geometry type in GML but it is in ISO 19107
-			exterior.setSrsName(srsName);
-			List<Coordinate> extCoords = curveCoordFactory.createCoordinateList(exterior);
+			AbstractRingType exterior = patchHandler(patch).getExteriorBoundary(patch);
+			List<Coordinate> extCoords = ringCoordinates(exterior, srsName);
 			Polygon polygon = geomFactory.createPolygon(extCoords.toArray(new Coordinate[0]));
 			geomSet.add(polygon);
 		}
@@ -207,10 +201,7 @@ public class SurfaceCoordinateListFactory implements CoordinateListFactory {
 	 */
 	List<Coordinate> exteriorBoundaryOfPolygon(PolygonType gmlPolygon) {
 		AbstractRing exterior = gmlPolygon.getExterior().getAbstractRing();
-		if (null == exterior.getSrsName()) {
-			exterior.setSrsName(gmlPolygon.getSrsName());
-		}
-		return curveCoordFactory.createCoordinateList(exterior);
+		return ringCoordinates(exterior, gmlPolygon.getSrsName());
 	}
 
 	/**
@@ -224,14 +215,45 @@ public class SurfaceCoordinateListFactory implements CoordinateListFactory {
 		Iterator<? extends AbstractRingProperty> ringItr = gmlPolygon.getInterior().iterator();
 		while (ringItr.hasNext()) {
 			AbstractRing interior = ringItr.next().getAbstractRing();
-			if (null == interior.getSrsName()) {
-				interior.setSrsName(gmlPolygon.getSrsName());
-			}
-			set.add(curveCoordFactory.createCoordinateList(interior));
+			set.add(ringCoordinates(interior, gmlPolygon.getSrsName()));
 		}
 		return set;
 	}
 
+	/**
+	 * Returns the coordinates of a boundary ring. A ring is not a geometry type in GML
+	 * (it is in ISO 19107), so it usually takes the CRS of the surface; the ring itself
+	 * is not modified.
+	 */
+	private List<Coordinate> ringCoordinates(AbstractRing ring, String srsName) {
+		CoordinateBuffer buffer = new CoordinateBuffer();
+		curveCoordFactory.appendCoordinates(ring, srsName, buffer);
+		return buffer.toCoordinateList();
+	}
+
+	private static SurfacePatchHandler patchHandler(AbstractSurfacePatchType patch) {
+		SurfacePatchHandler handler = GeometryHandlerRegistry.getSurfacePatchHandler(patch.getClass());
+		if (null == handler) {
+			throw new RuntimeException("Unsupported surface patch type: " + patch.getClass().getName());
+		}
+		return handler;
+	}
+
+	/**
+	 * Unmarshals a DOM node using an unmarshaller taken from the pool, since instances of
+	 * this class are shared by concurrent callers.
+	 */
+	private static Object unmarshal(Node node) throws JAXBException {
+		MarshallerPool pool = GMLMarshallerPool.getInstance();
+		Unmarshaller unmarshaller = pool.acquireUnmarshaller();
+		try {
+			return GmlIdIndex.unmarshal(unmarshaller, node);
+		}
+		finally {
+			pool.recycle(unmarshaller);
+		}
+	}
+
 	/**
 	 * Returns a set containing sequences of points on the interior boundary curves of a
 	 * Surface geometry.
@@ -246,17 +268,9 @@ public class SurfaceCoordinateListFactory implements CoordinateListFactory {
 		Set<List<Coordinate>> set = new HashSet<List<Coordinate>>();
 		while (patchItr.hasNext()) {
 			AbstractSurfacePatchType patch = patchItr.next();
-			String className = patch.getClass().getName();
-			SurfacePatchType patchType = patchTypeMap.get(className);
-			if (null == patchType) {
-				throw new RuntimeException("Unsupported surface patch type: " + className);
-			}
-			Set<AbstractRingType> interiorRings = patchType.getInteriorBoundaries(patch);
+			Set<AbstractRingType> interiorRings = patchHandler(patch).getInteriorBoundaries(patch);
 			for (AbstractRing interior : interiorRings) {
-				if (null == interior.getSrsName()) {
-					interior.setSrsName(srsName);
-				}
-				set.add(curveCoordFactory.createCoordinateList(interior));
+				set.add(ringCoordinates(interior, srsName));
 			}
 		}
 		return set;
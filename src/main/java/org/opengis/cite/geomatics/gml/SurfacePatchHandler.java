@@ -0,0 +1,50 @@
+package org.opengis.cite.geomatics.gml;
+
+import java.util.Collection;
+import java.util.Set;
+
+import org.geotoolkit.gml.xml.v321.AbstractRingType;
+import org.geotoolkit.gml.xml.v321.AbstractSurfacePatchType;
+
+/**
+ * Provides access to the boundaries of a surface patch of some kind. A surface is
+ * composed of one or more homogeneous, connected patches.
+ *
+ * <p>
+ * Additional handlers can be made available by listing the names of implementing classes
+ * in a provider-configuration file named
+ * {@code META-INF/services/org.opengis.cite.geomatics.gml.SurfacePatchHandler} (see
+ * {@link java.util.ServiceLoader}). Implementations must be stateless.
+ * </p>
+ *
+ * @see GeometryHandlerRegistry
+ */
+public interface SurfacePatchHandler {
+
+	/**
+	 * Returns the surface patch classes supported by this handler. A handler also applies
+	 * to subclasses of these types unless a more specific handler is registered.
+	 * @return A collection of classes that represent GML surface patches (subtypes of
+	 * {@link AbstractSurfacePatchType}).
+	 */
+	Collection<Class<?>> getPatchTypes();
+
+	/**
+	 * Returns the exterior boundary of a surface patch (an element that substitutes for
+	 * gml:AbstractSurfacePatch).
+	 * @param patch A GML surface patch.
+	 * @return A closed curve (LinearRing or Ring) that delimits the exterior of the given
+	 * surface patch.
+	 */
+	AbstractRingType getExteriorBoundary(AbstractSurfacePatchType patch);
+
+	/**
+	 * Returns the set of interior boundaries for a surface patch (an element that
+	 * substitutes for gml:AbstractSurfacePatch).
+	 * @param patch A GML surface patch.
+	 * @return A set containing closed curves that delimit the interior of the given
+	 * surface patch; the set may be empty.
+	 */
+	Set<AbstractRingType> getInteriorBoundaries(AbstractSurfacePatchType patch);
+
+}
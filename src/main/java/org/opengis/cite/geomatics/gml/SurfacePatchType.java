@@ -1,7 +1,10 @@
 package org.opengis.cite.geomatics.gml;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.geotoolkit.gml.xml.v321.AbstractRingPropertyType;
@@ -13,13 +16,14 @@ import org.geotoolkit.gml.xml.v321.TriangleType;
 
 /**
  * Surface patch type. A surface is composed of one or more homogeneous, connected
- * patches. Adjacent patches are connected along shared edges.
+ * patches. Adjacent patches are connected along shared edges. Each constant is the
+ * built-in {@link SurfacePatchHandler} for the GML patch type it lists.
  *
  */
-public enum SurfacePatchType {
+public enum SurfacePatchType implements SurfacePatchHandler {
 
 	/** gml:PolygonPatch */
-	POLYGON {
+	POLYGON(PolygonPatchType.class) {
 		@Override
 		public AbstractRingType getExteriorBoundary(AbstractSurfacePatchType patch) {
 			PolygonPatchType polygon = PolygonPatchType.class.cast(patch);
@@ -37,7 +41,7 @@ public enum SurfacePatchType {
 		}
 	},
 	/** gml:Rectangle */
-	RECTANGLE {
+	RECTANGLE(RectangleType.class) {
 		@Override
 		public AbstractRingType getExteriorBoundary(AbstractSurfacePatchType patch) {
 			RectangleType rectangle = RectangleType.class.cast(patch);
@@ -50,7 +54,7 @@ public enum SurfacePatchType {
 		}
 	},
 	/** gml:Triangle */
-	TRIANGLE {
+	TRIANGLE(TriangleType.class) {
 		@Override
 		public AbstractRingType getExteriorBoundary(AbstractSurfacePatchType patch) {
 			TriangleType triangle = TriangleType.class.cast(patch);
@@ -63,6 +67,17 @@ public enum SurfacePatchType {
 		}
 	};
 
+	private final List<Class<?>> patchTypes;
+
+	SurfacePatchType(Class<?>... patchTypes) {
+		this.patchTypes = Collections.unmodifiableList(Arrays.asList(patchTypes));
+	}
+
+	@Override
+	public Collection<Class<?>> getPatchTypes() {
+		return patchTypes;
+	}
+
 	/**
 	 * Returns the exterior boundary of a surface patch (an element that substitutes for
 	 * gml:AbstractSurfacePatch).
@@ -70,6 +85,7 @@ public enum SurfacePatchType {
 	 * @return A closed curve (LinearRing or Ring) that delimits the exterior of the given
 	 * surface patch.
 	 */
+	@Override
 	public abstract AbstractRingType getExteriorBoundary(AbstractSurfacePatchType patch);
 
 	/**
@@ -79,6 +95,7 @@ public enum SurfacePatchType {
 	 * @return A set containing closed curves that delimit the interior of the given
 	 * surface patch; the set may be empty.
 	 */
+	@Override
 	public abstract Set<AbstractRingType> getInteriorBoundaries(AbstractSurfacePatchType patch);
 
 }
@@ -0,0 +1,398 @@
+package org.opengis.cite.geomatics.time;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+import org.opengis.cite.geomatics.gml.GmlUtils;
+import org.opengis.temporal.RelativePosition;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * A static index of items that have a temporal extent (an instant or a period), such as
+ * the features in a response to a query with a temporal filter. It finds the items that
+ * stand in a given relationship to a query time span, as defined by
+ * {@link TimeSpan#relativePosition(TimeSpan)}, in O(log n + k) time for n items and k
+ * results, instead of comparing every item with the query.
+ *
+ * <p>
+ * The items are held in two sorted orders: by beginning (then ending), and by ending
+ * (then beginning). Relationships that fix one end of the item (BEFORE, AFTER, EQUALS,
+ * BEGINS, BEGUN_BY, ENDS, ENDED_BY, MEETS, MET_BY) are answered by binary search in one
+ * of these; the others (DURING, CONTAINS, OVERLAPS, OVERLAPPED_BY) constrain both ends
+ * and are answered with a priority search tree over one of the orders.
+ * </p>
+ *
+ * <p>
+ * An index is immutable and may be queried concurrently.
+ * </p>
+ *
+ * @param <T> The type of the indexed items.
+ */
+public final class TemporalIndex<T> {
+
+	private final Object[] items;
+
+	/** Item indexes sorted by beginning, then ending. */
+	private final int[] byBeginning;
+
+	private final long[] beginningsByBeginning;
+
+	private final long[] endingsByBeginning;
+
+	/** Item indexes sorted by ending, then beginning. */
+	private final int[] byEnding;
+
+	private final long[] endingsByEnding;
+
+	private final long[] beginningsByEnding;
+
+	/** Min-heap on ending, over the beginning order (DURING). */
+	private final PrioritySearchTree earliestEnding;
+
+	/** Max-heap on ending, over the beginning order (CONTAINS, OVERLAPPED_BY). */
+	private final PrioritySearchTree latestEnding;
+
+	/** Min-heap on beginning, over the ending order (OVERLAPS). */
+	private final PrioritySearchTree earliestBeginning;
+
+	/**
+	 * Creates an index of the given items.
+	 * @param items A collection of items.
+	 * @param timeFunction A function that returns the temporal extent of an item.
+	 */
+	public TemporalIndex(Collection<? extends T> items, Function<? super T, TimeSpan> timeFunction) {
+		this.items = items.toArray();
+		int size = this.items.length;
+		long[] beginnings = new long[size];
+		long[] endings = new long[size];
+		for (int i = 0; i < size; i++) {
+			@SuppressWarnings("unchecked")
+			TimeSpan span = timeFunction.apply((T) this.items[i]);
+			beginnings[i] = span.getBeginning();
+			endings[i] = span.getEnding();
+		}
+		this.byBeginning = sortedOrder(beginnings, endings);
+		this.beginningsByBeginning = permute(beginnings, byBeginning);
+		this.endingsByBeginning = permute(endings, byBeginning);
+		this.byEnding = sortedOrder(endings, beginnings);
+		this.endingsByEnding = permute(endings, byEnding);
+		this.beginningsByEnding = permute(beginnings, byEnding);
+		long[] reversedEndings = new long[size];
+		for (int i = 0; i < size; i++) {
+			reversedEndings[i] = ~endingsByBeginning[i];
+		}
+		this.earliestEnding = new PrioritySearchTree(endingsByBeginning);
+		this.latestEnding = new PrioritySearchTree(reversedEndings);
+		this.earliestBeginning = new PrioritySearchTree(beginningsByEnding);
+	}
+
+	/**
+	 * Creates an index of GML temporal primitives.
+	 * @param gmlTimes A NodeList containing gml:TimeInstant or gml:TimePeriod elements.
+	 * @return An index of the elements.
+	 * @see GmlUtils#gmlToTemporalGeometricPrimitive(Element)
+	 */
+	public static TemporalIndex<Element> create(NodeList gmlTimes) {
+		List<Element> elements = new ArrayList<>(gmlTimes.getLength());
+		for (int i = 0; i < gmlTimes.getLength(); i++) {
+			elements.add((Element) gmlTimes.item(i));
+		}
+		return new TemporalIndex<>(elements, elem -> TimeSpan.from(GmlUtils.gmlToTemporalGeometricPrimitive(elem)));
+	}
+
+	/**
+	 * Returns the number of indexed items.
+	 * @return The size of the index.
+	 */
+	public int size() {
+		return items.length;
+	}
+
+	/**
+	 * Finds the items that stand in the given relationship to a time span; that is, the
+	 * items for which {@code item.relativePosition(query) == relation}.
+	 * @param relation The relative position of the items.
+	 * @param query The time span the items are compared with.
+	 * @return A list of matching items, in no particular order (it may be empty).
+	 */
+	public List<T> find(RelativePosition relation, TimeSpan query) {
+		List<T> results = new ArrayList<>();
+		visit(relation, query, this::addItem, results);
+		return results;
+	}
+
+	/**
+	 * Counts the items that stand in the given relationship to a time span.
+	 * @param relation The relative position of the items.
+	 * @param query The time span the items are compared with.
+	 * @return The number of matching items.
+	 */
+	public int count(RelativePosition relation, TimeSpan query) {
+		int[] count = new int[1];
+		visit(relation, query, (item, unused) -> count[0]++, null);
+		return count[0];
+	}
+
+	@SuppressWarnings("unchecked")
+	private void addItem(int item, List<T> results) {
+		results.add((T) items[item]);
+	}
+
+	/**
+	 * Passes the index of every matching item to the given action.
+	 */
+	private <R> void visit(RelativePosition relation, TimeSpan query, ItemAction<R> action, R results) {
+		long begin = query.getBeginning();
+		long end = query.getEnding();
+		int size = items.length;
+		switch (relation.name()) {
+			case "BEFORE":
+				// ending < begin
+				report(byEnding, 0, lowerBound(endingsByEnding, 0, size, begin), action, results);
+				break;
+			case "AFTER":
+				// beginning > end
+				report(byBeginning, upperBound(beginningsByBeginning, 0, size, end), size, action, results);
+				break;
+			case "EQUALS":
+			case "BEGINS":
+			case "BEGUN_BY": {
+				// beginning == begin; ending ==, < or > end
+				int from = lowerBound(beginningsByBeginning, 0, size, begin);
+				int to = upperBound(beginningsByBeginning, from, size, begin);
+				int lower = lowerBound(endingsByBeginning, from, to, end);
+				int upper = upperBound(endingsByBeginning, lower, to, end);
+				if (relation == RelativePosition.EQUALS) {
+					report(byBeginning, lower, upper, action, results);
+				}
+				else if (relation == RelativePosition.BEGINS) {
+					report(byBeginning, from, lower, action, results);
+				}
+				else {
+					report(byBeginning, upper, to, action, results);
+				}
+				break;
+			}
+			case "ENDS":
+			case "ENDED_BY": {
+				// ending == end; beginning > or < begin
+				int from = lowerBound(endingsByEnding, 0, size, end);
+				int to = upperBound(endingsByEnding, from, size, end);
+				if (relation == RelativePosition.ENDS) {
+					report(byEnding, upperBound(beginningsByEnding, from, to, begin), to, action, results);
+				}
+				else {
+					report(byEnding, from, lowerBound(beginningsByEnding, from, to, begin), action, results);
+				}
+				break;
+			}
+			case "MEETS":
+				// a period ending at the beginning of a period
+				if (!query.isInstant()) {
+					int from = lowerBound(endingsByEnding, 0, size, begin);
+					int to = upperBound(endingsByEnding, from, size, begin);
+					report(byEnding, from, lowerBound(beginningsByEnding, from, to, begin), action, results);
+				}
+				break;
+			case "MET_BY":
+				// a period beginning at the ending of a period
+				if (!query.isInstant()) {
+					int from = lowerBound(beginningsByBeginning, 0, size, end);
+					int to = upperBound(beginningsByBeginning, from, size, end);
+					report(byBeginning, upperBound(endingsByBeginning, from, to, end), to, action, results);
+				}
+				break;
+			case "DURING":
+				// begin < beginning (< end), ending < end
+				earliestEnding.query(upperBound(beginningsByBeginning, 0, size, begin),
+						lowerBound(beginningsByBeginning, 0, size, end), end,
+						rank -> action.accept(byBeginning[rank], results));
+				break;
+			case "CONTAINS":
+				// beginning < begin, ending > end
+				latestEnding.query(0, lowerBound(beginningsByBeginning, 0, size, begin), ~end,
+						rank -> action.accept(byBeginning[rank], results));
+				break;
+			case "OVERLAPPED_BY":
+				// begin < beginning < end, ending > end
+				latestEnding.query(upperBound(beginningsByBeginning, 0, size, begin),
+						lowerBound(beginningsByBeginning, 0, size, end), ~end,
+						rank -> action.accept(byBeginning[rank], results));
+				break;
+			case "OVERLAPS":
+				// begin < ending < end, beginning < begin
+				earliestBeginning.query(upperBound(endingsByEnding, 0, size, begin),
+						lowerBound(endingsByEnding, 0, size, end), begin,
+						rank -> action.accept(byEnding[rank], results));
+				break;
+			default:
+				throw new IllegalArgumentException("Unsupported relation: " + relation);
+		}
+	}
+
+	private static <R> void report(int[] order, int from, int to, ItemAction<R> action, R results) {
+		for (int i = from; i < to; i++) {
+			action.accept(order[i], results);
+		}
+	}
+
+	/**
+	 * Returns the item indexes sorted by primary key, then secondary key.
+	 */
+	private static int[] sortedOrder(long[] primary, long[] secondary) {
+		Integer[] order = new Integer[primary.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, (i, j) -> {
+			int comparison = Long.compare(primary[i], primary[j]);
+			return (comparison != 0) ? comparison : Long.compare(secondary[i], secondary[j]);
+		});
+		int[] result = new int[order.length];
+		for (int i = 0; i < order.length; i++) {
+			result[i] = order[i];
+		}
+		return result;
+	}
+
+	private static long[] permute(long[] values, int[] order) {
+		long[] result = new long[order.length];
+		for (int i = 0; i < order.length; i++) {
+			result[i] = values[order[i]];
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the first index in [from, to) of a value not less than the key.
+	 */
+	private static int lowerBound(long[] values, int from, int to, long key) {
+		int low = from;
+		int high = to;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (values[mid] < key) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Returns the first index in [from, to) of a value greater than the key.
+	 */
+	private static int upperBound(long[] values, int from, int to, long key) {
+		int low = from;
+		int high = to;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (values[mid] <= key) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	@FunctionalInterface
+	private interface ItemAction<R> {
+
+		void accept(int item, R results);
+
+	}
+
+	/**
+	 * A static priority search tree over points (rank, key), where the ranks are 0 to
+	 * (n - 1). It reports the points with a rank in a given range and a key less than a
+	 * given threshold in O(log n + k) time. The tree has the shape of a segment tree over
+	 * the ranks; each node holds the point with the smallest key in its subtree that is
+	 * not held by an ancestor.
+	 */
+	private static final class PrioritySearchTree {
+
+		private final long[] keys;
+
+		/** Rank of the point held by each node, or -1 if none (heap-ordered nodes). */
+		private final int[] nodes;
+
+		private final int leaves;
+
+		PrioritySearchTree(long[] keys) {
+			this.keys = keys;
+			int capacity = 1;
+			while (capacity < keys.length) {
+				capacity <<= 1;
+			}
+			this.leaves = capacity;
+			this.nodes = new int[2 * capacity];
+			Arrays.fill(nodes, -1);
+			for (int i = 0; i < keys.length; i++) {
+				nodes[capacity + i] = i;
+			}
+			for (int node = capacity - 1; node > 0; node--) {
+				pullUp(node);
+			}
+		}
+
+		/**
+		 * Fills an empty node with the best point held by its children, and then refills
+		 * the child that gave it up.
+		 */
+		private void pullUp(int node) {
+			while (node < leaves) {
+				int left = nodes[2 * node];
+				int right = nodes[2 * node + 1];
+				int child;
+				if (left < 0 && right < 0) {
+					return;
+				}
+				else if (right < 0 || (left >= 0 && keys[left] <= keys[right])) {
+					child = 2 * node;
+				}
+				else {
+					child = 2 * node + 1;
+				}
+				nodes[node] = nodes[child];
+				nodes[child] = -1;
+				node = child;
+			}
+		}
+
+		/**
+		 * Reports the ranks in [from, to) of the points with a key less than the
+		 * threshold.
+		 */
+		void query(int from, int to, long threshold, IntConsumer sink) {
+			if (from < to) {
+				query(1, 0, leaves, from, to, threshold, sink);
+			}
+		}
+
+		private void query(int node, int low, int high, int from, int to, long threshold, IntConsumer sink) {
+			int rank = nodes[node];
+			if (rank < 0 || keys[rank] >= threshold || high <= from || to <= low) {
+				return;
+			}
+			if (rank >= from && rank < to) {
+				sink.accept(rank);
+			}
+			if (node < leaves) {
+				int mid = (low + high) >>> 1;
+				query(2 * node, low, mid, from, to, threshold, sink);
+				query(2 * node + 1, mid, high, from, to, threshold, sink);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,423 @@
+package org.opengis.cite.geomatics.time;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Reads and writes temporal positions in the lexical forms of the XML Schema types
+ * xsd:dateTime, xsd:date, xsd:gYearMonth, and xsd:gYear (which are also ISO 8601
+ * representations in the extended format). Values are parsed directly to points on the
+ * UTC time-line, without regular expressions or {@link java.time.format.DateTimeFormatter};
+ * for a date, year and month, or year, the starting instant of the implied interval is
+ * obtained. A value without a time zone is taken to be in UTC.
+ *
+ * <p>
+ * The proleptic Gregorian calendar is used, with year 0000 denoting 1 BCE (as in XML
+ * Schema 1.1). For compatibility with ISO 8601, the seconds may be omitted from a time;
+ * fractional seconds beyond nanosecond precision are truncated. The methods are
+ * thread-safe.
+ * </p>
+ *
+ * @see <a href="https://www.w3.org/TR/xmlschema11-2/#dateTime">XML Schema Definition
+ * Language (XSD) 1.1 Part 2: Datatypes, 3.3.7 dateTime</a>
+ */
+public final class TemporalPositionCodec {
+
+	private static final int SECONDS_PER_DAY = 86400;
+
+	private static final int NANOS_PER_SECOND = 1_000_000_000;
+
+	/** Days from 0000-03-01 to 1970-01-01. */
+	private static final long DAYS_0000_TO_1970 = 719468;
+
+	private TemporalPositionCodec() {
+	}
+
+	/**
+	 * Parses a temporal position.
+	 * @param text An xsd:dateTime, xsd:date, xsd:gYearMonth, or xsd:gYear value (leading
+	 * and trailing whitespace is ignored).
+	 * @return The corresponding point on the time-line.
+	 * @throws DateTimeParseException If the text is not a valid value.
+	 */
+	public static java.time.Instant parse(CharSequence text) {
+		Parser parser = new Parser(text);
+		parser.parse();
+		return java.time.Instant.ofEpochSecond(parser.epochSecond, parser.nano);
+	}
+
+	/**
+	 * Parses a temporal position to milliseconds since the epoch (1970-01-01T00:00:00Z).
+	 * @param text An xsd:dateTime, xsd:date, xsd:gYearMonth, or xsd:gYear value.
+	 * @return The number of milliseconds since the epoch (fractions are truncated toward
+	 * the past).
+	 * @throws DateTimeParseException If the text is not a valid value.
+	 */
+	public static long parseEpochMilli(CharSequence text) {
+		Parser parser = new Parser(text);
+		parser.parse();
+		return Math.addExact(Math.multiplyExact(parser.epochSecond, 1000L), parser.nano / 1_000_000);
+	}
+
+	/**
+	 * Parses a temporal position to nanoseconds since the epoch (1970-01-01T00:00:00Z);
+	 * see {@link TimeSpan}.
+	 * @param text An xsd:dateTime, xsd:date, xsd:gYearMonth, or xsd:gYear value.
+	 * @return The number of nanoseconds since the epoch.
+	 * @throws DateTimeParseException If the text is not a valid value.
+	 * @throws ArithmeticException If the value is outside the range of a {@code long}
+	 * (about 1677 to 2262).
+	 */
+	public static long parseEpochNanos(CharSequence text) {
+		Parser parser = new Parser(text);
+		parser.parse();
+		return Math.addExact(Math.multiplyExact(parser.epochSecond, (long) NANOS_PER_SECOND), parser.nano);
+	}
+
+	/**
+	 * Writes an xsd:dateTime value. Fractional seconds are written only if they are not
+	 * zero, without trailing zeros; the time zone is written as "Z" for UTC.
+	 * @param instant A point on the time-line.
+	 * @param offset The time zone offset of the local date and time (whole minutes).
+	 * @param out The destination of the value.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	public static void formatDateTime(java.time.Instant instant, ZoneOffset offset, Appendable out)
+			throws IOException {
+		appendDateTime(out, instant.getEpochSecond(), instant.getNano(), offset.getTotalSeconds(), -1, false);
+	}
+
+	/**
+	 * Returns an xsd:dateTime value (see
+	 * {@link #formatDateTime(java.time.Instant, ZoneOffset, Appendable)}).
+	 * @param instant A point on the time-line.
+	 * @param offset The time zone offset of the local date and time (whole minutes).
+	 * @return A String representing the date and time.
+	 */
+	public static String formatDateTime(java.time.Instant instant, ZoneOffset offset) {
+		StringBuilder str = new StringBuilder(32);
+		try {
+			formatDateTime(instant, offset, str);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return str.toString();
+	}
+
+	/**
+	 * Writes an xsd:date value: the local date of an instant at the given offset,
+	 * followed by the time zone.
+	 * @param instant A point on the time-line.
+	 * @param offset The time zone offset (whole minutes).
+	 * @param out The destination of the value.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	public static void formatDate(java.time.Instant instant, ZoneOffset offset, Appendable out) throws IOException {
+		int offsetSeconds = checkOffset(offset.getTotalSeconds());
+		long epochDay = Math.floorDiv(instant.getEpochSecond() + offsetSeconds, SECONDS_PER_DAY);
+		appendDate(out, epochDay);
+		appendOffset(out, offsetSeconds, false);
+	}
+
+	/**
+	 * Writes a date and time at the given offset.
+	 * @param fractionDigits The number of fractional digits (0-9), or -1 to write only the
+	 * significant ones.
+	 * @param basicOffset Whether to write the offset as +hhmm (never "Z") instead of
+	 * +hh:mm.
+	 */
+	static void appendDateTime(Appendable out, long epochSecond, int nano, int offsetSeconds, int fractionDigits,
+			boolean basicOffset) throws IOException {
+		checkOffset(offsetSeconds);
+		long localSecond = epochSecond + offsetSeconds;
+		long epochDay = Math.floorDiv(localSecond, SECONDS_PER_DAY);
+		int secondOfDay = (int) Math.floorMod(localSecond, SECONDS_PER_DAY);
+		appendDate(out, epochDay);
+		out.append('T');
+		appendDigits(out, secondOfDay / 3600, 2);
+		out.append(':');
+		appendDigits(out, secondOfDay / 60 % 60, 2);
+		out.append(':');
+		appendDigits(out, secondOfDay % 60, 2);
+		if (fractionDigits < 0) {
+			if (nano > 0) {
+				int digits = 9;
+				int fraction = nano;
+				while (fraction % 10 == 0) {
+					fraction /= 10;
+					digits--;
+				}
+				out.append('.');
+				appendDigits(out, fraction, digits);
+			}
+		}
+		else if (fractionDigits > 0) {
+			int fraction = nano;
+			for (int i = fractionDigits; i < 9; i++) {
+				fraction /= 10;
+			}
+			out.append('.');
+			appendDigits(out, fraction, fractionDigits);
+		}
+		appendOffset(out, offsetSeconds, basicOffset);
+	}
+
+	private static int checkOffset(int offsetSeconds) {
+		if (offsetSeconds % 60 != 0) {
+			throw new IllegalArgumentException("Offset is not a whole number of minutes: " + offsetSeconds + "s");
+		}
+		return offsetSeconds;
+	}
+
+	private static void appendDate(Appendable out, long epochDay) throws IOException {
+		// civil date from day number (H. Hinnant, "chrono-Compatible Low-Level Date Algorithms")
+		long day = epochDay + DAYS_0000_TO_1970;
+		long era = Math.floorDiv(day, 146097);
+		int dayOfEra = (int) (day - era * 146097);
+		int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		int shiftedMonth = (5 * dayOfYear + 2) / 153;
+		int dayOfMonth = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+		int month = (shiftedMonth < 10) ? shiftedMonth + 3 : shiftedMonth - 9;
+		long year = yearOfEra + era * 400 + ((month <= 2) ? 1 : 0);
+		if (year < 0) {
+			out.append('-');
+			year = -year;
+		}
+		if (year > 9999) {
+			out.append(Long.toString(year));
+		}
+		else {
+			appendDigits(out, (int) year, 4);
+		}
+		out.append('-');
+		appendDigits(out, month, 2);
+		out.append('-');
+		appendDigits(out, dayOfMonth, 2);
+	}
+
+	private static void appendOffset(Appendable out, int offsetSeconds, boolean basicOffset) throws IOException {
+		if (offsetSeconds == 0 && !basicOffset) {
+			out.append('Z');
+			return;
+		}
+		out.append((offsetSeconds < 0) ? '-' : '+');
+		int offsetMinutes = Math.abs(offsetSeconds) / 60;
+		appendDigits(out, offsetMinutes / 60, 2);
+		if (!basicOffset) {
+			out.append(':');
+		}
+		appendDigits(out, offsetMinutes % 60, 2);
+	}
+
+	/**
+	 * Writes a non-negative value with leading zeros.
+	 */
+	private static void appendDigits(Appendable out, int value, int width) throws IOException {
+		int divisor = 1;
+		for (int i = 1; i < width; i++) {
+			divisor *= 10;
+		}
+		for (; divisor > 0; divisor /= 10) {
+			out.append((char) ('0' + value / divisor % 10));
+		}
+	}
+
+	/**
+	 * Returns the number of days from 1970-01-01 to the given date.
+	 */
+	static long epochDay(long year, int month, int dayOfMonth) {
+		long y = (month <= 2) ? year - 1 : year;
+		long era = Math.floorDiv(y, 400);
+		long yearOfEra = y - era * 400;
+		int dayOfYear = (153 * (month + ((month > 2) ? -3 : 9)) + 2) / 5 + dayOfMonth - 1;
+		long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146097 + dayOfEra - DAYS_0000_TO_1970;
+	}
+
+	static boolean isLeapYear(long year) {
+		return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+	}
+
+	/**
+	 * A single-use parser of one value.
+	 */
+	private static final class Parser {
+
+		private final CharSequence text;
+
+		private int pos;
+
+		private final int end;
+
+		long epochSecond;
+
+		int nano;
+
+		Parser(CharSequence text) {
+			this.text = text;
+			int start = 0;
+			int limit = text.length();
+			while (start < limit && isWhitespace(text.charAt(start))) {
+				start++;
+			}
+			while (limit > start && isWhitespace(text.charAt(limit - 1))) {
+				limit--;
+			}
+			this.pos = start;
+			this.end = limit;
+		}
+
+		void parse() {
+			boolean negative = (pos < end && text.charAt(pos) == '-');
+			if (negative) {
+				pos++;
+			}
+			int yearStart = pos;
+			long year = 0;
+			while (pos < end && isDigit(text.charAt(pos))) {
+				if (pos - yearStart == 9) {
+					throw error("Year out of range");
+				}
+				year = year * 10 + (text.charAt(pos++) - '0');
+			}
+			int yearDigits = pos - yearStart;
+			if (yearDigits < 4 || (yearDigits > 4 && text.charAt(yearStart) == '0')) {
+				throw error("Year must have four digits, or more without leading zeros");
+			}
+			if (negative) {
+				year = -year;
+			}
+			int month = 1;
+			int dayOfMonth = 1;
+			int secondOfDay = 0;
+			if (isDatePart()) {
+				pos++;
+				month = parseTwoDigits(1, 12, "month");
+				if (isDatePart()) {
+					pos++;
+					dayOfMonth = parseTwoDigits(1, 31, "day");
+					int monthLength = (month == 2) ? (isLeapYear(year) ? 29 : 28) : 30 + ((month + month / 8) & 1);
+					if (dayOfMonth > monthLength) {
+						throw error("Day out of range for month");
+					}
+					if (pos < end && text.charAt(pos) == 'T') {
+						pos++;
+						secondOfDay = parseTime();
+					}
+				}
+			}
+			int offsetSeconds = parseOffset();
+			if (pos != end) {
+				throw error("Unexpected text");
+			}
+			epochSecond = epochDay(year, month, dayOfMonth) * SECONDS_PER_DAY + secondOfDay - offsetSeconds;
+		}
+
+		/**
+		 * Indicates whether the next field is a month or day (a '-' that does not begin a
+		 * time zone offset).
+		 */
+		private boolean isDatePart() {
+			return pos < end && text.charAt(pos) == '-' && !(pos + 3 < end && text.charAt(pos + 3) == ':');
+		}
+
+		/**
+		 * Parses hh:mm[:ss[.s+]] and returns the second of day (24:00:00 is the end of the
+		 * day).
+		 */
+		private int parseTime() {
+			int hour = parseTwoDigits(0, 24, "hour");
+			expect(':');
+			int minute = parseTwoDigits(0, 59, "minute");
+			int second = 0;
+			if (pos < end && text.charAt(pos) == ':') {
+				pos++;
+				second = parseTwoDigits(0, 59, "second");
+				if (pos < end && text.charAt(pos) == '.') {
+					pos++;
+					int fractionStart = pos;
+					int scale = NANOS_PER_SECOND;
+					while (pos < end && isDigit(text.charAt(pos))) {
+						if (scale > 1) {
+							scale /= 10;
+							nano += (text.charAt(pos) - '0') * scale;
+						}
+						pos++;
+					}
+					if (pos == fractionStart) {
+						throw error("Missing fractional seconds");
+					}
+				}
+			}
+			if (hour == 24 && (minute != 0 || second != 0 || nano != 0)) {
+				throw error("Hour 24 is only allowed at 24:00:00");
+			}
+			return hour * 3600 + minute * 60 + second;
+		}
+
+		/**
+		 * Parses an optional time zone (Z or (+|-)hh:mm) and returns the offset in
+		 * seconds.
+		 */
+		private int parseOffset() {
+			if (pos == end) {
+				return 0;
+			}
+			char c = text.charAt(pos);
+			if (c == 'Z') {
+				pos++;
+				return 0;
+			}
+			if (c != '+' && c != '-') {
+				throw error("Expected a time zone");
+			}
+			pos++;
+			int hours = parseTwoDigits(0, 14, "offset hours");
+			expect(':');
+			int minutes = parseTwoDigits(0, 59, "offset minutes");
+			if (hours == 14 && minutes != 0) {
+				throw error("Offset out of range");
+			}
+			int offset = hours * 3600 + minutes * 60;
+			return (c == '-') ? -offset : offset;
+		}
+
+		private int parseTwoDigits(int min, int max, String field) {
+			if (pos + 2 > end || !isDigit(text.charAt(pos)) || !isDigit(text.charAt(pos + 1))) {
+				throw error("Expected two digits for " + field);
+			}
+			int value = (text.charAt(pos) - '0') * 10 + (text.charAt(pos + 1) - '0');
+			if (value < min || value > max) {
+				throw error("Value of " + field + " out of range");
+			}
+			pos += 2;
+			return value;
+		}
+
+		private void expect(char c) {
+			if (pos >= end || text.charAt(pos) != c) {
+				throw error("Expected '" + c + "'");
+			}
+			pos++;
+		}
+
+		private DateTimeParseException error(String reason) {
+			return new DateTimeParseException(
+					String.format("Not a valid temporal position (%s at index %d): %s", reason, pos, text), text, pos);
+		}
+
+		private static boolean isDigit(char c) {
+			return c >= '0' && c <= '9';
+		}
+
+		private static boolean isWhitespace(char c) {
+			return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+		}
+
+	}
+
+}
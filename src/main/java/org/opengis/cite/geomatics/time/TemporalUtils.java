@@ -1,15 +1,17 @@
 package org.opengis.cite.geomatics.time;
 
-import java.text.SimpleDateFormat;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.Duration;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoUnit;
+import java.time.format.DateTimeParseException;
 import java.time.temporal.TemporalUnit;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.TimeZone;
 import java.util.TreeSet;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.geotoolkit.temporal.factory.DefaultTemporalFactory;
 import org.opengis.temporal.Instant;
@@ -93,35 +95,71 @@ public class TemporalUtils {
 	 * @param tmSet An ordered set of TemporalGeometricPrimitive objects (instant or
 	 * period); it cannot be empty.
 	 * @return A period that contains the set members.
+	 * @see #temporalExtent(Iterable, Duration)
 	 */
 	public static Period temporalExtent(TreeSet<TemporalGeometricPrimitive> tmSet) {
 		if (tmSet.isEmpty()) {
 			throw new IllegalArgumentException("Empty Set<TemporalGeometricPrimitive>");
 		}
-		TemporalGeometricPrimitive first = tmSet.first();
-		TemporalGeometricPrimitive last = tmSet.last();
-		Instant startOfPeriod;
-		if (first instanceof Instant) {
-			startOfPeriod = Instant.class.cast(first);
-		}
-		else {
-			startOfPeriod = Period.class.cast(first).getBeginning();
+		return temporalExtent(tmSet, Duration.ofHours(1));
+	}
+
+	/**
+	 * Determines the total temporal extent of a collection of temporal primitives: the
+	 * period from the earliest beginning to the latest ending. The members need not be
+	 * sorted into a TreeSet (which discards members that its comparator deems equal), and
+	 * the collection is scanned once on the calling thread; use
+	 * {@link #temporalExtent(Stream, Duration)} with a parallel stream for large
+	 * collections.
+	 * @param tmObjects A collection of TemporalGeometricPrimitive objects (instant or
+	 * period); it cannot be empty.
+	 * @param padding The amount by which the period is extended at each end (may be
+	 * {@link Duration#ZERO}).
+	 * @return A period that contains all members of the collection.
+	 */
+	public static Period temporalExtent(Iterable<? extends TemporalGeometricPrimitive> tmObjects, Duration padding) {
+		return temporalExtent(StreamSupport.stream(tmObjects.spliterator(), false), padding);
+	}
+
+	/**
+	 * Determines the total temporal extent of a stream of temporal primitives: the period
+	 * from the earliest beginning to the latest ending. The stream is reduced in a single
+	 * pass, in parallel if it is a parallel stream.
+	 * @param tmObjects A stream of TemporalGeometricPrimitive objects (instant or
+	 * period); it cannot be empty.
+	 * @param padding The amount by which the period is extended at each end (may be
+	 * {@link Duration#ZERO}).
+	 * @return A period that contains all members of the stream.
+	 */
+	public static Period temporalExtent(Stream<? extends TemporalGeometricPrimitive> tmObjects, Duration padding) {
+		// earliest beginning, latest ending (ms)
+		long[] extent = tmObjects.collect(() -> new long[] { Long.MAX_VALUE, Long.MIN_VALUE },
+				TemporalUtils::expandExtent, (extent1, extent2) -> {
+					extent1[0] = Math.min(extent1[0], extent2[0]);
+					extent1[1] = Math.max(extent1[1], extent2[1]);
+				});
+		if (extent[0] > extent[1]) {
+			throw new IllegalArgumentException("No temporal primitives");
 		}
-		startOfPeriod = add(startOfPeriod, -1, ChronoUnit.HOURS);
-		Instant endOfPeriod;
-		if (last instanceof Instant) {
-			endOfPeriod = Instant.class.cast(last);
-			// check if last occurs DURING first
-			if ((first instanceof Period) && endOfPeriod.relativePosition(Period.class.cast(first).getEnding())
-				.equals(RelativePosition.BEFORE)) {
-				endOfPeriod = Period.class.cast(first).getEnding();
-			}
+		long pad = padding.toMillis();
+		return TM_FACTORY.createPeriod(TM_FACTORY.createInstant(new Date(extent[0] - pad)),
+				TM_FACTORY.createInstant(new Date(extent[1] + pad)));
+	}
+
+	private static void expandExtent(long[] extent, TemporalGeometricPrimitive tmObject) {
+		long beginning;
+		long ending;
+		if (tmObject instanceof Instant) {
+			beginning = ((Instant) tmObject).getDate().getTime();
+			ending = beginning;
 		}
 		else {
-			endOfPeriod = Period.class.cast(last).getEnding();
+			Period period = (Period) tmObject;
+			beginning = period.getBeginning().getDate().getTime();
+			ending = period.getEnding().getDate().getTime();
 		}
-		endOfPeriod = add(endOfPeriod, 1, ChronoUnit.HOURS);
-		return TM_FACTORY.createPeriod(startOfPeriod, endOfPeriod);
+		extent[0] = Math.min(extent[0], beginning);
+		extent[1] = Math.max(extent[1], ending);
 	}
 
 	/**
@@ -132,11 +170,7 @@ public class TemporalUtils {
 	 * @return A new Instant representing the resulting date-time value.
 	 */
 	public static Instant add(Instant instant, int amount, TemporalUnit unit) {
-		DateTimeFormatter xsdDateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXX");
-		ZonedDateTime dateTime = ZonedDateTime.parse(getDateTime(instant), xsdDateTimeFormatter);
-		ZonedDateTime newDateTime = dateTime.plus(amount, unit);
-		Instant newInstant = TM_FACTORY.createInstant(Date.from(newDateTime.toInstant()));
-		return newInstant;
+		return (Instant) TimeSpan.from(instant).plus(amount, unit).toTemporalPrimitive();
 	}
 
 	/**
@@ -148,30 +182,59 @@ public class TemporalUtils {
 	 * n+1).
 	 */
 	public static List<Period> splitInterval(Period period, int size) {
-		DateTimeFormatter xsdDateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXX");
-		ZonedDateTime startDateTime = ZonedDateTime.parse(getDateTime(period.getBeginning()), xsdDateTimeFormatter);
-		ZonedDateTime endDateTime = ZonedDateTime.parse(getDateTime(period.getEnding()), xsdDateTimeFormatter);
-		Duration duration = Duration.between(startDateTime, endDateTime).dividedBy(size);
-		List<Period> subIntervals = new ArrayList<>();
-		for (int i = 0; i < size; i++) {
-			Instant startInstant = TM_FACTORY.createInstant(Date.from(startDateTime.toInstant()));
-			endDateTime = startDateTime.plus(duration);
-			Instant endInstant = TM_FACTORY.createInstant(Date.from(endDateTime.toInstant()));
-			subIntervals.add(TM_FACTORY.createPeriod(startInstant, endInstant));
-			startDateTime = endDateTime;
+		List<Period> subIntervals = new ArrayList<>(size);
+		for (TimeSpan subInterval : TimeSpan.from(period).split(size)) {
+			// not toTemporalPrimitive, which returns an Instant if the length is zero
+			subIntervals.add(TM_FACTORY.createPeriod(TM_FACTORY.createInstant(toDate(subInterval.getBeginning())),
+					TM_FACTORY.createInstant(toDate(subInterval.getEnding()))));
 		}
 		return subIntervals;
 	}
 
+	private static Date toDate(long epochNanos) {
+		return new Date(Math.floorDiv(epochNanos, 1_000_000L));
+	}
+
+	/**
+	 * Parses the value of a GML temporal position (gml:timePosition, gml:beginPosition,
+	 * gml:endPosition) in the ISO 8601 calendar. The value may be a date-time (xsd:dateTime;
+	 * UTC is assumed if there is no offset), a date, a year and month, or a year; in the
+	 * latter cases the starting instant of the implied interval is returned.
+	 * @param value A temporal position in the ISO 8601 calendar.
+	 * @return The corresponding point on the time-line.
+	 */
+	public static java.time.Instant parseTemporalPosition(String value) {
+		try {
+			return TemporalPositionCodec.parse(value);
+		}
+		catch (DateTimeParseException e) {
+			throw new RuntimeException("Not an ISO instant: " + value, e);
+		}
+	}
+
 	/**
 	 * Reproduces the behavior of legacy
-	 * {@code Instant.getPosition().getDateTime().toString()} calls. Note: time zone is
-	 * not correctly handled.
+	 * {@code Instant.getPosition().getDateTime().toString()} calls: the date and time
+	 * with millisecond precision at the offset of the default time zone, in the form
+	 * yyyy-MM-dd'T'HH:mm:ss.SSS+hhmm. The original offset of the instant (if any) is not
+	 * retained; use {@link TemporalPositionCodec} to write xsd:dateTime values. An offset
+	 * that is not a whole number of minutes (e.g. local mean time before 1972 in
+	 * Africa/Monrovia) is truncated, as by SimpleDateFormat; the time of day is given at
+	 * the truncated offset, so the result still denotes the same instant.
 	 */
 	static String getDateTime(final Instant instant) {
-		String DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSSZ";
-		SimpleDateFormat dateFormat = new java.text.SimpleDateFormat(DATE_FORMAT);
-		return dateFormat.format(instant.getDate());
+		long epochMilli = instant.getDate().getTime();
+		int offsetSeconds = TimeZone.getDefault().getOffset(epochMilli) / 1000;
+		offsetSeconds -= offsetSeconds % 60;
+		StringBuilder dateTime = new StringBuilder(28);
+		try {
+			TemporalPositionCodec.appendDateTime(dateTime, Math.floorDiv(epochMilli, 1000L),
+					(int) Math.floorMod(epochMilli, 1000L) * 1_000_000, offsetSeconds, 3, true);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return dateTime.toString();
 	}
 
 }
@@ -0,0 +1,300 @@
+package org.opengis.cite.geomatics.time;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.temporal.TemporalUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.geotoolkit.temporal.factory.DefaultTemporalFactory;
+import org.opengis.temporal.Instant;
+import org.opengis.temporal.Period;
+import org.opengis.temporal.RelativePosition;
+import org.opengis.temporal.TemporalFactory;
+import org.opengis.temporal.TemporalGeometricPrimitive;
+
+/**
+ * An instant or a period on the UTC time-line, with positions held as nanoseconds since
+ * the epoch (1970-01-01T00:00:00Z). This is a lightweight alternative to the GeoAPI
+ * temporal primitives backed by {@link java.util.Date}: arithmetic is done directly on
+ * the {@code long} values, and a relative position is found in a few comparisons. An
+ * instant is a time span with the same beginning and ending; a period has a beginning
+ * before its ending.
+ *
+ * <p>
+ * The range of representable positions is about 1677-09-21 to 2262-04-11. Adapters are
+ * provided to and from the GeoAPI types ({@link #from(TemporalGeometricPrimitive)},
+ * {@link #toTemporalPrimitive()}); the latter only retain millisecond precision.
+ * Instances are immutable.
+ * </p>
+ *
+ * @see "ISO 19108: Geographic information -- Temporal schema"
+ */
+public final class TimeSpan implements Comparable<TimeSpan> {
+
+	private static final TemporalFactory TM_FACTORY = new DefaultTemporalFactory();
+
+	private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+	private static final long NANOS_PER_MILLI = 1_000_000L;
+
+	private final long beginning;
+
+	private final long ending;
+
+	private TimeSpan(long beginning, long ending) {
+		this.beginning = beginning;
+		this.ending = ending;
+	}
+
+	/**
+	 * Creates an instant.
+	 * @param epochNanos The position in nanoseconds since the epoch.
+	 * @return An instant.
+	 */
+	public static TimeSpan instant(long epochNanos) {
+		return new TimeSpan(epochNanos, epochNanos);
+	}
+
+	/**
+	 * Creates a period; if the beginning and ending coincide, an instant is returned.
+	 * @param beginning The beginning in nanoseconds since the epoch.
+	 * @param ending The ending in nanoseconds since the epoch.
+	 * @return A time span.
+	 */
+	public static TimeSpan period(long beginning, long ending) {
+		if (ending < beginning) {
+			throw new IllegalArgumentException(String.format("Period ends before it begins: %s/%s",
+					toJavaInstant(beginning), toJavaInstant(ending)));
+		}
+		return new TimeSpan(beginning, ending);
+	}
+
+	/**
+	 * Creates an instant.
+	 * @param instant A point on the time-line.
+	 * @return An instant.
+	 * @throws ArithmeticException If the instant is outside the representable range.
+	 */
+	public static TimeSpan of(java.time.Instant instant) {
+		return instant(toEpochNanos(instant));
+	}
+
+	/**
+	 * Creates a period.
+	 * @param beginning The beginning of the period.
+	 * @param ending The ending of the period.
+	 * @return A time span.
+	 * @throws ArithmeticException If a position is outside the representable range.
+	 */
+	public static TimeSpan of(java.time.Instant beginning, java.time.Instant ending) {
+		return period(toEpochNanos(beginning), toEpochNanos(ending));
+	}
+
+	/**
+	 * Creates a time span from a GeoAPI temporal primitive.
+	 * @param primitive A temporal geometric primitive (instant or period).
+	 * @return A time span.
+	 */
+	public static TimeSpan from(TemporalGeometricPrimitive primitive) {
+		if (primitive instanceof Instant) {
+			return instant(nanosOf((Instant) primitive));
+		}
+		Period period = (Period) primitive;
+		return period(nanosOf(period.getBeginning()), nanosOf(period.getEnding()));
+	}
+
+	/**
+	 * Returns the beginning of this time span.
+	 * @return The position in nanoseconds since the epoch.
+	 */
+	public long getBeginning() {
+		return beginning;
+	}
+
+	/**
+	 * Returns the ending of this time span (the same as the beginning for an instant).
+	 * @return The position in nanoseconds since the epoch.
+	 */
+	public long getEnding() {
+		return ending;
+	}
+
+	/**
+	 * Indicates whether this time span is an instant.
+	 * @return {@code true} if the beginning and ending coincide; {@code false} otherwise.
+	 */
+	public boolean isInstant() {
+		return beginning == ending;
+	}
+
+	/**
+	 * Returns the length of this time span.
+	 * @return The duration in nanoseconds (zero for an instant).
+	 */
+	public long getDuration() {
+		return ending - beginning;
+	}
+
+	/**
+	 * Returns a copy of this time span shifted by the given number of nanoseconds.
+	 * @param nanos The amount to add (positive) or subtract (negative).
+	 * @return A new time span with the same duration.
+	 */
+	public TimeSpan plusNanos(long nanos) {
+		return new TimeSpan(Math.addExact(beginning, nanos), Math.addExact(ending, nanos));
+	}
+
+	/**
+	 * Returns a copy of this time span with the specified amount added to both ends.
+	 * Units with an exact duration (up to hours) are added directly; calendar units (days,
+	 * months, years) are applied to the local date-time at the offset of the default time
+	 * zone, as {@link TemporalUtils#add} has always done.
+	 * @param amount The amount to add (positive) or subtract (negative).
+	 * @param unit The date-time unit of the amount.
+	 * @return A new time span.
+	 */
+	public TimeSpan plus(long amount, TemporalUnit unit) {
+		if (!unit.isDurationEstimated()) {
+			return plusNanos(Math.multiplyExact(amount, unit.getDuration().toNanos()));
+		}
+		long newBeginning = plusCalendar(beginning, amount, unit);
+		return new TimeSpan(newBeginning, isInstant() ? newBeginning : plusCalendar(ending, amount, unit));
+	}
+
+	/**
+	 * Splits this time span into the specified number of contiguous sub-intervals of
+	 * equal length; the last one may end up to (size - 1) ns before this time span does.
+	 * @param size The number of sub-intervals (positive).
+	 * @return A list of periods in which interval n MEETS interval n+1.
+	 */
+	public List<TimeSpan> split(int size) {
+		if (size < 1) {
+			throw new IllegalArgumentException("Number of sub-intervals must be positive: " + size);
+		}
+		long length = getDuration() / size;
+		List<TimeSpan> subIntervals = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			long start = beginning + i * length;
+			subIntervals.add(new TimeSpan(start, start + length));
+		}
+		return subIntervals;
+	}
+
+	/**
+	 * Determines the position of this time span relative to another one. All 13
+	 * relationships defined in ISO 19108 may result; those involving an instant are
+	 * restricted to BEFORE, AFTER, EQUALS (instant/instant), BEGINS, DURING, ENDS
+	 * (instant/period), and BEGUN_BY, CONTAINS, ENDED_BY (period/instant).
+	 * @param other Another time span.
+	 * @return The relative position of this time span.
+	 */
+	public RelativePosition relativePosition(TimeSpan other) {
+		if (ending < other.beginning) {
+			return RelativePosition.BEFORE;
+		}
+		if (beginning > other.ending) {
+			return RelativePosition.AFTER;
+		}
+		if (!isInstant() && !other.isInstant()) {
+			if (ending == other.beginning) {
+				return RelativePosition.MEETS;
+			}
+			if (beginning == other.ending) {
+				return RelativePosition.MET_BY;
+			}
+		}
+		// the time spans share at least one position
+		int atBeginning = Long.compare(beginning, other.beginning);
+		int atEnding = Long.compare(ending, other.ending);
+		if (atBeginning == 0) {
+			return (atEnding == 0) ? RelativePosition.EQUALS
+					: (atEnding < 0) ? RelativePosition.BEGINS : RelativePosition.BEGUN_BY;
+		}
+		if (atBeginning < 0) {
+			return (atEnding == 0) ? RelativePosition.ENDED_BY
+					: (atEnding < 0) ? RelativePosition.OVERLAPS : RelativePosition.CONTAINS;
+		}
+		return (atEnding == 0) ? RelativePosition.ENDS
+				: (atEnding < 0) ? RelativePosition.DURING : RelativePosition.OVERLAPPED_BY;
+	}
+
+	/**
+	 * Creates the corresponding GeoAPI temporal primitive. Positions are truncated to
+	 * millisecond precision.
+	 * @return An Instant or a Period.
+	 */
+	public TemporalGeometricPrimitive toTemporalPrimitive() {
+		Instant begin = TM_FACTORY.createInstant(toDate(beginning));
+		if (isInstant()) {
+			return begin;
+		}
+		return TM_FACTORY.createPeriod(begin, TM_FACTORY.createInstant(toDate(ending)));
+	}
+
+	/**
+	 * Orders time spans by beginning, then by ending.
+	 */
+	@Override
+	public int compareTo(TimeSpan other) {
+		int comparison = Long.compare(beginning, other.beginning);
+		return (comparison != 0) ? comparison : Long.compare(ending, other.ending);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof TimeSpan)) {
+			return false;
+		}
+		TimeSpan other = (TimeSpan) obj;
+		return beginning == other.beginning && ending == other.ending;
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(beginning) * 31 + Long.hashCode(ending);
+	}
+
+	@Override
+	public String toString() {
+		if (isInstant()) {
+			return toJavaInstant(beginning).toString();
+		}
+		return toJavaInstant(beginning) + "/" + toJavaInstant(ending);
+	}
+
+	/**
+	 * Converts a point on the time-line to nanoseconds since the epoch.
+	 * @param instant A point on the time-line.
+	 * @return The number of nanoseconds since the epoch.
+	 * @throws ArithmeticException If the instant is outside the representable range.
+	 */
+	public static long toEpochNanos(java.time.Instant instant) {
+		return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), NANOS_PER_SECOND), instant.getNano());
+	}
+
+	/**
+	 * Converts nanoseconds since the epoch to a point on the time-line.
+	 * @param epochNanos The number of nanoseconds since the epoch.
+	 * @return A point on the time-line.
+	 */
+	public static java.time.Instant toJavaInstant(long epochNanos) {
+		return java.time.Instant.ofEpochSecond(Math.floorDiv(epochNanos, NANOS_PER_SECOND),
+				Math.floorMod(epochNanos, NANOS_PER_SECOND));
+	}
+
+	private static long nanosOf(Instant instant) {
+		return Math.multiplyExact(instant.getDate().getTime(), NANOS_PER_MILLI);
+	}
+
+	private static Date toDate(long epochNanos) {
+		return new Date(Math.floorDiv(epochNanos, NANOS_PER_MILLI));
+	}
+
+	private static long plusCalendar(long epochNanos, long amount, TemporalUnit unit) {
+		OffsetDateTime dateTime = OffsetDateTime.ofInstant(toJavaInstant(epochNanos), ZoneId.systemDefault());
+		return toEpochNanos(dateTime.plus(amount, unit).toInstant());
+	}
+
+}
@@ -0,0 +1,111 @@
+package org.opengis.cite.geomatics;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.opengis.cite.geomatics.gml.GmlUtils;
+import org.opengis.geometry.Envelope;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+
+/**
+ * Measures how the calculation of an envelope scales with the number of worker threads.
+ * This is not a unit test; run it as a Java application:
+ *
+ * <pre>
+ * java -cp ... org.opengis.cite.geomatics.EnvelopeBenchmark [geometries] [maxThreads] [runs]
+ * </pre>
+ *
+ * <p>
+ * A feature collection containing the given number of curves (default 20000) is
+ * generated. For each thread count (1, 2, 4, ... up to maxThreads, default 32) the median
+ * time of several runs (default 5) is reported along with the speedup relative to the
+ * sequential calculation. The document is parsed anew for every run so that cached
+ * geometries are not reused.
+ * </p>
+ */
+public class EnvelopeBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int geomCount = (args.length > 0) ? Integer.parseInt(args[0]) : 20000;
+		int maxThreads = (args.length > 1) ? Integer.parseInt(args[1]) : 32;
+		int runs = (args.length > 2) ? Integer.parseInt(args[2]) : 5;
+		byte[] data = createFeatureCollection(geomCount, new Random(42));
+		DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+		dbf.setNamespaceAware(true);
+		DocumentBuilder docBuilder = dbf.newDocumentBuilder();
+		System.out.printf(Locale.ROOT, "%d geometries, %d available processors%n", geomCount,
+				Runtime.getRuntime().availableProcessors());
+		// warm up
+		Extents.calculateEnvelope(geometries(docBuilder, data));
+		Envelope expected = null;
+		long[] times = new long[runs];
+		for (int i = 0; i < runs; i++) {
+			NodeList nodes = geometries(docBuilder, data);
+			long start = System.nanoTime();
+			expected = Extents.calculateEnvelope(nodes);
+			times[i] = System.nanoTime() - start;
+		}
+		long sequential = median(times);
+		System.out.printf(Locale.ROOT, "sequential: %8.1f ms%n", sequential / 1e6);
+		for (int threads = 1; threads <= maxThreads; threads *= 2) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			try {
+				Extents.calculateEnvelope(geometries(docBuilder, data), pool);
+				for (int i = 0; i < runs; i++) {
+					NodeList nodes = geometries(docBuilder, data);
+					long start = System.nanoTime();
+					Envelope envelope = Extents.calculateEnvelope(nodes, pool);
+					times[i] = System.nanoTime() - start;
+					if (!envelope.getLowerCorner().equals(expected.getLowerCorner())
+							|| !envelope.getUpperCorner().equals(expected.getUpperCorner())) {
+						throw new AssertionError("Parallel result differs: " + envelope);
+					}
+				}
+			}
+			finally {
+				pool.shutdown();
+			}
+			long parallel = median(times);
+			System.out.printf(Locale.ROOT, "%3d threads: %8.1f ms (speedup %.2f)%n", threads, parallel / 1e6,
+					(double) sequential / parallel);
+		}
+	}
+
+	private static NodeList geometries(DocumentBuilder docBuilder, byte[] data) throws Exception {
+		Document doc = docBuilder.parse(new ByteArrayInputStream(data));
+		return doc.getElementsByTagNameNS(GmlUtils.GML_NS, "LineString");
+	}
+
+	private static byte[] createFeatureCollection(int geomCount, Random random) {
+		StringBuilder xml = new StringBuilder();
+		xml.append("<FeatureCollection xmlns='http://example.org/ns1' xmlns:gml='http://www.opengis.net/gml/3.2'>");
+		for (int i = 0; i < geomCount; i++) {
+			xml.append("<member><Feature><geom>");
+			xml.append("<gml:LineString gml:id='L").append(i).append("' srsName='urn:ogc:def:crs:EPSG::4326'>");
+			xml.append("<gml:posList>");
+			double lat = -80 + 160 * random.nextDouble();
+			double lon = -170 + 340 * random.nextDouble();
+			for (int j = 0; j < 20; j++) {
+				xml.append(String.format(Locale.ROOT, "%.6f %.6f ", lat + j * 0.01, lon + j * 0.01));
+			}
+			xml.append("</gml:posList></gml:LineString></geom></Feature></member>");
+		}
+		xml.append("</FeatureCollection>");
+		return xml.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static long median(long[] times) {
+		long[] sorted = times.clone();
+		Arrays.sort(sorted);
+		return sorted[sorted.length / 2];
+	}
+
+}
@@ -0,0 +1,118 @@
+package org.opengis.cite.geomatics;
+
+import static org.junit.Assert.*;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.sis.geometry.GeneralEnvelope;
+import org.apache.sis.referencing.CRS;
+import org.apache.sis.referencing.CommonCRS;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opengis.cite.geomatics.gml.GmlUtils;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+public class VerifyBoundingBoxCodec {
+
+	private static DocumentBuilder docBuilder;
+
+	@BeforeClass
+	public static void initParser() throws Exception {
+		DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+		dbf.setNamespaceAware(true);
+		docBuilder = dbf.newDocumentBuilder();
+	}
+
+	@Test
+	public void readBoundingBox() throws Exception {
+		Document doc = docBuilder.parse(getClass().getResourceAsStream("/envelopes/BoundingBox-4326.xml"));
+		GeneralEnvelope envelope = new BoundingBoxCodec().read(doc);
+		assertEquals("Unexpected CRS.", CRS.forCode("EPSG:4326"), envelope.getCoordinateReferenceSystem());
+		assertArrayEquals(new double[] { 32.0, -117.6 }, envelope.getLowerCorner().getCoordinate(), 0.0);
+		assertArrayEquals(new double[] { 33.5, -116.2 }, envelope.getUpperCorner().getCoordinate(), 0.0);
+	}
+
+	@Test
+	public void readWGS84BoundingBox() throws Exception {
+		Document doc = docBuilder.parse(getClass().getResourceAsStream("/envelopes/WGS84BoundingBox.xml"));
+		GeneralEnvelope envelope = new BoundingBoxCodec().read(doc);
+		assertEquals("Unexpected CRS.", CommonCRS.defaultGeographic(), envelope.getCoordinateReferenceSystem());
+		assertArrayEquals(new double[] { -116.0, 32.6 }, envelope.getLowerCorner().getCoordinate(), 0.0);
+	}
+
+	@Test
+	public void readEnvelopesFromStream() throws Exception {
+		XMLStreamReader reader = XMLInputFactory.newInstance()
+			.createXMLStreamReader(getClass().getResourceAsStream("/SearchResults.xml"));
+		List<GeneralEnvelope> envelopes = new BoundingBoxCodec().readAll(reader);
+		assertEquals("Unexpected number of envelopes.", 2, envelopes.size());
+		Document doc = docBuilder.parse(getClass().getResourceAsStream("/envelopes/Envelope-UTM.xml"));
+		GeneralEnvelope expected = new BoundingBoxCodec().read(doc);
+		reader = XMLInputFactory.newInstance()
+			.createXMLStreamReader(getClass().getResourceAsStream("/envelopes/Envelope-UTM.xml"));
+		assertEquals(expected, new BoundingBoxCodec().readAll(reader).get(0));
+	}
+
+	@Test
+	public void parseKVP() throws Exception {
+		BoundingBoxCodec codec = new BoundingBoxCodec();
+		GeneralEnvelope envelope = codec.parseKVP("472944,5363287,516011,5456383,urn:ogc:def:crs:EPSG::32610");
+		assertEquals("Unexpected CRS.", CRS.forCode("EPSG:32610"), envelope.getCoordinateReferenceSystem());
+		assertEquals(516011, envelope.getMaximum(0), 0.0);
+		envelope = codec.parseKVP("-123.1, 49.25, -122.5, 50.0");
+		assertEquals("Unexpected CRS.", CommonCRS.defaultGeographic(), envelope.getCoordinateReferenceSystem());
+		assertEquals(50.0, envelope.getMaximum(1), 0.0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void parseKVPWithOddNumberOfValues() throws Exception {
+		new BoundingBoxCodec().parseKVP("-123.1,49.25,-122.5");
+	}
+
+	@Test
+	public void writeAndParseKVP() throws Exception {
+		GeneralEnvelope envelope = new GeneralEnvelope(CRS.forCode("EPSG:4326"));
+		envelope.setEnvelope(32.0, -117.6, 33.5, -116.2);
+		String kvp = BoundingBoxCodec.toKVP(envelope);
+		assertEquals("32.0,-117.6,33.5,-116.2,urn:ogc:def:crs:EPSG::4326", kvp);
+		assertEquals(envelope, new BoundingBoxCodec().parseKVP(kvp));
+	}
+
+	@Test
+	public void writeAndReadEnvelope() throws Exception {
+		GeneralEnvelope envelope = new GeneralEnvelope(CRS.forCode("EPSG:32610"));
+		envelope.setEnvelope(514432, 5429689, 529130, 5451619);
+		StringWriter out = new StringWriter();
+		XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out);
+		BoundingBoxCodec.write(envelope, writer, GmlUtils.GML_NS);
+		writer.close();
+		Document doc = docBuilder.parse(new InputSource(new StringReader(out.toString())));
+		assertEquals("Unexpected element.", "Envelope", doc.getDocumentElement().getLocalName());
+		assertEquals(envelope, new BoundingBoxCodec().read(doc));
+	}
+
+	@Test
+	public void writeWGS84BoundingBox() throws Exception {
+		GeneralEnvelope envelope = new GeneralEnvelope(CommonCRS.defaultGeographic());
+		envelope.setEnvelope(-116.0, 32.6, -115.0, 34.0);
+		StringWriter out = new StringWriter();
+		XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out);
+		BoundingBoxCodec.write(envelope, writer, BoundingBoxCodec.OWS_NS);
+		writer.close();
+		Document doc = docBuilder.parse(new InputSource(new StringReader(out.toString())));
+		assertEquals("Unexpected element.", "WGS84BoundingBox", doc.getDocumentElement().getLocalName());
+		assertFalse("Unexpected crs attribute.", doc.getDocumentElement().hasAttribute("crs"));
+		assertEquals(envelope, new BoundingBoxCodec().read(doc));
+	}
+
+}
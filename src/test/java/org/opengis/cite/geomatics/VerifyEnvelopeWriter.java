@@ -0,0 +1,110 @@
+package org.opengis.cite.geomatics;
+
+import static org.junit.Assert.*;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.sis.geometry.GeneralEnvelope;
+import org.apache.sis.referencing.CRS;
+import org.apache.sis.referencing.CommonCRS;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opengis.cite.geomatics.gml.GmlUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+public class VerifyEnvelopeWriter {
+
+	private static DocumentBuilder docBuilder;
+
+	@BeforeClass
+	public static void initParser() throws Exception {
+		DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+		dbf.setNamespaceAware(true);
+		docBuilder = dbf.newDocumentBuilder();
+	}
+
+	@Test
+	public void formatFullPrecision() {
+		EnvelopeWriter writer = new EnvelopeWriter();
+		assertEquals("12.0", writer.format(12));
+		assertEquals("-0.1", writer.format(-0.1));
+		assertEquals("49.194722", writer.format(49.194722));
+		assertEquals("9999999.0", writer.format(9999999));
+		assertEquals("1.0E7", writer.format(1.0E7));
+		assertEquals("-5.0E9", writer.format(-5.0E9));
+		assertEquals("INF", writer.format(Double.POSITIVE_INFINITY));
+	}
+
+	@Test
+	public void formatTruncated() {
+		EnvelopeWriter writer = new EnvelopeWriter(2, RoundingMode.DOWN);
+		assertEquals("-122.88", writer.format(-122.88663));
+		assertEquals("9329005", writer.format(9329005.749));
+		assertEquals("0.29", writer.format(0.29));
+		assertEquals("50.1", writer.format(50.10));
+		assertEquals("0", writer.format(-0.001));
+	}
+
+	@Test
+	public void formatHalfUp() {
+		EnvelopeWriter writer = new EnvelopeWriter(1, RoundingMode.HALF_UP);
+		assertEquals("0.3", writer.format(0.25));
+		// binary value is slightly less than 88.55
+		assertEquals("-88.5", writer.format(-88.55));
+		assertEquals("100000000000000000000", writer.format(1.0E20));
+	}
+
+	@Test
+	public void appendEnvelopes() throws Exception {
+		GeneralEnvelope envelope = new GeneralEnvelope(CRS.forCode("EPSG:4326"));
+		envelope.setEnvelope(32.123456, -117.6, 33.5, -116.2);
+		StringBuilder xml = new StringBuilder();
+		new EnvelopeWriter(2, RoundingMode.DOWN).appendAll(Arrays.asList(envelope, envelope), xml,
+				new QName("http://www.example.org/ns", "Results", "ex"), BoundingBoxCodec.OWS_NS);
+		Document doc = docBuilder.parse(new InputSource(new StringReader(xml.toString())));
+		NodeList boxes = doc.getElementsByTagNameNS(BoundingBoxCodec.OWS_NS, "BoundingBox");
+		assertEquals("Unexpected number of bounding boxes.", 2, boxes.getLength());
+		GeneralEnvelope result = new BoundingBoxCodec().read(boxes.item(1));
+		assertEquals(32.12, result.getMinimum(0), 0.0);
+		assertEquals(-116.2, result.getMaximum(1), 0.0);
+	}
+
+	@Test
+	public void writeEnvelopes() throws Exception {
+		GeneralEnvelope envelope = new GeneralEnvelope(CRS.forCode("EPSG:32610"));
+		envelope.setEnvelope(514432.5, 5429689, 529130, 5451619.25);
+		GeneralEnvelope latLon = new GeneralEnvelope(CRS.forCode("EPSG:4326"));
+		latLon.setEnvelope(32.6, -116.0, 34.0, -115.0);
+		StringWriter out = new StringWriter();
+		XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out);
+		new EnvelopeWriter().writeAll(Arrays.asList(envelope, latLon), writer, new QName("Results"),
+				GmlUtils.GML_NS);
+		writer.close();
+		Document doc = docBuilder.parse(new InputSource(new StringReader(out.toString())));
+		List<GeneralEnvelope> envelopes = new BoundingBoxCodec()
+			.readAll(doc.getElementsByTagNameNS(GmlUtils.GML_NS, "Envelope"));
+		assertEquals(Arrays.asList(envelope, latLon), envelopes);
+	}
+
+	@Test
+	public void appendKVP() throws Exception {
+		GeneralEnvelope envelope = new GeneralEnvelope(CommonCRS.defaultGeographic());
+		envelope.setEnvelope(-123.123456, 49.25, -122.5, 50.0);
+		StringBuilder kvp = new StringBuilder();
+		new EnvelopeWriter(3, RoundingMode.HALF_EVEN).appendKVP(envelope, kvp);
+		assertEquals("-123.123,49.25,-122.5,50", kvp.toString());
+	}
+
+}
@@ -0,0 +1,104 @@
+package org.opengis.cite.geomatics;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathFactory;
+
+import org.apache.sis.geometry.GeneralEnvelope;
+import org.apache.sis.referencing.CRS;
+import org.junit.Test;
+import org.opengis.cite.geomatics.gml.GmlUtils;
+import org.opengis.geometry.Envelope;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+public class VerifyExtentAccumulator extends CommonTestFixture {
+
+	@Test
+	public void emptyAccumulator() throws Exception {
+		ExtentAccumulator accumulator = new ExtentAccumulator();
+		assertTrue(accumulator.isEmpty());
+		assertNull(accumulator.getExtent());
+	}
+
+	@Test
+	public void accumulateGeometries() throws Exception {
+		XPath xpath = XPathFactory.newInstance().newXPath();
+		Document doc1 = docBuilder.parse(getClass().getResourceAsStream("/gml/MultiGeometry.xml"));
+		xpath.setNamespaceContext(new GmlUtils.NodeNamespaceContext(doc1));
+		NodeList nodes1 = (NodeList) xpath.evaluate("//gml:geometryMember/*", doc1, XPathConstants.NODESET);
+		Envelope expected = Extents.calculateEnvelope(nodes1);
+		Document doc2 = docBuilder.parse(getClass().getResourceAsStream("/gml/MultiGeometry.xml"));
+		NodeList nodes2 = (NodeList) xpath.evaluate("//gml:geometryMember/*", doc2, XPathConstants.NODESET);
+		ExtentAccumulator accumulator = new ExtentAccumulator();
+		// one geometry at a time, as if each were on a separate page
+		for (int i = 0; i < nodes2.getLength(); i++) {
+			accumulator.addGeometry((Element) nodes2.item(i));
+		}
+		GeneralEnvelope extent = accumulator.getExtent();
+		assertArrayEquals("Unexpected lower corner.", expected.getLowerCorner().getCoordinate(),
+				extent.getLowerCorner().getCoordinate(), 0.0);
+		assertArrayEquals("Unexpected upper corner.", expected.getUpperCorner().getCoordinate(),
+				extent.getUpperCorner().getCoordinate(), 0.0);
+	}
+
+	@Test
+	public void accumulateBoundingBoxesInDifferentCRS() throws Exception {
+		Document results = docBuilder.parse(getClass().getResourceAsStream("/SearchResults-2.xml"));
+		XPath xpath = XPathFactory.newInstance().newXPath();
+		xpath.setNamespaceContext(new GmlUtils.NodeNamespaceContext(results));
+		NodeList boxes = (NodeList) xpath.evaluate(
+				"//csw:Record/ows:BoundingBox[1] | //csw:Record/ows:WGS84BoundingBox[1]", results,
+				XPathConstants.NODESET);
+		List<Node> boxNodes = new ArrayList<>();
+		ExtentAccumulator accumulator = new ExtentAccumulator();
+		for (int i = 0; i < boxes.getLength(); i++) {
+			boxNodes.add(boxes.item(i));
+			accumulator.addBoundingBox(boxes.item(i));
+		}
+		Envelope expected = Extents.coalesceBoundingBoxes(boxNodes);
+		GeneralEnvelope extent = accumulator.getExtent();
+		assertEquals("Unexpected CRS.", expected.getCoordinateReferenceSystem(), extent.getCoordinateReferenceSystem());
+		assertArrayEquals("Unexpected lower corner.", expected.getLowerCorner().getCoordinate(),
+				extent.getLowerCorner().getCoordinate(), 1e-9);
+		assertArrayEquals("Unexpected upper corner.", expected.getUpperCorner().getCoordinate(),
+				extent.getUpperCorner().getCoordinate(), 1e-9);
+	}
+
+	@Test
+	public void accumulateConcurrently() throws Exception {
+		CoordinateReferenceSystem crs = CRS.forCode("EPSG:32610");
+		ExtentAccumulator accumulator = new ExtentAccumulator(crs);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<?>> results = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			final int offset = i * 100;
+			results.add(executor.submit(() -> {
+				GeneralEnvelope envelope = new GeneralEnvelope(crs);
+				envelope.setEnvelope(500000 + offset, 5000000, 500050 + offset, 5000000 + offset);
+				accumulator.add(envelope);
+			}));
+		}
+		for (Future<?> result : results) {
+			result.get();
+		}
+		executor.shutdown();
+		executor.awaitTermination(10, TimeUnit.SECONDS);
+		GeneralEnvelope extent = accumulator.getExtent();
+		assertArrayEquals(new double[] { 500000, 5000000 }, extent.getLowerCorner().getCoordinate(), 0.0);
+		assertArrayEquals(new double[] { 509950, 5009900 }, extent.getUpperCorner().getCoordinate(), 0.0);
+	}
+
+}
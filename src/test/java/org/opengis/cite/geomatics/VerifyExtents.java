@@ -3,13 +3,19 @@ package org.opengis.cite.geomatics;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 import jakarta.xml.bind.JAXBException;
 import javax.xml.xpath.XPath;
@@ -34,6 +40,7 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
 import org.locationtech.jts.geom.Polygon;
@@ -120,6 +127,140 @@ public class VerifyExtents extends CommonTestFixture {
 		assertEquals("Unexpected ordinate[1] for upper corner.", -122.22, upperCorner.getOrdinate(1), 0.005);
 	}
 
+	@Test
+	public void getExtentOfMultiGeometryInParallel()
+			throws SAXException, IOException, XPathExpressionException, JAXBException {
+		XPath xpath = XPathFactory.newInstance().newXPath();
+		Document doc1 = docBuilder.parse(this.getClass().getResourceAsStream("/gml/MultiGeometry.xml"));
+		xpath.setNamespaceContext(new GmlUtils.NodeNamespaceContext(doc1));
+		NodeList nodes1 = (NodeList) xpath.evaluate("//gml:geometryMember/*", doc1, XPathConstants.NODESET);
+		Envelope expected = Extents.calculateEnvelope(nodes1);
+		Document doc2 = docBuilder.parse(this.getClass().getResourceAsStream("/gml/MultiGeometry.xml"));
+		NodeList nodes2 = (NodeList) xpath.evaluate("//gml:geometryMember/*", doc2, XPathConstants.NODESET);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			Envelope envelope = Extents.calculateEnvelope(nodes2, pool);
+			assertArrayEquals("Unexpected lower corner.", expected.getLowerCorner().getCoordinate(),
+					envelope.getLowerCorner().getCoordinate(), 0.0);
+			assertArrayEquals("Unexpected upper corner.", expected.getUpperCorner().getCoordinate(),
+					envelope.getUpperCorner().getCoordinate(), 0.0);
+			assertEquals("Unexpected CRS.", expected.getCoordinateReferenceSystem(),
+					envelope.getCoordinateReferenceSystem());
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void envelopeFromPosListWithThreeDimensions() throws SAXException, IOException, JAXBException {
+		Document doc = parse("<gml:LineString xmlns:gml='http://www.opengis.net/gml/3.2' gml:id='LS-3D'"
+				+ " srsName='urn:ogc:def:crs:EPSG::4326' srsDimension='3'>"
+				+ "<gml:posList>49.0 -123.0 100 49.5 -122.5 250 49.25 -122.0 0</gml:posList></gml:LineString>");
+		NodeList nodes = doc.getElementsByTagNameNS(GmlUtils.GML_NS, "LineString");
+		Envelope envelope = Extents.calculateEnvelope(nodes);
+		assertArrayEquals("Unexpected lower corner.", new double[] { 49.0, -123.0 },
+				envelope.getLowerCorner().getCoordinate(), 0.0);
+		assertArrayEquals("Unexpected upper corner.", new double[] { 49.5, -122.0 },
+				envelope.getUpperCorner().getCoordinate(), 0.0);
+		assertNull("Expected coordinates to be scanned.", GeometryCache.lookup(nodes.item(0)));
+	}
+
+	@Test
+	public void envelopeFromPosElements() throws SAXException, IOException, XPathExpressionException, JAXBException {
+		Document doc = parse("<gml:MultiGeometry xmlns:gml='http://www.opengis.net/gml/3.2' gml:id='MG-1'"
+				+ " srsName='urn:ogc:def:crs:EPSG::4326'>"
+				+ "<gml:geometryMember><gml:Polygon gml:id='P-1'><gml:exterior><gml:LinearRing>"
+				+ "<gml:pos>49.0 -123.0</gml:pos><gml:pos>49.0 -122.0</gml:pos><gml:pos>49.8 -122.0</gml:pos>"
+				+ "<gml:pos>49.0 -123.0</gml:pos></gml:LinearRing></gml:exterior></gml:Polygon></gml:geometryMember>"
+				+ "<gml:geometryMember><gml:Point gml:id='P-2'><gml:pos>50.1 -121.9</gml:pos></gml:Point>"
+				+ "</gml:geometryMember></gml:MultiGeometry>");
+		XPath xpath = XPathFactory.newInstance().newXPath();
+		xpath.setNamespaceContext(new GmlUtils.NodeNamespaceContext(doc));
+		NodeList nodes = (NodeList) xpath.evaluate("//gml:geometryMember/*", doc, XPathConstants.NODESET);
+		Envelope envelope = Extents.calculateEnvelope(nodes);
+		assertArrayEquals("Unexpected lower corner.", new double[] { 49.0, -123.0 },
+				envelope.getLowerCorner().getCoordinate(), 0.0);
+		assertArrayEquals("Unexpected upper corner.", new double[] { 50.1, -121.9 },
+				envelope.getUpperCorner().getCoordinate(), 0.0);
+		for (int i = 0; i < nodes.getLength(); i++) {
+			assertNull("Expected coordinates to be scanned.", GeometryCache.lookup(nodes.item(i)));
+		}
+	}
+
+	@Test
+	public void envelopeOfUnsupportedSegment() throws SAXException, IOException, JAXBException {
+		Document doc = docBuilder.parse(this.getClass().getResourceAsStream("/gml/Curve-Bezier.xml"));
+		NodeList nodes = doc.getElementsByTagNameNS(GmlUtils.GML_NS, "Curve");
+		Envelope envelope = Extents.calculateEnvelope(nodes);
+		// the curve does not pass through the inner control points (49.2 N)
+		assertEquals("Unexpected ordinate[0] for upper corner.", 49.15, envelope.getUpperCorner().getOrdinate(0),
+				0.005);
+		assertEquals("Unexpected ordinate[1] for upper corner.", -122.2, envelope.getUpperCorner().getOrdinate(1),
+				0.005);
+		assertNotNull("Expected geometry to be built.", GeometryCache.lookup(nodes.item(0)));
+	}
+
+	@Test
+	public void getSpatiotemporalExtentOfFeatures() throws SAXException, IOException, JAXBException {
+		Document doc = docBuilder.parse(this.getClass().getResourceAsStream("/gml/FeatureCollection-2.xml"));
+		NodeList features = doc.getElementsByTagNameNS("http://example.org/ns1", "SimpleFeature");
+		SpatiotemporalExtent extent = Extents.calculateSpatiotemporalExtent(features);
+		Envelope envelope = extent.getEnvelope();
+		assertArrayEquals("Unexpected lower corner.", new double[] { 48.43, -123.5 },
+				envelope.getLowerCorner().getCoordinate(), 0.0);
+		assertArrayEquals("Unexpected upper corner.", new double[] { 49.33, -122.6 },
+				envelope.getUpperCorner().getCoordinate(), 0.0);
+		assertEquals("Unexpected beginning.", java.time.Instant.parse("2016-06-28T08:00:00Z"), extent.getBeginning());
+		assertEquals("Unexpected ending.", java.time.Instant.parse("2016-07-10T22:05:39Z"), extent.getEnding());
+	}
+
+	@Test
+	public void getSpatiotemporalExtentOfTriangulatedSurface() throws SAXException, IOException, JAXBException {
+		Document doc = parse("<ex:Terrain xmlns:ex='http://example.org/ns1' xmlns:gml='http://www.opengis.net/gml/3.2'"
+				+ " gml:id='f-1'><ex:surface><gml:TriangulatedSurface gml:id='TS-1'"
+				+ " srsName='urn:ogc:def:crs:EPSG::4326'><gml:patches>"
+				+ "<gml:Triangle><gml:exterior><gml:LinearRing>"
+				+ "<gml:posList>49.0 -123.0 49.0 -122.0 49.5 -122.5 49.0 -123.0</gml:posList>"
+				+ "</gml:LinearRing></gml:exterior></gml:Triangle>"
+				+ "<gml:Triangle><gml:exterior><gml:LinearRing>"
+				+ "<gml:posList>49.0 -122.0 49.9 -121.5 49.5 -122.5 49.0 -122.0</gml:posList>"
+				+ "</gml:LinearRing></gml:exterior></gml:Triangle>"
+				+ "</gml:patches></gml:TriangulatedSurface></ex:surface>"
+				+ "<ex:time><gml:TimeInstant gml:id='t-1'><gml:timePosition>2016-06-30T12:00:00Z</gml:timePosition>"
+				+ "</gml:TimeInstant></ex:time></ex:Terrain>");
+		SpatiotemporalExtent extent = Extents
+			.calculateSpatiotemporalExtent(doc.getElementsByTagNameNS("http://example.org/ns1", "Terrain"));
+		Envelope envelope = extent.getEnvelope();
+		assertArrayEquals("Unexpected lower corner.", new double[] { 49.0, -123.0 },
+				envelope.getLowerCorner().getCoordinate(), 0.0);
+		assertArrayEquals("Unexpected upper corner.", new double[] { 49.9, -121.5 },
+				envelope.getUpperCorner().getCoordinate(), 0.0);
+		assertEquals("Unexpected beginning.", java.time.Instant.parse("2016-06-30T12:00:00Z"), extent.getBeginning());
+	}
+
+	@Test
+	public void getSpatiotemporalExtentOfFeaturesInParallel() throws SAXException, IOException, JAXBException {
+		Document doc1 = docBuilder.parse(this.getClass().getResourceAsStream("/gml/FeatureCollection-2.xml"));
+		SpatiotemporalExtent expected = Extents
+			.calculateSpatiotemporalExtent(doc1.getElementsByTagNameNS("http://example.org/ns1", "SimpleFeature"));
+		Document doc2 = docBuilder.parse(this.getClass().getResourceAsStream("/gml/FeatureCollection-2.xml"));
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			SpatiotemporalExtent extent = Extents.calculateSpatiotemporalExtent(
+					doc2.getElementsByTagNameNS("http://example.org/ns1", "SimpleFeature"), pool);
+			assertArrayEquals("Unexpected lower corner.", expected.getEnvelope().getLowerCorner().getCoordinate(),
+					extent.getEnvelope().getLowerCorner().getCoordinate(), 0.0);
+			assertArrayEquals("Unexpected upper corner.", expected.getEnvelope().getUpperCorner().getCoordinate(),
+					extent.getEnvelope().getUpperCorner().getCoordinate(), 0.0);
+			assertEquals("Unexpected beginning.", expected.getBeginning(), extent.getBeginning());
+			assertEquals("Unexpected ending.", expected.getEnding(), extent.getEnding());
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
 	@Test
 	public void getExtentOfCurveGeometry() throws SAXException, IOException, XPathExpressionException, JAXBException {
 		Document multiGeom = docBuilder.parse(this.getClass().getResourceAsStream("/gml/CurveGeometry.xml"));
@@ -260,6 +401,21 @@ public class VerifyExtents extends CommonTestFixture {
 		assertEquals("Unexpected ordinate[1] for upper corner.", 9.70, upperCorner.getOrdinate(1), 0.005);
 	}
 
+	@Test
+	public void envelopeOfCurveWithLocalReferences()
+			throws SAXException, IOException, XPathExpressionException, JAXBException {
+		Document doc = docBuilder.parse(this.getClass().getResourceAsStream("/gml/CurveMembers-xlink.xml"));
+		XPath xpath = XPathFactory.newInstance().newXPath();
+		xpath.setNamespaceContext(new GmlUtils.NodeNamespaceContext(doc));
+		NodeList nodes = (NodeList) xpath.evaluate("//gml:CompositeCurve[@gml:id='CompositeCurve-1']", doc,
+				XPathConstants.NODESET);
+		Envelope envelope = Extents.calculateEnvelope(nodes);
+		assertArrayEquals("Unexpected lower corner.", new double[] { 49.36, -123.18 },
+				envelope.getLowerCorner().getCoordinate(), 0.0);
+		assertArrayEquals("Unexpected upper corner.", new double[] { 49.70, -123.00 },
+				envelope.getUpperCorner().getCoordinate(), 0.0);
+	}
+
 	@Test
 	public void antipodeOfVancouver() {
 		double[] yvr = new double[] { 49.19, -123.18 };
@@ -299,6 +455,68 @@ public class VerifyExtents extends CommonTestFixture {
 		assertArrayEquals(new double[] { -49.22, 57.20 }, lowerCorner, 0.01);
 	}
 
+	@Test
+	public void gridTilesFollowAxisOrder() throws FactoryException {
+		GeneralEnvelope envelope = new GeneralEnvelope(CRS.forCode("EPSG:4326"));
+		envelope.setEnvelope(49.0, -124.0, 50.0, -122.0);
+		List<Envelope> tiles = StreamSupport.stream(Extents.gridTiles(envelope, 4, 2), false)
+			.collect(Collectors.toList());
+		assertEquals("Unexpected number of tiles.", 8, tiles.size());
+		// columns run along the longitude axis (dimension 1)
+		assertArrayEquals(new double[] { 49.0, -123.5 }, tiles.get(1).getLowerCorner().getCoordinate(), 0.0);
+		assertArrayEquals(new double[] { 49.5, -123.0 }, tiles.get(1).getUpperCorner().getCoordinate(), 0.0);
+		assertArrayEquals(new double[] { 50.0, -122.0 }, tiles.get(7).getUpperCorner().getCoordinate(), 0.0);
+		GeneralEnvelope union = new GeneralEnvelope(tiles.get(0));
+		tiles.forEach(union::add);
+		assertTrue("Tiles do not cover envelope.", union.equals(envelope, 0.0, false));
+	}
+
+	@Test
+	public void gridTilesAcrossAntimeridian() {
+		GeneralEnvelope envelope = new GeneralEnvelope(CommonCRS.defaultGeographic());
+		envelope.setRange(0, 170.0, -170.0);
+		envelope.setRange(1, -10.0, 10.0);
+		List<Envelope> tiles = StreamSupport.stream(Extents.gridTiles(envelope, 4, 1), false)
+			.collect(Collectors.toList());
+		assertEquals(170.0, tiles.get(0).getLowerCorner().getOrdinate(0), 0.0);
+		assertEquals(180.0, tiles.get(1).getUpperCorner().getOrdinate(0), 0.0);
+		assertEquals(-180.0, tiles.get(2).getLowerCorner().getOrdinate(0), 0.0);
+		assertEquals(-170.0, tiles.get(3).getUpperCorner().getOrdinate(0), 0.0);
+	}
+
+	@Test
+	public void hilbertTilesAreAdjacent() throws FactoryException {
+		GeneralEnvelope envelope = new GeneralEnvelope(CRS.forCode("EPSG:32610"));
+		envelope.setEnvelope(500000, 5000000, 516000, 5016000);
+		List<Envelope> tiles = StreamSupport.stream(Extents.hilbertTiles(envelope, 3), false)
+			.collect(Collectors.toList());
+		assertEquals("Unexpected number of tiles.", 64, tiles.size());
+		for (int i = 1; i < tiles.size(); i++) {
+			double dx = Math.abs(tiles.get(i).getMinimum(0) - tiles.get(i - 1).getMinimum(0));
+			double dy = Math.abs(tiles.get(i).getMinimum(1) - tiles.get(i - 1).getMinimum(1));
+			assertEquals("Tile " + i + " is not adjacent to the previous one.", 2000, dx + dy, 0.0);
+		}
+	}
+
+	@Test
+	public void quadtreeTilesInParallel() throws FactoryException {
+		GeneralEnvelope envelope = new GeneralEnvelope(CRS.forCode("EPSG:32610"));
+		envelope.setEnvelope(500000, 5000000, 516000, 5016000);
+		Spliterator<Envelope> tiles = Extents.quadtreeTiles(envelope, 10);
+		assertEquals("Unexpected number of tiles.", 1L << 20, tiles.estimateSize());
+		double area = StreamSupport.stream(tiles, true)
+			.mapToDouble(tile -> tile.getSpan(0) * tile.getSpan(1))
+			.sum();
+		assertEquals("Unexpected total area.", 16000.0 * 16000.0, area, 1e-3);
+		// quadrants in Z-order: SW, SE, NW, NE
+		List<Envelope> quadrants = StreamSupport.stream(Extents.quadtreeTiles(envelope, 1), false)
+			.collect(Collectors.toList());
+		assertArrayEquals("Unexpected SE quadrant.", new double[] { 508000, 5000000 },
+				quadrants.get(1).getLowerCorner().getCoordinate(), 0.0);
+		assertArrayEquals("Unexpected NW quadrant.", new double[] { 500000, 5008000 },
+				quadrants.get(2).getLowerCorner().getCoordinate(), 0.0);
+	}
+
 	List<Node> getNodeListAsList(NodeList nodeList) {
 		List<Node> nodes = new ArrayList<>();
 		for (int i = 0; i < nodeList.getLength(); i++) {
@@ -307,4 +525,8 @@ public class VerifyExtents extends CommonTestFixture {
 		return nodes;
 	}
 
+	private Document parse(String xml) throws SAXException, IOException {
+		return docBuilder.parse(new InputSource(new StringReader(xml)));
+	}
+
 }
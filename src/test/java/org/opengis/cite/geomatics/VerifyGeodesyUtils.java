@@ -26,6 +26,7 @@ import org.junit.rules.ExpectedException;
 import org.opengis.geometry.DirectPosition;
 import org.opengis.referencing.NoSuchAuthorityCodeException;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.CoordinateOperation;
 import org.opengis.util.FactoryException;
 
 import org.locationtech.jts.geom.Coordinate;
@@ -52,6 +53,23 @@ public class VerifyGeodesyUtils {
 		assertEquals("Unexpected value for latitude of lower corner.", -90, lowerCorner.getOrdinate(0), 0.01);
 	}
 
+	@Test
+	public void lookupCRSIsCached() throws FactoryException {
+		CoordinateReferenceSystem crs = GeodesyUtils.lookupCRS("http://www.opengis.net/def/crs/EPSG/0/32610");
+		assertSame("Expected cached CRS.", crs,
+				GeodesyUtils.lookupCRS("http://www.opengis.net/def/crs/EPSG/0/32610"));
+		assertEquals("Unexpected CRS identifier.", "urn:ogc:def:crs:EPSG::32610", GeodesyUtils.getCRSIdentifier(crs));
+	}
+
+	@Test
+	public void findOperationIsCached() throws FactoryException {
+		CoordinateReferenceSystem sourceCRS = GeodesyUtils.lookupCRS(GeodesyUtils.EPSG_4326);
+		CoordinateReferenceSystem targetCRS = GeodesyUtils.lookupCRS(GeodesyUtils.OGC_CRS84);
+		CoordinateOperation operation = GeodesyUtils.findOperation(sourceCRS, targetCRS);
+		assertSame("Expected cached operation.", operation, GeodesyUtils.findOperation(sourceCRS, targetCRS));
+		assertEquals("Unexpected target CRS.", targetCRS, operation.getTargetCRS());
+	}
+
 	@Test(expected = IllegalArgumentException.class)
 	public void getExtentOfCRS_invalidURI() throws FactoryException {
 		String crsRef = "epsg-4326";
@@ -0,0 +1,73 @@
+package org.opengis.cite.geomatics;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+
+public class VerifyGeometryCache extends CommonTestFixture {
+
+	private static final GeometryFactory GEOM_FACTORY = new GeometryFactory();
+
+	@Test
+	public void lookupStoredGeometry() throws SAXException, IOException {
+		Document doc = docBuilder.parse(this.getClass().getResourceAsStream("/gml/Polygon.xml"));
+		Element polygon = doc.getDocumentElement();
+		Geometry geom = GEOM_FACTORY.createPoint(new Coordinate(1, 2));
+		GeometryCache.store(polygon, geom, null);
+		GeometryCache.Entry entry = GeometryCache.lookup(polygon);
+		assertNotNull("Expected cache entry.", entry);
+		assertSame(geom, entry.getGeometry());
+	}
+
+	@Test
+	public void invalidateOnAttributeChange() throws SAXException, IOException {
+		Document doc = docBuilder.parse(this.getClass().getResourceAsStream("/gml/Polygon.xml"));
+		Element polygon = doc.getDocumentElement();
+		GeometryCache.store(polygon, GEOM_FACTORY.createPoint(new Coordinate(1, 2)), null);
+		polygon.setAttribute("srsName", "urn:ogc:def:crs:EPSG::4326");
+		assertNull("Expected entry to be invalidated.", GeometryCache.lookup(polygon));
+	}
+
+	@Test
+	public void invalidateOnDescendantChange() throws SAXException, IOException {
+		Document doc = docBuilder.parse(this.getClass().getResourceAsStream("/gml/Polygon.xml"));
+		Element polygon = doc.getDocumentElement();
+		GeometryCache.store(polygon, GEOM_FACTORY.createPoint(new Coordinate(1, 2)), null);
+		Node posList = polygon.getElementsByTagNameNS("http://www.opengis.net/gml/3.2", "posList").item(0);
+		posList.setTextContent("0 0 0 1 1 1 0 0");
+		assertNull("Expected entry to be invalidated.", GeometryCache.lookup(polygon));
+	}
+
+	@Test
+	public void invalidateOnInheritedSrsNameChange() throws SAXException, IOException {
+		Document doc = docBuilder.parse(this.getClass().getResourceAsStream("/gml/Polygon.xml"));
+		Element polygon = doc.getDocumentElement();
+		Element ring = (Element) polygon.getElementsByTagNameNS("http://www.opengis.net/gml/3.2", "LinearRing")
+			.item(0);
+		GeometryCache.store(ring, GEOM_FACTORY.createPoint(new Coordinate(1, 2)), null);
+		polygon.setAttribute("srsName", "urn:ogc:def:crs:EPSG::4326");
+		assertNull("Expected entry of descendant to be invalidated.", GeometryCache.lookup(ring));
+	}
+
+	@Test
+	public void changeToAncestorIdRetainsEntry() throws SAXException, IOException {
+		Document doc = docBuilder.parse(this.getClass().getResourceAsStream("/gml/Polygon.xml"));
+		Element polygon = doc.getDocumentElement();
+		Element exterior = (Element) polygon.getElementsByTagNameNS("http://www.opengis.net/gml/3.2", "exterior")
+			.item(0);
+		GeometryCache.store(exterior, GEOM_FACTORY.createPoint(new Coordinate(1, 2)), null);
+		polygon.setAttributeNS("http://www.opengis.net/gml/3.2", "gml:id", "Polygon-2");
+		assertNotNull("Expected cache entry.", GeometryCache.lookup(exterior));
+	}
+
+}
@@ -0,0 +1,119 @@
+package org.opengis.cite.geomatics;
+
+import static org.junit.Assert.*;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.sis.geometry.GeneralEnvelope;
+import org.apache.sis.referencing.CRS;
+import org.junit.Test;
+import org.opengis.geometry.Envelope;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Polygon;
+
+public class VerifyQueryGeometryGenerator extends CommonTestFixture {
+
+	private static final GeometryFactory JTS_GEOM_FACTORY = new GeometryFactory();
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unsupportedOperator() throws Exception {
+		new QueryGeometryGenerator(extentInLatLon(), SpatialOperator.TOUCHES, 1);
+	}
+
+	@Test
+	public void sameSeedSameGeometries() throws Exception {
+		QueryGeometryGenerator generator1 = new QueryGeometryGenerator(extentInLatLon(), SpatialOperator.BBOX, 7);
+		QueryGeometryGenerator generator2 = new QueryGeometryGenerator(extentInLatLon(), SpatialOperator.BBOX, 7);
+		List<Envelope> sequential = generator1.envelopes(500).collect(Collectors.toList());
+		List<Envelope> parallel = generator2.envelopes(500).parallel().collect(Collectors.toList());
+		assertEquals(sequential, parallel);
+		assertEquals(generator1.envelope(42), generator2.envelope(42));
+	}
+
+	@Test
+	public void polygonsWithinExtent() throws Exception {
+		GeneralEnvelope extent = extentInLatLon();
+		QueryGeometryGenerator generator = new QueryGeometryGenerator(extent, SpatialOperator.WITHIN, 11);
+		Polygon extentPolygon = toPolygon(extent);
+		for (long i = 0; i < 1000; i++) {
+			assertTrue("Not within extent: " + i, generator.polygon(i).within(extentPolygon));
+		}
+	}
+
+	@Test
+	public void polygonsContainExtent() throws Exception {
+		GeneralEnvelope extent = extentInLatLon();
+		QueryGeometryGenerator generator = new QueryGeometryGenerator(extent, SpatialOperator.CONTAINS, 11);
+		Polygon extentPolygon = toPolygon(extent);
+		for (long i = 0; i < 1000; i++) {
+			Polygon polygon = generator.polygon(i);
+			assertTrue("Does not contain extent: " + i, polygon.contains(extentPolygon));
+			assertTrue("Latitude out of range: " + i, polygon.getEnvelopeInternal().getMaxX() <= 90);
+		}
+	}
+
+	@Test
+	public void polygonsIntersectExtent() throws Exception {
+		GeneralEnvelope extent = extentInLatLon();
+		QueryGeometryGenerator generator = new QueryGeometryGenerator(extent, SpatialOperator.INTERSECTS, 11);
+		Polygon extentPolygon = toPolygon(extent);
+		for (long i = 0; i < 1000; i++) {
+			assertTrue("Does not intersect extent: " + i, generator.polygon(i).intersects(extentPolygon));
+		}
+	}
+
+	@Test
+	public void envelopesDisjointFromProjectedExtent() throws Exception {
+		QueryGeometryGenerator generator = new QueryGeometryGenerator(extentInLatLon(), CRS.forCode("EPSG:32610"),
+				SpatialOperator.DISJOINT, 11);
+		Envelope extent = generator.getExtent();
+		Polygon extentPolygon = toPolygon(extent);
+		for (long i = 0; i < 1000; i++) {
+			Envelope envelope = generator.envelope(i);
+			assertSame(extent.getCoordinateReferenceSystem(), envelope.getCoordinateReferenceSystem());
+			assertTrue("Not disjoint from extent: " + i, toPolygon(envelope).disjoint(extentPolygon));
+		}
+	}
+
+	@Test
+	public void appendGmlPolygon() throws Exception {
+		QueryGeometryGenerator generator = new QueryGeometryGenerator(extentInLatLon(), SpatialOperator.WITHIN, 3);
+		StringBuilder gml = new StringBuilder();
+		generator.appendPolygon(5, gml);
+		Document doc = docBuilder.parse(new InputSource(new StringReader(gml.toString())));
+		Element polygon = doc.getDocumentElement();
+		assertEquals("Polygon", polygon.getLocalName());
+		assertEquals("q-5", polygon.getAttributeNS(polygon.getNamespaceURI(), "id"));
+		String[] posList = doc.getElementsByTagNameNS(polygon.getNamespaceURI(), "posList")
+			.item(0)
+			.getTextContent()
+			.split(" ");
+		Coordinate[] expected = generator.polygon(5).getCoordinates();
+		assertEquals(2 * expected.length, posList.length);
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i].x, Double.parseDouble(posList[2 * i]), 0.0);
+			assertEquals(expected[i].y, Double.parseDouble(posList[2 * i + 1]), 0.0);
+		}
+	}
+
+	private static GeneralEnvelope extentInLatLon() throws Exception {
+		CoordinateReferenceSystem crs = CRS.forCode("EPSG:4326");
+		GeneralEnvelope extent = new GeneralEnvelope(crs);
+		extent.setEnvelope(48.5, -124.0, 89.0, -122.5);
+		return extent;
+	}
+
+	private static Polygon toPolygon(Envelope envelope) {
+		return (Polygon) JTS_GEOM_FACTORY.toGeometry(new org.locationtech.jts.geom.Envelope(envelope.getMinimum(0),
+				envelope.getMaximum(0), envelope.getMinimum(1), envelope.getMaximum(1)));
+	}
+
+}
@@ -1,10 +1,15 @@
 package org.opengis.cite.geomatics;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import org.apache.sis.geometry.GeneralEnvelope;
 import org.apache.sis.referencing.CRS;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.opengis.geometry.Envelope;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.util.FactoryException;
 
@@ -44,4 +49,38 @@ public class VerifySpatialAssert {
 		SpatialAssert.assertIntersects(e1, e2);
 	}
 
+	@Test
+	public void allEnvelopesIntersect_mixedCRS() throws FactoryException {
+		GeneralEnvelope reference = new GeneralEnvelope(CRS.forCode("EPSG:4326"));
+		reference.setEnvelope(new double[] { 49.25, -123.1, 50.0, -122.5 });
+		List<Envelope> envelopes = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			GeneralEnvelope env = new GeneralEnvelope(CRS.forCode("EPSG:32610"));
+			env.setEnvelope(new double[] { 490571 + i * 100, 5428426, 515131, 5459036 });
+			envelopes.add(env);
+			GeneralEnvelope env2 = new GeneralEnvelope(CRS.forCode("EPSG:4326"));
+			env2.setEnvelope(new double[] { 49.0 + i * 0.01, -123.5, 49.9, -123.0 });
+			envelopes.add(env2);
+		}
+		SpatialAssert.assertAllIntersect(reference, envelopes);
+	}
+
+	@Test
+	public void allEnvelopesWithin_reportsEveryFailure() throws FactoryException {
+		thrown.expect(AssertionError.class);
+		thrown.expectMessage("2 of 3 envelopes are not within");
+		thrown.expectMessage(" [0] ");
+		thrown.expectMessage(" [2] ");
+		CoordinateReferenceSystem epsg4326 = CRS.forCode("EPSG:4326");
+		GeneralEnvelope reference = new GeneralEnvelope(epsg4326);
+		reference.setEnvelope(new double[] { 31.0, -118.0, 34.0, -116.0 });
+		GeneralEnvelope e1 = new GeneralEnvelope(epsg4326);
+		e1.setEnvelope(new double[] { 30.0, -117.6, 33.5, -116.2 });
+		GeneralEnvelope e2 = new GeneralEnvelope(epsg4326);
+		e2.setEnvelope(new double[] { 32.0, -117.6, 33.5, -116.2 });
+		GeneralEnvelope e3 = new GeneralEnvelope(epsg4326);
+		e3.setEnvelope(new double[] { 49.25, -123.1, 50.0, -122.5 });
+		SpatialAssert.assertAllWithin(reference, Arrays.asList(e1, e2, e3));
+	}
+
 }
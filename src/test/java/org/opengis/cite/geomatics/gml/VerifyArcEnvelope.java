@@ -0,0 +1,126 @@
+package org.opengis.cite.geomatics.gml;
+
+import static org.junit.Assert.*;
+
+import java.net.URL;
+
+import jakarta.xml.bind.JAXBElement;
+import jakarta.xml.bind.Unmarshaller;
+
+import org.apache.sis.geometry.GeneralDirectPosition;
+import org.apache.sis.referencing.CRS;
+import org.apache.sis.referencing.CommonCRS;
+import org.apache.sis.xml.MarshallerPool;
+import org.geotoolkit.gml.xml.AbstractCurveSegment;
+import org.geotoolkit.gml.xml.GMLMarshallerPool;
+import org.geotoolkit.gml.xml.v321.CurveType;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opengis.cite.geomatics.GeodesyUtils;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+import org.locationtech.jts.geom.Envelope;
+
+public class VerifyArcEnvelope {
+
+	private static Unmarshaller gmlUnmarshaller;
+
+	@BeforeClass
+	public static void initFixture() throws Exception {
+		MarshallerPool pool = GMLMarshallerPool.getInstance();
+		gmlUnmarshaller = pool.acquireUnmarshaller();
+	}
+
+	@Test
+	public void circleInProjectedCRS() throws Exception {
+		CoordinateReferenceSystem crs = CRS.forCode("EPSG:32610");
+		Envelope envelope = ArcEnvelope.envelopeOf(crs, new double[] { 500000, 5000000 }, 1000, 0, 360);
+		assertEquals(new Envelope(499000, 501000, 4999000, 5001000), envelope);
+	}
+
+	@Test
+	public void quarterArcInProjectedCRS() throws Exception {
+		CoordinateReferenceSystem crs = CRS.forCode("EPSG:32610");
+		// from north to east
+		Envelope envelope = ArcEnvelope.envelopeOf(crs, new double[] { 500000, 5000000 }, 1000, 0, 90);
+		assertEquals(500000, envelope.getMinX(), 1e-9);
+		assertEquals(501000, envelope.getMaxX(), 1e-9);
+		assertEquals(5000000, envelope.getMinY(), 1e-9);
+		assertEquals(5001000, envelope.getMaxY(), 1e-9);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void circleInGeographicCRS() throws Exception {
+		URL url = getClass().getResource("/gml/Curve-CircleByCenterPoint.xml");
+		JAXBElement<CurveType> result = (JAXBElement<CurveType>) gmlUnmarshaller.unmarshal(url);
+		CurveType curve = result.getValue();
+		CoordinateReferenceSystem crs = curve.getCoordinateReferenceSystem(false);
+		AbstractCurveSegment segment = curve.getSegments().getAbstractCurveSegment().get(0);
+		Envelope envelope = ArcEnvelope.envelopeOf(segment, crs);
+		// (lat,lon) axis order: point north of center
+		assertEquals(49.19472 + 0.04496, envelope.getMaxX(), 0.00015);
+		assertTightBounds(envelope, crs, new double[] { 49.194722, -123.183889 }, 5000, 0, 360);
+	}
+
+	@Test
+	public void arcInGeographicCRS() throws Exception {
+		CoordinateReferenceSystem crs = CRS.forCode("EPSG:4326");
+		double[] center = { 49.194722, -123.183889 };
+		Envelope envelope = ArcEnvelope.envelopeOf(crs, center, 10 * 1852.0, 90, 360);
+		assertTightBounds(envelope, crs, center, 10 * 1852.0, 90, 360);
+	}
+
+	@Test
+	public void arcWithLongitudeFirst() throws Exception {
+		CoordinateReferenceSystem crs = CommonCRS.defaultGeographic();
+		Envelope envelope = ArcEnvelope.envelopeOf(crs, new double[] { -123.183889, 49.194722 }, 10000, 30, 120);
+		Envelope latLon = ArcEnvelope.envelopeOf(CRS.forCode("EPSG:4326"), new double[] { 49.194722, -123.183889 },
+				10000, 30, 120);
+		assertEquals(latLon.getMinY(), envelope.getMinX(), 1e-9);
+		assertEquals(latLon.getMaxY(), envelope.getMaxX(), 1e-9);
+		assertEquals(latLon.getMinX(), envelope.getMinY(), 1e-9);
+		assertEquals(latLon.getMaxX(), envelope.getMaxY(), 1e-9);
+	}
+
+	@Test
+	public void circleEnclosingPole() throws Exception {
+		CoordinateReferenceSystem crs = CRS.forCode("EPSG:4326");
+		Envelope envelope = ArcEnvelope.envelopeOf(crs, new double[] { 89.9, 0 }, 50000, 0, 360);
+		assertEquals("Unexpected min longitude.", -180, envelope.getMinY(), 0.0);
+		assertEquals("Unexpected max longitude.", 180, envelope.getMaxY(), 0.0);
+		assertTrue("Expected min latitude < 89.9", envelope.getMinX() < 89.9);
+	}
+
+	@Test
+	public void circleCrossingAntimeridian() throws Exception {
+		CoordinateReferenceSystem crs = CRS.forCode("EPSG:4326");
+		Envelope envelope = ArcEnvelope.envelopeOf(crs, new double[] { 0, 179.99 }, 10000, 0, 360);
+		assertEquals("Unexpected min longitude.", -180, envelope.getMinY(), 0.0);
+		assertEquals("Unexpected max longitude.", 180, envelope.getMaxY(), 0.0);
+	}
+
+	/**
+	 * Checks that the envelope covers points sampled along the arc at intervals of 0.1
+	 * degree, and that it does not extend beyond them by more than a small amount.
+	 */
+	private static void assertTightBounds(Envelope envelope, CoordinateReferenceSystem crs, double[] center,
+			double radius, double startAngle, double endAngle) {
+		GeneralDirectPosition centerPos = new GeneralDirectPosition(crs);
+		centerPos.setCoordinate(center);
+		Envelope tolerant = new Envelope(envelope);
+		tolerant.expandBy(1e-9);
+		Envelope sampled = new Envelope();
+		for (double angle = startAngle; angle <= endAngle; angle += 0.1) {
+			DirectPosition pos = GeodesyUtils.calculateDestination(centerPos, angle, radius);
+			assertTrue("Envelope does not cover " + pos, tolerant.covers(pos.getOrdinate(0), pos.getOrdinate(1)));
+			sampled.expandToInclude(pos.getOrdinate(0), pos.getOrdinate(1));
+		}
+		assertEquals(sampled.getMinX(), envelope.getMinX(), 1e-6);
+		assertEquals(sampled.getMaxX(), envelope.getMaxX(), 1e-6);
+		assertEquals(sampled.getMinY(), envelope.getMinY(), 1e-6);
+		assertEquals(sampled.getMaxY(), envelope.getMaxY(), 1e-6);
+	}
+
+}
@@ -0,0 +1,70 @@
+package org.opengis.cite.geomatics.gml;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+
+public class VerifyConvexHullAccumulator {
+
+	private static final GeometryFactory GEOM_FACTORY = new GeometryFactory();
+
+	@Test
+	public void hullOfEmptySet() {
+		ConvexHullAccumulator iut = new ConvexHullAccumulator();
+		Geometry hull = iut.toGeometry(GEOM_FACTORY);
+		assertTrue("Expected empty geometry.", hull.isEmpty());
+	}
+
+	@Test
+	public void hullOfRepeatedPoint() {
+		ConvexHullAccumulator iut = new ConvexHullAccumulator();
+		iut.add(1, 2);
+		iut.add(1, 2);
+		Geometry hull = iut.toGeometry(GEOM_FACTORY);
+		assertEquals("Convex hull has unexpected geometry type.", "Point", hull.getGeometryType());
+	}
+
+	@Test
+	public void hullOfCollinearPoints() {
+		ConvexHullAccumulator iut = new ConvexHullAccumulator();
+		for (int i = 0; i < 10; i++) {
+			iut.add(i, 2 * i);
+		}
+		Geometry hull = iut.toGeometry(GEOM_FACTORY);
+		assertEquals("Convex hull has unexpected geometry type.", "LineString", hull.getGeometryType());
+		assertEquals("Unexpected end point.", 9.0, hull.getCoordinates()[1].x, 0.0);
+	}
+
+	@Test
+	public void hullOfGridInSmallChunks() {
+		ConvexHullAccumulator iut = new ConvexHullAccumulator(5);
+		for (int i = 0; i <= 20; i++) {
+			for (int j = 0; j <= 20; j++) {
+				iut.add(j, i);
+			}
+		}
+		CoordinateBuffer vertices = iut.getHullVertices();
+		assertEquals("Unexpected number of hull vertices.", 4, vertices.size());
+		Geometry hull = iut.toGeometry(GEOM_FACTORY);
+		assertEquals("Unexpected hull area.", 400.0, hull.getArea(), 0.0);
+	}
+
+	@Test
+	public void combinePartialHulls() {
+		List<double[]> parts = Arrays.asList(new double[] { 0, 0, 1, 1, 2, 0 }, new double[] { 0, 3, 1, 2 },
+				new double[] { 2, 3, 1, 1.5 });
+		ConvexHullAccumulator iut = parts.parallelStream().collect(ConvexHullAccumulator::new, (hull, part) -> {
+			hull.addAll(part, 0, part.length / 2);
+		}, ConvexHullAccumulator::combine);
+		Geometry hull = iut.toGeometry(GEOM_FACTORY);
+		assertEquals("Convex hull has unexpected geometry type.", "Polygon", hull.getGeometryType());
+		assertEquals("Unexpected hull area.", 6.0, hull.getArea(), 0.0);
+	}
+
+}
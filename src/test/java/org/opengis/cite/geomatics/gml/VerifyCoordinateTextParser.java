@@ -0,0 +1,74 @@
+package org.opengis.cite.geomatics.gml;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class VerifyCoordinateTextParser {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void parsePosList() {
+		CoordinateTextParser iut = new CoordinateTextParser().reset("\n  49.194442 -122.929795\t1.5e2,-0.0 ");
+		assertEquals(49.194442, iut.nextDouble(), 0.0);
+		assertEquals(-122.929795, iut.nextDouble(), 0.0);
+		assertEquals(150.0, iut.nextDouble(), 0.0);
+		assertEquals(Double.doubleToLongBits(-0.0), Double.doubleToLongBits(iut.nextDouble()));
+		assertFalse("Expected no more values.", iut.hasNext());
+	}
+
+	@Test
+	public void parseSpecialValues() {
+		CoordinateTextParser iut = new CoordinateTextParser().reset("INF -INF NaN");
+		assertEquals(Double.POSITIVE_INFINITY, iut.nextDouble(), 0.0);
+		assertEquals(Double.NEGATIVE_INFINITY, iut.nextDouble(), 0.0);
+		assertTrue(Double.isNaN(iut.nextDouble()));
+	}
+
+	@Test
+	public void parseSameAsDouble() {
+		Random random = new Random(7);
+		String[] samples = { "0.1", "123456789012345678901234", "1e-320", "4.9e-324", "1.7976931348623157e308",
+				"0.000000000000000000000001", "9007199254740993", ".5", "7." };
+		for (String sample : samples) {
+			assertEquals(sample, Double.parseDouble(sample),
+					CoordinateTextParser.parseDouble(sample, 0, sample.length()), 0.0);
+		}
+		for (int i = 0; i < 10000; i++) {
+			String value = Double.toString((random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(20) - 10));
+			assertEquals(value, Double.parseDouble(value), CoordinateTextParser.parseDouble(value, 0, value.length()),
+					0.0);
+		}
+	}
+
+	@Test
+	public void parseLongMantissa() {
+		String[] samples = { "99.99999999999999999", "0.9999999999999999999", "9999999999999999999",
+				"-999999999999999999.9", "123456789012345678" };
+		for (String sample : samples) {
+			assertEquals(sample, Double.parseDouble(sample),
+					CoordinateTextParser.parseDouble(sample, 0, sample.length()), 0.0);
+		}
+	}
+
+	@Test
+	public void skipValues() {
+		CoordinateTextParser iut = new CoordinateTextParser().reset("1 2 3 4");
+		assertEquals(2, iut.skip(2));
+		assertEquals(3.0, iut.nextDouble(), 0.0);
+		assertEquals(1, iut.skip(5));
+	}
+
+	@Test
+	public void invalidNumber() {
+		thrown.expect(NumberFormatException.class);
+		new CoordinateTextParser().reset("12.5d").nextDouble();
+	}
+
+}
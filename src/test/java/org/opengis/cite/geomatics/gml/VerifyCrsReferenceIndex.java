@@ -0,0 +1,99 @@
+package org.opengis.cite.geomatics.gml;
+
+import static org.junit.Assert.*;
+
+import java.io.StringReader;
+import java.lang.reflect.Proxy;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+
+public class VerifyCrsReferenceIndex {
+
+	private static DocumentBuilder docBuilder;
+
+	@BeforeClass
+	public static void initParser() throws Exception {
+		DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+		dbf.setNamespaceAware(true);
+		docBuilder = dbf.newDocumentBuilder();
+	}
+
+	@Test
+	public void srsNameFromFeatureEnvelope() throws Exception {
+		Document doc = docBuilder.parse(getClass().getResourceAsStream("/gml/FeatureCollection-1.xml"));
+		CrsReferenceIndex iut = CrsReferenceIndex.forDocument(doc);
+		assertEquals("Unexpected number of GML objects.", 2, iut.size());
+		Element point = (Element) doc.getElementsByTagNameNS(GmlUtils.GML_NS, "Point").item(0);
+		assertEquals("urn:ogc:def:crs:EPSG::4326", iut.getSrsName(point));
+		assertSame("Expected same index.", iut, CrsReferenceIndex.forDocument(doc));
+	}
+
+	@Test
+	public void srsNameFromPos() throws Exception {
+		Document doc = docBuilder.parse(getClass().getResourceAsStream("/gml/Point-3.xml"));
+		CrsReferenceIndex iut = CrsReferenceIndex.forDocument(doc);
+		assertEquals("urn:ogc:def:crs:EPSG::4258", iut.getSrsName(doc.getDocumentElement()));
+	}
+
+	@Test
+	public void srsNameInheritedByMembers() throws Exception {
+		Document doc = docBuilder.parse(new InputSource(new StringReader(
+				"<gml:MultiPoint xmlns:gml='http://www.opengis.net/gml/3.2' srsName='urn:ogc:def:crs:EPSG::32610'>"
+						+ "<gml:pointMember><gml:Point><gml:pos>514432 5429689</gml:pos></gml:Point></gml:pointMember>"
+						+ "</gml:MultiPoint>")));
+		CrsReferenceIndex iut = CrsReferenceIndex.forDocument(doc);
+		Element point = (Element) doc.getElementsByTagNameNS(GmlUtils.GML_NS, "Point").item(0);
+		assertEquals("urn:ogc:def:crs:EPSG::32610", iut.getSrsName(point));
+		assertEquals("urn:ogc:def:crs:EPSG::32610", iut.getSrsName(doc.getDocumentElement()));
+	}
+
+	@Test
+	public void implicitReferenceMadeExplicit() throws Exception {
+		Document doc = docBuilder.parse(new InputSource(new StringReader(
+				"<gml:MultiPoint xmlns:gml='http://www.opengis.net/gml/3.2'>"
+						+ "<gml:boundedBy><gml:Envelope srsName='urn:ogc:def:crs:EPSG::4326'/></gml:boundedBy>"
+						+ "<gml:pointMember><gml:Point><gml:pos>49 -123</gml:pos></gml:Point></gml:pointMember>"
+						+ "</gml:MultiPoint>")));
+		CrsReferenceIndex iut = CrsReferenceIndex.forDocument(doc);
+		Element collection = doc.getDocumentElement();
+		assertEquals("Expected no CRS reference.", "", iut.getSrsName(collection));
+		Element point = (Element) doc.getElementsByTagNameNS(GmlUtils.GML_NS, "Point").item(0);
+		assertEquals("urn:ogc:def:crs:EPSG::4326", iut.getSrsName(point));
+		collection.setAttribute("srsName", "urn:ogc:def:crs:EPSG::4258");
+		iut = CrsReferenceIndex.forDocument(doc);
+		assertEquals("urn:ogc:def:crs:EPSG::4258", iut.getSrsName(collection));
+		assertEquals("urn:ogc:def:crs:EPSG::4258", iut.getSrsName(point));
+		point.setAttribute("srsName", "urn:ogc:def:crs:EPSG::4258");
+		assertSame("Expected index to be retained.", iut, CrsReferenceIndex.forDocument(doc));
+	}
+
+	@Test
+	public void indexDiscardedWhenDocumentChanges() throws Exception {
+		Document doc = docBuilder.parse(getClass().getResourceAsStream("/gml/FeatureCollection-1.xml"));
+		CrsReferenceIndex iut = CrsReferenceIndex.forDocument(doc);
+		Element point = (Element) doc.getElementsByTagNameNS(GmlUtils.GML_NS, "Point").item(0);
+		point.setAttribute("srsName", "urn:ogc:def:crs:EPSG::4269");
+		CrsReferenceIndex index = CrsReferenceIndex.forDocument(doc);
+		assertNotSame("Expected new index.", iut, index);
+		assertEquals("urn:ogc:def:crs:EPSG::4269", index.getSrsName(point));
+	}
+
+	@Test
+	public void indexCachedForDocumentWithoutMutationEvents() throws Exception {
+		Document doc = docBuilder.parse(getClass().getResourceAsStream("/gml/FeatureCollection-1.xml"));
+		// a view of the document that does not implement EventTarget
+		Document plainDoc = (Document) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { Document.class }, (proxy, method, args) -> method.invoke(doc, args));
+		CrsReferenceIndex iut = CrsReferenceIndex.forDocument(plainDoc);
+		assertEquals("Unexpected number of GML objects.", 2, iut.size());
+		assertSame("Expected same index.", iut, CrsReferenceIndex.forDocument(plainDoc));
+	}
+
+}
@@ -24,6 +24,8 @@ import org.opengis.cite.geomatics.gml.CurveCoordinateListFactory;
 import org.opengis.cite.geomatics.gml.GmlUtils;
 
 import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
 
 public class VerifyCurveCoordinateListFactory {
 
@@ -107,4 +109,51 @@ public class VerifyCurveCoordinateListFactory {
 		assertEquals("Unexpected number of points on exterior ring.", 42, coordSet.size());
 	}
 
+	@Test
+	@SuppressWarnings("unchecked")
+	public void curveWithBezier() throws JAXBException {
+		URL url = this.getClass().getResource("/gml/Curve-Bezier.xml");
+		JAXBElement<CurveType> result = (JAXBElement<CurveType>) gmlUnmarshaller.unmarshal(url);
+		CurveType curve = result.getValue();
+		CurveCoordinateListFactory iut = new CurveCoordinateListFactory();
+		List<Coordinate> coordList = iut.getCoordinateList(curve);
+		assertEquals("Unexpected number of points on curve.", 3 * SplineInterpolator.POINTS_PER_SPAN + 1,
+				coordList.size());
+		assertEquals("Unexpected first coordinate.", new Coordinate(49.0, -123.0), coordList.get(0));
+		Coordinate midpoint = coordList.get(coordList.size() / 2);
+		assertEquals("Unexpected x-ordinate at midpoint.", 49.15, midpoint.x, 1E-9);
+		assertEquals("Unexpected y-ordinate at midpoint.", -122.6, midpoint.y, 1E-9);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void streamCurveWithBezierToConvexHull() throws JAXBException {
+		URL url = this.getClass().getResource("/gml/Curve-Bezier.xml");
+		JAXBElement<CurveType> result = (JAXBElement<CurveType>) gmlUnmarshaller.unmarshal(url);
+		CurveType curve = result.getValue();
+		CurveCoordinateListFactory iut = new CurveCoordinateListFactory();
+		ConvexHullAccumulator hull = new ConvexHullAccumulator(3);
+		iut.appendCoordinates(curve, hull);
+		GeometryFactory geomFactory = new GeometryFactory();
+		Geometry expected = geomFactory
+			.createMultiPointFromCoords(iut.getCoordinateList(curve).toArray(new Coordinate[0]))
+			.convexHull();
+		assertTrue("Unexpected convex hull.", expected.equalsTopo(hull.toGeometry(geomFactory)));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void curveWithBezierPointProperties() throws JAXBException {
+		URL url = this.getClass().getResource("/gml/Curve-Bezier-PointProperty.xml");
+		JAXBElement<CurveType> result = (JAXBElement<CurveType>) gmlUnmarshaller.unmarshal(url);
+		CurveType curve = result.getValue();
+		CurveCoordinateListFactory iut = new CurveCoordinateListFactory();
+		List<Coordinate> coordList = iut.getCoordinateList(curve);
+		assertEquals("Unexpected number of points on curve.", 3 * SplineInterpolator.POINTS_PER_SPAN + 1,
+				coordList.size());
+		Coordinate midpoint = coordList.get(coordList.size() / 2);
+		assertEquals("Unexpected x-ordinate at midpoint.", 49.15, midpoint.x, 1E-9);
+		assertEquals("Unexpected y-ordinate at midpoint.", -122.6, midpoint.y, 1E-9);
+	}
+
 }
@@ -0,0 +1,143 @@
+package org.opengis.cite.geomatics.gml;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.geotoolkit.gml.xml.AbstractGeometry;
+import org.geotoolkit.gml.xml.v321.CurveType;
+import org.geotoolkit.gml.xml.v321.LineStringType;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class VerifyCurveReferenceResolver {
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	private File localStore;
+
+	@Before
+	public void createLocalStore() throws Exception {
+		localStore = tmpFolder.newFolder("store");
+		Path dir = Files.createDirectories(localStore.toPath().resolve("example.invalid/gml"));
+		for (String name : new String[] { "Curve-LineString.xml", "MultiCurve-2.xml" }) {
+			try (InputStream input = getClass().getResourceAsStream("/gml/" + name)) {
+				Files.copy(input, dir.resolve(name));
+			}
+		}
+	}
+
+	@Test
+	public void resolveFromLocalStore() throws Exception {
+		CurveReferenceResolver iut = new CurveReferenceResolver(localStore.toURI(), 8);
+		URI uri = URI.create("http://example.invalid/gml/Curve-LineString.xml");
+		AbstractGeometry geom = iut.resolve(uri);
+		assertTrue("Expected a gml:Curve.", geom instanceof CurveType);
+		assertSame("Expected cached geometry.", geom, iut.resolve(uri));
+		assertEquals("Unexpected cache size.", 1, iut.size());
+	}
+
+	@Test
+	public void resolveFragment() throws Exception {
+		CurveReferenceResolver iut = new CurveReferenceResolver(localStore.toURI(), 8);
+		AbstractGeometry geom = iut.resolve(URI.create("http://example.invalid/gml/MultiCurve-2.xml#LineString-2"));
+		assertTrue("Expected a gml:LineString.", geom instanceof LineStringType);
+		assertEquals("LineString-2", geom.getId());
+	}
+
+	@Test
+	public void concurrentRequestsShareResult() throws Exception {
+		CurveReferenceResolver iut = new CurveReferenceResolver(localStore.toURI(), 8);
+		URI uri = URI.create("http://example.invalid/gml/Curve-LineString.xml");
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Callable<AbstractGeometry>> tasks = new ArrayList<Callable<AbstractGeometry>>();
+			for (int i = 0; i < 8; i++) {
+				tasks.add(() -> iut.resolve(uri));
+			}
+			List<Future<AbstractGeometry>> results = executor.invokeAll(tasks);
+			AbstractGeometry first = results.get(0).get();
+			for (Future<AbstractGeometry> result : results) {
+				assertSame("Expected shared geometry.", first, result.get());
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void concurrentRequestsLoadOnce() throws Exception {
+		AbstractGeometry curve = new CurveType();
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CurveReferenceResolver iut = new CurveReferenceResolver(null, 8, uriRef -> {
+			loads.incrementAndGet();
+			loading.countDown();
+			try {
+				release.await(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return curve;
+		});
+		URI uri = URI.create("http://example.invalid/gml/Curve-LineString.xml");
+		List<Thread> threads = new CopyOnWriteArrayList<Thread>();
+		ExecutorService executor = Executors.newFixedThreadPool(8, task -> {
+			Thread thread = new Thread(task);
+			threads.add(thread);
+			return thread;
+		});
+		try {
+			List<Future<AbstractGeometry>> results = new ArrayList<Future<AbstractGeometry>>();
+			results.add(executor.submit(() -> iut.resolve(uri)));
+			assertTrue("Expected first request to start loading.", loading.await(10, TimeUnit.SECONDS));
+			for (int i = 1; i < 8; i++) {
+				results.add(executor.submit(() -> iut.resolve(uri)));
+			}
+			// wait until every request is blocked (on the pending load, or in the loader)
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			while (threads.size() < 8 || threads.stream()
+				.anyMatch(t -> t.getState() != Thread.State.WAITING && t.getState() != Thread.State.TIMED_WAITING)) {
+				assertTrue("Requests did not block.", System.nanoTime() < deadline);
+				Thread.sleep(1);
+			}
+			release.countDown();
+			for (Future<AbstractGeometry> result : results) {
+				assertSame("Expected shared geometry.", curve, result.get(10, TimeUnit.SECONDS));
+			}
+			assertEquals("Expected geometry to be loaded once.", 1, loads.get());
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void evictLeastRecentlyUsed() throws Exception {
+		CurveReferenceResolver iut = new CurveReferenceResolver(localStore.toURI(), 1);
+		iut.resolve(URI.create("http://example.invalid/gml/Curve-LineString.xml"));
+		iut.resolve(URI.create("http://example.invalid/gml/MultiCurve-2.xml#LineString-1"));
+		assertEquals("Unexpected cache size.", 1, iut.size());
+	}
+
+}
@@ -0,0 +1,135 @@
+package org.opengis.cite.geomatics.gml;
+
+import static org.junit.Assert.*;
+
+import java.io.StringReader;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.apache.sis.referencing.CRS;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+
+import org.locationtech.jts.geom.Envelope;
+
+public class VerifyEnvelopeExtractor {
+
+	private static DocumentBuilder docBuilder;
+
+	@BeforeClass
+	public static void initParser() throws Exception {
+		DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+		dbf.setNamespaceAware(true);
+		docBuilder = dbf.newDocumentBuilder();
+	}
+
+	@Test
+	public void envelopeOfPolygon() throws Exception {
+		Document doc = docBuilder.parse(getClass().getResourceAsStream("/gml/Surface-PolygonPatch-1.xml"));
+		Envelope envelope = new Envelope();
+		assertTrue("Expected supported geometry.",
+				new EnvelopeExtractor().expandToInclude(doc.getDocumentElement(), 2, envelope));
+		assertEquals(52.266657, envelope.getMinX(), 0.0);
+		assertEquals(52.273881, envelope.getMaxX(), 0.0);
+		assertEquals(6.926403, envelope.getMinY(), 0.0);
+		assertEquals(6.934301, envelope.getMaxY(), 0.0);
+	}
+
+	@Test
+	public void envelopeOfArcIncludesExtremePoint() throws Exception {
+		Document doc = docBuilder.parse(getClass().getResourceAsStream("/gml/Curve-Arc.xml"));
+		Envelope envelope = new Envelope();
+		assertTrue("Expected supported geometry.",
+				new EnvelopeExtractor().expandToInclude(doc.getDocumentElement(), 2, envelope));
+		// the arc bulges beyond its control points
+		assertTrue("Expected minX < 49.040829", envelope.getMinX() < 49.040829);
+		assertEquals(-122.929795, envelope.getMaxY(), 1e-9);
+	}
+
+	@Test
+	public void envelopeOfHalfCircle() {
+		Envelope envelope = new Envelope();
+		// counterclockwise from (1,0) through (0,1) to (-1,0)
+		EnvelopeExtractor.expandByArc(1, 0, 0, 1, -1, 0, envelope);
+		assertEquals(new Envelope(-1, 1, 0, 1), envelope);
+		envelope = new Envelope();
+		// clockwise from (1,0) through (0,-1) to (-1,0)
+		EnvelopeExtractor.expandByArc(1, 0, 0, -1, -1, 0, envelope);
+		assertEquals(new Envelope(-1, 1, -1, 0), envelope);
+	}
+
+	@Test
+	public void envelopeOfCircle() throws Exception {
+		Envelope envelope = new Envelope();
+		EnvelopeExtractor.expandByCircle(2, 0, 0, 2, -2, 0, envelope);
+		assertEquals(-2, envelope.getMinY(), 1e-12);
+		assertEquals(2, envelope.getMaxX(), 1e-12);
+		Document doc = docBuilder.parse(getClass().getResourceAsStream("/gml/Curve-Circle.xml"));
+		Envelope circle = new Envelope();
+		assertTrue(new EnvelopeExtractor().expandToInclude(doc.getDocumentElement(), 2, circle));
+		assertTrue("Expected circle to cover arc.", circle.covers(arcEnvelope()));
+	}
+
+	@Test
+	public void unsupportedSegment() throws Exception {
+		Document doc = docBuilder.parse(getClass().getResourceAsStream("/gml/Curve-ArcByCenterPoint.xml"));
+		Envelope envelope = new Envelope();
+		// CRS is required
+		assertFalse("Expected unsupported geometry.",
+				new EnvelopeExtractor().expandToInclude(doc.getDocumentElement(), 2, envelope));
+		assertTrue("Expected envelope to be unchanged.", envelope.isNull());
+	}
+
+	@Test
+	public void envelopeOfArcByCenterPoint() throws Exception {
+		Document doc = docBuilder.parse(getClass().getResourceAsStream("/gml/Curve-ArcByCenterPoint.xml"));
+		CoordinateReferenceSystem crs = CRS.forCode("EPSG:4326");
+		Envelope envelope = new Envelope();
+		assertTrue("Expected supported geometry.",
+				new EnvelopeExtractor().expandToInclude(doc.getDocumentElement(), crs, envelope));
+		Envelope expected = ArcEnvelope.envelopeOf(crs, new double[] { 49.194722, -123.183889 }, 10 * 1852.0, 90,
+				360);
+		assertEquals(expected, envelope);
+	}
+
+	@Test
+	public void arcByCenterPointWithUnknownUnit() throws Exception {
+		Document doc = docBuilder.parse(getClass().getResourceAsStream("/gml/Curve-ArcByCenterPoint.xml"));
+		Element radius = (Element) doc.getElementsByTagNameNS(GmlUtils.GML_NS, "radius").item(0);
+		CoordinateReferenceSystem crs = CRS.forCode("EPSG:4326");
+		Envelope envelope = new Envelope();
+		radius.setAttribute("uom", "furlong");
+		assertFalse("Expected unsupported unit.",
+				new EnvelopeExtractor().expandToInclude(doc.getDocumentElement(), crs, envelope));
+		radius.removeAttribute("uom");
+		assertFalse("Expected missing unit to be unsupported.",
+				new EnvelopeExtractor().expandToInclude(doc.getDocumentElement(), crs, envelope));
+		assertTrue("Expected envelope to be unchanged.", envelope.isNull());
+	}
+
+	@Test
+	public void envelopeOfClassifiedGeometryWithMixedDimensions() throws Exception {
+		String xml = "<gml:LineString xmlns:gml='http://www.opengis.net/gml/3.2' srsName='EPSG:4326'>"
+				+ "<gml:posList srsDimension='3'>10 20 100 11 21 200</gml:posList></gml:LineString>";
+		Document doc = docBuilder.parse(new InputSource(new StringReader(xml)));
+		GeometryDescriptor descriptor = GeometryClassifier.classify(doc.getDocumentElement());
+		assertEquals("Unexpected vertex count.", 2, descriptor.getVertexCount());
+		Envelope envelope = new Envelope();
+		assertTrue("Expected supported geometry.",
+				new EnvelopeExtractor().expandToInclude(descriptor, CRS.forCode("EPSG:4326"), envelope));
+		assertEquals(new Envelope(10, 11, 20, 21), envelope);
+	}
+
+	private Envelope arcEnvelope() throws Exception {
+		Document doc = docBuilder.parse(getClass().getResourceAsStream("/gml/Curve-Arc.xml"));
+		Envelope envelope = new Envelope();
+		new EnvelopeExtractor().expandToInclude(doc.getDocumentElement(), 2, envelope);
+		return envelope;
+	}
+
+}
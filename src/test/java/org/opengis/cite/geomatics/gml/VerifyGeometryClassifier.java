@@ -0,0 +1,86 @@
+package org.opengis.cite.geomatics.gml;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+public class VerifyGeometryClassifier {
+
+	private static DocumentBuilder docBuilder;
+
+	@BeforeClass
+	public static void initParser() throws Exception {
+		DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+		dbf.setNamespaceAware(true);
+		docBuilder = dbf.newDocumentBuilder();
+	}
+
+	@Test
+	public void classifyLineString() throws Exception {
+		Document doc = docBuilder.parse(getClass().getResourceAsStream("/gml/LineString.xml"));
+		GeometryDescriptor descriptor = GeometryClassifier.classify(doc.getDocumentElement());
+		assertEquals("LineString", descriptor.getType());
+		assertFalse("Expected a primitive.", descriptor.isAggregate());
+		assertFalse("Expected no patches.", descriptor.hasSurfacePatches());
+		assertEquals("Unexpected vertex count.", 3, descriptor.getVertexCount());
+		assertEquals("Unexpected coordinate dimension.", 0, descriptor.getCoordinateDimension());
+		assertEquals("urn:ogc:def:crs:EPSG::4326", descriptor.getSrsName());
+	}
+
+	@Test
+	public void classifySurfaceWithPatches() throws Exception {
+		Document doc = docBuilder.parse(getClass().getResourceAsStream("/gml/Surface-PolygonPatch-1.xml"));
+		GeometryDescriptor descriptor = GeometryClassifier.classify(doc.getDocumentElement());
+		assertTrue("Expected patches.", descriptor.hasSurfacePatches());
+		assertEquals("Unexpected vertex count.", 51, descriptor.getVertexCount());
+	}
+
+	@Test
+	public void classifyMultiSurface() throws Exception {
+		Document doc = docBuilder.parse(getClass().getResourceAsStream("/gml/MultiSurface.xml"));
+		GeometryDescriptor descriptor = GeometryClassifier.classify(doc.getDocumentElement());
+		assertTrue("Expected an aggregate.", descriptor.isAggregate());
+		assertFalse("Expected no patches.", descriptor.hasSurfacePatches());
+		assertEquals("urn:ogc:def:crs:EPSG::4258", descriptor.getSrsName());
+	}
+
+	@Test
+	public void memberInheritsCoordinateDimension() throws Exception {
+		Document doc = docBuilder.parse(getClass().getResourceAsStream("/gml/MultiCurve.xml"));
+		GeometryDescriptor descriptor = GeometryClassifier.classify(doc.getDocumentElement());
+		assertEquals("Unexpected coordinate dimension.", 2, descriptor.getCoordinateDimension());
+		assertEquals("Unexpected vertex count.", 9, descriptor.getVertexCount());
+		Element member = (Element) doc.getElementsByTagNameNS(GmlUtils.GML_NS, "LineString").item(0);
+		GeometryDescriptor memberDescriptor = GeometryClassifier.classify(member);
+		assertEquals("Unexpected coordinate dimension of member.", 2, memberDescriptor.getCoordinateDimension());
+		assertEquals("Unexpected vertex count of member.", 5, memberDescriptor.getVertexCount());
+	}
+
+	@Test
+	public void classifyPointInFeatureCollection() throws Exception {
+		Document doc = docBuilder.parse(getClass().getResourceAsStream("/gml/FeatureCollection-1.xml"));
+		List<GeometryDescriptor> descriptors = GeometryClassifier
+			.classify(doc.getElementsByTagNameNS(GmlUtils.GML_NS, "Point"));
+		assertEquals("Unexpected number of descriptors.", 1, descriptors.size());
+		GeometryDescriptor descriptor = descriptors.get(0);
+		assertEquals("Unexpected vertex count.", 1, descriptor.getVertexCount());
+		assertEquals("urn:ogc:def:crs:EPSG::4326", descriptor.getSrsName());
+		Element point = descriptor.getElement();
+		assertTrue("Expected DOM to be unchanged.", point.getAttribute("srsName").isEmpty());
+	}
+
+	@Test
+	public void countTokens() {
+		assertEquals(0, GeometryClassifier.countTokens("  \n "));
+		assertEquals(4, GeometryClassifier.countTokens("\n  1.0 2.0\t3.0  4.0\n"));
+	}
+
+}
@@ -7,6 +7,7 @@ import jakarta.xml.bind.JAXBElement;
 import jakarta.xml.bind.JAXBException;
 import jakarta.xml.bind.Unmarshaller;
 
+import org.geotoolkit.gml.xml.AbstractGeometry;
 import org.geotoolkit.gml.xml.v321.CurveType;
 import org.apache.sis.xml.MarshallerPool;
 import org.junit.BeforeClass;
@@ -63,4 +64,32 @@ public class VerifyGeometryCoordinateList {
 		assertEquals("Unexpected number of control points.", 3, coords.length);
 	}
 
+	@Test
+	@SuppressWarnings("unchecked")
+	public void createPointSetForMultiCurve() throws JAXBException {
+		URL url = this.getClass().getResource("/gml/MultiCurve-2.xml");
+		JAXBElement<AbstractGeometry> result = (JAXBElement<AbstractGeometry>) gmlUnmarshaller.unmarshal(url);
+		GeometryCoordinateList iut = new GeometryCoordinateList();
+		Coordinate[] coords = iut.getCoordinateList(result.getValue());
+		assertEquals("Unexpected number of coordinates.", 4, coords.length);
+		assertEquals("Unexpected first coordinate.", new Coordinate(51.921, 5.519), coords[0]);
+		assertEquals("Unexpected last coordinate.", new Coordinate(47.472, 9.695), coords[3]);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void createPointSetForMultiPoint() throws JAXBException {
+		URL url = this.getClass().getResource("/gml/MultiPoint-1.xml");
+		JAXBElement<AbstractGeometry> result = (JAXBElement<AbstractGeometry>) gmlUnmarshaller.unmarshal(url);
+		GeometryCoordinateList iut = new GeometryCoordinateList();
+		Coordinate[] coords = iut.getCoordinateList(result.getValue());
+		assertEquals("Unexpected number of coordinates.", 2, coords.length);
+		assertEquals("Unexpected second coordinate.", new Coordinate(492722, 5455253), coords[1]);
+	}
+
+	@Test
+	public void coordinateSetFactoryIsShared() {
+		assertSame(GeometryType.SURFACE.getCoordinateSetFactory(), GeometryType.SURFACE.getCoordinateSetFactory());
+	}
+
 }
@@ -0,0 +1,163 @@
+package org.opengis.cite.geomatics.gml;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Document;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+
+public class VerifyGeometryStore {
+
+	private static final GeometryFactory GEOM_FACTORY = new GeometryFactory();
+
+	private static DocumentBuilder docBuilder;
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	@BeforeClass
+	public static void initFixture() throws Exception {
+		DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+		dbf.setNamespaceAware(true);
+		docBuilder = dbf.newDocumentBuilder();
+	}
+
+	@Test
+	public void storeAndReopen() throws Exception {
+		File file = new File(tmpFolder.getRoot(), "geometries.bin");
+		byte[] key = key("1");
+		Geometry point = GEOM_FACTORY.createPoint(new Coordinate(49.2, -123.1));
+		try (GeometryStore iut = new GeometryStore(file.toPath(), 4096)) {
+			assertTrue("Expected geometry to be stored.", iut.put(key, point, "urn:ogc:def:crs:EPSG::4326"));
+		}
+		try (GeometryStore iut = new GeometryStore(file.toPath(), 4096)) {
+			GeometryStore.StoredGeometry stored = iut.get(key);
+			assertNotNull("Expected stored geometry.", stored);
+			assertTrue("Unexpected geometry: " + stored.getGeometry(), point.equalsExact(stored.getGeometry()));
+			assertEquals("urn:ogc:def:crs:EPSG::4326", stored.getCrsCode());
+		}
+	}
+
+	@Test
+	public void evictLeastRecentlyUsed() throws Exception {
+		File file = new File(tmpFolder.getRoot(), "geometries.bin");
+		try (GeometryStore iut = new GeometryStore(file.toPath(), 4096)) {
+			for (int i = 0; i < 200; i++) {
+				iut.put(key(Integer.toString(i)), GEOM_FACTORY.createPoint(new Coordinate(i, i)), "");
+				assertNotNull("Expected first geometry.", iut.get(key("0")));
+			}
+			assertTrue("File exceeds maximum size: " + iut.fileSize(), iut.fileSize() <= 4096);
+			assertNotNull("Expected first geometry.", iut.get(key("0")));
+			assertNull("Expected geometry to be evicted.", iut.get(key("1")));
+		}
+	}
+
+	@Test
+	public void writeAfterCompaction() throws Exception {
+		File file = new File(tmpFolder.getRoot(), "geometries.bin");
+		byte[] key = key("last");
+		try (GeometryStore iut = new GeometryStore(file.toPath(), 4096)) {
+			long fileSize = 0;
+			for (int i = 0; iut.fileSize() >= fileSize; i++) {
+				fileSize = iut.fileSize();
+				assertTrue("Expected geometry to be stored.",
+						iut.put(key(Integer.toString(i)), GEOM_FACTORY.createPoint(new Coordinate(i, i)), ""));
+			}
+			assertFalse("Expected store to remain writable after compaction.", iut.isReadOnly());
+			assertTrue("Expected geometry to be stored.",
+					iut.put(key, GEOM_FACTORY.createPoint(new Coordinate(1, 2)), ""));
+		}
+		try (GeometryStore iut = new GeometryStore(file.toPath(), 4096)) {
+			assertFalse("Expected writable store.", iut.isReadOnly());
+			assertNotNull("Expected geometry written after compaction.", iut.get(key));
+		}
+	}
+
+	@Test
+	public void discardDamagedRecord() throws Exception {
+		File file = new File(tmpFolder.getRoot(), "geometries.bin");
+		try (GeometryStore iut = new GeometryStore(file.toPath(), 4096)) {
+			iut.put(key("1"), GEOM_FACTORY.createPoint(new Coordinate(1, 1)), "");
+			iut.put(key("2"), GEOM_FACTORY.createPoint(new Coordinate(2, 2)), "");
+		}
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.seek(raf.length() - 8);
+			raf.write(0x7F);
+		}
+		try (GeometryStore iut = new GeometryStore(file.toPath(), 4096)) {
+			assertEquals("Unexpected number of records.", 1, iut.size());
+			assertNull("Expected damaged record to be discarded.", iut.get(key("2")));
+		}
+	}
+
+	@Test
+	public void keyIgnoresPrefixesAndWhitespace() throws Exception {
+		Document doc1 = parse("<gml:Point xmlns:gml='http://www.opengis.net/gml/3.2' gml:id='p1'>\n"
+				+ "  <gml:pos> 49.2   -123.1 </gml:pos>\n</gml:Point>");
+		Document doc2 = parse("<g:Point xmlns:g='http://www.opengis.net/gml/3.2' g:id='p1'><g:pos>49.2 -123.1</g:pos>"
+				+ "<!-- comment --></g:Point>");
+		byte[] key1 = GeometryStore.computeKey(doc1.getDocumentElement(), "EPSG:4326");
+		assertTrue("Expected same key.",
+				Arrays.equals(key1, GeometryStore.computeKey(doc2.getDocumentElement(), "EPSG:4326")));
+		assertFalse("Expected different key for other CRS.",
+				Arrays.equals(key1, GeometryStore.computeKey(doc2.getDocumentElement(), "EPSG:32610")));
+	}
+
+	@Test
+	public void keyIgnoresRedundantSrsName() throws Exception {
+		Document doc1 = parse("<gml:Point xmlns:gml='http://www.opengis.net/gml/3.2' srsName='EPSG:4326'>"
+				+ "<gml:pos>49.2 -123.1</gml:pos></gml:Point>");
+		Document doc2 = parse("<gml:Point xmlns:gml='http://www.opengis.net/gml/3.2'>"
+				+ "<gml:pos>49.2 -123.1</gml:pos></gml:Point>");
+		assertTrue("Expected same key.", Arrays.equals(GeometryStore.computeKey(doc1.getDocumentElement(), "EPSG:4326"),
+				GeometryStore.computeKey(doc2.getDocumentElement(), "EPSG:4326")));
+	}
+
+	@Test
+	public void noKeyForGeometryWithReference() throws Exception {
+		Document doc = parse("<gml:MultiCurve xmlns:gml='http://www.opengis.net/gml/3.2'"
+				+ " xmlns:xlink='http://www.w3.org/1999/xlink'><gml:curveMember xlink:href='#c1'/></gml:MultiCurve>");
+		assertNull("Expected no key.", GeometryStore.computeKey(doc.getDocumentElement(), "EPSG:4326"));
+	}
+
+	@Test
+	public void lockIsHeldDuringCompaction() throws Exception {
+		File file = new File(tmpFolder.getRoot(), "geometries.bin");
+		try (GeometryStore iut = new GeometryStore(file.toPath(), 4096)) {
+			long fileSize = 0;
+			for (int i = 0; iut.fileSize() >= fileSize; i++) {
+				fileSize = iut.fileSize();
+				iut.put(key(Integer.toString(i)), GEOM_FACTORY.createPoint(new Coordinate(i, i)), "");
+			}
+			try (GeometryStore other = new GeometryStore(file.toPath(), 4096)) {
+				assertTrue("Expected other store to be read-only.", other.isReadOnly());
+			}
+			assertFalse("Expected store to remain writable.", iut.isReadOnly());
+		}
+	}
+
+	private static byte[] key(String value) throws Exception {
+		return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static Document parse(String xml) throws Exception {
+		return docBuilder.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+	}
+
+}
@@ -0,0 +1,118 @@
+package org.opengis.cite.geomatics.gml;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.stream.StreamSource;
+
+import org.geotoolkit.gml.xml.AbstractGeometry;
+import org.geotoolkit.gml.xml.v321.CompositeCurveType;
+import org.geotoolkit.gml.xml.v321.OrientableCurveType;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.w3c.dom.Document;
+
+import org.locationtech.jts.geom.Coordinate;
+
+public class VerifyGmlIdIndex {
+
+	private static final String SRS_NAME = "urn:ogc:def:crs:EPSG::4326";
+
+	private Document doc;
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Before
+	public void parseDocument() throws Exception {
+		DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+		dbf.setNamespaceAware(true);
+		DocumentBuilder docBuilder = dbf.newDocumentBuilder();
+		doc = docBuilder.parse(getClass().getResourceAsStream("/gml/CurveMembers-xlink.xml"));
+	}
+
+	@Test
+	public void indexIsSharedByDocument() {
+		GmlIdIndex index = GmlIdIndex.forDocument(doc);
+		assertEquals("Unexpected number of identified elements.", 7, index.size());
+		assertSame("Expected same index.", index, GmlIdIndex.forDocument(doc));
+		assertEquals("LineString", index.getElement("#LineString-2").getLocalName());
+	}
+
+	@Test
+	public void compositeCurveWithLocalReferences() {
+		GmlIdIndex index = GmlIdIndex.forDocument(doc);
+		CompositeCurveType curve = (CompositeCurveType) index.getGeometry("#CompositeCurve-1");
+		CurveCoordinateListFactory iut = new CurveCoordinateListFactory();
+		List<Coordinate> coordList = iut.getCoordinateList(curve);
+		assertEquals("Unexpected number of points.", 5, coordList.size());
+		assertEquals("Unexpected last point.", new Coordinate(49.36, -123.18), coordList.get(4));
+	}
+
+	@Test
+	public void orientableCurveWithLocalReference() {
+		GmlIdIndex index = GmlIdIndex.forDocument(doc);
+		OrientableCurveType curve = (OrientableCurveType) index.getGeometry("#OrientableCurve-1");
+		CurveCoordinateListFactory iut = new CurveCoordinateListFactory();
+		List<Coordinate> coordList = iut.getCoordinateList(curve);
+		assertEquals("Unexpected number of points.", 3, coordList.size());
+		assertEquals("Unexpected first point.", new Coordinate(49.54, -123.18), coordList.get(0));
+		// the memoized member coordinates are unaffected by the reversal
+		List<Coordinate> memberCoords = index.getCoordinates("#LineString-1", SRS_NAME, iut::createCoordinateList);
+		assertEquals("Unexpected first point of member.", new Coordinate(49.70, -123.00), memberCoords.get(0));
+	}
+
+	@Test
+	public void memberCoordinatesAreMemoized() {
+		GmlIdIndex index = GmlIdIndex.forDocument(doc);
+		CurveCoordinateListFactory factory = new CurveCoordinateListFactory();
+		List<Coordinate> first = index.getCoordinates("#LineString-2", SRS_NAME, factory::createCoordinateList);
+		List<Coordinate> second = index.getCoordinates("LineString-2", SRS_NAME, factory::createCoordinateList);
+		assertSame("Expected memoized coordinates.", first, second);
+	}
+
+	@Test
+	public void circularReference() {
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("Circular reference");
+		GmlIdIndex index = GmlIdIndex.forDocument(doc);
+		CompositeCurveType curve = (CompositeCurveType) index.getGeometry("#CompositeCurve-A");
+		curve.setSrsName(SRS_NAME);
+		CurveCoordinateListFactory iut = new CurveCoordinateListFactory();
+		iut.getCoordinateList(curve);
+	}
+
+	@Test
+	public void localReferenceNotFromDocument() throws Exception {
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("#LineString-1");
+		AbstractGeometry multiCurve = GmlUtils
+			.unmarshalGMLGeometry(new StreamSource(getClass().getResourceAsStream("/gml/CurveMembers-xlink.xml")));
+		CompositeCurveType curve = (CompositeCurveType) GeometryAggregates.getMembers(multiCurve).get(2);
+		new CurveCoordinateListFactory().getCoordinateList(curve);
+	}
+
+	@Test
+	public void memoizedGeometryDiscardedWhenSrsNameChanges() {
+		GmlIdIndex index = GmlIdIndex.forDocument(doc);
+		AbstractGeometry lineString = index.getGeometry("#LineString-1");
+		assertNull(lineString.getSrsName());
+		index.getElement("#LineString-1").setAttribute("srsName", "urn:ogc:def:crs:EPSG::4269");
+		assertSame("Expected same index.", index, GmlIdIndex.forDocument(doc));
+		assertEquals("Unexpected srsName.", "urn:ogc:def:crs:EPSG::4269",
+				index.getGeometry("#LineString-1").getSrsName());
+	}
+
+	@Test
+	public void indexDiscardedWhenDocumentChanges() {
+		GmlIdIndex index = GmlIdIndex.forDocument(doc);
+		doc.getDocumentElement().removeChild(doc.getDocumentElement().getLastChild());
+		assertNotSame("Expected new index.", index, GmlIdIndex.forDocument(doc));
+	}
+
+}
@@ -21,8 +21,10 @@ import javax.xml.transform.dom.DOMSource;
 import org.geotoolkit.gml.xml.AbstractCurveSegment;
 import org.geotoolkit.gml.xml.AbstractGeometry;
 import org.geotoolkit.gml.xml.Point;
+import org.geotoolkit.gml.xml.v321.CurvePropertyType;
 import org.geotoolkit.gml.xml.v321.CurveType;
 import org.geotoolkit.gml.xml.v321.LengthType;
+import org.geotoolkit.gml.xml.v321.MultiCurveType;
 import org.apache.sis.xml.MarshallerPool;
 import org.hamcrest.core.StringContains;
 import org.junit.BeforeClass;
@@ -149,6 +151,40 @@ public class VerifyGmlUtils {
 		assertTrue("Expect hull to contain center point " + centerPoint.toText(), polygon.contains(centerPoint));
 	}
 
+	@Test
+	@SuppressWarnings("unchecked")
+	public void computeConvexHullForMultiCurve() throws JAXBException {
+		URL url = this.getClass().getResource("/gml/MultiCurve-2.xml");
+		JAXBElement<AbstractGeometry> result = (JAXBElement<AbstractGeometry>) gmlUnmarshaller.unmarshal(url);
+		Geometry hull = GmlUtils.computeConvexHull(result.getValue());
+		assertEquals("Convex hull has unexpected geometry type.", "Polygon", hull.getGeometryType());
+		assertEquals("Unexpected number of hull points.", 5, hull.getNumPoints());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void computeConvexHullForMultiCurveWithInheritedCRS() throws JAXBException {
+		URL url = this.getClass().getResource("/gml/MultiCurve-Curve.xml");
+		JAXBElement<MultiCurveType> result = (JAXBElement<MultiCurveType>) gmlUnmarshaller.unmarshal(url);
+		MultiCurveType multiCurve = result.getValue();
+		Geometry hull = GmlUtils.computeConvexHull(multiCurve);
+		assertEquals("Convex hull has unexpected geometry type.", "Polygon", hull.getGeometryType());
+		for (CurvePropertyType member : multiCurve.getCurveMember()) {
+			assertNull("Member srsName was modified.", member.getAbstractCurve().getSrsName());
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void computeConvexHullForMultiSurface() throws JAXBException {
+		URL url = this.getClass().getResource("/gml/MultiSurface.xml");
+		JAXBElement<AbstractGeometry> result = (JAXBElement<AbstractGeometry>) gmlUnmarshaller.unmarshal(url);
+		Geometry hull = GmlUtils.computeConvexHull(result.getValue());
+		Polygon polygon = Polygon.class.cast(hull);
+		Geometry point = geomFactory.createPoint(new Coordinate(52.27, 6.93));
+		assertTrue("Expect hull to contain point " + point.toText(), polygon.contains(point));
+	}
+
 	@Test
 	@SuppressWarnings("unchecked")
 	public void inferPointsOnArcByCenterPoint() throws JAXBException {
@@ -261,4 +297,16 @@ public class VerifyGmlUtils {
 		assertTrue(Date.from(zdt.toInstant()).equals(tmInstant.getDate()));
 	}
 
+	@Test
+	public void instantFromGmlTimeInstantAsYearMonth() throws SAXException, IOException {
+		Document gmlInstant = docBuilder
+			.parse(this.getClass().getResourceAsStream("/gml/temporal/TimeInstant-YearMonth.xml"));
+		TemporalGeometricPrimitive tmPrimitive = GmlUtils
+			.gmlToTemporalGeometricPrimitive(gmlInstant.getDocumentElement());
+		assertTrue("Expected object of type " + Instant.class.getName(), Instant.class.isInstance(tmPrimitive));
+		Instant tmInstant = Instant.class.cast(tmPrimitive);
+		ZonedDateTime zdt = ZonedDateTime.parse("2016-05-31T22:00:00Z", DateTimeFormatter.ISO_DATE_TIME);
+		assertTrue(Date.from(zdt.toInstant()).equals(tmInstant.getDate()));
+	}
+
 }
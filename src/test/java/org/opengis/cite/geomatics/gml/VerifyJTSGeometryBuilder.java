@@ -0,0 +1,64 @@
+package org.opengis.cite.geomatics.gml;
+
+import static org.junit.Assert.*;
+
+import java.net.URL;
+
+import jakarta.xml.bind.JAXBElement;
+import jakarta.xml.bind.Unmarshaller;
+
+import org.apache.sis.xml.MarshallerPool;
+import org.geotoolkit.geometry.jts.JTS;
+import org.geotoolkit.gml.xml.AbstractGeometry;
+import org.geotoolkit.gml.xml.GMLMarshallerPool;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.Polygon;
+
+public class VerifyJTSGeometryBuilder {
+
+	private static Unmarshaller gmlUnmarshaller;
+
+	@BeforeClass
+	public static void initFixture() throws Exception {
+		MarshallerPool pool = GMLMarshallerPool.getInstance();
+		gmlUnmarshaller = pool.acquireUnmarshaller();
+	}
+
+	@Test
+	public void curveWithThreeSegments() throws Exception {
+		Geometry geom = JTSGeometryBuilder.toJTSGeometry(unmarshal("/gml/Curve-tripartite.xml"));
+		assertTrue("Expected a LineString.", geom instanceof LineString);
+		assertEquals("Unexpected number of points on curve.", 9, geom.getNumPoints());
+		assertNotNull("Expected CRS to be set.", JTS.findCoordinateReferenceSystem(geom));
+	}
+
+	@Test
+	public void surfaceWithPolygonPatch() throws Exception {
+		Geometry geom = JTSGeometryBuilder.toJTSGeometry(unmarshal("/gml/Surface-PolygonPatch-1.xml"));
+		assertTrue("Expected a Polygon.", geom instanceof Polygon);
+		Polygon polygon = (Polygon) geom;
+		assertEquals("Unexpected number of interior rings.", 1, polygon.getNumInteriorRing());
+		assertEquals("Unexpected number of exterior points.", 42, polygon.getExteriorRing().getNumPoints());
+	}
+
+	@Test
+	public void multiCurveWithCurveMembers() throws Exception {
+		Geometry geom = JTSGeometryBuilder.toJTSGeometry(unmarshal("/gml/MultiCurve-Curve.xml"));
+		assertEquals("MultiLineString", geom.getGeometryType());
+		assertEquals("Unexpected number of members.", 2, geom.getNumGeometries());
+		// all segments are included (the shared end point appears twice)
+		assertEquals("Unexpected number of points on curve.", 5, geom.getGeometryN(0).getNumPoints());
+	}
+
+	@SuppressWarnings("unchecked")
+	private AbstractGeometry unmarshal(String resource) throws Exception {
+		URL url = getClass().getResource(resource);
+		JAXBElement<AbstractGeometry> result = (JAXBElement<AbstractGeometry>) gmlUnmarshaller.unmarshal(url);
+		return result.getValue();
+	}
+
+}
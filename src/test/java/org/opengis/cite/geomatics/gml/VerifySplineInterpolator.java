@@ -0,0 +1,75 @@
+package org.opengis.cite.geomatics.gml;
+
+import static org.junit.Assert.*;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class VerifySplineInterpolator {
+
+	private static final int N = SplineInterpolator.POINTS_PER_SPAN;
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void clampedQuadraticBSpline() {
+		double[] ctrl = { 0, 0, 1, 2, 3, 2, 4, 0 };
+		double[] knots = SplineInterpolator.clampedUniformKnots(4, 2);
+		assertArrayEquals(new double[] { 0, 0, 0, 0.5, 1, 1, 1 }, knots, 0);
+		CoordinateBuffer buffer = new CoordinateBuffer();
+		SplineInterpolator.bspline(ctrl, 4, 2, knots, buffer);
+		assertEquals("Unexpected number of points.", 2 * N + 1, buffer.size());
+		assertPoint(0, 0, buffer, 0);
+		// at the interior knot u = 0.5 a quadratic B-spline passes through the midpoint
+		// of control points P1 and P2
+		assertPoint(2, 2, buffer, N);
+		assertPoint(4, 0, buffer, 2 * N);
+	}
+
+	@Test
+	public void bsplineWithTooFewKnots() {
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("Expected 7 knot values but found 6.");
+		SplineInterpolator.bspline(new double[] { 0, 0, 1, 2, 3, 2, 4, 0 }, 4, 2, new double[] { 0, 0, 0, 1, 1, 1 },
+				new CoordinateBuffer());
+	}
+
+	@Test
+	public void cubicSplineWithEndTangents() {
+		CoordinateBuffer buffer = new CoordinateBuffer();
+		SplineInterpolator.cubicSpline(new double[] { 0, 0, 1, 0 }, 2, new double[] { 0, 1 },
+				new double[] { 0, -1 }, buffer);
+		assertEquals("Unexpected number of points.", N + 1, buffer.size());
+		// Hermite cubic: x(t) = 3t^2 - 2t^3, y(t) = t - t^2
+		assertPoint(0, 0, buffer, 0);
+		assertPoint(0.5, 0.25, buffer, N / 2);
+		assertPoint(1, 0, buffer, N);
+	}
+
+	@Test
+	public void cubicSplinePassesThroughPoints() {
+		double[] pts = { 0, 0, 3, 4, 6, 0, 10, 2 };
+		double[] startTangent = { 0, 1 };
+		double[] endTangent = { 1, 0 };
+		CoordinateBuffer buffer = new CoordinateBuffer();
+		SplineInterpolator.cubicSpline(pts, 4, startTangent, endTangent, buffer);
+		assertEquals("Unexpected number of points.", 3 * N + 1, buffer.size());
+		for (int i = 0; i < 4; i++) {
+			assertPoint(pts[i * 2], pts[i * 2 + 1], buffer, i * N);
+		}
+		int last = buffer.size() - 1;
+		assertEquals("Unexpected direction at start.", Math.atan2(startTangent[1], startTangent[0]),
+				Math.atan2(buffer.getY(1) - buffer.getY(0), buffer.getX(1) - buffer.getX(0)), 0.2);
+		assertEquals("Unexpected direction at end.", Math.atan2(endTangent[1], endTangent[0]),
+				Math.atan2(buffer.getY(last) - buffer.getY(last - 1), buffer.getX(last) - buffer.getX(last - 1)),
+				0.2);
+	}
+
+	private static void assertPoint(double x, double y, CoordinateBuffer buffer, int index) {
+		assertEquals("Unexpected x-ordinate at index " + index, x, buffer.getX(index), 1E-9);
+		assertEquals("Unexpected y-ordinate at index " + index, y, buffer.getY(index), 1E-9);
+	}
+
+}
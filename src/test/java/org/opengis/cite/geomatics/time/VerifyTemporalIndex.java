@@ -0,0 +1,89 @@
+package org.opengis.cite.geomatics.time;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.Test;
+import org.opengis.cite.geomatics.gml.GmlUtils;
+import org.opengis.temporal.RelativePosition;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+public class VerifyTemporalIndex {
+
+	private static final RelativePosition[] RELATIONS = { RelativePosition.BEFORE, RelativePosition.AFTER,
+			RelativePosition.BEGINS, RelativePosition.ENDS, RelativePosition.DURING, RelativePosition.EQUALS,
+			RelativePosition.CONTAINS, RelativePosition.OVERLAPS, RelativePosition.MEETS,
+			RelativePosition.OVERLAPPED_BY, RelativePosition.MET_BY, RelativePosition.BEGUN_BY,
+			RelativePosition.ENDED_BY };
+
+	@Test
+	public void emptyIndex() {
+		TemporalIndex<TimeSpan> index = new TemporalIndex<>(Collections.<TimeSpan>emptyList(), Function.identity());
+		assertEquals(0, index.size());
+		for (RelativePosition relation : RELATIONS) {
+			assertTrue(index.find(relation, TimeSpan.period(0, 10)).isEmpty());
+		}
+	}
+
+	@Test
+	public void findAgreesWithRelativePosition() {
+		Random random = new Random(48);
+		List<TimeSpan> spans = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			// small coordinates, so that shared end points are common
+			long begin = random.nextInt(100);
+			long end = (random.nextInt(4) == 0) ? begin : begin + random.nextInt(30);
+			spans.add(TimeSpan.period(begin, end));
+		}
+		TemporalIndex<TimeSpan> index = new TemporalIndex<>(spans, Function.identity());
+		for (int q = 0; q < 200; q++) {
+			long begin = random.nextInt(110) - 5;
+			long end = (q % 5 == 0) ? begin : begin + random.nextInt(40);
+			TimeSpan query = TimeSpan.period(begin, end);
+			int total = 0;
+			for (RelativePosition relation : RELATIONS) {
+				List<TimeSpan> expected = new ArrayList<>();
+				for (TimeSpan span : spans) {
+					if (span.relativePosition(query) == relation) {
+						expected.add(span);
+					}
+				}
+				List<TimeSpan> actual = index.find(relation, query);
+				Collections.sort(expected);
+				Collections.sort(actual);
+				assertEquals(relation.name() + " " + query, expected, actual);
+				assertEquals(expected.size(), index.count(relation, query));
+				total += actual.size();
+			}
+			assertEquals("Every span has exactly one relative position.", spans.size(), total);
+		}
+	}
+
+	@Test
+	public void indexGmlTimePrimitives() throws Exception {
+		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+		factory.setNamespaceAware(true);
+		DocumentBuilder builder = factory.newDocumentBuilder();
+		Document doc = builder.parse(getClass().getResourceAsStream("/gml/FeatureCollection-2.xml"));
+		NodeList instants = doc.getElementsByTagNameNS(GmlUtils.GML_NS, "TimeInstant");
+		TemporalIndex<Element> index = TemporalIndex.create(instants);
+		assertEquals(2, index.size());
+		TimeSpan query = TimeSpan.of(java.time.Instant.parse("2016-06-28T00:00:00Z"),
+				java.time.Instant.parse("2016-07-01T00:00:00Z"));
+		List<Element> during = index.find(RelativePosition.DURING, query);
+		assertEquals(1, during.size());
+		assertEquals("t-1", during.get(0).getAttributeNS(GmlUtils.GML_NS, "id"));
+		assertEquals(1, index.count(RelativePosition.AFTER, query));
+	}
+
+}
@@ -0,0 +1,77 @@
+package org.opengis.cite.geomatics.time;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class VerifyTemporalPositionCodec {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void parseDateTime() {
+		assertEquals(Instant.parse("2016-06-30T19:51:29Z"), TemporalPositionCodec.parse("2016-06-30T12:51:29-07:00"));
+		assertEquals(Instant.parse("2016-06-30T12:51:29.123456789Z"),
+				TemporalPositionCodec.parse("2016-06-30T12:51:29.1234567891Z"));
+		assertEquals(Instant.parse("2016-07-01T00:00:00Z"), TemporalPositionCodec.parse("2016-06-30T24:00:00"));
+		assertEquals(Instant.parse("-0044-03-15T12:00:00Z"), TemporalPositionCodec.parse("-0044-03-15T12:00:00Z"));
+		assertEquals(Instant.parse("+12016-01-01T00:00:00Z"), TemporalPositionCodec.parse("12016-01-01T00:00:00Z"));
+	}
+
+	@Test
+	public void parseDateAndPartialDates() {
+		assertEquals(Instant.parse("2016-02-28T23:00:00Z"), TemporalPositionCodec.parse("2016-02-29+01:00"));
+		assertEquals(Instant.parse("2016-06-01T05:00:00Z"), TemporalPositionCodec.parse("2016-06-05:00"));
+		assertEquals(Instant.parse("2016-01-01T00:00:00Z"), TemporalPositionCodec.parse(" 2016Z\n"));
+		assertEquals(1_451_606_400_000L, TemporalPositionCodec.parseEpochMilli("2016"));
+		assertEquals(-1_000_000L, TemporalPositionCodec.parseEpochNanos("1969-12-31T23:59:59.999Z"));
+	}
+
+	@Test
+	public void invalidDay() {
+		thrown.expect(DateTimeParseException.class);
+		thrown.expectMessage("Day out of range");
+		TemporalPositionCodec.parse("2015-02-29");
+	}
+
+	@Test
+	public void invalidOffset() {
+		thrown.expect(DateTimeParseException.class);
+		thrown.expectMessage("Expected ':'");
+		TemporalPositionCodec.parse("2016-06-30T12:51:29+0200");
+	}
+
+	@Test
+	public void formatDateTime() throws Exception {
+		assertEquals("2016-06-30T19:51:29Z",
+				TemporalPositionCodec.formatDateTime(Instant.parse("2016-06-30T19:51:29Z"), ZoneOffset.UTC));
+		assertEquals("2016-06-30T12:51:29.05-07:00", TemporalPositionCodec
+			.formatDateTime(Instant.parse("2016-06-30T19:51:29.050Z"), ZoneOffset.ofHours(-7)));
+		StringBuilder date = new StringBuilder();
+		TemporalPositionCodec.formatDate(Instant.parse("2016-06-30T22:30:00Z"), ZoneOffset.ofHoursMinutes(5, 30),
+				date);
+		assertEquals("2016-07-01+05:30", date.toString());
+	}
+
+	@Test
+	public void formatAndParseAgreeWithJavaTime() {
+		Random random = new Random(50);
+		for (int i = 0; i < 10000; i++) {
+			Instant instant = Instant.ofEpochSecond(random.nextInt() * 4L, random.nextInt(1_000_000_000));
+			ZoneOffset offset = ZoneOffset.ofTotalSeconds((random.nextInt(113) - 56) * 900);
+			String dateTime = TemporalPositionCodec.formatDateTime(instant, offset);
+			assertEquals(dateTime, instant, OffsetDateTime.parse(dateTime).toInstant());
+			assertEquals(dateTime, instant, TemporalPositionCodec.parse(dateTime));
+		}
+	}
+
+}
@@ -2,15 +2,21 @@ package org.opengis.cite.geomatics.time;
 
 import static org.junit.Assert.*;
 
+import java.time.Duration;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.TimeZone;
 import java.util.TreeSet;
+import java.util.stream.IntStream;
 
 import org.geotoolkit.temporal.factory.DefaultTemporalFactory;
+import org.hamcrest.CoreMatchers;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -104,6 +110,37 @@ public class VerifyTemporalUtils {
 		assertTrue("Expected duration: P7M", extent.length().toString().startsWith("P7M"));
 	}
 
+	@Test
+	public void temporalExtentOfUnorderedTimes() {
+		ZonedDateTime t1 = ZonedDateTime.of(2015, 12, 3, 10, 15, 30, 0, ZoneId.of("Z"));
+		List<TemporalGeometricPrimitive> tmList = new ArrayList<>();
+		tmList.add(TM_FACTORY.createInstant(Date.from(t1.toInstant())));
+		// a period DURING another one, which a TreeSet with TemporalComparator would drop
+		tmList.add(TM_FACTORY.createPeriod(TM_FACTORY.createInstant(Date.from(t1.minusMonths(2).toInstant())),
+				TM_FACTORY.createInstant(Date.from(t1.plusMonths(3).toInstant()))));
+		tmList.add(TM_FACTORY.createPeriod(TM_FACTORY.createInstant(Date.from(t1.minusMonths(1).toInstant())),
+				TM_FACTORY.createInstant(Date.from(t1.plusMonths(1).toInstant()))));
+		Period extent = TemporalUtils.temporalExtent(tmList, Duration.ZERO);
+		assertEquals(Date.from(t1.minusMonths(2).toInstant()), extent.getBeginning().getDate());
+		assertEquals(Date.from(t1.plusMonths(3).toInstant()), extent.getEnding().getDate());
+	}
+
+	@Test
+	public void temporalExtentOfParallelStream() {
+		ZonedDateTime t1 = ZonedDateTime.of(2015, 12, 3, 10, 15, 30, 0, ZoneId.of("Z"));
+		Period extent = TemporalUtils.temporalExtent(IntStream.range(0, 10000)
+			.parallel()
+			.mapToObj(i -> TM_FACTORY.createInstant(Date.from(t1.plusMinutes(i).toInstant()))), Duration.ofDays(1));
+		assertEquals(Date.from(t1.minusDays(1).toInstant()), extent.getBeginning().getDate());
+		assertEquals(Date.from(t1.plusMinutes(9999).plusDays(1).toInstant()), extent.getEnding().getDate());
+	}
+
+	@Test
+	public void temporalExtentOfNothing() {
+		thrown.expect(IllegalArgumentException.class);
+		TemporalUtils.temporalExtent(new ArrayList<TemporalGeometricPrimitive>(), Duration.ZERO);
+	}
+
 	@Test
 	public void add1Day() {
 		ZonedDateTime t1 = ZonedDateTime.of(2015, 12, 3, 10, 15, 30, 0, ZoneId.of("Z"));
@@ -120,6 +157,20 @@ public class VerifyTemporalUtils {
 		assertTrue("Expected date 2015-11-03", TemporalUtils.getDateTime(newInstant).startsWith("2015-11-03"));
 	}
 
+	@Test
+	public void getDateTimeWithSubMinuteOffset() {
+		TimeZone defaultZone = TimeZone.getDefault();
+		try {
+			// Monrovia Mean Time (-00:44:30) was used until 1972
+			TimeZone.setDefault(TimeZone.getTimeZone("Africa/Monrovia"));
+			Instant instant = TM_FACTORY.createInstant(Date.from(java.time.Instant.parse("1930-01-01T00:00:00Z")));
+			assertEquals("1929-12-31T23:16:00.000-0044", TemporalUtils.getDateTime(instant));
+		}
+		finally {
+			TimeZone.setDefault(defaultZone);
+		}
+	}
+
 	@Test
 	public void splitPeriodInto2Intervals() {
 		ZonedDateTime t1 = ZonedDateTime.of(2015, 12, 3, 10, 15, 30, 0, ZoneId.of("Z"));
@@ -131,4 +182,36 @@ public class VerifyTemporalUtils {
 		assertTrue("", subIntervals.get(0).relativePosition(subIntervals.get(1)).equals(RelativePosition.MEETS));
 	}
 
+	@Test
+	public void splitShortPeriod() {
+		Instant startPeriod = TM_FACTORY.createInstant(new Date(1000));
+		Period period = TM_FACTORY.createPeriod(startPeriod, TM_FACTORY.createInstant(new Date(1002)));
+		List<Period> subIntervals = TemporalUtils.splitInterval(period, 5);
+		assertEquals(5, subIntervals.size());
+		assertEquals(new Date(1000), subIntervals.get(0).getBeginning().getDate());
+		assertEquals(new Date(1002), subIntervals.get(4).getEnding().getDate());
+		Period zeroLength = TM_FACTORY.createPeriod(startPeriod, startPeriod);
+		assertEquals(3, TemporalUtils.splitInterval(zeroLength, 3).size());
+	}
+
+	@Test
+	public void parseTemporalPositions() {
+		assertEquals(java.time.Instant.parse("2016-06-30T19:51:29Z"),
+				TemporalUtils.parseTemporalPosition("2016-06-30T12:51:29-07:00"));
+		assertEquals(java.time.Instant.parse("2016-06-30T12:51:29.5Z"),
+				TemporalUtils.parseTemporalPosition(" 2016-06-30T12:51:29.5 "));
+		assertEquals(java.time.Instant.parse("2016-06-29T22:00:00Z"),
+				TemporalUtils.parseTemporalPosition("2016-06-30+02:00"));
+		assertEquals(java.time.Instant.parse("2016-06-01T00:00:00Z"), TemporalUtils.parseTemporalPosition("2016-06"));
+		assertEquals(java.time.Instant.parse("2016-01-01T00:00:00Z"), TemporalUtils.parseTemporalPosition("2016"));
+	}
+
+	@Test
+	public void parseInvalidTemporalPosition() {
+		thrown.expect(RuntimeException.class);
+		thrown.expectMessage("Not an ISO instant: 2015-02-29");
+		thrown.expectCause(CoreMatchers.isA(DateTimeParseException.class));
+		TemporalUtils.parseTemporalPosition("2015-02-29");
+	}
+
 }
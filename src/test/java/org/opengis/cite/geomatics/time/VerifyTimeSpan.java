@@ -0,0 +1,121 @@
+package org.opengis.cite.geomatics.time;
+
+import static org.junit.Assert.*;
+
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+
+import org.geotoolkit.temporal.factory.DefaultTemporalFactory;
+import org.junit.Test;
+import org.opengis.temporal.Instant;
+import org.opengis.temporal.Period;
+import org.opengis.temporal.RelativePosition;
+import org.opengis.temporal.TemporalFactory;
+import org.opengis.temporal.TemporalGeometricPrimitive;
+
+public class VerifyTimeSpan {
+
+	private static final TemporalFactory TM_FACTORY = new DefaultTemporalFactory();
+
+	private static final long HOUR = 3_600_000_000_000L;
+
+	@Test
+	public void allPeriodRelations() {
+		TimeSpan period = TimeSpan.period(10 * HOUR, 20 * HOUR);
+		assertEquals(RelativePosition.BEFORE, period.relativePosition(TimeSpan.period(21 * HOUR, 30 * HOUR)));
+		assertEquals(RelativePosition.AFTER, period.relativePosition(TimeSpan.period(0, 9 * HOUR)));
+		assertEquals(RelativePosition.MEETS, period.relativePosition(TimeSpan.period(20 * HOUR, 30 * HOUR)));
+		assertEquals(RelativePosition.MET_BY, period.relativePosition(TimeSpan.period(0, 10 * HOUR)));
+		assertEquals(RelativePosition.OVERLAPS, period.relativePosition(TimeSpan.period(15 * HOUR, 30 * HOUR)));
+		assertEquals(RelativePosition.OVERLAPPED_BY, period.relativePosition(TimeSpan.period(0, 15 * HOUR)));
+		assertEquals(RelativePosition.BEGINS, period.relativePosition(TimeSpan.period(10 * HOUR, 30 * HOUR)));
+		assertEquals(RelativePosition.BEGUN_BY, period.relativePosition(TimeSpan.period(10 * HOUR, 15 * HOUR)));
+		assertEquals(RelativePosition.ENDS, period.relativePosition(TimeSpan.period(0, 20 * HOUR)));
+		assertEquals(RelativePosition.ENDED_BY, period.relativePosition(TimeSpan.period(15 * HOUR, 20 * HOUR)));
+		assertEquals(RelativePosition.DURING, period.relativePosition(TimeSpan.period(0, 30 * HOUR)));
+		assertEquals(RelativePosition.CONTAINS, period.relativePosition(TimeSpan.period(12 * HOUR, 18 * HOUR)));
+		assertEquals(RelativePosition.EQUALS, period.relativePosition(TimeSpan.period(10 * HOUR, 20 * HOUR)));
+	}
+
+	@Test
+	public void instantRelations() {
+		TimeSpan period = TimeSpan.period(10 * HOUR, 20 * HOUR);
+		TimeSpan instant = TimeSpan.instant(10 * HOUR);
+		assertEquals(RelativePosition.BEGINS, instant.relativePosition(period));
+		assertEquals(RelativePosition.BEGUN_BY, period.relativePosition(instant));
+		assertEquals(RelativePosition.ENDS, TimeSpan.instant(20 * HOUR).relativePosition(period));
+		assertEquals(RelativePosition.ENDED_BY, period.relativePosition(TimeSpan.instant(20 * HOUR)));
+		assertEquals(RelativePosition.DURING, TimeSpan.instant(15 * HOUR).relativePosition(period));
+		assertEquals(RelativePosition.CONTAINS, period.relativePosition(TimeSpan.instant(15 * HOUR)));
+		assertEquals(RelativePosition.AFTER, TimeSpan.instant(21 * HOUR).relativePosition(period));
+		assertEquals(RelativePosition.EQUALS, instant.relativePosition(TimeSpan.instant(10 * HOUR)));
+		assertEquals(RelativePosition.BEFORE, instant.relativePosition(TimeSpan.instant(11 * HOUR)));
+	}
+
+	@Test
+	public void relationsAgreeWithGeoAPIPrimitives() {
+		TimeSpan period = TimeSpan.period(10 * HOUR, 20 * HOUR);
+		TimeSpan[] instants = { TimeSpan.instant(5 * HOUR), TimeSpan.instant(15 * HOUR), TimeSpan.instant(25 * HOUR) };
+		for (TimeSpan instant : instants) {
+			TemporalGeometricPrimitive tmInstant = instant.toTemporalPrimitive();
+			TemporalGeometricPrimitive tmPeriod = period.toTemporalPrimitive();
+			assertEquals(tmInstant.relativePosition(tmPeriod), instant.relativePosition(period));
+			assertEquals(tmPeriod.relativePosition(tmInstant), period.relativePosition(instant));
+		}
+	}
+
+	@Test
+	public void fromGeoAPIPeriod() {
+		Instant begin = TM_FACTORY.createInstant(new Date(1_000));
+		Instant end = TM_FACTORY.createInstant(new Date(61_000));
+		TimeSpan span = TimeSpan.from(TM_FACTORY.createPeriod(begin, end));
+		assertFalse(span.isInstant());
+		assertEquals(1_000_000_000L, span.getBeginning());
+		assertEquals(60_000_000_000L, span.getDuration());
+		TemporalGeometricPrimitive period = span.toTemporalPrimitive();
+		assertTrue(period instanceof Period);
+		assertEquals(new Date(61_000), ((Period) period).getEnding().getDate());
+	}
+
+	@Test
+	public void javaInstantRoundTrip() {
+		java.time.Instant instant = java.time.Instant.parse("1969-12-31T23:59:59.123456789Z");
+		TimeSpan span = TimeSpan.of(instant);
+		assertTrue(span.isInstant());
+		assertEquals(-876_543_211L, span.getBeginning());
+		assertEquals(instant, TimeSpan.toJavaInstant(span.getBeginning()));
+		assertEquals("1969-12-31T23:59:59.123456789Z", span.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void periodEndsBeforeBeginning() {
+		TimeSpan.period(2, 1);
+	}
+
+	@Test
+	public void plusExactAndCalendarUnits() {
+		TimeSpan instant = TimeSpan.of(java.time.Instant.parse("2016-01-31T12:00:00Z"));
+		assertEquals(instant.getBeginning() + 90 * 60_000_000_000L,
+				instant.plus(90, ChronoUnit.MINUTES).getBeginning());
+		TimeSpan period = TimeSpan.of(java.time.Instant.parse("2016-01-01T00:00:00Z"),
+				java.time.Instant.parse("2016-01-02T00:00:00Z"));
+		TimeSpan shifted = period.plus(-2, ChronoUnit.HOURS);
+		assertEquals(period.getDuration(), shifted.getDuration());
+		assertEquals(RelativePosition.OVERLAPPED_BY, period.relativePosition(shifted));
+		TimeSpan nextYear = instant.plus(1, ChronoUnit.YEARS);
+		assertEquals(366 * 24 * HOUR, nextYear.getBeginning() - instant.getBeginning());
+	}
+
+	@Test
+	public void splitIntoContiguousIntervals() {
+		TimeSpan period = TimeSpan.period(0, 10 * HOUR + 2);
+		List<TimeSpan> subIntervals = period.split(3);
+		assertEquals(3, subIntervals.size());
+		for (int i = 1; i < subIntervals.size(); i++) {
+			assertEquals(RelativePosition.MEETS, subIntervals.get(i - 1).relativePosition(subIntervals.get(i)));
+		}
+		assertEquals(10 * HOUR, subIntervals.get(2).getEnding());
+	}
+
+}